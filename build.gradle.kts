@@ -2,6 +2,8 @@ plugins {
     java
     antlr
     application
+    // JMH微基准测试: ./gradlew jmh (源码在src/jmh/java)
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.minimysql"
@@ -37,6 +39,15 @@ application {
 
 tasks.test {
     useJUnitPlatform()
+    // 大数据量测试默认跳过: ./gradlew test -Pminimysql.largeTests=true
+    systemProperty("minimysql.largeTests", findProperty("minimysql.largeTests") ?: "false")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
 }
 
 tasks.compileJava {
@@ -0,0 +1,141 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 堆外页帧基准测试
+ *
+ * 缓冲池只能放下数据文件的1/4,随机读页不断淘汰、缺页:
+ * - offHeap=false: 每次缺页new一个16KB的byte[],淘汰后变成垃圾
+ * - offHeap=true: 页直接读进FrameArena的堆外帧,淘汰时帧被复用
+ *
+ * 每轮结束时打印堆使用量和这一轮的GC次数/耗时增量。
+ *
+ * 运行: ./gradlew jmh -Pjmh.includes=FrameArenaBenchmark
+ * 加 -prof gc 可以看到每次操作的分配字节数(offHeap=true应接近0)。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameArenaBenchmark {
+
+    /** 数据文件页数 */
+    private static final int FILE_PAGES = 4096;
+
+    /** 缓冲池页数 */
+    private static final int POOL_PAGES = FILE_PAGES / 4;
+
+    /** 页内容是否放在堆外 */
+    @Param({"false", "true"})
+    boolean offHeap;
+
+    private Path dataDir;
+    private BufferPool bufferPool;
+
+    /** 访问序列:随机页号,长度是2的幂 */
+    private int[] pageIds;
+    private int cursor;
+
+    private long gcCountBefore;
+    private long gcTimeBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("frame-arena-bench");
+
+        BufferPool writer = new BufferPool(FILE_PAGES, dataDir.toString());
+        for (int i = 0; i < FILE_PAGES; i++) {
+            PageFrame frame = writer.newPage(0, i);
+            ((DataPage) frame.getPage()).insertRow(("page" + i).getBytes());
+            frame.markDirty();
+        }
+        writer.close();
+
+        bufferPool = new BufferPool(POOL_PAGES, dataDir.toString(), 1, ReplacementPolicy.lru(), offHeap);
+
+        pageIds = new int[1 << 16];
+        long seed = 42;
+        for (int i = 0; i < pageIds.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            pageIds[i] = (int) ((seed >>> 33) % FILE_PAGES);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void recordGcBefore() {
+        gcCountBefore = gcCount();
+        gcTimeBefore = gcTimeMillis();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportMemory() {
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        BufferPoolStats stats = bufferPool.getStats();
+        System.out.printf("%n[offHeap=%s] heapUsed=%d KB, gcCount=+%d, gcTime=+%d ms, offHeapFrames=%d, heapFallbacks=%d%n",
+                offHeap, heapUsed / 1024, gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore,
+                stats.getOffHeapFrames(), stats.getHeapFrameFallbacks());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        bufferPool.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public int readWithEviction() {
+        int pageId = pageIds[cursor];
+        cursor = (cursor + 1) & (pageIds.length - 1);
+
+        PageFrame frame = bufferPool.pinPage(0, pageId);
+        try {
+            return ((DataPage) frame.getPage()).getRowCount();
+        } finally {
+            frame.unpin(false);
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
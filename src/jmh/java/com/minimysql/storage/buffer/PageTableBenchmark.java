@@ -0,0 +1,88 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页表查找基准测试
+ *
+ * 对比缓冲池命中路径上的页表查找:
+ * - linkedHashMap: 原来的LinkedHashMap&lt;Long, PageFrame&gt;(access-order,每次get装箱并移动链表)
+ * - pageTable: 开放寻址的PageTable(原始long键,不分配对象)
+ *
+ * 运行: ./gradlew jmh -Pjmh.includes=PageTableBenchmark
+ * 加 -prof gc 可以看到每次操作的分配字节数(pageTable应为0)。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PageTableBenchmark {
+
+    /** 缓存的页数(缓冲池分区容量) */
+    @Param({"1024", "65536"})
+    int pages;
+
+    private LinkedHashMap<Long, PageFrame> linkedHashMap;
+    private PageTable pageTable;
+
+    /** 查找序列:打乱的页键,长度是2的幂 */
+    private long[] lookupKeys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        linkedHashMap = new LinkedHashMap<>(16, 0.75f, true);
+        pageTable = new PageTable(pages);
+
+        // 8个文件(表/索引交替),每个文件pages/8页
+        long[] keys = new long[pages];
+        for (int i = 0; i < pages; i++) {
+            int fileId = i % 8;
+            int pageId = i / 8;
+            boolean isTableData = fileId % 2 == 0;
+
+            DataPage page = new DataPage();
+            page.setPageId(pageId);
+            PageFrame frame = new PageFrame(page);
+
+            keys[i] = BufferPool.cacheKey(fileId, pageId, isTableData);
+            pageTable.put(keys[i], frame);
+            linkedHashMap.put(keys[i], frame);
+        }
+
+        int lookups = Integer.highestOneBit(pages * 4);
+        lookupKeys = new long[lookups];
+        long seed = 42;
+        for (int i = 0; i < lookups; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            lookupKeys[i] = keys[(int) ((seed >>> 33) % pages)];
+        }
+    }
+
+    @Benchmark
+    public PageFrame linkedHashMapGet() {
+        return linkedHashMap.get(nextKey());
+    }
+
+    @Benchmark
+    public PageFrame pageTableGet() {
+        return pageTable.get(nextKey());
+    }
+
+    private long nextKey() {
+        long key = lookupKeys[cursor];
+        cursor = (cursor + 1) & (lookupKeys.length - 1);
+        return key;
+    }
+}
@@ -0,0 +1,124 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.buffer.PageFrame;
+import com.minimysql.storage.page.IndexPage;
+import com.minimysql.storage.page.PageManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * B+树点查基准测试
+ *
+ * 对比两种点查方式(树全部在缓冲池中):
+ * - materialized: 原来的方式,每访问一页都用BPlusTreeNode.fromBuffer反序列化整个节点
+ *   (每个键复制一个byte[] + 装箱的Integer/复制的byte[]),页被淘汰或从映射读入后每次都要重来
+ * - inPlace: searchInt直接在页内容上二分查找,只为找到的值分配结果对象
+ *
+ * 运行: ./gradlew jmh -Pjmh.includes=BPlusTreeSearchBenchmark
+ * 加 -prof gc 可以看到每次操作的分配字节数。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BPlusTreeSearchBenchmark {
+
+    private static final int TABLE_ID = 1;
+
+    /** 树中的键数 */
+    @Param({"1000", "50000"})
+    int keys;
+
+    private Path dataDir;
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+    private SecondaryIndex index;
+
+    /** 查找序列:随机键,长度是2的幂 */
+    private int[] lookupKeys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("bptree-search-bench");
+        bufferPool = new BufferPool(4096, dataDir.toString());
+        pageManager = new PageManager(dataDir.toString());
+        index = new SecondaryIndex(TABLE_ID, "idx_bench", "c", 0, false, null, bufferPool, pageManager);
+
+        for (int i = 0; i < keys; i++) {
+            index.insertInt(i * 2, i);
+        }
+
+        lookupKeys = new int[1 << 16];
+        long seed = 42;
+        for (int i = 0; i < lookupKeys.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            lookupKeys[i] = (int) ((seed >>> 33) % keys) * 2;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        bufferPool.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public Object inPlace() {
+        return index.searchInt(nextKey());
+    }
+
+    @Benchmark
+    public Object materialized() {
+        byte[] key = KeyEncoder.encodeInt(nextKey());
+        int pageId = 0;
+
+        while (true) {
+            PageFrame frame = bufferPool.pinIndexPage(index.getIndexId(), pageId);
+            try {
+                ByteBuffer buffer = frame.getPage().getBuffer().position(IndexPage.HEADER_SIZE);
+                BPlusTreeNode node = BPlusTreeNode.fromBuffer(buffer);
+
+                int pos = node.findKeyPosition(key);
+                if (node.isLeaf()) {
+                    return pos < node.getKeyCount() && KeyEncoder.compare(node.getKey(pos), key) == 0
+                            ? node.getValue(pos) : null;
+                }
+                pageId = node.getChild(pos);
+            } finally {
+                frame.unpin(false);
+            }
+        }
+    }
+
+    private int nextKey() {
+        int key = lookupKeys[cursor];
+        cursor = (cursor + 1) & (lookupKeys.length - 1);
+        return key;
+    }
+}
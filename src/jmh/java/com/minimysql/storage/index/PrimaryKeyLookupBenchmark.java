@@ -0,0 +1,124 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 主键点查多线程基准测试
+ *
+ * 多个线程同时在同一个聚簇索引上点查(只读,树全部在缓冲池中),比较吞吐量:
+ * - optimistic: selectByPrimaryKey,乐观读(版本号校验),不加页锁
+ * - latched: 同样的下降,每层加共享页锁(逐层交接)
+ *
+ * 读写锁的共享锁也要修改锁状态,所有点查都从根开始,根页锁所在的缓存行在核之间来回传递;
+ * 乐观读只读版本号,线程数增加时吞吐量应接近线性增长。
+ *
+ * 运行: ./gradlew jmh -Pjmh.includes=PrimaryKeyLookupBenchmark
+ * 线程数由@Threads决定,用 -t 覆盖可以得到不同线程数下的扩展曲线。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class PrimaryKeyLookupBenchmark {
+
+    private static final int TABLE_ID = 1;
+
+    /** 表的行数 */
+    @Param({"100000"})
+    int rows;
+
+    private Path dataDir;
+    private BufferPool bufferPool;
+    private ClusteredIndex index;
+
+    /** 每个线程自己的查找序列 */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final int[] lookupKeys = new int[1 << 16];
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp(PrimaryKeyLookupBenchmark benchmark) {
+            long seed = System.identityHashCode(this);
+            for (int i = 0; i < lookupKeys.length; i++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                lookupKeys[i] = (int) ((seed >>> 33) % benchmark.rows);
+            }
+        }
+
+        int next() {
+            int key = lookupKeys[position];
+            position = (position + 1) & (lookupKeys.length - 1);
+            return key;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("pk-lookup-bench");
+        bufferPool = new BufferPool(8192, dataDir.toString());
+
+        Table table = new Table(TABLE_ID, "users", Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 64, false),
+                new Column("age", DataType.INT, false)
+        ));
+        index = new ClusteredIndex(TABLE_ID, "id", 0, bufferPool, new PageManager(dataDir.toString()));
+        index.setTable(table);
+
+        Row[] data = new Row[rows];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Row(new Object[]{i, "user-" + i, 20 + i % 50});
+        }
+        index.bulkLoadRows(Arrays.asList(data).iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        bufferPool.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public Row optimistic(Cursor cursor) {
+        return index.selectByPrimaryKey(cursor.next());
+    }
+
+    @Benchmark
+    public Object latched(Cursor cursor) {
+        return index.searchKeyLatched(KeyEncoder.encodeInt(cursor.next()));
+    }
+}
@@ -19,6 +19,10 @@ NOT:         'NOT';
 NULL_:       'NULL';
 PRIMARY:     'PRIMARY';
 KEY:         'KEY';
+UNIQUE:      'UNIQUE';
+INDEX:       'INDEX';
+ON:          'ON';
+INCLUDE:     'INCLUDE';
 
 // 数据类型
 INT:         'INT';
@@ -91,6 +95,7 @@ MULTILINE_COMMENT:
 sqlStatement:
     createTableStatement
     | dropTableStatement
+    | createIndexStatement
     | selectStatement
     | insertStatement
     | updateStatement
@@ -124,6 +129,14 @@ dropTableStatement:
     DROP TABLE tableName=identifier SEMICOLON?
 ;
 
+// ==================== CREATE INDEX ====================
+createIndexStatement:
+    CREATE UNIQUE? INDEX indexName=identifier ON tableName=identifier
+    LPAREN columnName=identifier RPAREN
+    (INCLUDE LPAREN includeColumns+=identifier (COMMA includeColumns+=identifier)* RPAREN)?
+    SEMICOLON?
+;
+
 // ==================== SELECT ====================
 selectStatement:
     SELECT selectItems (FROM tableName=identifier) (WHERE whereExpr=expression)? SEMICOLON?
@@ -0,0 +1,400 @@
+package com.minimysql.executor;
+
+import com.minimysql.executor.operator.FilterOperator;
+import com.minimysql.executor.operator.IndexLookupOperator;
+import com.minimysql.executor.operator.IndexOnlyScanOperator;
+import com.minimysql.executor.operator.IndexRangeScanOperator;
+import com.minimysql.executor.operator.ScanOperator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.storage.index.BPlusTree;
+import com.minimysql.storage.index.ClusteredIndex;
+import com.minimysql.storage.index.KeyEncoder;
+import com.minimysql.storage.index.SecondaryIndex;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AccessPath - 访问路径:算子树的叶子节点 + 剩下的WHERE条件
+ *
+ * 从WHERE的AND条件中找出可以用索引的条件(sargable):列 比较运算 常量,
+ * 列是主键或某个二级索引的索引列。用掉的条件由索引保证,剩下的条件交给FilterOperator。
+ *
+ * 选择顺序(基于规则,不估算代价,与MySQL的EXPLAIN type从好到差一致):
+ * 1. const: 主键 = 常量 → IndexLookupOperator(聚簇索引)
+ * 2. const/ref: 二级索引列 = 常量 → 唯一索引优先;索引覆盖查询涉及的列时
+ *    IndexOnlyScanOperator等值查找(不回表),否则IndexLookupOperator(回表)
+ * 3. range: 主键上的范围 → IndexRangeScanOperator(聚簇索引)
+ * 4. range: 二级索引列上的范围 → IndexRangeScanOperator(二级索引,回表)
+ * 5. index: 有覆盖索引并且索引列NOT NULL → IndexOnlyScanOperator全索引扫描
+ *    (索引列为NULL的行不在二级索引里,可以为NULL的列上全索引扫描会少行)
+ * 6. ALL: ScanOperator全表扫描
+ *
+ * 只有结果与FilterOperator完全一致的条件才用索引:
+ * - 常量转换成列类型时不能丢失精度(INT列上的 id = 5.5 不用索引)
+ * - ExpressionEvaluator把NULL当成最小值:可以为NULL的列上,写成 &lt; 、&lt;= 的条件对NULL为真,
+ *   而二级索引不存NULL,这样的条件不用索引
+ *
+ * MySQL对应: 优化器的range分析(get_key_scans_params)和ref访问的选择,
+ * 这里只看单列条件,不合并多个索引(index_merge)。
+ *
+ * "Good taste": 每个条件先规范成"列 运算符 值"(常量在左边时翻转运算符),
+ * 之后的处理不再区分两种写法
+ */
+final class AccessPath {
+
+    /** 算子树的叶子节点 */
+    private final Operator operator;
+
+    /** 访问路径没有保证的WHERE条件,null表示全部由访问路径保证 */
+    private final Expression residual;
+
+    /** 决定读取顺序的索引列(二级索引列或主键列) */
+    private final String keyColumn;
+
+    private AccessPath(Operator operator, Expression residual, String keyColumn) {
+        this.operator = operator;
+        this.residual = residual;
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * 为表上的WHERE条件选择访问路径
+     *
+     * @param table 表对象
+     * @param where WHERE条件,null表示没有条件
+     * @param referencedColumns 查询涉及的列(判断覆盖索引)
+     * @return 访问路径
+     */
+    static AccessPath choose(Table table, Expression where, Set<String> referencedColumns) {
+        List<Expression> conjuncts = new ArrayList<>();
+        if (where != null) {
+            flattenAnd(where, conjuncts);
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        for (Expression conjunct : conjuncts) {
+            Predicate predicate = Predicate.of(conjunct, table);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+
+        // 1. 主键等值
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        Bounds primaryKey = clusteredIndex == null
+                ? new Bounds()
+                : Bounds.of(predicates, clusteredIndex.getPrimaryKeyColumn());
+        if (primaryKey.equality != null) {
+            return new AccessPath(
+                    new IndexLookupOperator(table, clusteredIndex, primaryKey.equality.value),
+                    residual(conjuncts, primaryKey.used()),
+                    clusteredIndex.getPrimaryKeyColumn());
+        }
+
+        // 2. 二级索引等值(唯一索引优先)
+        SecondaryIndex lookupIndex = null;
+        Bounds lookupBounds = null;
+        SecondaryIndex rangeIndex = null;
+        Bounds rangeBounds = null;
+        SecondaryIndex coveringIndex = null;
+        for (String indexName : table.getSecondaryIndexNames()) {
+            SecondaryIndex index = table.getSecondaryIndex(indexName);
+            if (index == null) {
+                continue;
+            }
+
+            Bounds bounds = Bounds.of(predicates, index.getColumnName());
+            if (bounds.equality != null && (lookupIndex == null || (index.isUnique() && !lookupIndex.isUnique()))) {
+                lookupIndex = index;
+                lookupBounds = bounds;
+            }
+            if (bounds.isRange() && rangeIndex == null) {
+                rangeIndex = index;
+                rangeBounds = bounds;
+            }
+            // 二级索引不存NULL:索引列可以为NULL时,全索引扫描会漏掉这些行
+            if (coveringIndex == null && index.covers(referencedColumns)
+                    && !table.getColumn(index.getColumnName()).isNullable()) {
+                coveringIndex = index;
+            }
+        }
+
+        if (lookupIndex != null) {
+            Object value = lookupBounds.equality.value;
+            Operator lookup = lookupIndex.covers(referencedColumns)
+                    ? new IndexOnlyScanOperator(table, lookupIndex, value)
+                    : new IndexLookupOperator(table, lookupIndex, value);
+            return new AccessPath(lookup, residual(conjuncts, lookupBounds.used()), lookupIndex.getColumnName());
+        }
+
+        // 3-4. 主键范围,二级索引范围
+        if (primaryKey.isRange()) {
+            return new AccessPath(primaryKey.rangeScan(table, clusteredIndex), residual(conjuncts, primaryKey.used()),
+                    clusteredIndex.getPrimaryKeyColumn());
+        }
+        if (rangeIndex != null) {
+            return new AccessPath(rangeBounds.rangeScan(table, rangeIndex), residual(conjuncts, rangeBounds.used()),
+                    rangeIndex.getColumnName());
+        }
+
+        // 5-6. 全索引扫描,全表扫描
+        if (coveringIndex != null) {
+            return new AccessPath(new IndexOnlyScanOperator(table, coveringIndex), where, coveringIndex.getColumnName());
+        }
+        return new AccessPath(new ScanOperator(table), where,
+                clusteredIndex == null ? null : clusteredIndex.getPrimaryKeyColumn());
+    }
+
+    /**
+     * 算子树的叶子节点
+     */
+    Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * 访问路径没有保证的WHERE条件
+     *
+     * @return 剩下的条件,null表示不需要过滤
+     */
+    Expression getResidual() {
+        return residual;
+    }
+
+    /**
+     * 读取顺序是否由这些列中的某一列决定
+     *
+     * UPDATE修改了决定读取顺序的列时,行在索引中的位置会移到还没有读到的地方,
+     * 边读边改会再次读到同一行(Halloween问题),需要先收集主键再修改。
+     *
+     * @param columns 列名
+     * @return 访问路径按其中某一列的索引顺序读取时返回true
+     */
+    boolean isOrderedByAny(Collection<String> columns) {
+        if (keyColumn == null) {
+            return false;
+        }
+        for (String column : columns) {
+            if (column.equalsIgnoreCase(keyColumn)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 叶子节点加上剩下条件的FilterOperator
+     *
+     * @param columns 表的列定义
+     * @return 没有剩下的条件时就是叶子节点本身
+     */
+    Operator withFilter(List<Column> columns) {
+        return residual == null ? operator : new FilterOperator(operator, residual, columns);
+    }
+
+    /**
+     * 把AND条件展开成列表
+     */
+    private static void flattenAnd(Expression expression, List<Expression> conjuncts) {
+        if (expression instanceof BinaryExpression
+                && ((BinaryExpression) expression).getOperator() == OperatorEnum.AND) {
+            BinaryExpression and = (BinaryExpression) expression;
+            flattenAnd(and.getLeft(), conjuncts);
+            flattenAnd(and.getRight(), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    /**
+     * 去掉用掉的条件,剩下的按原来的顺序重新用AND连接
+     */
+    private static Expression residual(List<Expression> conjuncts, List<Expression> used) {
+        Expression residual = null;
+        for (Expression conjunct : conjuncts) {
+            if (used.stream().anyMatch(u -> u == conjunct)) {
+                continue;
+            }
+            residual = residual == null ? conjunct : new BinaryExpression(residual, OperatorEnum.AND, conjunct);
+        }
+        return residual;
+    }
+
+    /**
+     * 规范化的单列条件: column operator value
+     */
+    private static final class Predicate {
+        final Expression conjunct;
+        final Column column;
+        final OperatorEnum operator;
+        final Object value;
+
+        private Predicate(Expression conjunct, Column column, OperatorEnum operator, Object value) {
+            this.conjunct = conjunct;
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        /**
+         * 解析 列 比较运算 常量(或 常量 比较运算 列)
+         *
+         * @return 规范化的条件,不能用索引时返回null
+         */
+        static Predicate of(Expression conjunct, Table table) {
+            if (!(conjunct instanceof BinaryExpression)) {
+                return null;
+            }
+
+            BinaryExpression binary = (BinaryExpression) conjunct;
+            OperatorEnum operator = binary.getOperator();
+            if (operator != OperatorEnum.EQUAL && operator != OperatorEnum.LESS_THAN
+                    && operator != OperatorEnum.LESS_EQUAL && operator != OperatorEnum.GREATER_THAN
+                    && operator != OperatorEnum.GREATER_EQUAL) {
+                return null;
+            }
+
+            Expression left = binary.getLeft();
+            Expression right = binary.getRight();
+            boolean flipped = false;
+            if (right instanceof ColumnExpression && left instanceof LiteralExpression) {
+                Expression swap = left;
+                left = right;
+                right = swap;
+                flipped = true;
+            }
+            if (!(left instanceof ColumnExpression) || !(right instanceof LiteralExpression)) {
+                return null;
+            }
+
+            Column column = table.getColumn(((ColumnExpression) left).getColumnName());
+            LiteralExpression literal = (LiteralExpression) right;
+            if (column == null || literal.isNull()) {
+                return null;
+            }
+
+            // 按书写的运算符:NULL < x、NULL <= x 在ExpressionEvaluator里为真
+            if (column.isNullable() && (operator == OperatorEnum.LESS_THAN || operator == OperatorEnum.LESS_EQUAL)) {
+                return null;
+            }
+
+            Object value;
+            try {
+                value = column.getType().convertValue(literal.getValue(), column.getName());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (!isLossless(literal.getValue(), value)) {
+                return null;
+            }
+
+            return new Predicate(conjunct, column, flipped ? flip(operator) : operator, value);
+        }
+
+        private static boolean isLossless(Object original, Object converted) {
+            if (original instanceof Number && converted instanceof Number) {
+                return Double.compare(((Number) original).doubleValue(), ((Number) converted).doubleValue()) == 0;
+            }
+            return original.equals(converted);
+        }
+
+        private static OperatorEnum flip(OperatorEnum operator) {
+            switch (operator) {
+                case LESS_THAN: return OperatorEnum.GREATER_THAN;
+                case LESS_EQUAL: return OperatorEnum.GREATER_EQUAL;
+                case GREATER_THAN: return OperatorEnum.LESS_THAN;
+                case GREATER_EQUAL: return OperatorEnum.LESS_EQUAL;
+                default: return operator;
+            }
+        }
+
+        boolean isLowerBound() {
+            return operator == OperatorEnum.GREATER_THAN || operator == OperatorEnum.GREATER_EQUAL;
+        }
+
+        boolean isInclusive() {
+            return operator == OperatorEnum.GREATER_EQUAL || operator == OperatorEnum.LESS_EQUAL;
+        }
+
+        /**
+         * 与另一个同方向的边界比较,哪个更紧
+         */
+        boolean isTighterThan(Predicate other) {
+            int cmp = KeyEncoder.compare(
+                    KeyEncoder.encode(column.getType(), value),
+                    KeyEncoder.encode(column.getType(), other.value));
+            if (cmp == 0) {
+                return !isInclusive() && other.isInclusive();
+            }
+            return isLowerBound() ? cmp > 0 : cmp < 0;
+        }
+    }
+
+    /**
+     * 一列上的等值条件和最紧的上下界
+     */
+    private static final class Bounds {
+        Predicate equality;
+        Predicate lower;
+        Predicate upper;
+
+        static Bounds of(List<Predicate> predicates, String columnName) {
+            Bounds bounds = new Bounds();
+            for (Predicate predicate : predicates) {
+                if (!predicate.column.getName().equalsIgnoreCase(columnName)) {
+                    continue;
+                }
+
+                if (predicate.operator == OperatorEnum.EQUAL) {
+                    if (bounds.equality == null) {
+                        bounds.equality = predicate;
+                    }
+                } else if (predicate.isLowerBound()) {
+                    if (bounds.lower == null || predicate.isTighterThan(bounds.lower)) {
+                        bounds.lower = predicate;
+                    }
+                } else if (bounds.upper == null || predicate.isTighterThan(bounds.upper)) {
+                    bounds.upper = predicate;
+                }
+            }
+            return bounds;
+        }
+
+        boolean isRange() {
+            return lower != null || upper != null;
+        }
+
+        /**
+         * 索引保证了的条件
+         */
+        List<Expression> used() {
+            List<Expression> used = new ArrayList<>(2);
+            if (equality != null) {
+                used.add(equality.conjunct);
+                return used;
+            }
+            if (lower != null) {
+                used.add(lower.conjunct);
+            }
+            if (upper != null) {
+                used.add(upper.conjunct);
+            }
+            return used;
+        }
+
+        IndexRangeScanOperator rangeScan(Table table, BPlusTree index) {
+            return new IndexRangeScanOperator(table, index,
+                    lower == null ? null : lower.value, lower == null || lower.isInclusive(),
+                    upper == null ? null : upper.value, upper == null || upper.isInclusive());
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package com.minimysql.executor;
 
+import com.minimysql.executor.batch.BatchFilterOperator;
+import com.minimysql.executor.batch.BatchOperator;
+import com.minimysql.executor.batch.BatchScanOperator;
 import com.minimysql.executor.operator.*;
 import com.minimysql.metadata.SchemaManager;
+import com.minimysql.parser.Expression;
 import com.minimysql.parser.Statement;
 import com.minimysql.parser.Statement.StatementType;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.NotExpression;
 import com.minimysql.parser.statements.*;
 import com.minimysql.storage.StorageEngine;
 import com.minimysql.storage.table.Column;
 import com.minimysql.storage.table.Table;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * ExecutionPlan - 查询执行计划
@@ -90,6 +99,9 @@ public class ExecutionPlan {
             case DROP_TABLE:
                 return buildDropTablePlan((DropTableStatement) statement, storageEngine);
 
+            case CREATE_INDEX:
+                return buildCreateIndexPlan((CreateIndexStatement) statement, storageEngine);
+
             default:
                 throw new IllegalArgumentException(
                         "Unsupported statement type: " + statement.getType()
@@ -100,37 +112,27 @@ public class ExecutionPlan {
     /**
      * 构建SELECT查询计划
      *
-     * 执行计划: Scan → Filter → Project
+     * 执行计划: 访问路径 → Filter → Project
      *
      * 设计原则:
-     * - 简单直接: 不实现复杂的查询优化(如索引选择、谓词下推)
-     * - 全表扫描: 始终使用ScanOperator扫描全表
-     * - 先过滤后投影: 先执行WHERE条件过滤,再执行SELECT列投影
+     * - 简单直接: 基于规则选择访问路径,不做代价估算
+     * - 访问路径: 主键/二级索引上的等值和范围条件走索引,有覆盖索引时只读索引,
+     *   否则全表扫描(见AccessPath)
+     * - 先过滤后投影: 先执行索引没有保证的WHERE条件,再执行SELECT列投影
      *
      * @param statement SELECT语句
      * @param storageEngine 存储引擎
-     * @return Operator树(Scan → Filter → Project)
+     * @return Operator树(访问路径 → Filter → Project)
      */
     private static Operator buildSelectPlan(SelectStatement statement, StorageEngine storageEngine) {
         // 1. 获取表对象
         String tableName = statement.getTableName();
         Table table = getTable(storageEngine, tableName);
 
-        // 2. 创建ScanOperator(全表扫描)
-        ScanOperator scan = new ScanOperator(table);
-
-        // 3. 如果有WHERE条件,创建FilterOperator
-        Operator source = scan;
-        if (statement.getWhereClause().isPresent()) {
-            FilterOperator filter = new FilterOperator(
-                    scan,
-                    statement.getWhereClause().get(),
-                    table.getColumns()
-            );
-            source = filter;
-        }
+        // 2. 选择访问路径,剩下的WHERE条件用FilterOperator过滤
+        Operator source = buildFilteredAccessPath(statement, table);
 
-        // 4. 如果有SELECT列表,创建ProjectOperator
+        // 3. 如果有SELECT列表,创建ProjectOperator
         // 注意: 如果SELECT *,则不需要ProjectOperator
         if (!statement.isSelectAll()) {
             ProjectOperator project = new ProjectOperator(
@@ -144,6 +146,102 @@ public class ExecutionPlan {
         return source;
     }
 
+    /**
+     * 选择SELECT的访问路径(算子树的叶子节点)
+     *
+     * 规则见AccessPath:主键等值 → 二级索引等值 → 主键范围 → 二级索引范围
+     * → 覆盖索引扫描 → 全表扫描。
+     *
+     * MySQL对应: EXPLAIN的type列(const/ref/range/index/ALL)
+     *
+     * @param statement SELECT语句
+     * @param table 表对象
+     * @return IndexLookupOperator、IndexRangeScanOperator、IndexOnlyScanOperator或ScanOperator
+     */
+    static Operator buildAccessPath(SelectStatement statement, Table table) {
+        return chooseAccessPath(statement, table).getOperator();
+    }
+
+    /**
+     * 访问路径加上索引没有保证的WHERE条件
+     *
+     * 用掉的条件(例如 id = 5)不再逐行求值;没有剩下的条件时不创建FilterOperator。
+     *
+     * @param statement SELECT语句
+     * @param table 表对象
+     * @return 访问路径,或者包着它的FilterOperator
+     */
+    static Operator buildFilteredAccessPath(SelectStatement statement, Table table) {
+        return chooseAccessPath(statement, table).withFilter(table.getColumns());
+    }
+
+    /**
+     * 批量执行的访问路径加上剩下的WHERE条件
+     *
+     * 只有全表扫描换成批量算子:索引查找和范围扫描读的行少,逐行执行就够了。
+     *
+     * @param statement SELECT语句
+     * @param table 表对象
+     * @return BatchScanOperator,或者包着它的BatchFilterOperator;访问路径走索引时返回null
+     */
+    static BatchOperator buildBatchAccessPath(SelectStatement statement, Table table) {
+        AccessPath path = chooseAccessPath(statement, table);
+        if (!(path.getOperator() instanceof ScanOperator)) {
+            return null;
+        }
+
+        BatchOperator source = new BatchScanOperator(table);
+        return path.getResidual() == null ? source : new BatchFilterOperator(source, path.getResidual());
+    }
+
+    private static AccessPath chooseAccessPath(SelectStatement statement, Table table) {
+        return AccessPath.choose(
+                table,
+                statement.getWhereClause().orElse(null),
+                referencedColumns(statement, table));
+    }
+
+    /**
+     * 收集查询涉及的列名,SELECT *涉及所有列
+     */
+    private static Set<String> referencedColumns(SelectStatement statement, Table table) {
+        Set<String> columns = new LinkedHashSet<>();
+
+        if (statement.isSelectAll()) {
+            for (Column column : table.getColumns()) {
+                columns.add(column.getName());
+            }
+        } else {
+            for (Expression item : statement.getSelectItems()) {
+                collectColumns(item, columns);
+            }
+        }
+
+        statement.getWhereClause().ifPresent(where -> collectColumns(where, columns));
+        return columns;
+    }
+
+    private static void collectColumns(Expression expression, Set<String> columns) {
+        switch (expression.getType()) {
+            case COLUMN:
+                columns.add(((ColumnExpression) expression).getColumnName());
+                break;
+
+            case BINARY:
+                BinaryExpression binary = (BinaryExpression) expression;
+                collectColumns(binary.getLeft(), columns);
+                collectColumns(binary.getRight(), columns);
+                break;
+
+            case NOT:
+                collectColumns(((NotExpression) expression).getOperand(), columns);
+                break;
+
+            default:
+                break;
+        }
+    }
+
     /**
      * 构建INSERT插入计划
      *
@@ -175,7 +273,11 @@ public class ExecutionPlan {
     /**
      * 构建UPDATE更新计划
      *
-     * 执行计划: UpdateOperator(内部使用全表扫描)
+     * 执行计划: UpdateOperator ← 访问路径 → Filter
+     *
+     * 与SELECT使用同样的访问路径选择(见AccessPath):WHERE id = 7 只读一行,
+     * 不再全表扫描。访问路径按某个被修改的列的索引顺序读取时,
+     * UpdateOperator先收集主键再修改(避免同一行被读到两次)。
      *
      * @param statement UPDATE语句
      * @param storageEngine 存储引擎
@@ -186,14 +288,18 @@ public class ExecutionPlan {
         String tableName = statement.getTableName();
         Table table = getTable(storageEngine, tableName);
 
-        // 2. 创建表达式求值器
+        // 2. 选择访问路径(修改需要完整的行,查询涉及所有列)
+        AccessPath path = AccessPath.choose(table, statement.getWhereClause().orElse(null), allColumns(table));
+
+        // 3. 创建表达式求值器
         ExpressionEvaluator evaluator = new ExpressionEvaluator();
 
-        // 3. 创建UpdateOperator
+        // 4. 创建UpdateOperator
         UpdateOperator update = new UpdateOperator(
                 table,
                 statement.getAssignments(),
-                statement.getWhereClause().orElse(null),
+                path.withFilter(table.getColumns()),
+                path.isOrderedByAny(statement.getAssignments().keySet()),
                 evaluator
         );
 
@@ -203,7 +309,10 @@ public class ExecutionPlan {
     /**
      * 构建DELETE删除计划
      *
-     * 执行计划: DeleteOperator(内部使用全表扫描)
+     * 执行计划: DeleteOperator ← 访问路径 → Filter
+     *
+     * 与SELECT使用同样的访问路径选择,边读边删:
+     * 索引游标和全表扫描的迭代器都按最后读到的键恢复位置,删除已经读过的行不影响后面的读取。
      *
      * @param statement DELETE语句
      * @param storageEngine 存储引擎
@@ -214,19 +323,29 @@ public class ExecutionPlan {
         String tableName = statement.getTableName();
         Table table = getTable(storageEngine, tableName);
 
-        // 2. 创建表达式求值器
-        ExpressionEvaluator evaluator = new ExpressionEvaluator();
+        // 2. 选择访问路径
+        AccessPath path = AccessPath.choose(table, statement.getWhereClause().orElse(null), allColumns(table));
 
-        // 3. 创建DeleteOperator
+        // 3. 创建DeleteOperator(WHERE条件已经由访问路径和FilterOperator处理)
         DeleteOperator delete = new DeleteOperator(
                 table,
-                statement.getWhereClause().orElse(null),
-                evaluator
+                path.withFilter(table.getColumns())
         );
 
         return delete;
     }
 
+    /**
+     * 表的所有列名
+     */
+    private static Set<String> allColumns(Table table) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Column column : table.getColumns()) {
+            columns.add(column.getName());
+        }
+        return columns;
+    }
+
     /**
      * 构建CREATE TABLE计划
      *
@@ -269,6 +388,26 @@ public class ExecutionPlan {
         return drop;
     }
 
+    /**
+     * 构建CREATE INDEX计划
+     *
+     * 执行计划: CreateIndexOperator
+     *
+     * @param statement CREATE INDEX语句
+     * @param storageEngine 存储引擎
+     * @return CreateIndexOperator
+     */
+    private static Operator buildCreateIndexPlan(CreateIndexStatement statement, StorageEngine storageEngine) {
+        return new CreateIndexOperator(
+                storageEngine,
+                statement.getTableName(),
+                statement.getIndexName(),
+                statement.getColumnName(),
+                statement.isUnique(),
+                statement.getIncludeColumns()
+        );
+    }
+
     /**
      * 从StorageEngine获取Table对象
      *
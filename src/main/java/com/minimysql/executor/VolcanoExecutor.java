@@ -1,18 +1,17 @@
 package com.minimysql.executor;
 
-import com.minimysql.executor.operator.FilterOperator;
+import com.minimysql.executor.batch.BatchOperator;
+import com.minimysql.executor.batch.BatchProjectOperator;
+import com.minimysql.executor.batch.BatchToRowOperator;
 import com.minimysql.executor.operator.ProjectOperator;
-import com.minimysql.executor.operator.ScanOperator;
-import com.minimysql.parser.Expression;
 import com.minimysql.parser.Statement;
 import com.minimysql.parser.statements.SelectStatement;
 import com.minimysql.result.QueryResult;
+import com.minimysql.result.ResultCursor;
 import com.minimysql.storage.StorageEngine;
 import com.minimysql.storage.table.Column;
-import com.minimysql.storage.table.Row;
 import com.minimysql.storage.table.Table;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,8 +39,16 @@ import java.util.List;
  * VolcanoExecutor executor = new VolcanoExecutor(storageEngine);
  *
  * Statement stmt = parser.parse("SELECT id, name FROM users WHERE age > 18");
- * QueryResult result = executor.execute(stmt);
  *
+ * // 流式:算子树产生一行,调用方拿到一行
+ * try (ResultCursor cursor = executor.openCursor(stmt)) {
+ *     while (cursor.hasNext()) {
+ *         Row row = cursor.next();
+ *     }
+ * }
+ *
+ * // 缓冲:全部读进内存,适合小结果集和表格化输出
+ * QueryResult result = executor.execute(stmt);
  * System.out.println(result);
  * </pre>
  *
@@ -49,11 +56,11 @@ import java.util.List;
  * 1. 接收SelectStatement
  * 2. 从StorageEngine获取Table
  * 3. 构建算子树:
- *    - ScanOperator(table) - 全表扫描
+ *    - 访问路径(table, where) - 全表扫描,或主键/二级索引上的查找和范围扫描
  *    - FilterOperator(scan, where) - WHERE过滤(如果有)
  *    - ProjectOperator(filter, selectItems) - 列投影
- * 4. 遍历算子树,收集所有Row
- * 5. 封装为QueryResult返回
+ * 4. 封装为ResultCursor返回,调用方逐行拉取(openCursor)
+ * 5. 或者读完所有行封装为QueryResult(execute)
  *
  * 算子树示例:
  * <pre>
@@ -67,14 +74,19 @@ import java.util.List;
  *
  * 性能特点:
  * - 全表扫描: O(N)时间复杂度
- * - 按需拉取: 不会一次性加载所有数据到内存
+ * - 按需拉取: 不会一次性加载所有数据到内存,openCursor的第一行不用等整个结果集
  * - 算子开销: 每行数据需要经过多个算子处理
  *
+ * 批量执行(可选,new VolcanoExecutor(storageEngine, true)):
+ * - 全表扫描的查询换成批量算子:BatchScan → BatchFilter → BatchProject → BatchToRow
+ * - 一次处理一批(RowBatch,列数组 + 选择向量),过滤在原始类型数组上循环,
+ *   只有最终输出的行才装箱成Row
+ * - 走索引的查询仍然一行一行执行;两种方式结果完全相同
+ *
  * 设计哲学:
  * - "Bad programmers worry about the code. Good programmers worry about data structures."
  * - 算子树本身就是数据结构,执行逻辑自然涌现
  * - 不实现查询优化器,保持简单
- * - 不实现向量化执行,保持简单
  * - 不实现并行执行,保持简单
  */
 public class VolcanoExecutor {
@@ -82,28 +94,57 @@ public class VolcanoExecutor {
     /** 存储引擎(用于获取表) */
     private final StorageEngine storageEngine;
 
+    /** 全表扫描的查询是否用批量算子执行 */
+    private final boolean vectorized;
+
     /**
-     * 创建火山模型执行器
+     * 创建火山模型执行器(一次一行)
      *
      * @param storageEngine 存储引擎
      */
     public VolcanoExecutor(StorageEngine storageEngine) {
+        this(storageEngine, false);
+    }
+
+    /**
+     * 创建火山模型执行器
+     *
+     * @param storageEngine 存储引擎
+     * @param vectorized 全表扫描的查询是否用批量算子执行
+     */
+    public VolcanoExecutor(StorageEngine storageEngine, boolean vectorized) {
         if (storageEngine == null) {
             throw new IllegalArgumentException("StorageEngine cannot be null");
         }
         this.storageEngine = storageEngine;
+        this.vectorized = vectorized;
     }
 
     /**
-     * 执行SQL语句
+     * 执行SQL语句,把结果全部读进内存
      *
      * 当前只支持SELECT语句,其他语句类型抛出UnsupportedOperationException。
+     * 大结果集用openCursor()逐行读取。
      *
      * @param statement SQL语句
      * @return 查询结果集
      * @throws ExecutionException 执行失败
      */
     public QueryResult execute(Statement statement) {
+        return openCursor(statement).toQueryResult();
+    }
+
+    /**
+     * 执行SQL语句,返回流式结果集
+     *
+     * 算子树在这里构建好,但还没有读任何一行:调用方每取一行,算子树才往下拉一行。
+     * 调用方负责关闭游标(结果取完时自动关闭)。
+     *
+     * @param statement SQL语句
+     * @return 流式结果集
+     * @throws ExecutionException 执行失败
+     */
+    public ResultCursor openCursor(Statement statement) {
         if (statement == null) {
             throw new IllegalArgumentException("Statement cannot be null");
         }
@@ -121,9 +162,9 @@ public class VolcanoExecutor {
      * 执行SELECT查询
      *
      * @param selectStatement SELECT语句
-     * @return 查询结果集
+     * @return 流式结果集
      */
-    private QueryResult executeSelect(SelectStatement selectStatement) {
+    private ResultCursor executeSelect(SelectStatement selectStatement) {
         // 1. 获取表
         String tableName = selectStatement.getTableName();
         Table table = storageEngine.getTable(tableName);
@@ -134,16 +175,11 @@ public class VolcanoExecutor {
         // 2. 构建算子树
         Operator operator = buildOperatorTree(selectStatement, table);
 
-        // 3. 执行查询,收集所有行
-        List<Row> rows = new ArrayList<>();
-        while (operator.hasNext()) {
-            Row row = operator.next();
-            rows.add(row);
-        }
-
-        // 4. 获取列定义(投影后的列)
+        // 3. 获取列定义(投影后的列)
         List<Column> columns;
-        if (operator instanceof ProjectOperator) {
+        if (operator instanceof BatchToRowOperator) {
+            columns = ((BatchToRowOperator) operator).getColumns();
+        } else if (operator instanceof ProjectOperator) {
             ProjectOperator projectOp = (ProjectOperator) operator;
             columns = projectOp.getProjectedColumns();
         } else {
@@ -151,15 +187,15 @@ public class VolcanoExecutor {
             columns = table.getColumns();
         }
 
-        // 5. 封装为QueryResult
-        return new QueryResult(columns, rows);
+        // 4. 封装为ResultCursor,行由调用方按需拉取
+        return new ResultCursor(columns, operator);
     }
 
     /**
      * 构建算子树
      *
      * 算子树结构(从下往上):
-     * ScanOperator → FilterOperator (可选) → ProjectOperator (可选)
+     * 访问路径(全表扫描/索引查找/索引范围扫描/覆盖索引扫描) → FilterOperator (可选) → ProjectOperator (可选)
      *
      * @param selectStatement SELECT语句
      * @param table 表对象
@@ -169,22 +205,21 @@ public class VolcanoExecutor {
             SelectStatement selectStatement,
             Table table) {
 
-        // 1. 创建ScanOperator(叶子节点)
-        ScanOperator scan = new ScanOperator(table);
-        Operator current = scan;
-
-        // 2. 如果有WHERE条件,创建FilterOperator
-        if (selectStatement.getWhereClause().isPresent()) {
-            Expression whereCondition = selectStatement.getWhereClause().get();
-            FilterOperator filter = new FilterOperator(
-                    current,
-                    whereCondition,
-                    table.getColumns()
-            );
-            current = filter;
+        // 批量执行:全表扫描 → 批量过滤 → 批量投影,最后逐行输出
+        if (vectorized) {
+            BatchOperator batch = ExecutionPlan.buildBatchAccessPath(selectStatement, table);
+            if (batch != null) {
+                if (!selectStatement.isSelectAll()) {
+                    batch = new BatchProjectOperator(batch, selectStatement.getSelectItems());
+                }
+                return new BatchToRowOperator(batch);
+            }
         }
 
-        // 3. 如果不是SELECT *,创建ProjectOperator
+        // 1. 创建叶子节点和剩下的WHERE条件(见ExecutionPlan.buildFilteredAccessPath)
+        Operator current = ExecutionPlan.buildFilteredAccessPath(selectStatement, table);
+
+        // 2. 如果不是SELECT *,创建ProjectOperator
         if (!selectStatement.isSelectAll()) {
             ProjectOperator project = new ProjectOperator(
                     current,
@@ -194,10 +229,19 @@ public class VolcanoExecutor {
             current = project;
         }
 
-        // 4. 返回算子树的根节点
+        // 3. 返回算子树的根节点
         return current;
     }
 
+    /**
+     * 全表扫描的查询是否用批量算子执行
+     *
+     * @return 批量执行返回true
+     */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
     /**
      * 执行异常
      */
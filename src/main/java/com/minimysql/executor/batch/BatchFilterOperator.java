@@ -0,0 +1,541 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.executor.ExpressionEvaluator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.NotExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+
+import java.util.List;
+
+/**
+ * BatchFilterOperator - 批量WHERE过滤算子
+ *
+ * 只缩短子算子批中的选择向量,不搬动列数据。
+ *
+ * 条件编译:
+ * - "列 比较运算 常量"(INT/BIGINT/DOUBLE列和数值常量,VARCHAR列和字符串常量)
+ *   以及它们的AND/OR/NOT,编译成对列数组的紧凑循环:
+ *   每批只分发一次,循环体里没有虚调用、没有装箱,按分支消除的方式写选择向量
+ * - INT列把比较换成整数区间 [lo, hi](例如 age &lt; 2.5 等价于 age &lt;= 2),
+ *   循环只有两次整数比较
+ * - 其他条件(算术表达式、DATE/BOOLEAN列、列与列比较……)退回逐行用ExpressionEvaluator求值,
+ *   语义与FilterOperator完全相同
+ *
+ * 语义与ExpressionEvaluator一致:
+ * - 数值统一按double比较(Double.compare)
+ * - NULL参与比较时compare返回-1:按写出来的运算符,&lt;、&lt;=、!= 为真,其他为假
+ *
+ * MySQL对应:
+ * - EXPLAIN中的Using where;批量求值对应向量化引擎里的selection vector过滤
+ */
+public class BatchFilterOperator implements BatchOperator {
+
+    /** compare结果 &lt;0 / ==0 / &gt;0 时条件为真的位 */
+    private static final int LESS = 1;
+    private static final int EQUAL = 2;
+    private static final int GREATER = 4;
+
+    /** 子算子 */
+    private final BatchOperator child;
+
+    /** WHERE条件表达式 */
+    private final Expression whereCondition;
+
+    /** 编译后的条件 */
+    private final VectorPredicate predicate;
+
+    /** 条件是否编译成了列数组上的循环(否则逐行求值) */
+    private final boolean vectorized;
+
+    /**
+     * 创建批量过滤算子
+     *
+     * @param child 子算子
+     * @param whereCondition WHERE条件表达式
+     */
+    public BatchFilterOperator(BatchOperator child, Expression whereCondition) {
+        if (child == null) {
+            throw new IllegalArgumentException("Child operator cannot be null");
+        }
+        if (whereCondition == null) {
+            throw new IllegalArgumentException("WHERE condition cannot be null");
+        }
+
+        this.child = child;
+        this.whereCondition = whereCondition;
+
+        VectorPredicate compiled = compile(whereCondition, child.getColumns());
+        this.vectorized = compiled != null;
+        this.predicate = compiled != null ? compiled : new RowPredicate(whereCondition, child.getColumns());
+    }
+
+    @Override
+    public RowBatch nextBatch() {
+        RowBatch batch;
+        while ((batch = child.nextBatch()) != null) {
+            int[] selection = batch.getSelection();
+            int selected = predicate.filter(batch, selection, batch.getSelectedCount(), selection);
+            if (selected > 0) {
+                batch.setSelectedCount(selected);
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return child.getColumns();
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    public BatchOperator getChild() {
+        return child;
+    }
+
+    public Expression getWhereCondition() {
+        return whereCondition;
+    }
+
+    /**
+     * 条件是否编译成了列数组上的循环
+     *
+     * @return false表示逐行求值
+     */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchFilterOperator{" +
+                "whereCondition=" + whereCondition +
+                ", vectorized=" + vectorized +
+                ", child=" + child +
+                '}';
+    }
+
+    // ==================== 条件编译 ====================
+
+    /**
+     * 编译条件,不能编译时返回null
+     */
+    private static VectorPredicate compile(Expression expr, List<Column> columns) {
+        if (expr instanceof NotExpression not) {
+            VectorPredicate operand = compile(not.getOperand(), columns);
+            return operand != null ? new Not(operand) : null;
+        }
+        if (!(expr instanceof BinaryExpression binary)) {
+            return null;
+        }
+
+        OperatorEnum op = binary.getOperator();
+        if (op == OperatorEnum.AND || op == OperatorEnum.OR) {
+            VectorPredicate left = compile(binary.getLeft(), columns);
+            VectorPredicate right = left != null ? compile(binary.getRight(), columns) : null;
+            if (right == null) {
+                return null;
+            }
+            return op == OperatorEnum.AND ? new And(left, right) : new Or(left, right);
+        }
+
+        int mask = maskOf(op);
+        if (mask == 0) {
+            return null; // 算术运算
+        }
+        if (binary.getLeft() instanceof ColumnExpression column
+                && binary.getRight() instanceof LiteralExpression literal) {
+            return comparison(column, mask, mask, literal.getValue(), columns);
+        }
+        if (binary.getLeft() instanceof LiteralExpression literal
+                && binary.getRight() instanceof ColumnExpression column) {
+            // 常量在左边:非NULL时compare(常量, 列) = -compare(列, 常量);NULL时仍按写出来的运算符
+            return comparison(column, mirror(mask), mask, literal.getValue(), columns);
+        }
+        return null;
+    }
+
+    private static VectorPredicate comparison(ColumnExpression columnExpr, int mask, int writtenMask,
+                                              Object literal, List<Column> columns) {
+        int column = Column.findIndex(columns, columnExpr.getColumnName());
+        if (column < 0 || literal == null) {
+            return null;
+        }
+
+        boolean nullMatches = (writtenMask & LESS) != 0;
+        DataType type = columns.get(column).getType();
+        if (type == DataType.VARCHAR) {
+            return literal instanceof String s ? new StringComparison(column, mask, nullMatches, s) : null;
+        }
+        if (!(literal instanceof Number)) {
+            return null;
+        }
+
+        double value = ((Number) literal).doubleValue();
+        return switch (type) {
+            case INT -> Double.isNaN(value) || Double.doubleToRawLongBits(value) == Long.MIN_VALUE
+                    ? new LongComparison(column, mask, nullMatches, value) // NaN / -0.0:按Double.compare
+                    : IntRange.of(column, mask, nullMatches, value);
+            case BIGINT, DOUBLE -> new LongComparison(column, mask, nullMatches, value);
+            default -> null;
+        };
+    }
+
+    private static int maskOf(OperatorEnum op) {
+        return switch (op) {
+            case EQUAL -> EQUAL;
+            case NOT_EQUAL -> LESS | GREATER;
+            case LESS_THAN -> LESS;
+            case LESS_EQUAL -> LESS | EQUAL;
+            case GREATER_THAN -> GREATER;
+            case GREATER_EQUAL -> GREATER | EQUAL;
+            default -> 0;
+        };
+    }
+
+    private static int mirror(int mask) {
+        return (mask & EQUAL) | ((mask & LESS) != 0 ? GREATER : 0) | ((mask & GREATER) != 0 ? LESS : 0);
+    }
+
+    /**
+     * compare结果的符号对应的位
+     */
+    private static int bitOf(int cmp) {
+        return 1 << (Integer.signum(cmp) + 1);
+    }
+
+    /**
+     * 编译后的条件
+     *
+     * 从in[0..count)中选出满足条件的行写进out,返回个数。
+     * out可以就是in:写入位置不会超过读取位置。
+     */
+    private interface VectorPredicate {
+        int filter(RowBatch batch, int[] in, int count, int[] out);
+    }
+
+    /**
+     * INT列:比较换成整数区间 lo &lt;= v &lt;= hi(negate时取反)
+     */
+    private static final class IntRange implements VectorPredicate {
+
+        private final int column;
+        private final int lo;
+        private final int hi;
+        private final boolean negate;
+        private final boolean nullMatches;
+
+        private IntRange(int column, int lo, int hi, boolean negate, boolean nullMatches) {
+            this.column = column;
+            this.lo = lo;
+            this.hi = hi;
+            this.negate = negate;
+            this.nullMatches = nullMatches;
+        }
+
+        static VectorPredicate of(int column, int mask, boolean nullMatches, double c) {
+            // INT范围外的常量与INT值的比较结果都一样,先收紧,免得floor + 1溢出
+            c = Math.max(Math.min(c, Integer.MAX_VALUE + 1.0), Integer.MIN_VALUE - 1.0);
+            long floor = (long) Math.floor(c);
+            long ceil = (long) Math.ceil(c);
+            boolean integral = floor == ceil;
+
+            long lo = Long.MIN_VALUE;
+            long hi = Long.MAX_VALUE;
+            boolean negate = false;
+            switch (mask) {
+                case LESS -> hi = ceil - 1;
+                case LESS | EQUAL -> hi = floor;
+                case GREATER -> lo = floor + 1;
+                case GREATER | EQUAL -> lo = ceil;
+                case EQUAL, LESS | GREATER -> {
+                    negate = mask != EQUAL;
+                    lo = integral ? floor : 1;
+                    hi = integral ? floor : 0; // 非整数常量:没有相等的INT值
+                }
+                default -> throw new IllegalStateException("Unexpected mask: " + mask);
+            }
+
+            // 限制到INT范围;区间为空时用 [1, 0]
+            lo = Math.max(lo, Integer.MIN_VALUE);
+            hi = Math.min(hi, Integer.MAX_VALUE);
+            if (lo > hi) {
+                lo = 1;
+                hi = 0;
+            }
+            return new IntRange(column, (int) lo, (int) hi, negate, nullMatches);
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            ColumnVector vector = batch.getVector(column);
+            int[] values = vector.getInts();
+            boolean[] nulls = vector.getNulls();
+            int lo = this.lo;
+            int hi = this.hi;
+            boolean negate = this.negate;
+
+            int selected = 0;
+            if (!vector.mayHaveNulls()) {
+                for (int i = 0; i < count; i++) {
+                    int row = in[i];
+                    int v = values[row];
+                    out[selected] = row;
+                    selected += ((v >= lo) & (v <= hi)) != negate ? 1 : 0;
+                }
+                return selected;
+            }
+
+            boolean nullMatches = this.nullMatches;
+            for (int i = 0; i < count; i++) {
+                int row = in[i];
+                int v = values[row];
+                boolean match = nulls[row] ? nullMatches : ((v >= lo) & (v <= hi)) != negate;
+                out[selected] = row;
+                selected += match ? 1 : 0;
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * BIGINT/DOUBLE列(以及特殊常量的INT列):Double.compare的符号落在mask里
+     */
+    private static final class LongComparison implements VectorPredicate {
+
+        private final int column;
+        private final int mask;
+        private final boolean nullMatches;
+        private final double value;
+
+        LongComparison(int column, int mask, boolean nullMatches, double value) {
+            this.column = column;
+            this.mask = mask;
+            this.nullMatches = nullMatches;
+            this.value = value;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            ColumnVector vector = batch.getVector(column);
+            boolean[] nulls = vector.getNulls();
+            double c = value;
+            int mask = this.mask;
+            boolean nullMatches = this.nullMatches;
+
+            int selected = 0;
+            switch (vector.getType()) {
+                case INT -> {
+                    int[] values = vector.getInts();
+                    for (int i = 0; i < count; i++) {
+                        int row = in[i];
+                        boolean match = nulls[row] ? nullMatches : (mask & bitOf(Double.compare(values[row], c))) != 0;
+                        out[selected] = row;
+                        selected += match ? 1 : 0;
+                    }
+                }
+                case BIGINT -> {
+                    long[] values = vector.getLongs();
+                    for (int i = 0; i < count; i++) {
+                        int row = in[i];
+                        boolean match = nulls[row] ? nullMatches : (mask & bitOf(Double.compare(values[row], c))) != 0;
+                        out[selected] = row;
+                        selected += match ? 1 : 0;
+                    }
+                }
+                default -> {
+                    double[] values = vector.getDoubles();
+                    for (int i = 0; i < count; i++) {
+                        int row = in[i];
+                        boolean match = nulls[row] ? nullMatches : (mask & bitOf(Double.compare(values[row], c))) != 0;
+                        out[selected] = row;
+                        selected += match ? 1 : 0;
+                    }
+                }
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * VARCHAR列和字符串常量:String.compareTo的符号落在mask里
+     */
+    private static final class StringComparison implements VectorPredicate {
+
+        private final int column;
+        private final int mask;
+        private final boolean nullMatches;
+        private final String value;
+
+        StringComparison(int column, int mask, boolean nullMatches, String value) {
+            this.column = column;
+            this.mask = mask;
+            this.nullMatches = nullMatches;
+            this.value = value;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            ColumnVector vector = batch.getVector(column);
+            Object[] values = vector.getObjects();
+            boolean[] nulls = vector.getNulls();
+
+            int selected = 0;
+            for (int i = 0; i < count; i++) {
+                int row = in[i];
+                boolean match = nulls[row]
+                        ? nullMatches
+                        : (mask & bitOf(((String) values[row]).compareTo(value))) != 0;
+                out[selected] = row;
+                selected += match ? 1 : 0;
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * AND:右边只检查左边选出的行
+     */
+    private static final class And implements VectorPredicate {
+
+        private final VectorPredicate left;
+        private final VectorPredicate right;
+
+        And(VectorPredicate left, VectorPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            int selected = left.filter(batch, in, count, out);
+            return right.filter(batch, out, selected, out);
+        }
+    }
+
+    /**
+     * OR:右边只检查左边没有选中的行,两部分按行号归并
+     */
+    private static final class Or implements VectorPredicate {
+
+        private final VectorPredicate left;
+        private final VectorPredicate right;
+
+        private int[] matched = new int[0];
+        private int[] rest = new int[0];
+
+        Or(VectorPredicate left, VectorPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            if (matched.length < count) {
+                matched = new int[batch.getCapacity()];
+                rest = new int[batch.getCapacity()];
+            }
+
+            int leftCount = left.filter(batch, in, count, matched);
+            int restCount = complement(in, count, matched, leftCount, rest);
+            int rightCount = right.filter(batch, rest, restCount, rest);
+
+            // 两个有序的行号序列归并
+            int i = 0;
+            int j = 0;
+            int selected = 0;
+            while (i < leftCount && j < rightCount) {
+                out[selected++] = matched[i] < rest[j] ? matched[i++] : rest[j++];
+            }
+            while (i < leftCount) {
+                out[selected++] = matched[i++];
+            }
+            while (j < rightCount) {
+                out[selected++] = rest[j++];
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * NOT:in中没有被选中的行
+     */
+    private static final class Not implements VectorPredicate {
+
+        private final VectorPredicate operand;
+
+        private int[] matched = new int[0];
+
+        Not(VectorPredicate operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            if (matched.length < count) {
+                matched = new int[batch.getCapacity()];
+            }
+            int matchedCount = operand.filter(batch, in, count, matched);
+            return complement(in, count, matched, matchedCount, out);
+        }
+    }
+
+    /**
+     * in中不在subset里的行(subset是in的有序子序列),out可以就是in
+     */
+    private static int complement(int[] in, int count, int[] subset, int subsetCount, int[] out) {
+        int j = 0;
+        int selected = 0;
+        for (int i = 0; i < count; i++) {
+            int row = in[i];
+            if (j < subsetCount && subset[j] == row) {
+                j++;
+            } else {
+                out[selected++] = row;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 不能编译的条件:逐行装箱,用ExpressionEvaluator求值(与FilterOperator相同)
+     */
+    private static final class RowPredicate implements VectorPredicate {
+
+        private final Expression condition;
+        private final List<Column> columns;
+        private final ExpressionEvaluator evaluator = new ExpressionEvaluator();
+
+        RowPredicate(Expression condition, List<Column> columns) {
+            this.condition = condition;
+            this.columns = columns;
+        }
+
+        @Override
+        public int filter(RowBatch batch, int[] in, int count, int[] out) {
+            int selected = 0;
+            for (int i = 0; i < count; i++) {
+                int row = in[i];
+                Object result = evaluator.eval(condition, batch.getRow(row), columns);
+                if (!(result instanceof Boolean)) {
+                    throw new IllegalStateException(
+                            "WHERE condition must evaluate to Boolean, got: " +
+                                    (result != null ? result.getClass().getSimpleName() : "null"));
+                }
+                if ((Boolean) result) {
+                    out[selected++] = row;
+                }
+            }
+            return selected;
+        }
+    }
+}
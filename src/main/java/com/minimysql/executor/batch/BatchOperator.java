@@ -0,0 +1,46 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.storage.table.Column;
+
+import java.util.List;
+
+/**
+ * BatchOperator - 批量执行算子接口
+ *
+ * 与Operator(一次一行)并列的执行模型:nextBatch()一次返回最多RowBatch.DEFAULT_CAPACITY行,
+ * 虚调用、表达式分发都按批摊薄,过滤和投影在原始类型数组上循环。
+ *
+ * 两种模型可以互相组合:
+ * - BatchToRowOperator:批量算子 → Operator(接到ProjectOperator、ResultCursor等一行一行的消费者)
+ * - RowToBatchOperator:Operator → 批量算子(索引查找等只有一行一行实现的数据源)
+ *
+ * 约定:
+ * - 返回的RowBatch归算子所有,下一次nextBatch()会被覆盖,调用方不能留着
+ * - 返回的批至少有一行有效(selectedCount &gt; 0);返回null表示没有更多数据
+ *
+ * MySQL对应:
+ * - MySQL没有向量化执行;对应MonetDB/X100、DuckDB、ClickHouse的批量/向量化算子
+ */
+public interface BatchOperator {
+
+    /**
+     * 获取下一批
+     *
+     * @return 至少有一行有效的批,没有更多数据返回null
+     */
+    RowBatch nextBatch();
+
+    /**
+     * 输出的列定义
+     *
+     * @return 列定义列表
+     */
+    List<Column> getColumns();
+
+    /**
+     * 关闭算子,释放子算子和底层游标
+     */
+    default void close() {
+        // 默认不做什么
+    }
+}
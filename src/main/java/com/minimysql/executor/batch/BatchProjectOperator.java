@@ -0,0 +1,126 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.storage.table.Column;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchProjectOperator - 批量列投影算子
+ *
+ * 与ProjectOperator语义相同:SELECT * 原样输出,SELECT col1, col2 只输出指定列,
+ * 表达式投影(SELECT age + 1)暂不支持。
+ *
+ * 零拷贝:投影后的批是子算子批的一个视图,共享ColumnVector和选择向量,
+ * 只是列的排列不同。子算子复用同一个批,所以视图也只建一次。
+ *
+ * MySQL对应:
+ * - SELECT列表投影;向量化引擎里对应只重排列向量的Projection
+ */
+public class BatchProjectOperator implements BatchOperator {
+
+    /** 子算子 */
+    private final BatchOperator child;
+
+    /** SELECT列表(空表示SELECT *) */
+    private final List<Expression> selectItems;
+
+    /** 选出的列在子算子输出中的下标(SELECT * 时为null) */
+    private final int[] columnIndexes;
+
+    /** 投影后的列定义 */
+    private final List<Column> projectedColumns;
+
+    /** 子算子的批 */
+    private RowBatch source;
+
+    /** source上的投影视图 */
+    private RowBatch view;
+
+    /**
+     * 创建批量投影算子
+     *
+     * @param child 子算子
+     * @param selectItems SELECT列表(空表示SELECT *)
+     */
+    public BatchProjectOperator(BatchOperator child, List<Expression> selectItems) {
+        if (child == null) {
+            throw new IllegalArgumentException("Child operator cannot be null");
+        }
+
+        this.child = child;
+        this.selectItems = selectItems != null ? List.copyOf(selectItems) : List.of();
+
+        List<Column> childColumns = child.getColumns();
+        if (this.selectItems.isEmpty()) {
+            this.columnIndexes = null;
+            this.projectedColumns = childColumns;
+            return;
+        }
+
+        this.columnIndexes = new int[this.selectItems.size()];
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Expression item = this.selectItems.get(i);
+            if (!(item instanceof ColumnExpression colExpr)) {
+                throw new UnsupportedOperationException(
+                        "Expression projection not supported yet: " + item);
+            }
+
+            int index = Column.findIndex(childColumns, colExpr.getColumnName());
+            if (index < 0) {
+                throw new IllegalArgumentException("Column not found: " + colExpr.getColumnName());
+            }
+            columnIndexes[i] = index;
+            columns.add(childColumns.get(index));
+        }
+        this.projectedColumns = List.copyOf(columns);
+    }
+
+    @Override
+    public RowBatch nextBatch() {
+        RowBatch batch = child.nextBatch();
+        if (batch == null || columnIndexes == null) {
+            return batch;
+        }
+
+        if (batch != source) {
+            source = batch;
+            view = batch.project(columnIndexes, projectedColumns);
+        }
+        view.syncFrom(batch);
+        return view;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return projectedColumns;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    public BatchOperator getChild() {
+        return child;
+    }
+
+    public List<Expression> getSelectItems() {
+        return selectItems;
+    }
+
+    public boolean isSelectAll() {
+        return columnIndexes == null;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchProjectOperator{" +
+                "selectItems=" + (isSelectAll() ? "*" : selectItems) +
+                ", child=" + child +
+                '}';
+    }
+}
@@ -0,0 +1,156 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.RecordSerializer;
+import com.minimysql.storage.table.Table;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * BatchScanOperator - 批量全表扫描算子
+ *
+ * 按主键顺序遍历聚簇索引叶子链表,把物理记录直接解码进RowBatch的列数组:
+ * 不创建Row,数值列不装箱(RecordSerializer.deserializeInto)。
+ *
+ * 与ScanOperator读同样的数据、同样的顺序,区别只在输出格式。
+ *
+ * MySQL对应:
+ * - EXPLAIN中的type=ALL
+ * - 解码记录对应row_sel_store_mysql_rec,只是目标是列数组而不是一行的缓冲区
+ */
+public class BatchScanOperator implements BatchOperator {
+
+    /** 要扫描的表 */
+    private final Table table;
+
+    /** 表的列定义 */
+    private final List<Column> columns;
+
+    /** 聚簇索引的物理记录(惰性) */
+    private final Iterator<Object> records;
+
+    /** 复用的批 */
+    private final RowBatch batch;
+
+    /** 解码目标:batch中的当前行 */
+    private final BatchSink sink;
+
+    /**
+     * 创建批量全表扫描算子
+     *
+     * @param table 要扫描的表
+     */
+    public BatchScanOperator(Table table) {
+        this(table, RowBatch.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 创建批量全表扫描算子
+     *
+     * @param table 要扫描的表
+     * @param batchSize 每批最多多少行
+     */
+    public BatchScanOperator(Table table, int batchSize) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        if (table.getClusteredIndex() == null) {
+            throw new IllegalStateException("Clustered index not set");
+        }
+
+        this.table = table;
+        this.columns = table.getColumns();
+        this.records = table.getClusteredIndex().getAllLazy();
+        this.batch = new RowBatch(columns, batchSize);
+        this.sink = new BatchSink(batch);
+    }
+
+    @Override
+    public RowBatch nextBatch() {
+        batch.reset();
+
+        int size = 0;
+        while (size < batch.getCapacity() && records.hasNext()) {
+            sink.row = size++;
+            RecordSerializer.deserializeInto((byte[]) records.next(), columns, sink);
+        }
+
+        if (size == 0) {
+            return null;
+        }
+        batch.setSize(size);
+        return batch;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 获取表对象
+     *
+     * @return 表对象
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchScanOperator{" +
+                "table=" + table.getTableName() +
+                ", batchSize=" + batch.getCapacity() +
+                '}';
+    }
+
+    /**
+     * 把一条记录的各列写进batch的第row行
+     */
+    private static final class BatchSink implements RecordSerializer.ValueSink {
+
+        private final RowBatch batch;
+
+        private int row;
+
+        BatchSink(RowBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void putNull(int column) {
+            batch.getVector(column).setNull(row);
+        }
+
+        @Override
+        public void putInt(int column, int value) {
+            batch.getVector(column).setInt(row, value);
+        }
+
+        @Override
+        public void putLong(int column, long value) {
+            batch.getVector(column).setLong(row, value);
+        }
+
+        @Override
+        public void putDouble(int column, double value) {
+            batch.getVector(column).setDouble(row, value);
+        }
+
+        @Override
+        public void putBoolean(int column, boolean value) {
+            batch.getVector(column).setBoolean(row, value);
+        }
+
+        @Override
+        public void putString(int column, String value) {
+            batch.getVector(column).setString(row, value);
+        }
+
+        @Override
+        public void putDate(int column, long millis) {
+            batch.getVector(column).setLong(row, millis);
+        }
+    }
+}
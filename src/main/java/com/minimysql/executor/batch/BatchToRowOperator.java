@@ -0,0 +1,92 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.executor.Operator;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * BatchToRowOperator - 批量算子 → 一次一行的Operator
+ *
+ * 批量执行管道的出口:把每批中选择向量里的行逐个装箱成Row,
+ * 接到ResultCursor、UpdateOperator等一行一行的消费者。
+ *
+ * 装箱只发生在过滤和投影之后,被过滤掉的行和没被选中的列都不会创建对象。
+ */
+public class BatchToRowOperator implements Operator {
+
+    /** 批量子算子 */
+    private final BatchOperator child;
+
+    /** 当前批 */
+    private RowBatch batch;
+
+    /** 当前批的选择向量中下一个位置 */
+    private int position;
+
+    /** 子算子是否已经没有数据 */
+    private boolean exhausted;
+
+    /**
+     * 创建适配器
+     *
+     * @param child 批量子算子
+     */
+    public BatchToRowOperator(BatchOperator child) {
+        if (child == null) {
+            throw new IllegalArgumentException("Child operator cannot be null");
+        }
+        this.child = child;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (batch == null || position >= batch.getSelectedCount()) {
+            if (exhausted) {
+                return false;
+            }
+            batch = child.nextBatch();
+            position = 0;
+            if (batch == null) {
+                exhausted = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        return batch.getRow(batch.getSelection()[position++]);
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    /**
+     * 输出的列定义
+     *
+     * @return 列定义列表
+     */
+    public List<Column> getColumns() {
+        return child.getColumns();
+    }
+
+    public BatchOperator getChild() {
+        return child;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchToRowOperator{" +
+                "child=" + child +
+                '}';
+    }
+}
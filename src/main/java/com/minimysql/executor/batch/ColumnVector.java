@@ -0,0 +1,228 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.storage.table.DataType;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * ColumnVector - 一列的值(列式存储)
+ *
+ * RowBatch中的每一列是一个ColumnVector:同一类型的值放在一个原始类型数组里,
+ * 过滤时对数组做紧凑的循环,不装箱、不经过虚调用,JIT可以自动向量化(SIMD)。
+ *
+ * 存储:
+ * - INT → int[]
+ * - BIGINT → long[]
+ * - DATE/TIMESTAMP → long[](毫秒数,取值时再包装成Date)
+ * - DOUBLE → double[]
+ * - BOOLEAN → boolean[]
+ * - VARCHAR → Object[](String)
+ * - NULL单独用boolean[]标记,NULL位置上的原始值无意义(为0)
+ *
+ * MySQL对应:
+ * - MySQL执行器是一行一行的,这里对应列存/向量化引擎
+ *   (ClickHouse的IColumn、DuckDB的Vector、Arrow的数组)
+ *
+ * "Good taste": 一个类、按类型只分配一个数组,不为每种类型写一个子类
+ */
+public final class ColumnVector {
+
+    /** 列类型 */
+    private final DataType type;
+
+    /** 容量(最多放多少行) */
+    private final int capacity;
+
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] booleans;
+    private final Object[] objects;
+
+    /** NULL标记 */
+    private final boolean[] nulls;
+
+    /** 是否可能有NULL(没有时过滤循环跳过NULL修正) */
+    private boolean mayHaveNulls;
+
+    /**
+     * 创建列向量
+     *
+     * @param type 列类型
+     * @param capacity 容量
+     */
+    public ColumnVector(DataType type, int capacity) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.type = type;
+        this.capacity = capacity;
+        this.ints = type == DataType.INT ? new int[capacity] : null;
+        this.longs = isLongType(type) ? new long[capacity] : null;
+        this.doubles = type == DataType.DOUBLE ? new double[capacity] : null;
+        this.booleans = type == DataType.BOOLEAN ? new boolean[capacity] : null;
+        this.objects = type == DataType.VARCHAR ? new Object[capacity] : null;
+        this.nulls = new boolean[capacity];
+    }
+
+    private static boolean isLongType(DataType type) {
+        return type == DataType.BIGINT || type == DataType.DATE || type == DataType.TIMESTAMP;
+    }
+
+    /**
+     * 清空NULL标记,准备装下一批
+     */
+    void reset() {
+        if (mayHaveNulls) {
+            Arrays.fill(nulls, false);
+            mayHaveNulls = false;
+        }
+        if (objects != null) {
+            Arrays.fill(objects, null); // 不让上一批的字符串多活一批
+        }
+    }
+
+    public void setNull(int row) {
+        nulls[row] = true;
+        mayHaveNulls = true;
+        switch (type) {
+            case INT -> ints[row] = 0;
+            case BIGINT, DATE, TIMESTAMP -> longs[row] = 0L;
+            case DOUBLE -> doubles[row] = 0.0;
+            case BOOLEAN -> booleans[row] = false;
+            case VARCHAR -> objects[row] = null;
+        }
+    }
+
+    public void setInt(int row, int value) {
+        ints[row] = value;
+    }
+
+    public void setLong(int row, long value) {
+        longs[row] = value;
+    }
+
+    public void setDouble(int row, double value) {
+        doubles[row] = value;
+    }
+
+    public void setBoolean(int row, boolean value) {
+        booleans[row] = value;
+    }
+
+    public void setString(int row, String value) {
+        if (value == null) {
+            setNull(row);
+            return;
+        }
+        objects[row] = value;
+    }
+
+    /**
+     * 按列类型写入一个装箱的值(行到批的适配用)
+     *
+     * @param row 行下标
+     * @param value 值,null表示NULL
+     */
+    public void set(int row, Object value) {
+        if (value == null) {
+            setNull(row);
+            return;
+        }
+        switch (type) {
+            case INT -> ints[row] = ((Number) value).intValue();
+            case BIGINT -> longs[row] = ((Number) value).longValue();
+            case DATE, TIMESTAMP -> longs[row] = value instanceof Date
+                    ? ((Date) value).getTime()
+                    : ((Number) value).longValue();
+            case DOUBLE -> doubles[row] = ((Number) value).doubleValue();
+            case BOOLEAN -> booleans[row] = (Boolean) value;
+            case VARCHAR -> objects[row] = value;
+        }
+    }
+
+    /**
+     * 按列类型读出一个装箱的值(批到行的适配用)
+     *
+     * @param row 行下标
+     * @return 值,NULL返回null
+     */
+    public Object get(int row) {
+        if (nulls[row]) {
+            return null;
+        }
+        return switch (type) {
+            case INT -> ints[row];
+            case BIGINT -> longs[row];
+            case DATE, TIMESTAMP -> new Date(longs[row]);
+            case DOUBLE -> doubles[row];
+            case BOOLEAN -> booleans[row];
+            case VARCHAR -> objects[row];
+        };
+    }
+
+    public boolean isNull(int row) {
+        return nulls[row];
+    }
+
+    /**
+     * 是否可能有NULL
+     *
+     * @return false表示这一批肯定没有NULL
+     */
+    public boolean mayHaveNulls() {
+        return mayHaveNulls;
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** INT列的值数组 */
+    public int[] getInts() {
+        return ints;
+    }
+
+    /** BIGINT/DATE/TIMESTAMP列的值数组 */
+    public long[] getLongs() {
+        return longs;
+    }
+
+    /** DOUBLE列的值数组 */
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    /** BOOLEAN列的值数组 */
+    public boolean[] getBooleans() {
+        return booleans;
+    }
+
+    /** VARCHAR列的值数组 */
+    public Object[] getObjects() {
+        return objects;
+    }
+
+    /** NULL标记数组 */
+    public boolean[] getNulls() {
+        return nulls;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnVector{" +
+                "type=" + type +
+                ", capacity=" + capacity +
+                ", mayHaveNulls=" + mayHaveNulls +
+                '}';
+    }
+}
@@ -0,0 +1,210 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
+
+import java.util.List;
+
+/**
+ * RowBatch - 一批行(列式存储 + 选择向量)
+ *
+ * 批量执行模型中算子之间传递的数据单位:最多DEFAULT_CAPACITY行,
+ * 每列一个ColumnVector(原始类型数组)。
+ *
+ * 选择向量(selection vector):
+ * - size是批中实际装了多少行(物理行)
+ * - selection[0..selectedCount)是仍然有效的物理行下标,递增
+ * - 过滤不搬动数据,只缩短选择向量;投影不拷贝列,只重新排列ColumnVector
+ *
+ * MySQL对应:
+ * - MySQL执行器一次一行(Volcano);这里对应向量化执行
+ *   (MonetDB/X100、DuckDB的DataChunk + SelectionVector)
+ *
+ * 使用示例:
+ * <pre>
+ * RowBatch batch;
+ * while ((batch = operator.nextBatch()) != null) {
+ *     int[] selection = batch.getSelection();
+ *     for (int i = 0; i &lt; batch.getSelectedCount(); i++) {
+ *         Row row = batch.getRow(selection[i]);
+ *     }
+ * }
+ * </pre>
+ *
+ * "Good taste": 一批数据就是几个数组加一个下标数组,算子之间零拷贝
+ */
+public final class RowBatch {
+
+    /** 默认批大小:放得进L1/L2缓存,又足够摊薄每批的虚调用 */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** 列定义 */
+    private final List<Column> columns;
+
+    /** 每列的值 */
+    private final ColumnVector[] vectors;
+
+    /** 容量 */
+    private final int capacity;
+
+    /** 物理行数 */
+    private int size;
+
+    /** 选择向量:有效的物理行下标 */
+    private final int[] selection;
+
+    /** 有效行数 */
+    private int selectedCount;
+
+    /**
+     * 创建空批
+     *
+     * @param columns 列定义
+     * @param capacity 容量
+     */
+    public RowBatch(List<Column> columns, int capacity) {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Columns cannot be null or empty");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.columns = List.copyOf(columns);
+        this.capacity = capacity;
+        this.vectors = new ColumnVector[columns.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = new ColumnVector(columns.get(i).getType(), capacity);
+        }
+        this.selection = new int[capacity];
+    }
+
+    /**
+     * 投影:共享已有的列向量和选择向量
+     */
+    private RowBatch(List<Column> columns, ColumnVector[] vectors, int capacity, int[] selection) {
+        this.columns = List.copyOf(columns);
+        this.vectors = vectors;
+        this.capacity = capacity;
+        this.selection = selection;
+    }
+
+    /**
+     * 创建一个只看这几列的视图
+     *
+     * 列向量和选择向量都是共享的:视图的行数和选择向量需要调用方用syncFrom同步。
+     *
+     * @param columnIndexes 选出的列在本批中的下标
+     * @param projectedColumns 选出的列定义
+     * @return 共享数据的新批
+     */
+    RowBatch project(int[] columnIndexes, List<Column> projectedColumns) {
+        ColumnVector[] projected = new ColumnVector[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            projected[i] = vectors[columnIndexes[i]];
+        }
+        return new RowBatch(projectedColumns, projected, capacity, selection);
+    }
+
+    /**
+     * 从共享数据的批同步行数和有效行数
+     */
+    void syncFrom(RowBatch source) {
+        this.size = source.size;
+        this.selectedCount = source.selectedCount;
+    }
+
+    /**
+     * 清空,准备装下一批
+     */
+    public void reset() {
+        for (ColumnVector vector : vectors) {
+            vector.reset();
+        }
+        size = 0;
+        selectedCount = 0;
+    }
+
+    /**
+     * 设置物理行数,选择向量重置为全部行
+     *
+     * @param size 物理行数
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Size out of range: " + size);
+        }
+        this.size = size;
+        for (int i = 0; i < size; i++) {
+            selection[i] = i;
+        }
+        this.selectedCount = size;
+    }
+
+    /**
+     * 设置有效行数(过滤后调用,selection[0..selectedCount)已经写好)
+     *
+     * @param selectedCount 有效行数
+     */
+    public void setSelectedCount(int selectedCount) {
+        if (selectedCount < 0 || selectedCount > size) {
+            throw new IllegalArgumentException("Selected count out of range: " + selectedCount);
+        }
+        this.selectedCount = selectedCount;
+    }
+
+    /**
+     * 把物理行装箱成Row(批到行的适配用)
+     *
+     * @param row 物理行下标(从选择向量中取)
+     * @return 行数据
+     */
+    public Row getRow(int row) {
+        Object[] values = new Object[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            values[i] = vectors[i].get(row);
+        }
+        return new Row(values);
+    }
+
+    public ColumnVector getVector(int columnIndex) {
+        return vectors[columnIndex];
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int[] getSelection() {
+        return selection;
+    }
+
+    public int getSelectedCount() {
+        return selectedCount;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "RowBatch{" +
+                "columns=" + columns.size() +
+                ", size=" + size +
+                ", selectedCount=" + selectedCount +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.executor.Operator;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
+
+import java.util.List;
+
+/**
+ * RowToBatchOperator - 一次一行的Operator → 批量算子
+ *
+ * 让只有逐行实现的数据源(索引查找、范围扫描等)也能接上批量过滤和投影:
+ * 每次从子算子拉最多一批的行,按列拆进RowBatch。
+ */
+public class RowToBatchOperator implements BatchOperator {
+
+    /** 逐行子算子 */
+    private final Operator child;
+
+    /** 子算子输出的列定义 */
+    private final List<Column> columns;
+
+    /** 复用的批 */
+    private final RowBatch batch;
+
+    /**
+     * 创建适配器
+     *
+     * @param child 逐行子算子
+     * @param columns 子算子输出的列定义
+     */
+    public RowToBatchOperator(Operator child, List<Column> columns) {
+        this(child, columns, RowBatch.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 创建适配器
+     *
+     * @param child 逐行子算子
+     * @param columns 子算子输出的列定义
+     * @param batchSize 每批最多多少行
+     */
+    public RowToBatchOperator(Operator child, List<Column> columns, int batchSize) {
+        if (child == null) {
+            throw new IllegalArgumentException("Child operator cannot be null");
+        }
+        if (columns == null) {
+            throw new IllegalArgumentException("Columns cannot be null");
+        }
+
+        this.child = child;
+        this.columns = List.copyOf(columns);
+        this.batch = new RowBatch(this.columns, batchSize);
+    }
+
+    @Override
+    public RowBatch nextBatch() {
+        batch.reset();
+
+        int size = 0;
+        while (size < batch.getCapacity() && child.hasNext()) {
+            Row row = child.next();
+            for (int i = 0; i < columns.size(); i++) {
+                batch.getVector(i).set(size, row.getValue(i));
+            }
+            size++;
+        }
+
+        if (size == 0) {
+            return null;
+        }
+        batch.setSize(size);
+        return batch;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    public Operator getChild() {
+        return child;
+    }
+
+    @Override
+    public String toString() {
+        return "RowToBatchOperator{" +
+                "child=" + child +
+                ", batchSize=" + batch.getCapacity() +
+                '}';
+    }
+}
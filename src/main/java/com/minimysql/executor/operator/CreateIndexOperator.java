@@ -0,0 +1,148 @@
+package com.minimysql.executor.operator;
+
+import com.minimysql.executor.Operator;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.index.SecondaryIndex;
+import com.minimysql.storage.table.Row;
+
+import java.util.List;
+
+/**
+ * CreateIndexOperator - CREATE INDEX算子
+ *
+ * 负责执行CREATE INDEX语句,在已有表上创建二级索引。
+ *
+ * 核心功能:
+ * 1. 调用StorageEngine创建索引(为已有数据批量构建)
+ * 2. 返回创建的索引对象
+ *
+ * 设计原则:
+ * - "Good taste": 简单直接,委托给StorageEngine
+ * - 不支持迭代: hasNext()始终返回false
+ * - 执行后返回: execute()返回创建的SecondaryIndex对象
+ *
+ * 使用示例:
+ * <pre>
+ * CreateIndexOperator create = new CreateIndexOperator(
+ *     storageEngine,
+ *     "users",
+ *     "idx_name",
+ *     "name",
+ *     false,
+ *     List.of("email")
+ * );
+ *
+ * SecondaryIndex index = create.execute();
+ * </pre>
+ */
+public class CreateIndexOperator implements Operator {
+
+    /** 存储引擎 */
+    private final StorageEngine storageEngine;
+
+    /** 表名 */
+    private final String tableName;
+
+    /** 索引名 */
+    private final String indexName;
+
+    /** 索引列名 */
+    private final String columnName;
+
+    /** 是否为唯一索引 */
+    private final boolean unique;
+
+    /** INCLUDE列名 */
+    private final List<String> includeColumns;
+
+    /** 是否已执行 */
+    private boolean executed = false;
+
+    /**
+     * 创建CREATE INDEX算子
+     *
+     * @param storageEngine 存储引擎
+     * @param tableName 表名
+     * @param indexName 索引名
+     * @param columnName 索引列名
+     * @param unique 是否为唯一索引
+     * @param includeColumns INCLUDE列名,可以为空列表
+     */
+    public CreateIndexOperator(StorageEngine storageEngine, String tableName, String indexName,
+                               String columnName, boolean unique, List<String> includeColumns) {
+        if (storageEngine == null) {
+            throw new IllegalArgumentException("StorageEngine cannot be null");
+        }
+        if (tableName == null || tableName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+
+        this.storageEngine = storageEngine;
+        this.tableName = tableName;
+        this.indexName = indexName;
+        this.columnName = columnName;
+        this.unique = unique;
+        this.includeColumns = includeColumns == null ? List.of() : List.copyOf(includeColumns);
+    }
+
+    /**
+     * CREATE INDEX算子不支持迭代模式,直接返回false。
+     * 调用方应该使用execute()方法创建索引。
+     *
+     * @return 始终返回false
+     */
+    @Override
+    public boolean hasNext() {
+        return false;
+    }
+
+    /**
+     * CREATE INDEX算子不支持迭代模式,直接抛出异常。
+     * 调用方应该使用execute()方法创建索引。
+     *
+     * @return 始终抛出异常
+     */
+    @Override
+    public Row next() {
+        throw new UnsupportedOperationException(
+                "CreateIndexOperator does not support iteration. Use execute() instead."
+        );
+    }
+
+    /**
+     * 执行CREATE INDEX操作
+     *
+     * 调用StorageEngine.createIndex()创建索引。
+     *
+     * @return 创建的索引
+     */
+    public SecondaryIndex execute() {
+        if (executed) {
+            throw new IllegalStateException("CreateIndexOperator can only be executed once");
+        }
+
+        executed = true;
+
+        storageEngine.createIndex(tableName, indexName, columnName, unique, includeColumns);
+        return storageEngine.getTable(tableName).getSecondaryIndex(indexName);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    @Override
+    public String toString() {
+        return "CreateIndexOperator{" +
+                "tableName='" + tableName + '\'' +
+                ", indexName='" + indexName + '\'' +
+                ", columnName='" + columnName + '\'' +
+                ", unique=" + unique +
+                ", includeColumns=" + includeColumns +
+                '}';
+    }
+}
@@ -2,9 +2,8 @@ package com.minimysql.executor.operator;
 
 import com.minimysql.executor.ExpressionEvaluator;
 import com.minimysql.executor.MutationOperator;
+import com.minimysql.executor.Operator;
 import com.minimysql.parser.Expression;
-import com.minimysql.storage.table.Column;
-import com.minimysql.storage.table.Row;
 import com.minimysql.storage.table.Table;
 
 import java.util.ArrayList;
@@ -16,65 +15,56 @@ import java.util.List;
  * 负责执行DELETE语句,删除表中符合WHERE条件的数据行。
  *
  * 核心功能:
- * 1. 全表扫描: 扫描表中的所有行
- * 2. WHERE条件过滤: 使用ExpressionEvaluator评估WHERE条件
- * 3. 行删除: 对符合条件的行,调用Table.deleteRow()删除
- * 4. 返回影响行数
+ * 1. 读取候选行: 从子算子(访问路径 + WHERE过滤)逐行拉取要删除的行
+ * 2. 行删除: 对每一行,按主键调用Table.deleteRow()删除
+ * 3. 返回影响行数
  *
  * 设计原则:
- * - "Good taste": 简单直接,先扫描再过滤再删除
- * - 实用主义: 不实现复杂的索引查找优化,直接全表扫描
+ * - "Good taste": 删除算子只负责删除,找行交给和SELECT一样的访问路径
+ * - 边读边删: 不先把整张表读进内存,也不先收集所有主键
  * - 简单直接: 不实现ORDER BY、LIMIT等子句
  *
  * MySQL对应:
- * - MySQL的DELETE语句执行(无索引优化情况)
- * - 对应EXPLAIN输出中的type=ALL
+ * - MySQL的DELETE语句执行:先按访问路径定位行,再逐行删除
+ * - 访问路径对应EXPLAIN输出中的type(const/ref/range/ALL)
  *
  * 使用示例:
  * <pre>
- * // DELETE FROM users WHERE id = 1
- * Expression whereClause = new BinaryExpression(
- *     new ColumnExpression("id"),
- *     Operator.EQUAL,
- *     new LiteralExpression(1)
- * );
- *
- * DeleteOperator deleteOp = new DeleteOperator(table, whereClause, evaluator);
+ * // DELETE FROM users WHERE id = 1 (ExecutionPlan选择主键点查)
+ * Operator source = new IndexLookupOperator(table, table.getClusteredIndex(), 1);
+ * DeleteOperator deleteOp = new DeleteOperator(table, source);
  * int affectedRows = deleteOp.execute();
+ *
+ * // 不指定访问路径:全表扫描 + WHERE过滤
+ * DeleteOperator scanDelete = new DeleteOperator(table, whereClause, evaluator);
  * </pre>
  *
  * 数据流:
- * Table.fullTableScan() → WHERE过滤 → 收集主键 → Table.deleteRow() → 影响行数
+ * 访问路径 → FilterOperator → 主键 → Table.deleteRow() → 影响行数
  *
- * 性能特点:
- * - O(N)时间复杂度,N为表中的总行数
- * - 需要全表扫描(即使只删除一行)
- * - 不使用索引优化(简化实现)
+ * 为什么可以边读边删:
+ * - 索引游标和全表扫描的迭代器两次取行之间不持有页锁,
+ *   按最后读到的键重新定位,删除已经读过的行不会让它们跳过或重复后面的行
  *
- * 设计哲学:
- * - "Bad programmers worry about the code. Good programmers worry about data structures."
- * - 全表扫描虽然理论上慢,但在小表或无索引场景是最实用的方案
- * - 不实现复杂的索引查找逻辑,保持简单
+ * 性能特点:
+ * - 按主键/索引列删除时只读匹配的行,不再全表扫描
+ * - 内存占用与表大小无关:只计数,删除的主键默认不保留(见recordDeletedPrimaryKeys)
  *
  * 注意事项:
  * - 没有WHERE子句会删除所有行!
  * - 不支持事务,删除失败不会回滚
  * - 删除操作不可逆(除非有备份)
- *
- * 已知限制:
- * - B+树删除功能不完整,二级索引删除可能失败
- * - 删除后不会回收空间(页不会合并)
  */
 public class DeleteOperator implements MutationOperator {
 
     /** 表对象 */
     private final Table table;
 
-    /** WHERE条件(为空表示删除所有行) */
-    private final Expression whereClause;
+    /** 要删除的行(已经按WHERE条件过滤),为null时在execute()中全表扫描 */
+    private final Operator source;
 
-    /** 表达式求值器 */
-    private final ExpressionEvaluator evaluator;
+    /** WHERE条件(只在全表扫描时使用,为空表示删除所有行) */
+    private final Expression whereClause;
 
     /** 是否已执行 */
     private boolean executed = false;
@@ -82,11 +72,14 @@ public class DeleteOperator implements MutationOperator {
     /** 受影响的行数 */
     private int affectedRows = 0;
 
-    /** 删除的主键列表(用于调试) */
-    private List<Object> deletedPrimaryKeys;
+    /** 最多记录多少个删除的主键(默认0:只计数,不记录) */
+    private int recordLimit = 0;
+
+    /** 删除的主键列表(调试和测试用,最多recordLimit个) */
+    private final List<Object> deletedPrimaryKeys = new ArrayList<>();
 
     /**
-     * 创建DELETE算子
+     * 创建DELETE算子(全表扫描 + WHERE过滤)
      *
      * @param table 表对象
      * @param whereClause WHERE条件(为null表示删除所有行)
@@ -103,24 +96,36 @@ public class DeleteOperator implements MutationOperator {
         }
 
         this.table = table;
+        this.source = null;
         this.whereClause = whereClause;
-        this.evaluator = evaluator;
-        this.deletedPrimaryKeys = new ArrayList<>();
     }
 
     /**
-     * 执行DELETE操作
+     * 创建DELETE算子
+     *
+     * @param table 表对象
+     * @param source 要删除的行,由ExecutionPlan按WHERE条件选择访问路径并过滤
+     */
+    public DeleteOperator(Table table, Operator source) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("Source operator cannot be null");
+        }
+
+        this.table = table;
+        this.source = source;
+        this.whereClause = null;
+    }
+
+    /**
      * 执行DELETE操作
      *
      * 算法流程:
-     * 1. 全表扫描所有行
-     * 2. 对每一行:
-     *    a) 评估WHERE条件(如果有)
-     *    b) 如果符合条件,记录主键值
-     * 3. 对所有符合条件的主键,调用Table.deleteRow()删除
-     * 4. 返回影响行数
-     *
-     * 注意: 先收集所有要删除的主键,再执行删除,避免在迭代过程中修改表结构
+     * 1. 从子算子逐行拉取要删除的行
+     * 2. 取出主键,调用Table.deleteRow()删除
+     * 3. 返回影响行数
      *
      * @return 受影响的行数
      */
@@ -139,56 +144,45 @@ public class DeleteOperator implements MutationOperator {
 
         // 找到主键列
         int primaryKeyIndex = table.getClusteredIndex().getPrimaryKeyIndex();
-        List<Column> tableColumns = table.getColumns();
 
-        // 全表扫描
-        List<Row> allRows = table.fullTableScan();
+        Operator rows = source != null ? source : scanSource();
+        try {
+            while (rows.hasNext()) {
+                Object primaryKeyValue = rows.next().getValue(primaryKeyIndex);
 
-        // 第一遍:收集要删除的主键
-        List<Object> primaryKeysToDelete = new ArrayList<>();
+                try {
+                    int deleteResult = table.deleteRow(primaryKeyValue);
 
-        for (Row row : allRows) {
-            try {
-                // 评估WHERE条件
-                if (whereClause != null) {
-                    Boolean conditionResult = (Boolean) evaluator.eval(whereClause, row, tableColumns);
-                    if (conditionResult == null || !conditionResult) {
-                        continue; // 不符合条件,跳过
+                    if (deleteResult > 0) {
+                        affectedRows++;
+                        if (deletedPrimaryKeys.size() < recordLimit) {
+                            deletedPrimaryKeys.add(primaryKeyValue);
+                        }
                     }
-                }
 
-                // 符合条件,记录主键
-                Object primaryKeyValue = row.getValue(primaryKeyIndex);
-                primaryKeysToDelete.add(primaryKeyValue);
-
-            } catch (Exception e) {
-                // 简化实现:遇到错误直接抛出,不实现部分成功回滚
-                throw new RuntimeException("Failed to evaluate WHERE condition: " + e.getMessage(), e);
-            }
-        }
-
-        // 第二遍:执行删除
-        for (Object primaryKeyValue : primaryKeysToDelete) {
-            try {
-                int deleteResult = table.deleteRow(primaryKeyValue);
-
-                if (deleteResult > 0) {
-                    affectedRows++;
-                    deletedPrimaryKeys.add(primaryKeyValue);
+                } catch (Exception e) {
+                    // 简化实现:遇到错误直接抛出,不实现部分成功回滚
+                    throw new RuntimeException(
+                            "Failed to delete row with primary key " + primaryKeyValue + ": " + e.getMessage(),
+                            e
+                    );
                 }
-
-            } catch (Exception e) {
-                // 简化实现:遇到错误直接抛出,不实现部分成功回滚
-                throw new RuntimeException(
-                        "Failed to delete row with primary key " + primaryKeyValue + ": " + e.getMessage(),
-                        e
-                );
             }
+        } finally {
+            rows.close();
         }
 
         return affectedRows;
     }
 
+    /**
+     * 全表扫描 + WHERE过滤
+     */
+    private Operator scanSource() {
+        Operator scan = new ScanOperator(table);
+        return whereClause == null ? scan : new FilterOperator(scan, whereClause, table.getColumns());
+    }
+
     /**
      * 获取受影响的行数
      *
@@ -203,13 +197,31 @@ public class DeleteOperator implements MutationOperator {
         return affectedRows;
     }
 
+    /**
+     * 记录删除的主键(调试和测试用)
+     *
+     * 默认不记录:DELETE FROM t删除几千万行时不能把所有主键留在内存里。
+     * 必须在execute()之前调用。
+     *
+     * @param limit 最多记录多少个主键
+     */
+    public void recordDeletedPrimaryKeys(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Record limit cannot be negative: " + limit);
+        }
+        if (executed) {
+            throw new IllegalStateException("DeleteOperator has already been executed");
+        }
+        this.recordLimit = limit;
+    }
+
     /**
      * 获取删除的主键列表
      *
      * 必须在execute()之后调用。
-     * 主要用于调试和测试。
+     * 只有先调用recordDeletedPrimaryKeys()才会记录,最多记录limit个。
      *
-     * @return 删除的主键列表
+     * @return 删除的主键列表,按删除顺序
      */
     public List<Object> getDeletedPrimaryKeys() {
         if (!executed) {
@@ -231,7 +243,7 @@ public class DeleteOperator implements MutationOperator {
     public String toString() {
         return "DeleteOperator{" +
                 "table=" + table.getTableName() +
-                ", whereClause=" + (whereClause != null ? "present" : "absent") +
+                ", source=" + (source != null ? source : "scan, whereClause=" + (whereClause != null ? "present" : "absent")) +
                 '}';
     }
 }
@@ -162,6 +162,14 @@ public class FilterOperator implements Operator {
         return currentRow;
     }
 
+    /**
+     * 关闭子算子
+     */
+    @Override
+    public void close() {
+        child.close();
+    }
+
     /**
      * 获取子算子
      *
@@ -0,0 +1,50 @@
+package com.minimysql.executor.operator;
+
+import com.minimysql.storage.index.BPlusTree;
+import com.minimysql.storage.table.Table;
+
+/**
+ * IndexLookupOperator - 索引等值查找算子
+ *
+ * 主键或二级索引列 = 常量 时,一次B+树下降找到所有匹配的行:
+ * - 主键/唯一二级索引:至多一行
+ * - 非唯一二级索引:这个值的所有行(键是(值, 主键),在叶子上连续存放)
+ *
+ * 就是上下界都是同一个值、都包含的范围扫描,执行方式与IndexRangeScanOperator相同。
+ *
+ * MySQL对应:
+ * - EXPLAIN输出中的type=const(主键/唯一索引)和type=ref(非唯一索引)
+ *
+ * 使用示例:
+ * <pre>
+ * // WHERE id = 5
+ * Operator lookup = new IndexLookupOperator(table, table.getClusteredIndex(), 5);
+ * </pre>
+ */
+public class IndexLookupOperator extends IndexRangeScanOperator {
+
+    /**
+     * 创建索引等值查找算子
+     *
+     * @param table 表对象
+     * @param index 聚簇索引或二级索引
+     * @param lookupValue 查找的值(主键值或索引列值)
+     */
+    public IndexLookupOperator(Table table, BPlusTree index, Object lookupValue) {
+        super(table, index, requireValue(lookupValue), true, lookupValue, true);
+    }
+
+    /**
+     * 查找的值
+     */
+    public Object getLookupValue() {
+        return getLowerValue();
+    }
+
+    private static Object requireValue(Object lookupValue) {
+        if (lookupValue == null) {
+            throw new IllegalArgumentException("Lookup value cannot be null");
+        }
+        return lookupValue;
+    }
+}
@@ -0,0 +1,184 @@
+package com.minimysql.executor.operator;
+
+import com.minimysql.executor.Operator;
+import com.minimysql.storage.index.BPlusTree;
+import com.minimysql.storage.index.RowCursor;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+
+/**
+ * IndexRangeScanOperator - 索引范围扫描算子
+ *
+ * 在聚簇索引(主键)或二级索引上只读一个键范围内的行,而不是整个叶子链表。
+ * 与ScanOperator一样是算子树的叶子节点,返回完整的行:
+ * - 聚簇索引:叶子上就是整行,按主键顺序返回
+ * - 二级索引:按(索引列值, 主键)顺序,每行回表查询一次聚簇索引
+ *
+ * 行通过RowCursor逐行取出,游标每次只pin住一个叶子,读完范围后自动关闭;
+ * 上层提前结束时由close()释放。
+ *
+ * MySQL对应:
+ * - EXPLAIN输出中的type=range
+ * - 二级索引上回表对应InnoDB的row_sel_get_clust_rec
+ *
+ * 使用示例:
+ * <pre>
+ * // WHERE id >= 100 AND id < 200
+ * Operator scan = new IndexRangeScanOperator(table, table.getClusteredIndex(), 100, true, 200, false);
+ * </pre>
+ *
+ * 性能特点:
+ * - 一次B+树下降定位到起点,之后顺着叶子链表读,读到范围的终点就停
+ * - 二级索引每行多一次回表,范围很大时可能不如全表扫描
+ */
+public class IndexRangeScanOperator implements Operator {
+
+    /** 表对象 */
+    private final Table table;
+
+    /** 扫描的索引(聚簇索引或二级索引) */
+    private final BPlusTree index;
+
+    private final Object lowerValue;
+    private final boolean lowerInclusive;
+    private final Object upperValue;
+    private final boolean upperInclusive;
+
+    /** 范围上的行游标 */
+    private final RowCursor cursor;
+
+    /** 游标是否已经定位过 */
+    private boolean started;
+
+    /** 范围是否已经读完(游标已关闭) */
+    private boolean exhausted;
+
+    /** 当前行(缓存hasNext()找到的行) */
+    private Row currentRow;
+
+    /** 是否已经找到下一行(用于hasNext()/next()协同) */
+    private boolean hasNextRow;
+
+    /**
+     * 创建索引范围扫描算子
+     *
+     * @param table 表对象
+     * @param index 聚簇索引或二级索引
+     * @param lowerValue 下界(主键值或索引列值),null表示不限
+     * @param lowerInclusive 是否包含下界
+     * @param upperValue 上界,null表示不限
+     * @param upperInclusive 是否包含上界
+     */
+    public IndexRangeScanOperator(Table table, BPlusTree index,
+                                  Object lowerValue, boolean lowerInclusive,
+                                  Object upperValue, boolean upperInclusive) {
+        if (table == null) {
+            throw new IllegalArgumentException("Table cannot be null");
+        }
+        if (index == null) {
+            throw new IllegalArgumentException("Index cannot be null");
+        }
+
+        this.table = table;
+        this.index = index;
+        this.lowerValue = lowerValue;
+        this.lowerInclusive = lowerInclusive;
+        this.upperValue = upperValue;
+        this.upperInclusive = upperInclusive;
+        this.cursor = index.openRowCursor(lowerValue, lowerInclusive, upperValue, upperInclusive);
+    }
+
+    /**
+     * 检查是否还有下一行
+     *
+     * 跳过定位之后被并发删除的行(二级索引回表找不到)。
+     *
+     * @return 如果还有下一行返回true
+     */
+    @Override
+    public boolean hasNext() {
+        if (hasNextRow) {
+            return true;
+        }
+
+        while (!exhausted) {
+            boolean positioned = started ? cursor.next() : cursor.first();
+            started = true;
+            if (!positioned) {
+                close();
+                return false;
+            }
+
+            Row row = cursor.row();
+            if (row != null) {
+                currentRow = row;
+                hasNextRow = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取下一行数据
+     *
+     * @return 行数据
+     * @throws java.util.NoSuchElementException 如果没有下一行
+     */
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new java.util.NoSuchElementException("No more rows");
+        }
+
+        hasNextRow = false;
+        return currentRow;
+    }
+
+    /**
+     * 关闭游标,释放pin住的叶子
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        cursor.close();
+    }
+
+    /**
+     * 获取表对象
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * 获取扫描的索引
+     */
+    public BPlusTree getIndex() {
+        return index;
+    }
+
+    /**
+     * 下界,null表示不限
+     */
+    public Object getLowerValue() {
+        return lowerValue;
+    }
+
+    /**
+     * 上界,null表示不限
+     */
+    public Object getUpperValue() {
+        return upperValue;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "table=" + table.getTableName() +
+                ", index=" + index.getIndexName() +
+                ", range=" + (lowerValue == null ? "(-∞" : (lowerInclusive ? "[" : "(") + lowerValue) +
+                ", " + (upperValue == null ? "+∞)" : upperValue + (upperInclusive ? "]" : ")")) +
+                '}';
+    }
+}
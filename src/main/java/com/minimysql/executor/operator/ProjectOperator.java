@@ -221,6 +221,14 @@ public class ProjectOperator implements Operator {
         return new Row(projectedValues.toArray());
     }
 
+    /**
+     * 关闭子算子
+     */
+    @Override
+    public void close() {
+        child.close();
+    }
+
     /**
      * 获取子算子
      *
@@ -2,6 +2,7 @@ package com.minimysql.executor.operator;
 
 import com.minimysql.executor.ExpressionEvaluator;
 import com.minimysql.executor.MutationOperator;
+import com.minimysql.executor.Operator;
 import com.minimysql.parser.Expression;
 import com.minimysql.storage.table.Column;
 import com.minimysql.storage.table.Row;
@@ -10,7 +11,6 @@ import com.minimysql.storage.table.Table;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * UpdateOperator - UPDATE更新算子
@@ -18,47 +18,46 @@ import java.util.Optional;
  * 负责执行UPDATE语句,更新表中符合WHERE条件的数据行。
  *
  * 核心功能:
- * 1. 全表扫描: 扫描表中的所有行
- * 2. WHERE条件过滤: 使用ExpressionEvaluator评估WHERE条件
- * 3. 值更新: 对符合条件的行,更新指定列的值
- * 4. 表达式求值: 将SET子句中的表达式转换为实际值
- * 5. 返回影响行数
+ * 1. 读取候选行: 从子算子(访问路径 + WHERE过滤)逐行拉取要更新的行
+ * 2. 值更新: 对每一行,更新指定列的值
+ * 3. 表达式求值: 将SET子句中的表达式转换为实际值
+ * 4. 返回影响行数
  *
  * 设计原则:
- * - "Good taste": 简单直接,先扫描再过滤再更新
- * - 实用主义: 不实现复杂的索引查找优化,直接全表扫描
+ * - "Good taste": 更新算子只负责改值,找行交给和SELECT一样的访问路径
+ * - 边读边改: 不先把整张表读进内存
  * - 简单直接: 不实现ORDER BY、LIMIT等子句
  *
  * MySQL对应:
- * - MySQL的UPDATE语句执行(无索引优化情况)
- * - 对应EXPLAIN输出中的type=ALL
+ * - MySQL的UPDATE语句执行:先按访问路径定位行,再逐行更新
+ * - 访问路径对应EXPLAIN输出中的type(const/ref/range/ALL)
  *
  * 使用示例:
  * <pre>
- * // UPDATE users SET age = 26 WHERE id = 1
+ * // UPDATE users SET age = 26 WHERE id = 1 (ExecutionPlan选择主键点查)
  * Map<String, Expression> assignments = Map.of("age", new LiteralExpression(26));
- * Expression whereClause = new BinaryExpression(
- *     new ColumnExpression("id"),
- *     Operator.EQUAL,
- *     new LiteralExpression(1)
- * );
+ * Operator source = new IndexLookupOperator(table, table.getClusteredIndex(), 1);
  *
- * UpdateOperator updateOp = new UpdateOperator(table, assignments, whereClause, evaluator);
+ * UpdateOperator updateOp = new UpdateOperator(table, assignments, source, false, evaluator);
  * int affectedRows = updateOp.execute();
+ *
+ * // 不指定访问路径:全表扫描 + WHERE过滤
+ * UpdateOperator scanUpdate = new UpdateOperator(table, assignments, whereClause, evaluator);
  * </pre>
  *
  * 数据流:
- * Table.fullTableScan() → WHERE过滤 → 更新符合条件的行 → Table.updateRow() → 影响行数
+ * 访问路径 → FilterOperator → 更新列值 → Table.updateRow() → 影响行数
  *
- * 性能特点:
- * - O(N)时间复杂度,N为表中的总行数
- * - 需要全表扫描(即使只更新一行)
- * - 不使用索引优化(简化实现)
+ * Halloween问题:
+ * - 如果访问路径按某个被更新的列有序(例如 UPDATE t SET age = age + 1 WHERE age > 10 走age索引),
+ *   边读边改会把改过的行移到游标前面,同一行被再次读到、再次更新
+ * - 这种情况下先只收集主键(bufferPrimaryKeys),读完再按主键逐行更新
+ * - 其他情况边读边改:游标按最后读到的键重新定位,改过的行不会被再次读到
  *
- * 设计哲学:
- * - "Bad programmers worry about the code. Good programmers worry about data structures."
- * - 全表扫描虽然理论上慢,但在小表或无索引场景是最实用的方案
- * - 不实现复杂的索引查找逻辑,保持简单
+ * 性能特点:
+ * - 按主键/索引列更新时只读匹配的行,不再全表扫描
+ * - 只有Halloween情况才缓存主键,内存占用为匹配行数 × 主键大小;
+ *   更新后的行不保留,只计数
  *
  * 注意事项:
  * - 没有WHERE子句会更新所有行!
@@ -73,9 +72,15 @@ public class UpdateOperator implements MutationOperator {
     /** 更新映射(列名 -> 新值表达式) */
     private final Map<String, Expression> assignments;
 
-    /** WHERE条件(为空表示更新所有行) */
+    /** 要更新的行(已经按WHERE条件过滤),为null时在execute()中全表扫描 */
+    private final Operator source;
+
+    /** WHERE条件(只在全表扫描时使用,为空表示更新所有行) */
     private final Expression whereClause;
 
+    /** 先收集主键再更新(访问路径按被更新的列有序时) */
+    private final boolean bufferPrimaryKeys;
+
     /** 表达式求值器 */
     private final ExpressionEvaluator evaluator;
 
@@ -85,12 +90,8 @@ public class UpdateOperator implements MutationOperator {
     /** 受影响的行数 */
     private int affectedRows = 0;
 
-    /** 更新结果行(用于next()返回,可选) */
-    private List<Row> updatedRows;
-    private int currentRowIndex = 0;
-
     /**
-     * 创建UPDATE算子
+     * 创建UPDATE算子(全表扫描 + WHERE过滤)
      *
      * @param table 表对象
      * @param assignments 更新映射(列名 -> 新值表达式)
@@ -101,6 +102,32 @@ public class UpdateOperator implements MutationOperator {
                           Map<String, Expression> assignments,
                           Expression whereClause,
                           ExpressionEvaluator evaluator) {
+        this(table, assignments, null, whereClause, false, evaluator);
+    }
+
+    /**
+     * 创建UPDATE算子
+     *
+     * @param table 表对象
+     * @param assignments 更新映射(列名 -> 新值表达式)
+     * @param source 要更新的行,由ExecutionPlan按WHERE条件选择访问路径并过滤
+     * @param bufferPrimaryKeys 访问路径按被更新的列有序时为true,先收集主键再更新
+     * @param evaluator 表达式求值器
+     */
+    public UpdateOperator(Table table,
+                          Map<String, Expression> assignments,
+                          Operator source,
+                          boolean bufferPrimaryKeys,
+                          ExpressionEvaluator evaluator) {
+        this(table, assignments, requireSource(source), null, bufferPrimaryKeys, evaluator);
+    }
+
+    private UpdateOperator(Table table,
+                           Map<String, Expression> assignments,
+                           Operator source,
+                           Expression whereClause,
+                           boolean bufferPrimaryKeys,
+                           ExpressionEvaluator evaluator) {
         if (table == null) {
             throw new IllegalArgumentException("Table cannot be null");
         }
@@ -113,47 +140,28 @@ public class UpdateOperator implements MutationOperator {
 
         this.table = table;
         this.assignments = assignments;
+        this.source = source;
         this.whereClause = whereClause;
+        this.bufferPrimaryKeys = bufferPrimaryKeys;
         this.evaluator = evaluator;
-        this.updatedRows = new ArrayList<>();
-    }
-
-    /**
-     * 检查是否还有下一行
-     *
-     * 如果执行了execute()并且有更新行,返回true。
-     *
-     * @return 如果还有更新行返回true
-     */
-    @Override
-    public boolean hasNext() {
-        return currentRowIndex < updatedRows.size();
     }
 
-    /**
-     * 获取下一个更新后的行
-     *
-     * 必须先调用execute()。
-     *
-     * @return 更新后的行数据
-     */
-    @Override
-    public Row next() {
-        if (!hasNext()) {
-            throw new java.util.NoSuchElementException("No more rows");
+    private static Operator requireSource(Operator source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source operator cannot be null");
         }
-        return updatedRows.get(currentRowIndex++);
+        return source;
     }
 
     /**
      * 执行UPDATE操作
      *
      * 算法流程:
-     * 1. 全表扫描所有行
+     * 1. 从子算子逐行拉取要更新的行
      * 2. 对每一行:
-     *    a) 评估WHERE条件(如果有)
-     *    b) 如果符合条件,更新指定的列
-     *    c) 调用Table.updateRow()保存更改
+     *    a) 更新指定的列
+     *    b) 调用Table.updateRow()保存更改
+     *    (bufferPrimaryKeys时先收集全部主键,读完后按主键重新读行再更新)
      * 3. 返回影响行数
      *
      * @return 受影响的行数
@@ -190,44 +198,73 @@ public class UpdateOperator implements MutationOperator {
         // 构建更新列的索引映射
         Map<Integer, Expression> updateIndexes = buildUpdateIndexes(tableColumns, assignments);
 
-        // 全表扫描
-        List<Row> allRows = table.fullTableScan();
-
-        // 逐行处理
-        for (Row row : allRows) {
-            try {
-                // 1. 评估WHERE条件
-                if (whereClause != null) {
-                    Boolean conditionResult = (Boolean) evaluator.eval(whereClause, row, tableColumns);
-                    if (conditionResult == null || !conditionResult) {
-                        continue; // 不符合条件,跳过
-                    }
+        Operator rows = source != null ? source : scanSource();
+        List<Object> bufferedPrimaryKeys = new ArrayList<>();
+        try {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (bufferPrimaryKeys) {
+                    bufferedPrimaryKeys.add(row.getValue(primaryKeyIndex));
+                } else {
+                    updateRow(row, primaryKeyIndex, updateIndexes, tableColumns);
                 }
+            }
+        } finally {
+            rows.close();
+        }
 
-                // 2. 更新列值
-                Row updatedRow = createUpdatedRow(row, updateIndexes, tableColumns);
-
-                // 3. 获取主键值
-                Object primaryKeyValue = row.getValue(primaryKeyIndex);
-
-                // 4. 调用Table.updateRow()更新
-                int updateResult = table.updateRow(primaryKeyValue, updatedRow);
+        // Halloween情况:游标已经关闭,按主键重新读行再更新
+        for (Object primaryKeyValue : bufferedPrimaryKeys) {
+            Row row = table.selectByPrimaryKey(primaryKeyValue);
+            if (row != null) {
+                updateRow(row, primaryKeyIndex, updateIndexes, tableColumns);
+            }
+        }
 
-                if (updateResult > 0) {
-                    affectedRows++;
-                    updatedRows.add(updatedRow);
-                }
+        return affectedRows;
+    }
 
-            } catch (IllegalArgumentException e) {
-                // 参数校验异常,直接抛出
-                throw e;
-            } catch (Exception e) {
-                // 其他异常包装为RuntimeException
-                throw new RuntimeException("Failed to update row: " + e.getMessage(), e);
+    /**
+     * 更新一行
+     *
+     * @param row 当前行
+     * @param primaryKeyIndex 主键列索引
+     * @param updateIndexes 更新列索引映射
+     * @param tableColumns 表的列定义
+     */
+    private void updateRow(Row row,
+                           int primaryKeyIndex,
+                           Map<Integer, Expression> updateIndexes,
+                           List<Column> tableColumns) {
+        try {
+            // 1. 更新列值
+            Row updatedRow = createUpdatedRow(row, updateIndexes, tableColumns);
+
+            // 2. 获取主键值
+            Object primaryKeyValue = row.getValue(primaryKeyIndex);
+
+            // 3. 调用Table.updateRow()更新
+            int updateResult = table.updateRow(primaryKeyValue, updatedRow);
+
+            if (updateResult > 0) {
+                affectedRows++;
             }
+
+        } catch (IllegalArgumentException e) {
+            // 参数校验异常,直接抛出
+            throw e;
+        } catch (Exception e) {
+            // 其他异常包装为RuntimeException
+            throw new RuntimeException("Failed to update row: " + e.getMessage(), e);
         }
+    }
 
-        return affectedRows;
+    /**
+     * 全表扫描 + WHERE过滤
+     */
+    private Operator scanSource() {
+        Operator scan = new ScanOperator(table);
+        return whereClause == null ? scan : new FilterOperator(scan, whereClause, table.getColumns());
     }
 
     /**
@@ -339,12 +376,22 @@ public class UpdateOperator implements MutationOperator {
         return table;
     }
 
+    /**
+     * 是否先收集主键再更新
+     *
+     * @return 访问路径按被更新的列有序时返回true
+     */
+    public boolean isBufferPrimaryKeys() {
+        return bufferPrimaryKeys;
+    }
+
     @Override
     public String toString() {
         return "UpdateOperator{" +
                 "table=" + table.getTableName() +
                 ", assignments=" + assignments.keySet() +
-                ", whereClause=" + (whereClause != null ? "present" : "absent") +
+                ", source=" + (source != null ? source : "scan, whereClause=" + (whereClause != null ? "present" : "absent")) +
+                ", bufferPrimaryKeys=" + bufferPrimaryKeys +
                 '}';
     }
 }
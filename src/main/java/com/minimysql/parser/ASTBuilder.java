@@ -96,6 +96,23 @@ public class ASTBuilder extends MySQLBaseVisitor<Object> {
         return new DropTableStatement(tableName);
     }
 
+    // ==================== CREATE INDEX ====================
+
+    @Override
+    public CreateIndexStatement visitCreateIndexStatement(MySQLParser.CreateIndexStatementContext ctx) {
+        String indexName = visitIdentifier(ctx.indexName);
+        String tableName = visitIdentifier(ctx.tableName);
+        String columnName = visitIdentifier(ctx.columnName);
+
+        // 解析INCLUDE列(如果有)
+        List<String> includeColumns = new ArrayList<>();
+        for (MySQLParser.IdentifierContext identCtx : ctx.includeColumns) {
+            includeColumns.add(visitIdentifier(identCtx));
+        }
+
+        return new CreateIndexStatement(indexName, tableName, columnName, ctx.UNIQUE() != null, includeColumns);
+    }
+
     // ==================== SELECT ====================
 
     @Override
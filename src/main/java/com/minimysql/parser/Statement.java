@@ -41,6 +41,8 @@ public interface Statement {
         CREATE_TABLE,
         /** DROP TABLE - 删除表 */
         DROP_TABLE,
+        /** CREATE INDEX - 创建二级索引 */
+        CREATE_INDEX,
         /** SELECT - 查询 */
         SELECT,
         /** INSERT - 插入 */
@@ -0,0 +1,84 @@
+package com.minimysql.parser.statements;
+
+import com.minimysql.parser.Statement;
+
+import java.util.List;
+
+/**
+ * CreateIndexStatement - CREATE INDEX语句
+ *
+ * 表示在已有表上创建二级索引的SQL语句。
+ *
+ * 语法示例:
+ * <pre>
+ * CREATE INDEX idx_name ON users (name);
+ * CREATE UNIQUE INDEX idx_email ON users (email);
+ * CREATE INDEX idx_name ON users (name) INCLUDE (email, age);
+ * </pre>
+ *
+ * 设计原则:
+ * - 只支持单列索引键,与SecondaryIndex一致
+ * - INCLUDE列只存在叶子中,不参与排序,用于覆盖查询
+ */
+public class CreateIndexStatement implements Statement {
+
+    /** 索引名 */
+    private final String indexName;
+
+    /** 表名 */
+    private final String tableName;
+
+    /** 索引列名 */
+    private final String columnName;
+
+    /** 是否为唯一索引 */
+    private final boolean unique;
+
+    /** INCLUDE列名,没有INCLUDE子句时为空列表 */
+    private final List<String> includeColumns;
+
+    public CreateIndexStatement(String indexName, String tableName, String columnName,
+                                boolean unique, List<String> includeColumns) {
+        this.indexName = indexName;
+        this.tableName = tableName;
+        this.columnName = columnName;
+        this.unique = unique;
+        this.includeColumns = includeColumns == null ? List.of() : List.copyOf(includeColumns);
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public List<String> getIncludeColumns() {
+        return includeColumns;
+    }
+
+    @Override
+    public StatementType getType() {
+        return StatementType.CREATE_INDEX;
+    }
+
+    @Override
+    public String toString() {
+        return "CreateIndexStatement{" +
+                "indexName='" + indexName + '\'' +
+                ", tableName='" + tableName + '\'' +
+                ", columnName='" + columnName + '\'' +
+                ", unique=" + unique +
+                ", includeColumns=" + includeColumns +
+                '}';
+    }
+}
@@ -0,0 +1,219 @@
+package com.minimysql.result;
+
+import com.minimysql.executor.Operator;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * ResultCursor - 流式结果集
+ *
+ * 持有算子树的根节点,调用方每取一行,算子树才往下拉一行:
+ * 第一行不用等整个结果集算完,内存中也不会攒下整个结果集。
+ *
+ * 背压(backpressure):
+ * - 拉取模型天然有背压:调用方不调用next(),算子树就停在原地,
+ *   索引游标只pin住当前的叶子,不会继续读页
+ * - fetch(n)一次最多取n行,适合按批发送给客户端
+ *
+ * 资源:
+ * - 结果取完时自动关闭算子树(释放索引游标pin住的页)
+ * - 没取完就不要了,必须调用close();推荐try-with-resources
+ *
+ * MySQL对应:
+ * - mysql_use_result()(逐行从服务器读取) vs mysql_store_result()(全部读到客户端)
+ * - 服务器端游标的COM_STMT_FETCH(每次取n行)对应fetch(n)
+ * - QueryResult对应store_result:需要表格化输出或多次遍历时用toQueryResult()缓冲
+ *
+ * 使用示例:
+ * <pre>
+ * try (ResultCursor cursor = executor.openCursor(stmt)) {
+ *     while (cursor.hasNext()) {
+ *         Row row = cursor.next();
+ *         // 处理一行,处理完再取下一行
+ *     }
+ * }
+ * </pre>
+ *
+ * "Good taste": 游标就是算子树的迭代器加上列定义,不另起线程、不另设缓冲区
+ */
+public class ResultCursor implements Iterator<Row>, AutoCloseable {
+
+    /** 列定义(投影后的列) */
+    private final List<Column> columns;
+
+    /** 算子树的根节点 */
+    private final Operator operator;
+
+    /** 是否已关闭 */
+    private boolean closed = false;
+
+    /** 已经返回的行数 */
+    private long rowCount = 0;
+
+    /**
+     * 创建流式结果集
+     *
+     * @param columns 列定义
+     * @param operator 算子树的根节点,由游标负责关闭
+     */
+    public ResultCursor(List<Column> columns, Operator operator) {
+        if (columns == null) {
+            throw new IllegalArgumentException("Columns cannot be null");
+        }
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator cannot be null");
+        }
+
+        this.columns = List.copyOf(columns);
+        this.operator = operator;
+    }
+
+    /**
+     * 检查是否还有下一行
+     *
+     * 没有更多行时关闭算子树。
+     *
+     * @return 如果还有下一行返回true
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        boolean hasNext;
+        try {
+            hasNext = operator.hasNext();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (!hasNext) {
+            close();
+        }
+        return hasNext;
+    }
+
+    /**
+     * 获取下一行
+     *
+     * @return 行数据
+     * @throws NoSuchElementException 如果没有下一行或游标已关闭
+     */
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+
+        try {
+            Row row = operator.next();
+            rowCount++;
+            return row;
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 最多取maxRows行
+     *
+     * @param maxRows 最多取的行数
+     * @return 取到的行,少于maxRows说明结果已经取完
+     */
+    public List<Row> fetch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("maxRows must be positive: " + maxRows);
+        }
+
+        List<Row> rows = new ArrayList<>(Math.min(maxRows, 1024));
+        while (rows.size() < maxRows && hasNext()) {
+            rows.add(next());
+        }
+        return rows;
+    }
+
+    /**
+     * 把剩下的行全部读进内存,封装为QueryResult
+     *
+     * 读完后游标已关闭。
+     *
+     * @return 缓冲的结果集
+     */
+    public QueryResult toQueryResult() {
+        List<Row> rows = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                rows.add(next());
+            }
+        } finally {
+            close();
+        }
+        return new QueryResult(columns, rows);
+    }
+
+    /**
+     * 关闭游标和算子树
+     *
+     * 可以多次调用。
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        operator.close();
+    }
+
+    /**
+     * 获取列定义
+     *
+     * @return 列定义列表
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 获取列数
+     *
+     * @return 列数
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * 获取已经返回的行数
+     *
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 是否已关闭(结果取完或调用过close)
+     *
+     * @return 已关闭返回true
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCursor{" +
+                "columns=" + columns.size() +
+                ", rowCount=" + rowCount +
+                ", closed=" + closed +
+                '}';
+    }
+}
@@ -5,8 +5,10 @@ import com.minimysql.storage.buffer.BufferPool;
 import com.minimysql.storage.index.ClusteredIndex;
 import com.minimysql.storage.page.PageManager;
 import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
 import com.minimysql.storage.table.Table;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -98,7 +100,25 @@ public interface StorageEngine {
      * @param unique 是否为唯一索引
      * @throws IllegalArgumentException 表不存在、列不存在、索引已存在
      */
-    void createIndex(String tableName, String indexName, String columnName, boolean unique);
+    default void createIndex(String tableName, String indexName, String columnName, boolean unique) {
+        createIndex(tableName, indexName, columnName, unique, List.of());
+    }
+
+    /**
+     * 创建带INCLUDE列的索引(覆盖索引)
+     *
+     * INCLUDE列的值存在二级索引的叶子中,不参与排序。
+     * 查询只涉及主键、索引列和INCLUDE列时不需要回表。
+     *
+     * @param tableName 表名
+     * @param indexName 索引名称
+     * @param columnName 索引列名
+     * @param unique 是否为唯一索引
+     * @param includeColumns INCLUDE列名,为空时创建普通二级索引
+     * @throws IllegalArgumentException 表不存在、列不存在、索引已存在、INCLUDE列重复
+     */
+    void createIndex(String tableName, String indexName, String columnName, boolean unique,
+                     List<String> includeColumns);
 
     /**
      * 删除索引
@@ -114,6 +134,19 @@ public interface StorageEngine {
      */
     boolean dropIndex(String tableName, String indexName);
 
+    /**
+     * 批量导入行(LOAD DATA)
+     *
+     * 向空表导入大量行,比逐行插入快:索引按键排序后自底向上构建。
+     *
+     * @param tableName 表名
+     * @param rows 要导入的行,顺序任意
+     * @return 导入的行数
+     * @throws IllegalArgumentException 表不存在、行不符合表定义、主键或唯一索引重复
+     * @throws IllegalStateException 表不为空
+     */
+    long loadRows(String tableName, Iterator<Row> rows);
+
     /**
      * 检查表是否存在
      *
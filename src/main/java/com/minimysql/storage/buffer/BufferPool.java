@@ -6,26 +6,27 @@ import com.minimysql.storage.page.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
 
 /**
  * BufferPool - 缓冲池管理器
- * TODO 优化阶段，尝试优化锁的粒度/是否可以不使用锁
  *
  * 缓冲池是数据库性能的核心,用于缓存磁盘上的页,减少磁盘I/O。
  *
  * 核心功能:
  * 1. 页缓存:在内存中缓存固定数量的页
- * 2. LRU淘汰:当缓存满时,淘汰最久未使用的页
+ * 2. 页替换:当缓存满时,由ReplacementPolicy选择淘汰页(默认LRU,可选CLOCK、中点插入LRU)
  * 3. 脏页管理:被修改的页在淘汰前写回磁盘
  * 4. 引用计数:正在使用的页不能被淘汰
+ * 5. 分区:按页键哈希拆成N个BufferPoolInstance,各自加锁,互不阻塞
+ * 6. 后台刷脏:startPageCleaner启动PageCleaner,按脏页比例成批写回最老的脏页
+ * 7. 预读:enableReadAhead开启线性预读,扫描B+树叶子时可以沿链表预读(ReadAhead)
+ * 8. 内存映射读:enableMmapReads后缺页直接使用文件映射的只读切片,不复制;写仍走定位写
  *
  * 使用模式:
  * <pre>
@@ -42,37 +43,62 @@ import java.util.concurrent.locks.ReentrantLock;
  * </pre>
  *
  * 设计哲学:
- * - 使用LinkedHashMap实现LRU,访问时将页移到链表尾部
+ * - 替换策略可插拔:LRU用侵入式双向链表,CLOCK用环形数组+引用位(每个分区一个)
+ * - 磁盘I/O在分区锁外进行,一个表的缺页不会挡住其他表的命中
  * - pinCount > 0的页不能被淘汰
  * - 脏页淘汰前必须写回磁盘
- * - 文件操作简单直接:每页对应文件的某个偏移量
+ * - 文件操作简单直接:每页对应文件的某个偏移量,通过PageFileManager定位读写
  *
- * "Good taste": 没有复杂的预取、多缓冲池、自适应淘汰等,只有最基本的LRU
+ * "Good taste": BufferPool只负责路由和文件I/O,并发控制全部在分区内部;
+ * 默认1个分区,行为与全局LRU完全一致
  *
  * "实用主义": 文件直接存储在data/目录,每个表一个.db文件
  */
-public class BufferPool {
+public final class BufferPool {
 
     private static final Logger logger = LoggerFactory.getLogger(BufferPool.class);
 
     /** 默认缓冲池大小:100页 */
     public static final int DEFAULT_POOL_SIZE = 100;
 
+    /** 默认分区数:1(等价于全局LRU) */
+    public static final int DEFAULT_INSTANCES = 1;
+
     /** 默认数据目录 */
     private static final String DEFAULT_DATA_DIR = "data";
 
+    /**
+     * 每个分区的堆外帧比容量多出的帧数
+     *
+     * 缺页读盘时新页先占一帧,回到锁内才淘汰旧页归还帧,
+     * 多个线程同时缺页会暂时超出容量;超出余量时退化为堆内页。
+     */
+    private static final int ARENA_SLACK_FRAMES = 8;
+
     /** 缓冲池大小(页数) */
     private final int poolSize;
 
-    /** LRU缓存:复合键 → 页帧 */
-    private final LinkedHashMap<Long, PageFrame> pageCache;
-
-    /** 缓冲池锁(保证并发安全) */
-    private final ReentrantLock lock;
+    /** 缓冲池分区:页键哈希 → 分区 */
+    private final BufferPoolInstance[] instances;
 
     /** 数据目录路径 */
     private final Path dataDirPath;
 
+    /** 页文件I/O层(每个数据文件一个打开的FileChannel) */
+    private final PageFileManager pageFileManager;
+
+    /** 修改序号:页第一次变脏时分配,刷新链表按它排序(对应InnoDB的oldest_modification LSN) */
+    private final AtomicLong modificationCounter;
+
+    /** 后台刷脏线程(未启动时为null) */
+    private volatile PageCleaner pageCleaner;
+
+    /** 预读(未开启时为null) */
+    private volatile ReadAhead readAhead;
+
+    /** 缺页时是否使用内存映射读 */
+    private volatile boolean mmapReads;
+
     /**
      * 创建默认大小(100页)的缓冲池，使用默认数据目录
      */
@@ -96,12 +122,91 @@ public class BufferPool {
      * @param dataDir 数据目录路径
      */
     public BufferPool(int poolSize, String dataDir) {
+        this(poolSize, dataDir, DEFAULT_INSTANCES);
+    }
+
+    /**
+     * 创建分区缓冲池
+     *
+     * 容量平均分给各分区,余数分给前几个分区。
+     * 对应InnoDB的innodb_buffer_pool_instances。
+     *
+     * @param poolSize 缓冲池大小(页数)
+     * @param dataDir 数据目录路径
+     * @param instanceCount 分区数
+     */
+    public BufferPool(int poolSize, String dataDir, int instanceCount) {
+        this(poolSize, dataDir, instanceCount, ReplacementPolicy.lru());
+    }
+
+    /**
+     * 创建分区缓冲池(指定页替换策略)
+     *
+     * @param poolSize 缓冲池大小(页数)
+     * @param dataDir 数据目录路径
+     * @param instanceCount 分区数
+     * @param policyFactory 页替换策略工厂(每个分区创建一个策略实例)
+     */
+    public BufferPool(int poolSize, String dataDir, int instanceCount,
+                      ReplacementPolicy.Factory policyFactory) {
+        this(poolSize, dataDir, instanceCount, policyFactory, false);
+    }
+
+    /**
+     * 创建分区缓冲池(指定页替换策略,可选堆外页帧)
+     *
+     * 开启堆外页帧时,每个分区启动时一次性分配容量对应的直接内存,
+     * 页内容直接放在帧上,淘汰时帧被复用,不再为每次缺页分配16KB的byte[]。
+     * 对应InnoDB启动时分配的buffer pool chunk。
+     *
+     * 堆外模式下页帧被淘汰后帧会被复用:访问页内容期间必须pin住页帧,
+     * 用pinPage/pinIndexPage获取可以避免"取到页帧、还没pin就被淘汰"的窗口。
+     *
+     * @param poolSize 缓冲池大小(页数)
+     * @param dataDir 数据目录路径
+     * @param instanceCount 分区数
+     * @param policyFactory 页替换策略工厂(每个分区创建一个策略实例)
+     * @param offHeapFrames 页内容是否放在堆外
+     */
+    public BufferPool(int poolSize, String dataDir, int instanceCount,
+                      ReplacementPolicy.Factory policyFactory, boolean offHeapFrames) {
+        this(poolSize, dataDir, instanceCount, policyFactory, offHeapFrames, new PageFileManager());
+    }
+
+    /**
+     * 创建使用指定页文件I/O层的缓冲池
+     *
+     * 测试用它注入会失败的PageFileManager,模拟磁盘满、I/O错误。
+     *
+     * @param poolSize 缓冲池大小(页数)
+     * @param dataDir 数据目录路径
+     * @param instanceCount 分区数
+     * @param policyFactory 页替换策略工厂(每个分区创建一个策略实例)
+     * @param offHeapFrames 页内容是否放在堆外
+     * @param pageFileManager 页文件I/O层
+     */
+    BufferPool(int poolSize, String dataDir, int instanceCount,
+               ReplacementPolicy.Factory policyFactory, boolean offHeapFrames,
+               PageFileManager pageFileManager) {
+        if (instanceCount < 1) {
+            throw new IllegalArgumentException("Buffer pool instance count must be positive: " + instanceCount);
+        }
+        if (poolSize < instanceCount) {
+            throw new IllegalArgumentException(
+                    "Buffer pool size " + poolSize + " is smaller than instance count " + instanceCount);
+        }
+
         this.poolSize = poolSize;
-        this.lock = new ReentrantLock();
+        this.modificationCounter = new AtomicLong();
+
+        this.instances = new BufferPoolInstance[instanceCount];
+        for (int i = 0; i < instanceCount; i++) {
+            int capacity = poolSize / instanceCount + (i < poolSize % instanceCount ? 1 : 0);
+            FrameArena arena = offHeapFrames ? new FrameArena(capacity + ARENA_SLACK_FRAMES) : null;
+            instances[i] = new BufferPoolInstance(capacity, policyFactory.create(capacity), this, arena);
+        }
 
-        // 使用LinkedHashMap实现LRU:按访问顺序排序
-        // 注意:不使用removeEldestEntry自动淘汰,而是手动控制
-        this.pageCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.pageFileManager = pageFileManager;
 
         // 确保数据目录存在
         this.dataDirPath = Path.of(dataDir);
@@ -139,39 +244,54 @@ public class BufferPool {
         return getPageInternal(indexId, pageId, false);
     }
 
+    /**
+     * 获取表数据页并pin住
+     *
+     * 在分区锁内pin,返回时页帧一定还在缓冲池中。调用方用完后必须unpin。
+     *
+     * @param tableId 表ID
+     * @param pageId 页号
+     * @return 已pin住的页帧
+     */
+    public PageFrame pinPage(int tableId, int pageId) {
+        return getPageInternal(tableId, pageId, true, true);
+    }
+
+    /**
+     * 获取索引数据页并pin住
+     *
+     * @param indexId 索引ID
+     * @param pageId 页号
+     * @return 已pin住的页帧
+     */
+    public PageFrame pinIndexPage(int indexId, int pageId) {
+        return getPageInternal(indexId, pageId, false, true);
+    }
+
+    private PageFrame getPageInternal(int id, int pageId, boolean isTableData) {
+        return getPageInternal(id, pageId, isTableData, false);
+    }
+
     /**
      * 内部方法：获取页
      *
      * @param id 表ID或索引ID
      * @param pageId 页号
      * @param isTableData true表示表数据，false表示索引数据
+     * @param pin 是否在分区锁内pin住页帧
      * @return 页帧
      */
-    private PageFrame getPageInternal(int id, int pageId, boolean isTableData) {
-        lock.lock();
-
-        try {
-            // 构造缓存键:id * 1M + pageId (简单避免冲突)
-            long cacheKey = (long) id * 1_000_000 + pageId;
-
-            // 尝试从缓存获取
-            PageFrame frame = pageCache.get(cacheKey);
-
-            if (frame == null) {
-                // 缓存未命中,检查是否需要淘汰
-                if (pageCache.size() >= poolSize) {
-                    evictOnePage();
-                }
-
-                // 从磁盘读取
-                frame = loadPageFromDisk(id, pageId, isTableData);
-                pageCache.put(cacheKey, frame);
-            }
-
-            return frame;
-        } finally {
-            lock.unlock();
+    private PageFrame getPageInternal(int id, int pageId, boolean isTableData, boolean pin) {
+        long cacheKey = cacheKey(id, pageId, isTableData);
+        BufferPoolInstance instance = instanceFor(cacheKey);
+        PageFrame frame = instance.getPage(cacheKey,
+                () -> loadPageFromDisk(id, pageId, isTableData, instance.getArena()), pin);
+
+        ReadAhead current = readAhead;
+        if (current != null) {
+            current.onAccess(id, pageId, isTableData);
         }
+        return frame;
     }
 
     /**
@@ -202,47 +322,11 @@ public class BufferPool {
      * 内部方法：创建新页
      */
     private PageFrame newPageInternal(int id, int pageId, boolean isTableData) {
-        lock.lock();
-
-        try {
-            long cacheKey = (long) id * 1_000_000 + pageId;
-
-            // 如果页已存在,抛出异常
-            if (pageCache.containsKey(cacheKey)) {
-                String type = isTableData ? "tableId" : "indexId";
-                throw new IllegalArgumentException("Page already exists: " + type + "=" + id + ", pageId=" + pageId);
-            }
-
-            // 如果缓存已满,淘汰一页
-            if (pageCache.size() >= poolSize) {
-                evictOnePage();
-            }
-
-            // 根据用途创建正确的页类型
-            Page page;
-            if (isTableData) {
-                page = new DataPage();
-            } else {
-                page = new IndexPage();
-            }
-            page.setPageId(pageId);
-            PageFrame frame = new PageFrame(page);
-
-            // 设置ID
-            if (isTableData) {
-                frame.setTableId(id);
-                frame.setClusteredIndex(true);
-            } else {
-                frame.setIndexId(id);
-                frame.setClusteredIndex(false);
-            }
-
-            pageCache.put(cacheKey, frame);
-
-            return frame;
-        } finally {
-            lock.unlock();
-        }
+        long cacheKey = cacheKey(id, pageId, isTableData);
+        BufferPoolInstance instance = instanceFor(cacheKey);
+        return instance.newPage(cacheKey,
+                () -> createEmptyFrame(id, pageId, isTableData, instance.getArena()),
+                () -> (isTableData ? "tableId" : "indexId") + "=" + id + ", pageId=" + pageId);
     }
 
     /**
@@ -254,19 +338,8 @@ public class BufferPool {
      * @param pageId 页号
      */
     public void flushPage(int tableId, int pageId) {
-        lock.lock();
-
-        try {
-            long cacheKey = (long) tableId * 1_000_000 + pageId;
-            PageFrame frame = pageCache.get(cacheKey);
-
-            if (frame != null) {
-                writePageToDisk(frame);  // 自动判断是表数据还是索引数据
-                frame.clearDirty();
-            }
-        } finally {
-            lock.unlock();
-        }
+        long cacheKey = cacheKey(tableId, pageId, true);
+        instanceFor(cacheKey).flushPage(cacheKey);
     }
 
     /**
@@ -278,18 +351,8 @@ public class BufferPool {
      * @param tableId 表ID
      */
     public void flushTablePages(int tableId) {
-        lock.lock();
-
-        try {
-            for (PageFrame frame : pageCache.values()) {
-                // 检查页是否属于指定表且为脏页
-                if (frame.getTableId() == tableId && frame.isDirty()) {
-                    writePageToDisk(frame);  // 自动使用 tableId
-                    frame.clearDirty();
-                }
-            }
-        } finally {
-            lock.unlock();
+        for (BufferPoolInstance instance : instances) {
+            instance.flushPages(frame -> frame.getTableId() == tableId);
         }
     }
 
@@ -299,22 +362,213 @@ public class BufferPool {
     public void flushAllPages() {
         logger.info("开始刷新所有脏页到磁盘");
 
-        lock.lock();
+        int dirtyCount = 0;
+        for (BufferPoolInstance instance : instances) {
+            dirtyCount += instance.flushPages(frame -> true);
+        }
 
-        try {
-            int dirtyCount = 0;
-            for (PageFrame frame : pageCache.values()) {
-                if (frame.isDirty()) {
-                    // writePageToDisk 会自动判断是表数据还是索引数据
-                    writePageToDisk(frame);
-                    frame.clearDirty();
-                    dirtyCount++;
-                }
-            }
+        // 把操作系统缓存中的修改刷到磁盘
+        pageFileManager.syncAll();
 
-            logger.info("刷新完成，共刷新 {} 个脏页", dirtyCount);
-        } finally {
-            lock.unlock();
+        logger.info("刷新完成，共刷新 {} 个脏页", dirtyCount);
+    }
+
+    /**
+     * 启动后台刷脏线程
+     *
+     * 脏页比例超过低水位时每个周期写回一批最老的脏页,超过高水位时连续写回直到降下来。
+     * 运行期间淘汰优先选择干净页,前台线程尽量不用同步写盘。
+     * 对应InnoDB的page cleaner(innodb_max_dirty_pages_pct_lwm / innodb_max_dirty_pages_pct)。
+     *
+     * @param lowWatermark 低水位(脏页比例,0~1)
+     * @param highWatermark 高水位(脏页比例,0~1,不小于低水位)
+     * @param batchSize 每批最多写回的页数
+     * @param intervalMillis 两批之间的间隔(毫秒)
+     * @throws IllegalStateException 已经启动
+     */
+    public synchronized void startPageCleaner(double lowWatermark, double highWatermark,
+                                              int batchSize, long intervalMillis) {
+        if (pageCleaner != null) {
+            throw new IllegalStateException("Page cleaner is already running");
+        }
+
+        PageCleaner cleaner = new PageCleaner(this, lowWatermark, highWatermark, batchSize, intervalMillis);
+        cleaner.start();
+        pageCleaner = cleaner;
+    }
+
+    /**
+     * 停止后台刷脏线程(未启动时什么也不做)
+     */
+    public synchronized void stopPageCleaner() {
+        PageCleaner cleaner = pageCleaner;
+        if (cleaner == null) {
+            return;
+        }
+        pageCleaner = null;
+        cleaner.stop();
+    }
+
+    /**
+     * 后台刷脏线程是否在运行
+     */
+    public boolean isPageCleanerRunning() {
+        return pageCleaner != null;
+    }
+
+    /**
+     * 开启内存映射读
+     *
+     * 之后的缺页把table_N.db/index_N.db映射进内存,页内容直接是映射的只读切片,
+     * 省掉一次16KB的分配和复制,由操作系统页缓存负责缓存。
+     * 页第一次被修改时复制到堆内(写时复制),写回仍然走FileChannel定位写。
+     * 适合读多写少的场景(例如只读报表库)。已经在缓冲池中的页不受影响。
+     */
+    public void enableMmapReads() {
+        mmapReads = true;
+    }
+
+    /**
+     * 关闭内存映射读,之后的缺页重新复制到堆内
+     */
+    public void disableMmapReads() {
+        mmapReads = false;
+    }
+
+    /**
+     * 是否开启了内存映射读
+     */
+    public boolean isMmapReadsEnabled() {
+        return mmapReads;
+    }
+
+    /**
+     * 开启预读
+     *
+     * 同一个文件连续访问sequentialThreshold个相邻页后,后台读入后面windowPages个页;
+     * prefetchChain/prefetchIndexChain沿链表预读windowPages个页。
+     * 已经开启时按新参数重新开启。
+     *
+     * @param windowPages 每次预读的页数
+     * @param sequentialThreshold 触发线性预读的连续页数(至少2)
+     */
+    public synchronized void enableReadAhead(int windowPages, int sequentialThreshold) {
+        ReadAhead created = new ReadAhead(this, windowPages, sequentialThreshold);
+        disableReadAhead();
+        readAhead = created;
+    }
+
+    /**
+     * 关闭预读,等待正在执行的预读结束(未开启时什么也不做)
+     */
+    public synchronized void disableReadAhead() {
+        ReadAhead current = readAhead;
+        if (current == null) {
+            return;
+        }
+        readAhead = null;
+        current.shutdown();
+    }
+
+    /**
+     * 预读窗口(页数),未开启预读时返回0
+     */
+    public int getReadAheadWindow() {
+        ReadAhead current = readAhead;
+        return current == null ? 0 : current.getWindowPages();
+    }
+
+    /**
+     * 沿页链表异步预读表数据页(用于聚簇索引叶子链表)
+     *
+     * @param tableId 表ID
+     * @param pageId 链表上第一个要预读的页,-1表示没有
+     * @param nextPageId 从页内容取出下一页的页号,-1表示链表结束
+     */
+    public void prefetchChain(int tableId, int pageId, ToIntFunction<Page> nextPageId) {
+        ReadAhead current = readAhead;
+        if (current != null) {
+            current.prefetchChain(tableId, true, pageId, nextPageId);
+        }
+    }
+
+    /**
+     * 沿页链表异步预读索引页(用于二级索引叶子链表)
+     *
+     * @param indexId 索引ID
+     * @param pageId 链表上第一个要预读的页,-1表示没有
+     * @param nextPageId 从页内容取出下一页的页号,-1表示链表结束
+     */
+    public void prefetchIndexChain(int indexId, int pageId, ToIntFunction<Page> nextPageId) {
+        ReadAhead current = readAhead;
+        if (current != null) {
+            current.prefetchChain(indexId, false, pageId, nextPageId);
+        }
+    }
+
+    /**
+     * 把一页读入缓冲池,不算一次访问(预读线程调用)
+     *
+     * @param pin 是否在分区锁内pin住页帧(之后要读页内容时必须pin,调用方负责unpin)
+     * @return 缓存中的页帧,磁盘上没有这一页时返回null
+     */
+    PageFrame prefetchPage(int id, int pageId, boolean isTableData, boolean pin) {
+        long cacheKey = cacheKey(id, pageId, isTableData);
+        BufferPoolInstance instance = instanceFor(cacheKey);
+        return instance.prefetch(cacheKey,
+                () -> readPageFromDisk(id, pageId, isTableData, instance.getArena()), pin);
+    }
+
+    /**
+     * 获取脏页数量
+     */
+    public int getDirtyPageCount() {
+        int dirty = 0;
+        for (BufferPoolInstance instance : instances) {
+            dirty += instance.getDirtyCount();
+        }
+        return dirty;
+    }
+
+    /**
+     * 获取脏页比例(脏页数 / 缓冲池大小)
+     */
+    public double getDirtyRatio() {
+        return (double) getDirtyPageCount() / poolSize;
+    }
+
+    /**
+     * 写回最老的一批脏页(PageCleaner调用)
+     *
+     * 批大小平均分给各分区,每个分区至少一页。
+     * 只写到操作系统缓存,fsync由flushAllPages负责。
+     *
+     * @param batchSize 最多写回的页数
+     * @return 写回的页数
+     */
+    int flushOldestDirtyPages(int batchSize) {
+        int perInstance = Math.max(1, (batchSize + instances.length - 1) / instances.length);
+        int flushed = 0;
+        for (BufferPoolInstance instance : instances) {
+            flushed += instance.flushOldest(perInstance);
+        }
+        return flushed;
+    }
+
+    /**
+     * 分配下一个修改序号
+     */
+    long nextModification() {
+        return modificationCounter.incrementAndGet();
+    }
+
+    /**
+     * 前台线程同步写回了脏页,提醒后台刷脏线程
+     */
+    void wakePageCleaner() {
+        PageCleaner cleaner = pageCleaner;
+        if (cleaner != null) {
+            cleaner.wakeup();
         }
     }
 
@@ -325,85 +579,241 @@ public class BufferPool {
         return poolSize;
     }
 
+    /**
+     * 获取分区数
+     */
+    public int getInstanceCount() {
+        return instances.length;
+    }
+
+    /**
+     * 获取统计快照(命中/缺页/淘汰、young/old段等)
+     */
+    public BufferPoolStats getStats() {
+        BufferPoolStats stats = new BufferPoolStats();
+        for (BufferPoolInstance instance : instances) {
+            instance.collectStats(stats);
+        }
+        PageCleaner cleaner = pageCleaner;
+        if (cleaner != null) {
+            stats.setCleanerStats(cleaner.getFlushedPages(), cleaner.getFlushRate());
+        }
+        return stats;
+    }
+
     /**
      * 获取缓存的页数
      */
     public int getCacheSize() {
-        lock.lock();
-        try {
-            return pageCache.size();
-        } finally {
-            lock.unlock();
+        int size = 0;
+        for (BufferPoolInstance instance : instances) {
+            size += instance.getCacheSize();
         }
+        return size;
     }
 
     /**
      * 清空缓冲池
      *
-     * 将所有脏页写回磁盘,然后清空缓存。
+     * 关闭预读和后台刷脏线程,将所有脏页写回磁盘,然后清空缓存并关闭数据文件。
      */
     public void clear() {
-        lock.lock();
+        disableReadAhead();
+        stopPageCleaner();
+        flushAllPages();
+        for (BufferPoolInstance instance : instances) {
+            instance.clear();
+        }
+        pageFileManager.closeAll();
+    }
 
-        try {
-            flushAllPages();
-            pageCache.clear();
-        } finally {
-            lock.unlock();
+    /**
+     * 关闭缓冲池
+     *
+     * 关闭预读和后台刷脏线程,将所有脏页写回磁盘并关闭数据文件,缓存的页保留。
+     * 关闭后仍可继续使用,下次读写时重新打开文件。
+     */
+    public void close() {
+        disableReadAhead();
+        stopPageCleaner();
+        flushAllPages();
+        pageFileManager.closeAll();
+    }
+
+    /**
+     * 构造页键
+     *
+     * 高32位是表ID/索引ID,第31位区分表数据文件和索引数据文件,低31位是页号。
+     * 表ID和索引ID各自编号,必须带上文件类型才不会冲突。
+     *
+     * @param id 表ID或索引ID
+     * @param pageId 页号(非负)
+     * @param isTableData true表示表数据，false表示索引数据
+     * @return 页键
+     */
+    static long cacheKey(int id, int pageId, boolean isTableData) {
+        return ((long) id << 32) | (isTableData ? 0L : 1L << 31) | (pageId & 0x7FFFFFFFL);
+    }
+
+    /**
+     * 页帧对应的页键
+     */
+    long cacheKeyOf(PageFrame frame) {
+        boolean isTableData = frame.isClusteredIndex();
+        int id = isTableData ? frame.getTableId() : frame.getIndexId();
+        return cacheKey(id, frame.getPage().getPageId(), isTableData);
+    }
+
+    /**
+     * 页键所在的分区
+     *
+     * 先打散再取模:同一个表的连续页号分散到不同分区。
+     */
+    private BufferPoolInstance instanceFor(long cacheKey) {
+        if (instances.length == 1) {
+            return instances[0];
         }
+        long mixed = cacheKey * 0x9E3779B97F4A7C15L;
+        int hash = (int) (mixed ^ (mixed >>> 32));
+        return instances[Math.floorMod(hash, instances.length)];
     }
 
     /**
      * 从磁盘加载页
      *
+     * 在分区锁外调用。
+     *
      * @param id 表ID或索引ID
      * @param pageId 页号
      * @param isTableData true表示表数据，false表示索引数据
+     * @param arena 所在分区的堆外帧内存池,null表示堆内页
      * @return 页帧
      */
-    private PageFrame loadPageFromDisk(int id, int pageId, boolean isTableData) {
+    private PageFrame loadPageFromDisk(int id, int pageId, boolean isTableData, FrameArena arena) {
+        PageFrame frame = readPageFromDisk(id, pageId, isTableData, arena);
+        if (frame == null) {
+            // 文件不存在、页超出文件末尾或文件中间的空洞,按空页处理
+            return createEmptyFrame(id, pageId, isTableData, arena);
+        }
+        return frame;
+    }
+
+    /**
+     * 从磁盘读取页
+     *
+     * 在分区锁外调用。
+     *
+     * @return 页帧,磁盘上没有这一页(文件不存在、超出文件末尾、空洞)时返回null
+     */
+    private PageFrame readPageFromDisk(int id, int pageId, boolean isTableData, FrameArena arena) {
         Path filePath = isTableData ? getTableFilePath(id) : getIndexFilePath(id);
 
-        try {
-            if (!Files.exists(filePath)) {
-                return createEmptyFrame(id, pageId, isTableData);
+        if (mmapReads) {
+            return mapPageFromDisk(filePath, id, pageId, isTableData);
+        }
+
+        if (arena != null) {
+            int slot = arena.acquire();
+            if (slot >= 0) {
+                return readPageIntoFrame(filePath, id, pageId, isTableData, arena, slot);
             }
+        }
 
-            byte[] fileData = Files.readAllBytes(filePath);
-            int offset = pageId * Page.PAGE_SIZE;
+        // 定位读:只读取这一页(pageId * PAGE_SIZE),与文件大小无关
+        byte[] pageData = new byte[Page.PAGE_SIZE];
+        if (!pageFileManager.readPage(filePath, pageId, pageData)) {
+            return null;
+        }
 
-            if (offset + Page.PAGE_SIZE > fileData.length) {
-                return createEmptyFrame(id, pageId, isTableData);
-            }
+        // 从磁盘数据读取页类型，反序列化为正确的 Page 子类
+        Page page;
+        byte pageTypeByte = pageData[0];
+        Page.PageType pageType = Page.PageType.fromCode(pageTypeByte);
+
+        if (pageType == Page.PageType.UNINITIALIZED) {
+            // 文件中间的空洞(后面的页先写回磁盘)
+            return null;
+        }
 
-            // 从磁盘数据读取页类型，反序列化为正确的 Page 子类
-            byte[] pageData = new byte[Page.PAGE_SIZE];
-            System.arraycopy(fileData, offset, pageData, 0, Page.PAGE_SIZE);
+        if (pageType == Page.PageType.INDEX_PAGE) {
+            page = new IndexPage();
+            page.fromBytes(pageData);
+        } else {
+            page = new DataPage();
+            page.fromBytes(pageData);
+        }
+
+        return createFrame(page, id, pageId, isTableData);
+    }
 
-            Page page;
-            byte pageTypeByte = pageData[0];
-            Page.PageType pageType = Page.PageType.fromCode(pageTypeByte);
+    /**
+     * 以内存映射方式读取页:页对象直接包装映射的只读切片
+     *
+     * @return 页帧,磁盘上没有这一页时返回null
+     */
+    private PageFrame mapPageFromDisk(Path filePath, int id, int pageId, boolean isTableData) {
+        ByteBuffer mapped = pageFileManager.mapPage(filePath, pageId);
+        if (mapped == null) {
+            return null;
+        }
+
+        Page.PageType pageType = Page.PageType.fromCode(mapped.get(0));
+        if (pageType == Page.PageType.UNINITIALIZED) {
+            return null;
+        }
+
+        Page page = pageType == Page.PageType.INDEX_PAGE ? IndexPage.wrap(mapped) : DataPage.wrap(mapped);
+        return createFrame(page, id, pageId, isTableData);
+    }
 
-            if (pageType == Page.PageType.INDEX_PAGE) {
-                page = new IndexPage();
-                page.fromBytes(pageData);
-            } else {
-                page = new DataPage();
-                page.fromBytes(pageData);
+    /**
+     * 直接把页读进堆外帧:页对象包装帧,不经过堆内数组
+     *
+     * 没有读到页(或页类型不对)时归还帧。
+     *
+     * @return 页帧,磁盘上没有这一页时返回null
+     */
+    private PageFrame readPageIntoFrame(Path filePath, int id, int pageId, boolean isTableData,
+                                        FrameArena arena, int slot) {
+        boolean keep = false;
+        try {
+            ByteBuffer buffer = arena.frame(slot);
+            if (!pageFileManager.readPage(filePath, pageId, buffer)) {
+                return null;
             }
 
-            return createFrame(page, id, pageId, isTableData);
+            Page.PageType pageType = Page.PageType.fromCode(buffer.get(0));
+            if (pageType == Page.PageType.UNINITIALIZED) {
+                return null;
+            }
 
-        } catch (IOException e) {
-            String type = isTableData ? "tableId" : "indexId";
-            throw new RuntimeException("Failed to load page from disk: " + type + "=" + id + ", pageId=" + pageId, e);
+            Page page = pageType == Page.PageType.INDEX_PAGE ? IndexPage.wrap(buffer) : DataPage.wrap(buffer);
+            PageFrame frame = createFrame(page, id, pageId, isTableData);
+            frame.setArenaSlot(slot);
+            keep = true;
+            return frame;
+        } finally {
+            if (!keep) {
+                arena.release(slot);
+            }
         }
     }
 
-    private PageFrame createEmptyFrame(int id, int pageId, boolean isTableData) {
-        Page page = isTableData ? new DataPage() : new IndexPage();
+    private PageFrame createEmptyFrame(int id, int pageId, boolean isTableData, FrameArena arena) {
+        int slot = arena != null ? arena.acquire() : -1;
+
+        Page page;
+        if (slot >= 0) {
+            ByteBuffer buffer = arena.frame(slot);
+            page = isTableData ? DataPage.format(buffer) : IndexPage.format(buffer);
+        } else {
+            page = isTableData ? new DataPage() : new IndexPage();
+        }
         page.setPageId(pageId);
-        return createFrame(page, id, pageId, isTableData);
+
+        PageFrame frame = createFrame(page, id, pageId, isTableData);
+        frame.setArenaSlot(slot);
+        return frame;
     }
 
     private PageFrame createFrame(Page page, int id, int pageId, boolean isTableData) {
@@ -421,9 +831,11 @@ public class BufferPool {
     /**
      * 将页写入磁盘（自动判断是表数据还是索引数据）
      *
+     * 在分区锁外调用。
+     *
      * @param frame 页帧
      */
-    private void writePageToDisk(PageFrame frame) {
+    void writePageToDisk(PageFrame frame) {
         Page page = frame.getPage();
         int pageId = page.getPageId();
 
@@ -439,66 +851,9 @@ public class BufferPool {
             return;
         }
 
-        try {
-            byte[] pageData = page.toBytes();
-
-            // 读取现有文件(如果存在)
-            byte[] fileData;
-            if (Files.exists(filePath)) {
-                fileData = Files.readAllBytes(filePath);
-            } else {
-                fileData = new byte[0];
-            }
-
-            // 确保文件足够大
-            int requiredSize = (pageId + 1) * Page.PAGE_SIZE;
-            if (fileData.length < requiredSize) {
-                byte[] newFileData = new byte[requiredSize];
-                System.arraycopy(fileData, 0, newFileData, 0, fileData.length);
-                fileData = newFileData;
-            }
-
-            // 写入页数据
-            int offset = pageId * Page.PAGE_SIZE;
-            System.arraycopy(pageData, 0, fileData, offset, Page.PAGE_SIZE);
-
-            // 写回文件
-            Files.write(filePath, fileData, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-        } catch (IOException e) {
-            String type = isTableData ? "tableId" : "indexId";
-            throw new RuntimeException("Failed to write page to disk: " + type + "=" + id + ", pageId=" + pageId, e);
-        }
-    }
-
-    /**
-     * 淘汰一个页
-     * TODO 优化阶段，尝试优化算法
-     *
-     * 从缓存中找到最久未使用且未被pin的页进行淘汰。
-     * 如果所有页都被pin,抛出异常(不应该发生,但防御性编程)。
-     *
-     * 算法:遍历LinkedHashMap的entrySet,找到第一个可淘汰的页。
-     */
-    private void evictOnePage() {
-        for (Map.Entry<Long, PageFrame> entry : pageCache.entrySet()) {
-            PageFrame frame = entry.getValue();
-
-            if (frame.isEvictable()) {
-                // 写回脏页
-                if (frame.isDirty()) {
-                    // writePageToDisk 会自动判断是表数据还是索引数据
-                    writePageToDisk(frame);
-                }
-
-                // 从缓存中移除
-                pageCache.remove(entry.getKey());
-                return;
-            }
-        }
-
-        // 如果所有页都被pin,抛出异常
-        throw new IllegalStateException("Cannot evict page: all pages are pinned");
+        // 定位写:只写这一页,文件不够大时自动扩展
+        // 写只读视图:还没被修改过的映射页(flushPage)不会因此被复制
+        pageFileManager.writePage(filePath, pageId, page.getBuffer());
     }
 
     /**
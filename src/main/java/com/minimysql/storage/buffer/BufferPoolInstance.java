@@ -0,0 +1,752 @@
+package com.minimysql.storage.buffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * BufferPoolInstance - 缓冲池分区
+ *
+ * BufferPool按页键哈希拆成N个独立分区,每个分区有自己的锁、替换策略和容量份额。
+ * 对应InnoDB的buf_pool_t(innodb_buffer_pool_instances)。
+ *
+ * 核心规则:
+ * 1. 分区锁只保护内存结构(页表、替换策略、正在I/O的页键),不在锁内做磁盘I/O
+ * 2. 缺页:登记"正在读" → 释放锁读盘 → 重新加锁放入页表
+ * 3. 淘汰脏页:加锁登记"正在写"(页仍留在页表中) → 释放锁写盘 → 加锁撤销登记,
+ *    页变干净后再按干净页淘汰;写失败时页重新标脏、留在缓存中,修改不会丢
+ * 4. 同一个页键同时只允许一个I/O,其他线程在Condition上等待
+ * 5. 脏页按第一次修改的顺序挂在刷新链表上(对应buf_pool->flush_list),
+ *    后台PageCleaner从链表头部成批写回
+ *
+ * 为什么需要"正在I/O"登记:
+ * - 两个线程同时缺同一页,只读一次盘,另一个线程等待后直接命中
+ * - 脏页正在写回时有人缺这一页,必须等写完再读,否则读到旧数据
+ *
+ * 锁顺序:分区锁 → 刷新链表锁。刷新链表锁是叶子锁,markDirty只拿它,
+ * 所以unpin(true)不会和分区锁竞争。
+ *
+ * 开启堆外页帧时,页内容放在分区自己的FrameArena里:
+ * 页帧离开分区(淘汰、清空、读入后放弃)时归还它占用的堆外帧。
+ * 帧归还后会被下一次缺页复用,所以调用方必须在pin住期间访问页内容。
+ *
+ * "Good taste": 分区之间没有任何共享状态,淘汰哪一页交给ReplacementPolicy决定
+ */
+class BufferPoolInstance {
+
+    /** 分区容量(页数) */
+    private final int capacity;
+
+    /** 页表:页键 → 页帧(开放寻址,不装箱) */
+    private final PageTable pageCache;
+
+    /** 页替换策略 */
+    private final ReplacementPolicy policy;
+
+    /** 正在读盘或写盘的页键 */
+    private final Set<Long> ioInProgress;
+
+    /** 分区锁 */
+    private final ReentrantLock lock;
+
+    /** I/O完成通知 */
+    private final Condition ioDone;
+
+    /** 磁盘读写(由BufferPool提供) */
+    private final BufferPool owner;
+
+    /** 命中次数(锁内更新) */
+    private long hits;
+
+    /** 缺页次数(锁内更新) */
+    private long misses;
+
+    /** 淘汰次数(锁内更新) */
+    private long evictions;
+
+    /** 淘汰时遇到脏页、由前台线程同步写盘的次数(锁内更新) */
+    private long foregroundFlushes;
+
+    /** 预读放入的页数(锁内更新) */
+    private long readAheadPages;
+
+    /** 预读的页后来被访问的次数(锁内更新) */
+    private long readAheadHits;
+
+    /** 预读的页没被访问就被淘汰的次数(锁内更新) */
+    private long readAheadEvictedUnused;
+
+    /**
+     * 刷新链表:所有脏页,按第一次修改的顺序排列(头部最老)
+     *
+     * 用自身作为锁,不依赖分区锁。PageFrame没有重写equals,按对象身份比较。
+     */
+    private final LinkedHashSet<PageFrame> flushList;
+
+    /** 堆外页帧内存池,null表示页内容在堆上 */
+    private final FrameArena arena;
+
+    BufferPoolInstance(int capacity, ReplacementPolicy policy, BufferPool owner) {
+        this(capacity, policy, owner, null);
+    }
+
+    BufferPoolInstance(int capacity, ReplacementPolicy policy, BufferPool owner, FrameArena arena) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.owner = owner;
+        this.arena = arena;
+        this.pageCache = new PageTable(capacity);
+        this.ioInProgress = new HashSet<>();
+        this.lock = new ReentrantLock();
+        this.ioDone = lock.newCondition();
+        this.flushList = new LinkedHashSet<>();
+    }
+
+    /**
+     * 获取页,缺页时调用loader从磁盘读取(在锁外执行)
+     */
+    PageFrame getPage(long key, Supplier<PageFrame> loader) {
+        return getPage(key, loader, false);
+    }
+
+    /**
+     * 获取页,缺页时调用loader从磁盘读取(在锁外执行)
+     *
+     * 命中也要拿分区锁:页表不是并发结构,而且要等正在进行的I/O、更新统计和替换策略。
+     * 锁内只做内存操作,临界区很短;多分区把命中的锁竞争分散开。
+     *
+     * @param pin 是否在分区锁内pin住页帧。先返回再pin的话,
+     *            中间这一页可能已经被淘汰(堆外模式下帧还会被复用)
+     */
+    PageFrame getPage(long key, Supplier<PageFrame> loader, boolean pin) {
+        lock.lock();
+        try {
+            PageFrame frame = awaitIo(key);
+            if (frame != null) {
+                hits++;
+                if (frame.isPrefetched()) {
+                    frame.setPrefetched(false);
+                    readAheadHits++;
+                }
+                policy.recordAccess(key, frame);
+                if (pin) {
+                    frame.pin();
+                }
+                return frame;
+            }
+            misses++;
+            ioInProgress.add(key);
+        } finally {
+            lock.unlock();
+        }
+
+        // 锁外读盘:其他页的访问不受影响
+        PageFrame loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            finishIo(key);
+            throw e;
+        }
+
+        boolean flushed;
+        lock.lock();
+        try {
+            try {
+                try {
+                    flushed = makeRoom();
+                } catch (RuntimeException e) {
+                    releaseFrame(loaded);
+                    throw e;
+                }
+                pageCache.put(key, loaded);
+                policy.recordInsert(key, loaded);
+                attach(loaded);
+                if (pin) {
+                    loaded.pin();
+                }
+            } finally {
+                ioInProgress.remove(key);
+                ioDone.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (flushed) {
+            owner.wakePageCleaner();
+        }
+        return loaded;
+    }
+
+    /**
+     * 预读一页(由预读线程调用)
+     *
+     * 页已经在缓存中时直接返回,不算一次访问,不改变它在替换策略中的位置。
+     * 否则在锁外调用loader读盘;loader返回null表示磁盘上没有这一页。
+     * 分区里所有页都被pin住时放弃,预读只是建议,不能让前台失败。
+     *
+     * @param pin 是否在分区锁内pin住页帧(调用方要读页内容时,见getPage)
+     * @return 缓存中的页帧,没有读到返回null
+     */
+    PageFrame prefetch(long key, Supplier<PageFrame> loader, boolean pin) {
+        lock.lock();
+        try {
+            PageFrame frame = awaitIo(key);
+            if (frame != null) {
+                if (pin) {
+                    frame.pin();
+                }
+                return frame;
+            }
+            ioInProgress.add(key);
+        } finally {
+            lock.unlock();
+        }
+
+        PageFrame loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            finishIo(key);
+            throw e;
+        }
+        if (loaded == null) {
+            finishIo(key);
+            return null;
+        }
+
+        boolean flushed;
+        lock.lock();
+        try {
+            try {
+                flushed = makeRoom();
+            } catch (IllegalStateException e) {
+                releaseFrame(loaded);
+                return null;
+            } catch (RuntimeException e) {
+                releaseFrame(loaded);
+                throw e;
+            }
+            loaded.setPrefetched(true);
+            pageCache.put(key, loaded);
+            policy.recordInsert(key, loaded);
+            attach(loaded);
+            if (pin) {
+                loaded.pin();
+            }
+            readAheadPages++;
+        } finally {
+            ioInProgress.remove(key);
+            ioDone.signalAll();
+            lock.unlock();
+        }
+
+        if (flushed) {
+            owner.wakePageCleaner();
+        }
+        return loaded;
+    }
+
+    /**
+     * 放入新页
+     *
+     * @throws IllegalArgumentException 页已存在
+     */
+    PageFrame newPage(long key, Supplier<PageFrame> factory, Supplier<String> description) {
+        boolean flushed;
+        PageFrame frame;
+
+        lock.lock();
+        try {
+            if (awaitIo(key) != null) {
+                throw new IllegalArgumentException("Page already exists: " + description.get());
+            }
+
+            // 腾位置时可能释放锁写脏页,先登记,别的线程不会同时创建或读入这一页
+            ioInProgress.add(key);
+            try {
+                flushed = makeRoom();
+                frame = factory.get();
+                pageCache.put(key, frame);
+                policy.recordInsert(key, frame);
+                attach(frame);
+            } finally {
+                ioInProgress.remove(key);
+                ioDone.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (flushed) {
+            owner.wakePageCleaner();
+        }
+        return frame;
+    }
+
+    /**
+     * 写回满足条件的脏页(flushAllPages/flushTablePages)
+     *
+     * 与flushOldest不同,被pin住的页也要写:逐页pin住、加共享页锁再写,
+     * 正在被独占页锁修改的页(例如B+树分裂到一半)等修改完再写,不会写出半截的页。
+     * 某一页写失败时重新标脏并继续写其他页,最后抛出第一个异常。
+     *
+     * @return 写回的页数
+     */
+    int flushPages(Predicate<PageFrame> filter) {
+        List<PageFrame> candidates = new ArrayList<>();
+
+        lock.lock();
+        try {
+            synchronized (flushList) {
+                for (PageFrame frame : flushList) {
+                    if (filter.test(frame)) {
+                        candidates.add(frame);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        int flushed = 0;
+        RuntimeException failure = null;
+        for (PageFrame frame : candidates) {
+            try {
+                if (flushLatched(frame)) {
+                    flushed++;
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return flushed;
+    }
+
+    /**
+     * 在共享页锁下写回一个脏页
+     *
+     * 顺序:加锁pin住 → 锁外等共享页锁 → 加锁登记"正在写" → 锁外写盘。
+     * 拿到页锁之后才登记:持有独占页锁的线程可能在等这一页的I/O,先登记再等页锁会互相等待。
+     *
+     * @return 是否写了这一页(已经离开分区、变干净或正在I/O时跳过)
+     */
+    private boolean flushLatched(PageFrame frame) {
+        long key = owner.cacheKeyOf(frame);
+
+        lock.lock();
+        try {
+            if (pageCache.get(key) != frame || !frame.isDirty() || ioInProgress.contains(key)) {
+                return false;
+            }
+            // pin住:等页锁期间不会被淘汰
+            frame.pin();
+        } finally {
+            lock.unlock();
+        }
+
+        frame.latchShared();
+        try {
+            lock.lock();
+            try {
+                if (!frame.isDirty() || ioInProgress.contains(key)) {
+                    return false;
+                }
+                ioInProgress.add(key);
+                frame.clearDirty();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                owner.writePageToDisk(frame);
+            } catch (RuntimeException e) {
+                frame.markDirty();
+                throw e;
+            } finally {
+                finishIo(key);
+            }
+            return true;
+        } finally {
+            frame.unlatchShared();
+            frame.unpin(false);
+        }
+    }
+
+    /**
+     * 从刷新链表头部写回最老的脏页(PageCleaner调用)
+     *
+     * 跳过被pin住的页:持有者可能正在修改页内容,等它unpin之后下一批再写。
+     *
+     * @param maxPages 最多写回的页数
+     * @return 写回的页数
+     */
+    int flushOldest(int maxPages) {
+        List<PageFrame> toFlush = new ArrayList<>();
+
+        lock.lock();
+        try {
+            synchronized (flushList) {
+                for (PageFrame frame : flushList) {
+                    if (toFlush.size() >= maxPages) {
+                        break;
+                    }
+                    if (frame.isEvictable() && !ioInProgress.contains(owner.cacheKeyOf(frame))) {
+                        toFlush.add(frame);
+                    }
+                }
+            }
+            beginFlush(toFlush);
+        } finally {
+            lock.unlock();
+        }
+
+        writeOut(toFlush);
+        return toFlush.size();
+    }
+
+    /**
+     * 写回单个页(无论是否为脏页)
+     */
+    void flushPage(long key) {
+        PageFrame frame;
+
+        lock.lock();
+        try {
+            frame = awaitIo(key);
+            if (frame == null) {
+                return;
+            }
+            ioInProgress.add(key);
+            frame.clearDirty();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            owner.writePageToDisk(frame);
+        } catch (RuntimeException e) {
+            frame.markDirty();
+            throw e;
+        } finally {
+            finishIo(key);
+        }
+    }
+
+    /**
+     * 页帧从干净变脏:分配修改序号并挂到刷新链表尾部
+     *
+     * 由PageFrame.markDirty调用。页帧已经离开本分区时只设置脏标记。
+     */
+    void markDirty(PageFrame frame) {
+        synchronized (flushList) {
+            if (frame.isDirty()) {
+                return;
+            }
+            if (frame.getPoolInstance() == this) {
+                frame.setOldestModification(owner.nextModification());
+                flushList.add(frame);
+            }
+            frame.setDirtyFlag(true);
+        }
+    }
+
+    /**
+     * 页帧变干净:从刷新链表摘下
+     *
+     * 由PageFrame.clearDirty调用。
+     */
+    void clearDirty(PageFrame frame) {
+        synchronized (flushList) {
+            frame.setDirtyFlag(false);
+            flushList.remove(frame);
+        }
+    }
+
+    /**
+     * 脏页数量
+     */
+    int getDirtyCount() {
+        synchronized (flushList) {
+            return flushList.size();
+        }
+    }
+
+    /**
+     * 清空分区(调用方保证已经刷过脏页)
+     */
+    void clear() {
+        lock.lock();
+        try {
+            pageCache.forEach(frame -> {
+                detach(frame);
+                releaseFrame(frame);
+            });
+            pageCache.clear();
+            policy.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把分区的统计项累加到快照中
+     */
+    void collectStats(BufferPoolStats stats) {
+        lock.lock();
+        try {
+            stats.addHits(hits);
+            stats.addMisses(misses);
+            stats.addEvictions(evictions);
+            stats.addForegroundFlushes(foregroundFlushes);
+            stats.addReadAhead(readAheadPages, readAheadHits, readAheadEvictedUnused);
+            stats.addDirtyPages(getDirtyCount());
+            if (arena != null) {
+                stats.addOffHeapFrames(arena.getFrameCount(), arena.getFramesInUse(), arena.getHeapFallbacks());
+            }
+            policy.collectStats(stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 堆外页帧内存池,没有开启时返回null
+     */
+    FrameArena getArena() {
+        return arena;
+    }
+
+    int getCacheSize() {
+        lock.lock();
+        try {
+            return pageCache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待页键上的I/O结束,返回缓存中的页帧(可能为null)
+     *
+     * 调用方必须持有锁。
+     */
+    private PageFrame awaitIo(long key) {
+        while (true) {
+            PageFrame frame = pageCache.get(key);
+            if (frame != null) {
+                return frame;
+            }
+            if (!ioInProgress.contains(key)) {
+                return null;
+            }
+            ioDone.awaitUninterruptibly();
+        }
+    }
+
+    private void finishIo(long key) {
+        lock.lock();
+        try {
+            ioInProgress.remove(key);
+            ioDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 分区满时淘汰一页,返回时分区一定有空位
+     *
+     * 调用方必须持有锁。由替换策略挑选一个未被pin、不在I/O中的页:
+     * - 干净页直接丢弃(归还堆外帧)
+     * - 脏页登记"正在写"后释放锁写盘,页在写盘期间仍留在页表中;
+     *   写完重新加锁,再挑一次(这一页变干净了,通常就是它)
+     * - 写盘失败时页重新标脏、仍在缓存中,异常抛给调用方(返回时仍持有锁)
+     * - 挑不出来但有页正在写回时,等写完再挑;没有I/O还挑不出来才是全部被pin住
+     *
+     * @return 是否由前台线程写过脏页
+     * @throws IllegalStateException 所有页都被pin住
+     */
+    private boolean makeRoom() {
+        boolean flushed = false;
+
+        while (pageCache.size() >= capacity) {
+            // 后台PageCleaner在运行时优先淘汰干净页,脏页留给它成批写回
+            PageFrame victim = null;
+            if (owner.isPageCleanerRunning()) {
+                victim = policy.selectVictim(frame -> !frame.isDirty() && isEvictable(frame));
+            }
+            if (victim == null) {
+                victim = policy.selectVictim(this::isEvictable);
+            }
+
+            if (victim == null) {
+                // 有页正在写回(写完就能淘汰):等它写完再挑一次
+                if (hasCachedIo()) {
+                    ioDone.awaitUninterruptibly();
+                    continue;
+                }
+                // 如果所有页都被pin,抛出异常
+                throw new IllegalStateException("Cannot evict page: all pages are pinned");
+            }
+
+            if (victim.isDirty()) {
+                foregroundFlushes++;
+                flushed = true;
+                if (!writeVictim(victim)) {
+                    // 写盘期间被别人pin住、重新标脏或淘汰了,重新挑
+                    continue;
+                }
+            }
+
+            evict(victim);
+        }
+        return flushed;
+    }
+
+    /**
+     * 锁外写回将要淘汰的脏页(调用方持有锁,返回时仍持有锁)
+     *
+     * 与flushPages相同:先清脏标记再写,写盘期间的新修改会重新标脏;写失败时重新标脏。
+     *
+     * @return 写完后这一页是否仍是可以直接丢弃的干净页
+     */
+    private boolean writeVictim(PageFrame victim) {
+        long key = owner.cacheKeyOf(victim);
+        ioInProgress.add(key);
+        victim.clearDirty();
+
+        lock.unlock();
+        try {
+            owner.writePageToDisk(victim);
+        } catch (RuntimeException e) {
+            victim.markDirty();
+            throw e;
+        } finally {
+            lock.lock();
+            ioInProgress.remove(key);
+            ioDone.signalAll();
+        }
+        return pageCache.get(key) == victim && !victim.isDirty() && isEvictable(victim);
+    }
+
+    /**
+     * 丢弃一个干净页(调用方持有锁)
+     */
+    private void evict(PageFrame victim) {
+        long key = owner.cacheKeyOf(victim);
+        pageCache.remove(key);
+        policy.remove(key, victim);
+        detach(victim);
+        evictions++;
+        if (victim.isPrefetched()) {
+            victim.setPrefetched(false);
+            readAheadEvictedUnused++;
+        }
+        releaseFrame(victim);
+    }
+
+    /**
+     * 页表中是否有页正在I/O(调用方持有锁)
+     *
+     * 缺页登记的页键还不在页表中,不算:否则缺页的线程会等自己。
+     */
+    private boolean hasCachedIo() {
+        for (long key : ioInProgress) {
+            if (pageCache.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isEvictable(PageFrame frame) {
+        return frame.isEvictable() && !ioInProgress.contains(owner.cacheKeyOf(frame));
+    }
+
+    /**
+     * 页帧进入分区:之后的干净→脏转换会登记到刷新链表
+     */
+    private void attach(PageFrame frame) {
+        synchronized (flushList) {
+            frame.setPoolInstance(this);
+            if (frame.isDirty()) {
+                frame.setOldestModification(owner.nextModification());
+                flushList.add(frame);
+            }
+        }
+    }
+
+    /**
+     * 页帧离开分区:从刷新链表摘下,保留脏标记
+     */
+    private void detach(PageFrame frame) {
+        synchronized (flushList) {
+            flushList.remove(frame);
+            frame.setPoolInstance(null);
+        }
+    }
+
+    /**
+     * 归还页帧占用的堆外帧(页帧已经离开分区,之后不能再访问页内容)
+     */
+    private void releaseFrame(PageFrame frame) {
+        int slot = frame.getArenaSlot();
+        if (slot >= 0) {
+            frame.setArenaSlot(-1);
+            arena.release(slot);
+        }
+    }
+
+    /**
+     * 登记"正在写"并清脏标记(调用方持有分区锁)
+     */
+    private void beginFlush(List<PageFrame> toFlush) {
+        for (PageFrame frame : toFlush) {
+            ioInProgress.add(owner.cacheKeyOf(frame));
+            frame.clearDirty();
+        }
+    }
+
+    /**
+     * 锁外写盘,然后撤销"正在写"登记
+     *
+     * 某一页写失败时重新标脏并继续写其他页,保证所有登记都被撤销。
+     */
+    private void writeOut(List<PageFrame> toFlush) {
+        RuntimeException failure = null;
+        for (PageFrame frame : toFlush) {
+            try {
+                owner.writePageToDisk(frame);
+            } catch (RuntimeException e) {
+                frame.markDirty();
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                finishIo(owner.cacheKeyOf(frame));
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.minimysql.storage.buffer;
+
+/**
+ * BufferPoolStats - 缓冲池统计快照
+ *
+ * 由BufferPool.getStats()生成,汇总所有分区的计数。
+ * 对应InnoDB的SHOW ENGINE INNODB STATUS中BUFFER POOL AND MEMORY一节。
+ *
+ * 统计项:
+ * - 命中/缺页/淘汰次数
+ * - young/old段页数、提升/推迟提升/降级次数(MidpointLruPolicy)
+ * - 脏页数、前台同步刷脏次数、后台刷脏页数和速率(PageCleaner)
+ * - 预读页数、预读命中/浪费(ReadAhead)
+ * - 堆外帧总数、占用数、帧用完退化为堆内页的次数(FrameArena)
+ *
+ * 计数都是累计值,两次快照相减得到区间内的变化。
+ * 收集时逐个分区加锁,快照在分区之间不是原子的,用于观察趋势足够。
+ *
+ * "Good taste": 快照是普通对象,拿到之后不会再变,也不持有任何锁
+ */
+public class BufferPoolStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private int youngPages;
+    private int oldPages;
+    private long promotions;
+    private long promotionsDeferred;
+    private long demotions;
+
+    private int dirtyPages;
+    private long foregroundFlushes;
+    private long cleanerFlushedPages;
+    private double cleanerFlushRate;
+
+    private long readAheadPages;
+    private long readAheadHits;
+    private long readAheadEvictedUnused;
+
+    private int offHeapFrames;
+    private int offHeapFramesInUse;
+    private long heapFrameFallbacks;
+
+    BufferPoolStats() {
+    }
+
+    void addHits(long count) {
+        hits += count;
+    }
+
+    void addMisses(long count) {
+        misses += count;
+    }
+
+    void addEvictions(long count) {
+        evictions += count;
+    }
+
+    void addYoungPages(int count) {
+        youngPages += count;
+    }
+
+    void addOldPages(int count) {
+        oldPages += count;
+    }
+
+    void addPromotions(long count) {
+        promotions += count;
+    }
+
+    void addPromotionsDeferred(long count) {
+        promotionsDeferred += count;
+    }
+
+    void addDemotions(long count) {
+        demotions += count;
+    }
+
+    void addDirtyPages(int count) {
+        dirtyPages += count;
+    }
+
+    void addForegroundFlushes(long count) {
+        foregroundFlushes += count;
+    }
+
+    void addReadAhead(long pages, long hits, long evictedUnused) {
+        readAheadPages += pages;
+        readAheadHits += hits;
+        readAheadEvictedUnused += evictedUnused;
+    }
+
+    void addOffHeapFrames(int frames, int inUse, long heapFallbacks) {
+        offHeapFrames += frames;
+        offHeapFramesInUse += inUse;
+        heapFrameFallbacks += heapFallbacks;
+    }
+
+    void setCleanerStats(long flushedPages, double flushRate) {
+        cleanerFlushedPages = flushedPages;
+        cleanerFlushRate = flushRate;
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * 缺页次数(从磁盘读入或创建空页)
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 淘汰次数
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中次数 / 访问次数,没有访问时返回0
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * young段页数(仅MidpointLruPolicy)
+     */
+    public int getYoungPages() {
+        return youngPages;
+    }
+
+    /**
+     * old段页数(仅MidpointLruPolicy)
+     */
+    public int getOldPages() {
+        return oldPages;
+    }
+
+    /**
+     * 从old段提升到young段的次数(对应InnoDB的pages made young)
+     */
+    public long getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * 窗口内重复访问、没有提升的次数(对应InnoDB的pages not made young)
+     */
+    public long getPromotionsDeferred() {
+        return promotionsDeferred;
+    }
+
+    /**
+     * 从young段降级到old段的次数
+     */
+    public long getDemotions() {
+        return demotions;
+    }
+
+    /**
+     * 当前脏页数
+     */
+    public int getDirtyPages() {
+        return dirtyPages;
+    }
+
+    /**
+     * 淘汰时遇到脏页、前台线程同步写盘的次数(越少越好)
+     */
+    public long getForegroundFlushes() {
+        return foregroundFlushes;
+    }
+
+    /**
+     * 后台刷脏线程写回的页数(自启动以来)
+     */
+    public long getCleanerFlushedPages() {
+        return cleanerFlushedPages;
+    }
+
+    /**
+     * 后台刷脏速率(页/秒,自启动以来的平均值)
+     */
+    public double getCleanerFlushRate() {
+        return cleanerFlushRate;
+    }
+
+    /**
+     * 预读放入缓冲池的页数(对应InnoDB的Innodb_buffer_pool_read_ahead)
+     */
+    public long getReadAheadPages() {
+        return readAheadPages;
+    }
+
+    /**
+     * 预读的页后来被访问的页数
+     */
+    public long getReadAheadHits() {
+        return readAheadHits;
+    }
+
+    /**
+     * 预读的页没被访问就被淘汰的页数(对应InnoDB的Innodb_buffer_pool_read_ahead_evicted)
+     */
+    public long getReadAheadEvictedUnused() {
+        return readAheadEvictedUnused;
+    }
+
+    /**
+     * 预读命中率
+     *
+     * @return 被访问的预读页 / 预读页数,没有预读时返回0
+     */
+    public double getReadAheadHitRatio() {
+        return readAheadPages == 0 ? 0.0 : (double) readAheadHits / readAheadPages;
+    }
+
+    /**
+     * 预读浪费率
+     *
+     * @return 没被访问就被淘汰的预读页 / 预读页数,没有预读时返回0
+     */
+    public double getReadAheadWasteRatio() {
+        return readAheadPages == 0 ? 0.0 : (double) readAheadEvictedUnused / readAheadPages;
+    }
+
+    /**
+     * 堆外帧总数(没有开启堆外页帧时为0)
+     */
+    public int getOffHeapFrames() {
+        return offHeapFrames;
+    }
+
+    /**
+     * 正在被页占用的堆外帧数
+     */
+    public int getOffHeapFramesInUse() {
+        return offHeapFramesInUse;
+    }
+
+    /**
+     * 堆外帧用完、页内容退化为堆内数组的次数
+     */
+    public long getHeapFrameFallbacks() {
+        return heapFrameFallbacks;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPoolStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", youngPages=" + youngPages +
+                ", oldPages=" + oldPages +
+                ", promotions=" + promotions +
+                ", promotionsDeferred=" + promotionsDeferred +
+                ", demotions=" + demotions +
+                ", dirtyPages=" + dirtyPages +
+                ", foregroundFlushes=" + foregroundFlushes +
+                ", cleanerFlushedPages=" + cleanerFlushedPages +
+                ", cleanerFlushRate=" + cleanerFlushRate +
+                ", readAheadPages=" + readAheadPages +
+                ", readAheadHits=" + readAheadHits +
+                ", readAheadEvictedUnused=" + readAheadEvictedUnused +
+                ", offHeapFrames=" + offHeapFrames +
+                ", offHeapFramesInUse=" + offHeapFramesInUse +
+                ", heapFrameFallbacks=" + heapFrameFallbacks +
+                '}';
+    }
+}
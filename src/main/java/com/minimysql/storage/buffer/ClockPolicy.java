@@ -0,0 +1,130 @@
+package com.minimysql.storage.buffer;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * ClockPolicy - CLOCK(二次机会)页替换策略
+ *
+ * 页帧放在固定大小的环形数组里,时钟指针绕圈扫描:
+ * - 命中:只设置页帧的引用位(一次volatile写),不移动任何结构。
+ *   命中仍然要拿分区锁(查页表、等I/O、统计都在锁内),CLOCK省下的是锁内的链表操作,
+ *   临界区更短,但不是无锁命中
+ * - 淘汰:指针指向的页引用位为1 → 清零并跳过(第二次机会);为0且可淘汰 → 选中
+ *
+ * 与LRU的区别:
+ * - LRU每次命中都要改链表,CLOCK命中不改任何共享结构
+ * - LRU淘汰总从链表头开始扫描,被pin住的页每次都要重新跳过;
+ *   CLOCK指针停在上次的位置,下次从那里继续,摊还O(1)
+ *
+ * 实现细节:
+ * - 槽位数 = 分区容量,空槽位用null表示
+ * - 槽位下标挂在页帧的int字段上(PageFrame.clockSlot),remove不需要查表,也不装箱
+ * - 指针最多绕两圈:第一圈清掉所有引用位,第二圈还找不到说明全部被pin
+ *
+ * "Good taste": 一个数组、一个指针、一个引用位,没有链表
+ */
+public class ClockPolicy implements ReplacementPolicy {
+
+    /** 环形数组:槽位 → 页帧 */
+    private final PageFrame[] slots;
+
+    /** 空闲槽位栈 */
+    private final int[] freeSlots;
+
+    /** 空闲槽位数 */
+    private int freeCount;
+
+    /** 时钟指针 */
+    private int hand;
+
+    /**
+     * 创建CLOCK策略
+     *
+     * @param capacity 分区容量(页数)
+     */
+    public ClockPolicy(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Clock capacity must be positive: " + capacity);
+        }
+
+        this.slots = new PageFrame[capacity];
+        this.freeSlots = new int[capacity];
+        this.hand = 0;
+        resetFreeSlots();
+    }
+
+    @Override
+    public void recordInsert(long key, PageFrame frame) {
+        if (freeCount == 0) {
+            throw new IllegalStateException("Clock is full: capacity=" + slots.length);
+        }
+
+        int slot = freeSlots[--freeCount];
+        slots[slot] = frame;
+        frame.setClockSlot(slot);
+
+        // 新页带引用位进入,至少躲过指针一圈
+        frame.setReferenced(true);
+    }
+
+    @Override
+    public void recordAccess(long key, PageFrame frame) {
+        frame.setReferenced(true);
+    }
+
+    @Override
+    public void remove(long key, PageFrame frame) {
+        int slot = frame.getClockSlot();
+        if (slot >= 0) {
+            slots[slot] = null;
+            freeSlots[freeCount++] = slot;
+            frame.setClockSlot(-1);
+        }
+    }
+
+    @Override
+    public PageFrame selectVictim(Predicate<PageFrame> evictable) {
+        int maxSteps = slots.length * 2;
+
+        for (int step = 0; step < maxSteps; step++) {
+            PageFrame frame = slots[hand];
+            hand = (hand + 1) % slots.length;
+
+            if (frame == null || !evictable.test(frame)) {
+                continue;
+            }
+
+            if (frame.isReferenced()) {
+                // 第二次机会
+                frame.setReferenced(false);
+                continue;
+            }
+
+            // 指针停在选中页的下一个位置,下次从这里继续
+            return frame;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        for (PageFrame frame : slots) {
+            if (frame != null) {
+                frame.setClockSlot(-1);
+            }
+        }
+        Arrays.fill(slots, null);
+        hand = 0;
+        resetFreeSlots();
+    }
+
+    private void resetFreeSlots() {
+        // 倒序入栈,让槽位按0,1,2...的顺序被使用
+        for (int i = 0; i < slots.length; i++) {
+            freeSlots[i] = slots.length - 1 - i;
+        }
+        freeCount = slots.length;
+    }
+}
@@ -0,0 +1,127 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.Page;
+
+import java.nio.ByteBuffer;
+
+/**
+ * FrameArena - 堆外页帧内存池
+ *
+ * 缓冲池分区启动时一次性分配的堆外内存,切成固定大小(PAGE_SIZE)的帧。
+ * 页对象(DataPage/IndexPage)直接在帧上读写,不再各自持有new byte[PAGE_SIZE]。
+ * 淘汰时帧回到空闲栈,下一次缺页直接复用,不分配、不产生垃圾。
+ * 对应InnoDB在启动时分配的buffer pool chunk(innodb_buffer_pool_chunk_size)。
+ *
+ * 为什么要堆外:
+ * - 64K页的缓冲池是1GB长期存活的byte[],老年代GC要扫描、复制它们
+ * - 堆外内存对GC不可见,停顿时间只和真正的堆对象有关
+ * - FileChannel读写直接缓冲区不需要中间复制
+ *
+ * 实现:
+ * - 直接ByteBuffer的容量上限是2GB,大内存池拆成多个slab
+ * - 空闲帧用一个int栈管理,分区内的竞争很小,用synchronized就够了
+ * - 帧用完时返回-1,调用方退化为堆内页(缺页读盘期间会暂时多占一帧)
+ *
+ * "实用主义": Java 21的MemorySegment还是预览特性,用直接ByteBuffer切片实现
+ */
+class FrameArena {
+
+    /** 单个slab最多容纳的帧数(直接ByteBuffer容量不能超过Integer.MAX_VALUE) */
+    private static final int MAX_SLAB_FRAMES = Integer.MAX_VALUE / Page.PAGE_SIZE;
+
+    /** 所有帧(slab的切片) */
+    private final ByteBuffer[] frames;
+
+    /** 帧是否被占用(用于发现重复归还) */
+    private final boolean[] inUse;
+
+    /** 空闲帧栈 */
+    private final int[] freeSlots;
+
+    /** 空闲帧数 */
+    private int freeCount;
+
+    /** 帧用完、退化为堆内页的次数 */
+    private long heapFallbacks;
+
+    /**
+     * 分配内存池
+     *
+     * @param frameCount 帧数
+     */
+    FrameArena(int frameCount) {
+        if (frameCount < 1) {
+            throw new IllegalArgumentException("Frame arena size must be positive: " + frameCount);
+        }
+
+        this.frames = new ByteBuffer[frameCount];
+        this.inUse = new boolean[frameCount];
+        this.freeSlots = new int[frameCount];
+
+        int slot = 0;
+        while (slot < frameCount) {
+            int slabFrames = Math.min(MAX_SLAB_FRAMES, frameCount - slot);
+            ByteBuffer slab = ByteBuffer.allocateDirect(slabFrames * Page.PAGE_SIZE);
+            for (int i = 0; i < slabFrames; i++, slot++) {
+                frames[slot] = slab.slice(i * Page.PAGE_SIZE, Page.PAGE_SIZE);
+            }
+        }
+
+        // 倒序入栈:先分配低地址的帧
+        for (int i = 0; i < frameCount; i++) {
+            freeSlots[i] = frameCount - 1 - i;
+        }
+        this.freeCount = frameCount;
+    }
+
+    /**
+     * 取一个空闲帧
+     *
+     * 帧的内容是上一次使用留下的数据,调用方负责格式化或整页覆盖。
+     *
+     * @return 帧号,没有空闲帧时返回-1
+     */
+    synchronized int acquire() {
+        if (freeCount == 0) {
+            heapFallbacks++;
+            return -1;
+        }
+        int slot = freeSlots[--freeCount];
+        inUse[slot] = true;
+        return slot;
+    }
+
+    /**
+     * 归还帧
+     *
+     * @throws IllegalStateException 帧没有被占用(重复归还)
+     */
+    synchronized void release(int slot) {
+        if (!inUse[slot]) {
+            throw new IllegalStateException("Frame " + slot + " is not in use");
+        }
+        inUse[slot] = false;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * 帧的内存(position=0,limit=capacity=PAGE_SIZE)
+     *
+     * 返回的是共享对象,调用方不能修改它的position/limit,需要时先duplicate/slice。
+     */
+    ByteBuffer frame(int slot) {
+        return frames[slot];
+    }
+
+    int getFrameCount() {
+        return frames.length;
+    }
+
+    synchronized int getFramesInUse() {
+        return frames.length - freeCount;
+    }
+
+    synchronized long getHeapFallbacks() {
+        return heapFallbacks;
+    }
+}
@@ -0,0 +1,116 @@
+package com.minimysql.storage.buffer;
+
+import java.util.function.Predicate;
+
+/**
+ * LruList - 侵入式双向链表(替换策略内部使用)
+ *
+ * 节点挂在PageFrame上(PageFrame.replacementState),命中时直接拿到节点移动,
+ * 不需要按页键查表,也不分配任何对象。
+ * 对应InnoDB的UT_LIST:buf_page_t自带LRU链表指针。
+ *
+ * 顺序约定:头部是最久未使用的页,尾部是最近使用的页。
+ * 不是线程安全的:由分区锁保护。
+ *
+ * "Good taste": 带哨兵的环形链表,插入删除没有任何空指针分支
+ */
+class LruList {
+
+    /** 哨兵节点:sentinel.next是头部,sentinel.prev是尾部 */
+    private final Node sentinel;
+
+    /** 节点数 */
+    private int size;
+
+    LruList() {
+        this.sentinel = new Node(null);
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+    }
+
+    /**
+     * 追加到尾部(最近使用)
+     */
+    void addLast(Node node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+        size++;
+    }
+
+    /**
+     * 从链表中摘下节点
+     */
+    void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    /**
+     * 移到尾部(最近使用)
+     */
+    void moveToLast(Node node) {
+        if (sentinel.prev == node) {
+            return;
+        }
+        unlink(node);
+        addLast(node);
+    }
+
+    /**
+     * 头部节点(最久未使用),空链表返回null
+     */
+    Node first() {
+        return size == 0 ? null : sentinel.next;
+    }
+
+    /**
+     * 从头部开始找第一个满足条件的页帧
+     */
+    PageFrame findFirst(Predicate<PageFrame> condition) {
+        for (Node node = sentinel.next; node != sentinel; node = node.next) {
+            if (condition.test(node.frame)) {
+                return node.frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 清空链表,并解除页帧上挂的节点
+     */
+    void clear() {
+        Node node = sentinel.next;
+        while (node != sentinel) {
+            Node next = node.next;
+            node.frame.setReplacementState(null);
+            node.prev = null;
+            node.next = null;
+            node = next;
+        }
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 链表节点
+     */
+    static class Node {
+        final PageFrame frame;
+        Node prev;
+        Node next;
+
+        Node(PageFrame frame) {
+            this.frame = frame;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.minimysql.storage.buffer;
+
+import java.util.function.Predicate;
+
+/**
+ * LruPolicy - LRU页替换策略
+ *
+ * 缓冲池原来的淘汰算法:命中时页移到链表尾部,淘汰时从链表头部找第一个可淘汰的页。
+ *
+ * 链表节点挂在页帧上(侵入式),命中只修改几个指针,不查表、不装箱。
+ *
+ * 代价:
+ * - 每次命中都要修改链表(必须在锁内)
+ * - 头部连续的页都被pin住时,淘汰要扫描很多页
+ *
+ * "Good taste": 一条双向链表就是完整的LRU
+ */
+public class LruPolicy implements ReplacementPolicy {
+
+    /** LRU链表:头部最久未使用 */
+    private final LruList lruList;
+
+    public LruPolicy() {
+        this.lruList = new LruList();
+    }
+
+    @Override
+    public void recordInsert(long key, PageFrame frame) {
+        LruList.Node node = new LruList.Node(frame);
+        frame.setReplacementState(node);
+        lruList.addLast(node);
+    }
+
+    @Override
+    public void recordAccess(long key, PageFrame frame) {
+        lruList.moveToLast((LruList.Node) frame.getReplacementState());
+    }
+
+    @Override
+    public void remove(long key, PageFrame frame) {
+        LruList.Node node = (LruList.Node) frame.getReplacementState();
+        if (node != null) {
+            lruList.unlink(node);
+            frame.setReplacementState(null);
+        }
+    }
+
+    @Override
+    public PageFrame selectVictim(Predicate<PageFrame> evictable) {
+        return lruList.findFirst(evictable);
+    }
+
+    @Override
+    public void clear() {
+        lruList.clear();
+    }
+}
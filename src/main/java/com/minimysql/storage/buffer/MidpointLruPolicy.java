@@ -0,0 +1,208 @@
+package com.minimysql.storage.buffer;
+
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * MidpointLruPolicy - 中点插入LRU(young/old两段)
+ *
+ * 对应InnoDB的缓冲池LRU(buf0lru.cc):LRU链表分成两段,
+ * 前5/8是young(热数据),后3/8是old(新读入的页和变冷的页)。
+ *
+ * 规则:
+ * 1. 新读入的页放在old段的头部(中点),而不是整个链表的头部
+ * 2. old段的页再次被访问,且距第一次访问超过窗口时间 → 提升到young段头部
+ * 3. 窗口时间内的重复访问不提升(一次全表扫描会在短时间内多次访问同一页)
+ * 4. young段超过容量的(100-oldPercent)%时,尾部的页降级到old段头部
+ * 5. 淘汰先从old段尾部找,old段没有可淘汰的页再找young段尾部
+ *
+ * 为什么能抵抗全表扫描:
+ * - 扫描读入的页全部进入old段,窗口内不会被提升
+ * - 扫描只会把old段挤满再淘汰old段自己的页,young段的热页不受影响
+ *
+ * 参数(对应InnoDB系统变量):
+ * - oldPercent → innodb_old_blocks_pct(默认37)
+ * - oldBlocksTimeMillis → innodb_old_blocks_time(默认1000ms)
+ *
+ * "Good taste": 两条侵入式链表,节点上记着自己在哪一段,命中时不查表
+ */
+public class MidpointLruPolicy implements ReplacementPolicy {
+
+    /** 默认old段占比(%) */
+    public static final int DEFAULT_OLD_PERCENT = 37;
+
+    /** 默认提升窗口(毫秒) */
+    public static final long DEFAULT_OLD_BLOCKS_TIME_MILLIS = 1000;
+
+    /** young段(头部最久未使用) */
+    private final LruList young;
+
+    /** old段(头部最久未使用) */
+    private final LruList old;
+
+    /** young段最大页数:容量 - 容量 * oldPercent / 100 */
+    private final int maxYoung;
+
+    /** 提升窗口(纳秒) */
+    private final long oldBlocksTimeNanos;
+
+    /** 时钟(纳秒) */
+    private final LongSupplier clock;
+
+    /** 从old段提升到young段的次数 */
+    private long promotions;
+
+    /** 窗口内重复访问、没有提升的次数 */
+    private long promotionsDeferred;
+
+    /** 从young段降级到old段的次数 */
+    private long demotions;
+
+    /**
+     * 创建中点插入LRU
+     *
+     * @param capacity 分区容量(页数)
+     * @param oldPercent old段占比(5~95)
+     * @param oldBlocksTimeMillis 提升窗口(毫秒),0表示第二次访问立即提升
+     */
+    public MidpointLruPolicy(int capacity, int oldPercent, long oldBlocksTimeMillis) {
+        this(capacity, oldPercent, oldBlocksTimeMillis, System::nanoTime);
+    }
+
+    MidpointLruPolicy(int capacity, int oldPercent, long oldBlocksTimeMillis, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (oldPercent < 5 || oldPercent > 95) {
+            throw new IllegalArgumentException("Old sublist percent must be between 5 and 95: " + oldPercent);
+        }
+        if (oldBlocksTimeMillis < 0) {
+            throw new IllegalArgumentException("Old blocks time must be non-negative: " + oldBlocksTimeMillis);
+        }
+
+        this.young = new LruList();
+        this.old = new LruList();
+        this.maxYoung = Math.max(1, capacity - capacity * oldPercent / 100);
+        this.oldBlocksTimeNanos = oldBlocksTimeMillis * 1_000_000L;
+        this.clock = clock;
+    }
+
+    @Override
+    public void recordInsert(long key, PageFrame frame) {
+        // 中点插入:新页只进old段
+        Node node = new Node(frame, clock.getAsLong());
+        frame.setReplacementState(node);
+        old.addLast(node);
+    }
+
+    @Override
+    public void recordAccess(long key, PageFrame frame) {
+        Node node = (Node) frame.getReplacementState();
+
+        if (node.young) {
+            // young段内移到头部
+            young.moveToLast(node);
+            return;
+        }
+
+        if (clock.getAsLong() - node.firstAccessNanos >= oldBlocksTimeNanos) {
+            old.unlink(node);
+            node.young = true;
+            young.addLast(node);
+            promotions++;
+            rebalance();
+        } else {
+            // 窗口内的重复访问(典型的扫描模式):留在old段原位置
+            promotionsDeferred++;
+        }
+    }
+
+    @Override
+    public void remove(long key, PageFrame frame) {
+        Node node = (Node) frame.getReplacementState();
+        if (node == null) {
+            return;
+        }
+        if (node.young) {
+            young.unlink(node);
+        } else {
+            old.unlink(node);
+        }
+        frame.setReplacementState(null);
+    }
+
+    @Override
+    public PageFrame selectVictim(Predicate<PageFrame> evictable) {
+        PageFrame victim = old.findFirst(evictable);
+        if (victim == null) {
+            victim = young.findFirst(evictable);
+        }
+        return victim;
+    }
+
+    @Override
+    public void clear() {
+        young.clear();
+        old.clear();
+    }
+
+    @Override
+    public void collectStats(BufferPoolStats stats) {
+        stats.addYoungPages(young.size());
+        stats.addOldPages(old.size());
+        stats.addPromotions(promotions);
+        stats.addPromotionsDeferred(promotionsDeferred);
+        stats.addDemotions(demotions);
+    }
+
+    /**
+     * young段页数
+     */
+    public int getYoungSize() {
+        return young.size();
+    }
+
+    /**
+     * old段页数
+     */
+    public int getOldSize() {
+        return old.size();
+    }
+
+    /**
+     * 页是否在young段
+     */
+    public boolean isYoung(PageFrame frame) {
+        Object state = frame.getReplacementState();
+        return state instanceof Node node && node.young;
+    }
+
+    /**
+     * young段过长时,把young段尾部的页降级到old段头部
+     *
+     * 上限按分区容量而不是当前页数计算:缓冲池还没满时热页不会被降级。
+     * 降级的页保留第一次访问的时间:它早已过了窗口,再次访问会立即回到young段。
+     */
+    private void rebalance() {
+        while (young.size() > maxYoung) {
+            Node coldest = (Node) young.first();
+            young.unlink(coldest);
+            coldest.young = false;
+            old.addLast(coldest);
+            demotions++;
+        }
+    }
+
+    /**
+     * 链表节点:记录所在的段和第一次访问(读入)的时间
+     */
+    private static final class Node extends LruList.Node {
+        final long firstAccessNanos;
+        boolean young;
+
+        Node(PageFrame frame, long firstAccessNanos) {
+            super(frame);
+            this.firstAccessNanos = firstAccessNanos;
+        }
+    }
+}
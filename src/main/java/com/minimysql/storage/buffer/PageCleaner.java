@@ -0,0 +1,204 @@
+package com.minimysql.storage.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PageCleaner - 后台刷脏线程
+ *
+ * 按脏页比例把最老的脏页成批写回磁盘,让前台线程淘汰时尽量遇到干净页。
+ * 对应InnoDB的page cleaner线程(buf_flush_page_cleaner)。
+ *
+ * 水位规则:
+ * - 脏页比例 ≤ 低水位:不刷
+ * - 低水位 < 比例 ≤ 高水位:每个周期刷一批
+ * - 比例 > 高水位:连续刷,直到降到高水位以下或者没有可刷的页
+ *
+ * 前台线程淘汰脏页时会唤醒它,不必等满一个周期。
+ *
+ * "实用主义": 只按比例调节,没有InnoDB的自适应刷脏(redo生成速率),
+ * 本项目还没有redo log
+ */
+class PageCleaner implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCleaner.class);
+
+    private final BufferPool bufferPool;
+
+    /** 低水位(脏页比例) */
+    private final double lowWatermark;
+
+    /** 高水位(脏页比例) */
+    private final double highWatermark;
+
+    /** 每批最多写回的页数 */
+    private final int batchSize;
+
+    /** 两批之间的间隔(毫秒) */
+    private final long intervalMillis;
+
+    private final ReentrantLock lock;
+    private final Condition wakeupCondition;
+
+    /** 是否收到停止请求(锁内读写) */
+    private boolean stopped;
+
+    /** 是否被唤醒(锁内读写) */
+    private boolean signalled;
+
+    /** 累计写回的页数 */
+    private final AtomicLong flushedPages;
+
+    /** 启动时间(用于计算速率) */
+    private final long startNanos;
+
+    private Thread thread;
+
+    PageCleaner(BufferPool bufferPool, double lowWatermark, double highWatermark,
+                int batchSize, long intervalMillis) {
+        if (lowWatermark < 0 || highWatermark > 1 || lowWatermark > highWatermark) {
+            throw new IllegalArgumentException(
+                    "Invalid dirty page watermarks: low=" + lowWatermark + ", high=" + highWatermark);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Page cleaner batch size must be positive: " + batchSize);
+        }
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Page cleaner interval must be positive: " + intervalMillis);
+        }
+
+        this.bufferPool = bufferPool;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.lock = new ReentrantLock();
+        this.wakeupCondition = lock.newCondition();
+        this.flushedPages = new AtomicLong();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 启动后台线程(守护线程,不阻止JVM退出)
+     */
+    void start() {
+        thread = new Thread(this, "page-cleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止后台线程并等待它退出(正在写的一批会写完)
+     */
+    void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            wakeupCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 唤醒后台线程,立即检查一次脏页比例
+     */
+    void wakeup() {
+        lock.lock();
+        try {
+            signalled = true;
+            wakeupCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!isStopped()) {
+            int flushed = 0;
+            try {
+                flushed = runOnce();
+            } catch (RuntimeException e) {
+                logger.warn("Page cleaner failed to flush dirty pages", e);
+            }
+
+            // 高于高水位且还有进展:不等待,继续下一批
+            if (flushed > 0 && bufferPool.getDirtyRatio() > highWatermark) {
+                continue;
+            }
+            awaitNextRound();
+        }
+    }
+
+    /**
+     * 执行一轮:脏页比例超过低水位时写回一批最老的脏页
+     *
+     * @return 写回的页数
+     */
+    int runOnce() {
+        if (bufferPool.getDirtyRatio() <= lowWatermark) {
+            return 0;
+        }
+
+        int flushed = bufferPool.flushOldestDirtyPages(batchSize);
+        flushedPages.addAndGet(flushed);
+        return flushed;
+    }
+
+    /**
+     * 累计写回的页数
+     */
+    long getFlushedPages() {
+        return flushedPages.get();
+    }
+
+    /**
+     * 平均刷脏速率(页/秒)
+     */
+    double getFlushRate() {
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed <= 0) {
+            return 0.0;
+        }
+        return flushedPages.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private boolean isStopped() {
+        lock.lock();
+        try {
+            return stopped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitNextRound() {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            while (!stopped && !signalled && remaining > 0) {
+                remaining = wakeupCondition.awaitNanos(remaining);
+            }
+            signalled = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PageFileManager - 页文件I/O层
+ *
+ * 负责表数据文件(table_N.db)和索引数据文件(index_N.db)的按页读写。
+ * 对应InnoDB的fil层(fil0fil.cc):上层只关心"第几页",不关心文件怎么打开。
+ *
+ * 核心功能:
+ * 1. 每个文件保持一个打开的FileChannel(懒打开,复用)
+ * 2. 定位读:read(ByteBuffer, pageId * PAGE_SIZE),只读一页
+ * 3. 定位写:write(ByteBuffer, pageId * PAGE_SIZE),只写一页
+ * 4. 刷盘:force()把操作系统缓存写到磁盘
+ * 5. 内存映射读:mapPage返回文件映射中一页的只读切片,不复制、不分配页数组
+ *
+ * 设计哲学:
+ * - 一次缺页 = 一次16KB读,一次刷脏 = 一次16KB写,与文件大小无关
+ * - 写入超过文件末尾时文件自动扩展,中间的空洞读出来是0
+ * - FileChannel是线程安全的,定位读写互不干扰,不需要额外加锁
+ * - 文件不存在时读页返回false(空页),不创建文件
+ * - 映射按段(默认1GB)进行,单个MappedByteBuffer最大2GB,大文件拆成多段;
+ *   文件变长后末尾的段重新映射。映射是MAP_SHARED只读,定位写的结果对映射立即可见
+ *
+ * "Good taste": 没有"读整个文件→改一页→写整个文件",每页就是文件里的一个偏移量
+ */
+public class PageFileManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageFileManager.class);
+
+    /** 默认映射段大小:65536页(1GB) */
+    static final int DEFAULT_SEGMENT_PAGES = 65536;
+
+    /** 已打开的文件通道:文件路径 → FileChannel */
+    private final Map<Path, FileChannel> channels;
+
+    /** 文件映射:文件路径 → 各段的只读映射 */
+    private final Map<Path, MappedFile> mappings;
+
+    /** 每个映射段的页数 */
+    private final int segmentPages;
+
+    /**
+     * 创建页文件管理器
+     */
+    public PageFileManager() {
+        this(DEFAULT_SEGMENT_PAGES);
+    }
+
+    /**
+     * 创建页文件管理器(指定映射段大小,测试用)
+     *
+     * @param segmentPages 每个映射段的页数
+     */
+    PageFileManager(int segmentPages) {
+        if (segmentPages < 1 || (long) segmentPages * Page.PAGE_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid mapping segment size: " + segmentPages + " pages");
+        }
+        this.channels = new ConcurrentHashMap<>();
+        this.mappings = new ConcurrentHashMap<>();
+        this.segmentPages = segmentPages;
+    }
+
+    /**
+     * 读取一页
+     *
+     * 从文件偏移量 pageId * PAGE_SIZE 处读取 PAGE_SIZE 字节到dest。
+     *
+     * @param filePath 文件路径
+     * @param pageId 页号
+     * @param dest 目标数组(长度必须为PAGE_SIZE)
+     * @return 读取成功返回true;文件不存在或页超出文件末尾返回false
+     */
+    public boolean readPage(Path filePath, int pageId, byte[] dest) {
+        if (dest.length != Page.PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page buffer size: expected " + Page.PAGE_SIZE + ", got " + dest.length);
+        }
+
+        if (!channels.containsKey(filePath) && !Files.exists(filePath)) {
+            return false;
+        }
+
+        long offset = (long) pageId * Page.PAGE_SIZE;
+
+        FileChannel channel = null;
+        try {
+            channel = getChannel(filePath);
+            return doReadPage(channel, offset, ByteBuffer.wrap(dest));
+        } catch (ClosedChannelException e) {
+            // 通道被关闭(例如其他线程被中断),重新打开后重试一次。
+            // 只移除这个失效的通道:别的线程可能已经换上了新打开的通道
+            channels.remove(filePath, channel);
+            try {
+                return doReadPage(getChannel(filePath), offset, ByteBuffer.wrap(dest));
+            } catch (IOException retryError) {
+                throw new RuntimeException("Failed to read page: file=" + filePath + ", pageId=" + pageId, retryError);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read page: file=" + filePath + ", pageId=" + pageId, e);
+        }
+    }
+
+    /**
+     * 读取一页(ByteBuffer版本)
+     *
+     * 读入dest从0到PAGE_SIZE的位置,不修改dest的position。
+     * dest可以是直接缓冲区(缓冲池的堆外帧),FileChannel直接读入,不经过中间数组。
+     *
+     * @param filePath 文件路径
+     * @param pageId 页号
+     * @param dest 目标缓冲区(容量至少PAGE_SIZE)
+     * @return 读取成功返回true;文件不存在或页超出文件末尾返回false
+     */
+    public boolean readPage(Path filePath, int pageId, ByteBuffer dest) {
+        if (dest.capacity() < Page.PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page buffer size: expected " + Page.PAGE_SIZE + ", got " + dest.capacity());
+        }
+
+        if (!channels.containsKey(filePath) && !Files.exists(filePath)) {
+            return false;
+        }
+
+        long offset = (long) pageId * Page.PAGE_SIZE;
+
+        FileChannel channel = null;
+        try {
+            channel = getChannel(filePath);
+            return doReadPage(channel, offset, dest.duplicate().clear().limit(Page.PAGE_SIZE));
+        } catch (ClosedChannelException e) {
+            channels.remove(filePath, channel);
+            try {
+                return doReadPage(getChannel(filePath), offset, dest.duplicate().clear().limit(Page.PAGE_SIZE));
+            } catch (IOException retryError) {
+                throw new RuntimeException("Failed to read page: file=" + filePath + ", pageId=" + pageId, retryError);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read page: file=" + filePath + ", pageId=" + pageId, e);
+        }
+    }
+
+    private boolean doReadPage(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+        if (offset + Page.PAGE_SIZE > channel.size()) {
+            return false;
+        }
+
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset + buffer.position());
+            if (n < 0) {
+                // 并发截断等异常情况:按不完整页处理
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入一页
+     *
+     * 将src写入文件偏移量 pageId * PAGE_SIZE 处。文件不存在时自动创建。
+     *
+     * @param filePath 文件路径
+     * @param pageId 页号
+     * @param src 页数据(长度必须为PAGE_SIZE)
+     */
+    public void writePage(Path filePath, int pageId, byte[] src) {
+        if (src.length != Page.PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page buffer size: expected " + Page.PAGE_SIZE + ", got " + src.length);
+        }
+
+        long offset = (long) pageId * Page.PAGE_SIZE;
+
+        FileChannel channel = null;
+        try {
+            channel = getChannel(filePath);
+            doWritePage(channel, offset, ByteBuffer.wrap(src));
+        } catch (ClosedChannelException e) {
+            channels.remove(filePath, channel);
+            try {
+                doWritePage(getChannel(filePath), offset, ByteBuffer.wrap(src));
+            } catch (IOException retryError) {
+                throw new RuntimeException("Failed to write page: file=" + filePath + ", pageId=" + pageId, retryError);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write page: file=" + filePath + ", pageId=" + pageId, e);
+        }
+    }
+
+    /**
+     * 写入一页(ByteBuffer版本)
+     *
+     * 写入src从0到PAGE_SIZE的内容,不修改src的position。
+     * 页内容不是堆内数组(例如只读映射)时不需要先复制。
+     *
+     * @param filePath 文件路径
+     * @param pageId 页号
+     * @param src 页数据(容量至少PAGE_SIZE)
+     */
+    public void writePage(Path filePath, int pageId, ByteBuffer src) {
+        if (src.capacity() < Page.PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page buffer size: expected " + Page.PAGE_SIZE + ", got " + src.capacity());
+        }
+
+        long offset = (long) pageId * Page.PAGE_SIZE;
+
+        FileChannel channel = null;
+        try {
+            channel = getChannel(filePath);
+            doWritePage(channel, offset, src.duplicate().clear().limit(Page.PAGE_SIZE));
+        } catch (ClosedChannelException e) {
+            channels.remove(filePath, channel);
+            try {
+                doWritePage(getChannel(filePath), offset, src.duplicate().clear().limit(Page.PAGE_SIZE));
+            } catch (IOException retryError) {
+                throw new RuntimeException("Failed to write page: file=" + filePath + ", pageId=" + pageId, retryError);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write page: file=" + filePath + ", pageId=" + pageId, e);
+        }
+    }
+
+    private void doWritePage(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    /**
+     * 以内存映射方式读取一页
+     *
+     * 返回文件映射中这一页的只读切片,不复制。
+     * 切片在文件通道关闭后仍然有效(映射由GC回收)。
+     *
+     * @param filePath 文件路径
+     * @param pageId 页号
+     * @return 页内容(只读,PAGE_SIZE字节);文件不存在或页超出文件末尾返回null
+     */
+    public ByteBuffer mapPage(Path filePath, int pageId) {
+        if (!channels.containsKey(filePath) && !Files.exists(filePath)) {
+            return null;
+        }
+
+        FileChannel channel = null;
+        try {
+            channel = getChannel(filePath);
+            return doMapPage(filePath, channel, pageId);
+        } catch (ClosedChannelException e) {
+            channels.remove(filePath, channel);
+            try {
+                return doMapPage(filePath, getChannel(filePath), pageId);
+            } catch (IOException retryError) {
+                throw new RuntimeException("Failed to map page: file=" + filePath + ", pageId=" + pageId, retryError);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map page: file=" + filePath + ", pageId=" + pageId, e);
+        }
+    }
+
+    private ByteBuffer doMapPage(Path filePath, FileChannel channel, int pageId) throws IOException {
+        long fileSize = channel.size();
+        if ((long) pageId * Page.PAGE_SIZE + Page.PAGE_SIZE > fileSize) {
+            return null;
+        }
+
+        int offsetInSegment = (pageId % segmentPages) * Page.PAGE_SIZE;
+        MappedFile mappedFile = mappings.computeIfAbsent(filePath, path -> new MappedFile());
+        MappedByteBuffer segment = mappedFile.segment(channel, pageId / segmentPages,
+                offsetInSegment + Page.PAGE_SIZE, fileSize);
+
+        return segment.slice(offsetInSegment, Page.PAGE_SIZE);
+    }
+
+    /**
+     * 获取文件的页数
+     *
+     * @param filePath 文件路径
+     * @return 完整页的数量,文件不存在返回0
+     */
+    public int getPageCount(Path filePath) {
+        if (!channels.containsKey(filePath) && !Files.exists(filePath)) {
+            return 0;
+        }
+
+        try {
+            return (int) (getChannel(filePath).size() / Page.PAGE_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to get file size: " + filePath, e);
+        }
+    }
+
+    /**
+     * 将所有已打开文件的修改刷到磁盘
+     */
+    public void syncAll() {
+        for (Map.Entry<Path, FileChannel> entry : channels.entrySet()) {
+            try {
+                entry.getValue().force(false);
+            } catch (ClosedChannelException e) {
+                channels.remove(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to sync file: " + entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 关闭所有文件通道
+     *
+     * 关闭后仍可继续使用,下次读写时会重新打开文件。
+     */
+    public void closeAll() {
+        // 已经返回的切片仍然有效,只是之后的mapPage重新映射
+        mappings.clear();
+
+        for (Path path : channels.keySet()) {
+            FileChannel channel = channels.remove(path);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("关闭文件时出错: {}, 原因: {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取已打开的文件数
+     */
+    public int getOpenFileCount() {
+        return channels.size();
+    }
+
+    /**
+     * 获取文件通道(不存在则打开)
+     */
+    private FileChannel getChannel(Path filePath) throws IOException {
+        FileChannel channel = channels.get(filePath);
+        if (channel != null && channel.isOpen()) {
+            return channel;
+        }
+
+        synchronized (channels) {
+            channel = channels.get(filePath);
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(filePath,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channels.put(filePath, channel);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * 一个文件的分段只读映射(用自身作为锁)
+     */
+    private final class MappedFile {
+
+        private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+        /**
+         * 获取指定段的映射,要读的位置还没映射到(文件变长了)时重新映射到当前文件末尾
+         *
+         * @param required 段内需要覆盖的字节数
+         */
+        synchronized MappedByteBuffer segment(FileChannel channel, int index, int required, long fileSize)
+                throws IOException {
+            if (index >= segments.length) {
+                segments = java.util.Arrays.copyOf(segments, index + 1);
+            }
+
+            long segmentBytes = (long) segmentPages * Page.PAGE_SIZE;
+            long start = index * segmentBytes;
+            long length = Math.min(segmentBytes, (fileSize - start) / Page.PAGE_SIZE * Page.PAGE_SIZE);
+
+            MappedByteBuffer segment = segments[index];
+            if (segment == null || segment.capacity() < required) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                segments[index] = segment;
+            }
+            return segment;
+        }
+    }
+}
@@ -2,6 +2,11 @@ package com.minimysql.storage.buffer;
 
 import com.minimysql.storage.page.Page;
 
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * PageFrame - 页帧
  *
@@ -13,6 +18,7 @@ import com.minimysql.storage.page.Page;
  * - indexId: 索引ID(用于刷新脏页到索引数据文件)
  * - dirty: 脏标记,表示页是否被修改过
  * - pinCount: 引用计数,表示有多少操作正在使用此页
+ * - referenced: 引用位,CLOCK替换策略使用
  *
  * 设计哲学(MySQL InnoDB风格):
  * - 聚簇索引的数据存储在表数据文件中(table_{tableId}.db)
@@ -20,8 +26,20 @@ import com.minimysql.storage.page.Page;
  * - pinCount > 0的页不能被淘汰(正在被使用)
  * - dirty的页在淘汰前必须写回磁盘
  * - pin/unpin必须配对,类似对象的引用计数
+ * - pin/unpin不经过缓冲池分区锁,所以pinCount是原子的,dirty是volatile的
+ * - 页帧在缓冲池中时,干净→脏的转换登记到所在分区的刷新链表(flush list)
+ *
+ * 页锁(latch):
+ * - 每个页帧一把读写锁,保护页内容,对应InnoDB buf_block_t的lock(rw_lock_t)
+ * - pin保证页不被淘汰,latch保证读到的内容一致;先pin再latch,先unlatch再unpin
+ * - 只有B+树在下降时使用(latch crabbing),其他页类型不需要
  *
- * "Good taste": 没有锁状态、读写状态等复杂概念,只有dirty和pinCount
+ * 版本号(乐观读,Optimistic Lock Coupling):
+ * - 加独占锁时版本号加1变成奇数,释放时再加1变回偶数
+ * - 读者不加锁:先读版本号(奇数表示正在被修改),读完页内容后再校验版本号没有变,
+ *   变了就说明读的过程中有写者,丢掉结果重来;对应InnoDB的modify_clock + 乐观恢复游标
+ *
+ * "Good taste": pin和latch分开,谁需要一致性谁加锁,不需要的调用方没有任何额外开销
  */
 public class PageFrame {
 
@@ -38,10 +56,37 @@ public class PageFrame {
     private boolean isClusteredIndex;
 
     /** 脏标记:页内容是否被修改过 */
-    private boolean dirty;
+    private volatile boolean dirty;
 
     /** 引用计数:有多少操作正在使用此页 */
-    private int pinCount;
+    private final AtomicInteger pinCount;
+
+    /** 引用位:最近被访问过(CLOCK替换策略的"第二次机会") */
+    private volatile boolean referenced;
+
+    /** 替换策略的簿记(链表节点),只在分区锁内读写 */
+    private Object replacementState;
+
+    /** CLOCK替换策略的槽位下标(-1表示不在时钟里),只在分区锁内读写 */
+    private int clockSlot = -1;
+
+    /** 所在的缓冲池分区(不在缓冲池中时为null),用于维护刷新链表 */
+    private volatile BufferPoolInstance poolInstance;
+
+    /** 第一次被修改时的序号(干净→脏时分配),刷新链表按它排序 */
+    private long oldestModification;
+
+    /** 由预读放入、还没有被访问过(只在分区锁内读写) */
+    private boolean prefetched;
+
+    /** 页内容所在的堆外帧号(FrameArena),-1表示页内容在堆上 */
+    private int arenaSlot = -1;
+
+    /** 页锁:保护页内容,B+树读共享、改独占 */
+    private final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+    /** 版本号:独占锁持有期间为奇数,每次加锁和释放独占锁各加1 */
+    private final AtomicLong version = new AtomicLong();
 
     /**
      * 创建页帧
@@ -54,7 +99,7 @@ public class PageFrame {
         this.indexId = -1;  // 默认-1,表示未设置
         this.isClusteredIndex = false;  // 默认false
         this.dirty = false;
-        this.pinCount = 0;
+        this.pinCount = new AtomicInteger(0);
     }
 
     /**
@@ -145,9 +190,19 @@ public class PageFrame {
      * 标记页为脏页
      *
      * 当页内容被修改时调用。
+     * 已经是脏页时只读一个volatile字段;干净→脏时登记到分区的刷新链表。
      */
     public void markDirty() {
-        this.dirty = true;
+        if (dirty) {
+            return;
+        }
+
+        BufferPoolInstance current = poolInstance;
+        if (current != null) {
+            current.markDirty(this);
+        } else {
+            this.dirty = true;
+        }
     }
 
     /**
@@ -156,7 +211,45 @@ public class PageFrame {
      * 在页写回磁盘后调用,表示页与磁盘一致。
      */
     public void clearDirty() {
-        this.dirty = false;
+        if (!dirty) {
+            return;
+        }
+
+        BufferPoolInstance current = poolInstance;
+        if (current != null) {
+            current.clearDirty(this);
+        } else {
+            this.dirty = false;
+        }
+    }
+
+    /**
+     * 直接设置脏标记(由分区在刷新链表锁内调用)
+     */
+    void setDirtyFlag(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * 获取第一次修改的序号
+     */
+    long getOldestModification() {
+        return oldestModification;
+    }
+
+    void setOldestModification(long oldestModification) {
+        this.oldestModification = oldestModification;
+    }
+
+    /**
+     * 获取所在的缓冲池分区
+     */
+    BufferPoolInstance getPoolInstance() {
+        return poolInstance;
+    }
+
+    void setPoolInstance(BufferPoolInstance poolInstance) {
+        this.poolInstance = poolInstance;
     }
 
     /**
@@ -166,7 +259,7 @@ public class PageFrame {
      * pinCount > 0时页不能被淘汰。
      */
     public int getPinCount() {
-        return pinCount;
+        return pinCount.get();
     }
 
     /**
@@ -178,7 +271,7 @@ public class PageFrame {
      * pin后必须配对调用unpin,否则页永远不会被淘汰。
      */
     public void pin() {
-        this.pinCount++;
+        pinCount.incrementAndGet();
     }
 
     /**
@@ -189,15 +282,164 @@ public class PageFrame {
      * @param dirty 页是否被修改(如果被修改,标记为脏页)
      */
     public void unpin(boolean dirty) {
-        if (this.pinCount <= 0) {
-            throw new IllegalStateException("Cannot unpin a page with pinCount <= 0");
+        // 先标脏再减引用:引用归零的瞬间页就可能被淘汰,此时脏标记必须已经可见
+        if (dirty) {
+            markDirty();
         }
 
-        this.pinCount--;
+        int current;
+        do {
+            current = pinCount.get();
+            if (current <= 0) {
+                throw new IllegalStateException("Cannot unpin a page with pinCount <= 0");
+            }
+        } while (!pinCount.compareAndSet(current, current - 1));
+    }
 
-        if (dirty) {
-            this.dirty = true;
+    /**
+     * 加共享页锁(读页内容)
+     *
+     * 调用前必须已经pin住页。
+     */
+    public void latchShared() {
+        latch.readLock().lock();
+    }
+
+    /**
+     * 释放共享页锁
+     */
+    public void unlatchShared() {
+        latch.readLock().unlock();
+    }
+
+    /**
+     * 加独占页锁(修改页内容)
+     *
+     * 调用前必须已经pin住页。
+     */
+    public void latchExclusive() {
+        latch.writeLock().lock();
+        version.incrementAndGet();
+    }
+
+    /**
+     * 尝试加独占页锁,不等待
+     *
+     * 逆着加锁顺序(例如从右向左锁兄弟节点)时使用,拿不到就放弃,避免死锁。
+     *
+     * @return 是否拿到了锁
+     */
+    public boolean tryLatchExclusive() {
+        if (!latch.writeLock().tryLock()) {
+            return false;
         }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 释放独占页锁
+     */
+    public void unlatchExclusive() {
+        version.incrementAndGet();
+        latch.writeLock().unlock();
+    }
+
+    /**
+     * 开始乐观读:读取当前版本号
+     *
+     * 调用前必须已经pin住页。返回奇数表示写者正持有独占锁,读到的内容不可用。
+     *
+     * @return 版本号
+     */
+    public long readVersion() {
+        return version.get();
+    }
+
+    /**
+     * 结束乐观读:校验从readVersion到现在页内容没有被修改
+     *
+     * 先加读屏障,保证前面对页内容的读取不会被重排到版本号之后(与StampedLock.validate相同)。
+     *
+     * @param readVersion readVersion返回的版本号
+     * @return true表示期间读到的页内容是一致的
+     */
+    public boolean validateVersion(long readVersion) {
+        VarHandle.acquireFence();
+        return (readVersion & 1) == 0 && version.get() == readVersion;
+    }
+
+    /**
+     * 是否最近被访问过
+     */
+    public boolean isReferenced() {
+        return referenced;
+    }
+
+    /**
+     * 设置引用位
+     *
+     * 命中时置1,CLOCK指针扫过时清0。
+     *
+     * @param referenced 引用位
+     */
+    public void setReferenced(boolean referenced) {
+        this.referenced = referenced;
+    }
+
+    /**
+     * 获取替换策略的簿记
+     */
+    Object getReplacementState() {
+        return replacementState;
+    }
+
+    /**
+     * 设置替换策略的簿记
+     *
+     * @param replacementState 策略自己定义的状态,离开缓冲池时置为null
+     */
+    void setReplacementState(Object replacementState) {
+        this.replacementState = replacementState;
+    }
+
+    /**
+     * 获取CLOCK槽位下标
+     *
+     * @return 槽位下标,-1表示不在时钟里
+     */
+    int getClockSlot() {
+        return clockSlot;
+    }
+
+    /**
+     * 设置CLOCK槽位下标
+     *
+     * 单独用一个int字段而不是replacementState,每次放入都不用装箱。
+     *
+     * @param clockSlot 槽位下标,离开缓冲池时置为-1
+     */
+    void setClockSlot(int clockSlot) {
+        this.clockSlot = clockSlot;
+    }
+
+    /**
+     * 是否是预读进来、还没有被访问过的页
+     */
+    boolean isPrefetched() {
+        return prefetched;
+    }
+
+    void setPrefetched(boolean prefetched) {
+        this.prefetched = prefetched;
+    }
+
+    int getArenaSlot() {
+        return arenaSlot;
+    }
+
+    void setArenaSlot(int arenaSlot) {
+        this.arenaSlot = arenaSlot;
     }
 
     /**
@@ -206,7 +448,7 @@ public class PageFrame {
      * 淘汰条件:引用计数为0(没有操作正在使用)
      */
     public boolean isEvictable() {
-        return pinCount == 0;
+        return pinCount.get() == 0;
     }
 
     @Override
@@ -214,7 +456,7 @@ public class PageFrame {
         return "PageFrame{" +
                 "pageId=" + (page != null ? page.getPageId() : "null") +
                 ", dirty=" + dirty +
-                ", pinCount=" + pinCount +
+                ", pinCount=" + pinCount.get() +
                 '}';
     }
 }
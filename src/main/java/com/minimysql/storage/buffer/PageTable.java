@@ -0,0 +1,213 @@
+package com.minimysql.storage.buffer;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * PageTable - 页表(页键 → 页帧)
+ *
+ * 缓冲池分区内部的哈希表,替代HashMap&lt;Long, PageFrame&gt;。
+ * 对应InnoDB的buf_pool->page_hash。
+ *
+ * 实现:
+ * - 开放寻址 + 线性探测,键是原始long,不装箱
+ * - 容量是2的幂,装载因子不超过1/2,探测链很短
+ * - 删除用"向后移位"(backward shift),不留墓碑,查找不会越来越慢
+ * - 键由BufferPool.cacheKey打包:表ID/索引ID、文件类型、页号,任何long都是合法键
+ *
+ * 命中路径(get)只读两个数组,不分配任何对象。
+ * 不是线程安全的:由分区锁保护。
+ *
+ * "Good taste": 两个平行数组(键、页帧),页帧为null就是空槽,不需要占用位图,也没有Entry对象
+ */
+class PageTable {
+
+    /** 最小槽位数 */
+    private static final int MIN_CAPACITY = 16;
+
+    /** 键数组 */
+    private long[] keys;
+
+    /** 值数组(null表示空槽) */
+    private PageFrame[] values;
+
+    /** 槽位数-1(用于取模) */
+    private int mask;
+
+    /** 元素个数 */
+    private int size;
+
+    /**
+     * 创建页表
+     *
+     * @param expectedSize 预计元素个数(通常是分区容量)
+     */
+    PageTable(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(MIN_CAPACITY, expectedSize * 2));
+        this.keys = new long[capacity];
+        this.values = new PageFrame[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 查找页帧
+     *
+     * @param key 页键
+     * @return 页帧,不存在返回null
+     */
+    PageFrame get(long key) {
+        int slot = slotOf(key);
+        PageFrame value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * 放入页帧
+     *
+     * @param key 页键
+     * @param frame 页帧(非null)
+     * @return 原来的页帧,不存在返回null
+     */
+    PageFrame put(long key, PageFrame frame) {
+        if (frame == null) {
+            throw new IllegalArgumentException("PageTable does not accept null frames");
+        }
+
+        int slot = slotOf(key);
+        PageFrame value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                values[slot] = frame;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = frame;
+        size++;
+
+        if (size * 2 > values.length) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * 删除页帧
+     *
+     * @param key 页键
+     * @return 被删除的页帧,不存在返回null
+     */
+    PageFrame remove(long key) {
+        int slot = slotOf(key);
+        PageFrame value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * 是否包含页键
+     */
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 元素个数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 清空
+     */
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * 遍历所有页帧(遍历期间不能修改页表)
+     */
+    void forEach(Consumer<PageFrame> action) {
+        for (PageFrame value : values) {
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * 向后移位删除
+     *
+     * 删除slot后,把后面探测链上"本该在slot或更前面"的元素往前挪,
+     * 保证所有元素仍能从自己的理想位置线性探测到。
+     */
+    private void shiftBack(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+
+        while (values[next] != null) {
+            int ideal = slotOf(keys[next]);
+            // next的探测路径(ideal → next)是否经过hole
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        values[hole] = null;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        PageFrame[] oldValues = values;
+
+        keys = new long[newCapacity];
+        values = new PageFrame[newCapacity];
+        mask = newCapacity - 1;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 页键的理想槽位
+     *
+     * 同一个文件的连续页号只差低位,先乘黄金比例常数打散再取高位。
+     */
+    private int slotOf(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(n - 1) << 1;
+        return Math.max(capacity, MIN_CAPACITY);
+    }
+}
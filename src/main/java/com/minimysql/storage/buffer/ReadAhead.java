@@ -0,0 +1,221 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * ReadAhead - 预读
+ *
+ * 在后台线程里把"马上要读"的页提前放进缓冲池,扫描时前台线程很少等磁盘。
+ * 对应InnoDB的线性预读(innodb_read_ahead_threshold)。
+ *
+ * 两种触发方式:
+ * 1. 线性预读:同一个文件连续访问了threshold个相邻页,异步读入后面window个页
+ * 2. 链式预读:调用方给出起始页和"下一页"函数(B+树叶子的nextLeafPageId),
+ *    沿着链表异步读入window个页
+ *
+ * 预读的页和普通缺页一样插入替换策略(中点插入LRU下进old段),
+ * 被访问前带着prefetched标记,用来统计预读命中和浪费。
+ *
+ * 规则:
+ * - 预读只是建议:队列满了直接丢弃,读失败只记日志
+ * - 只读磁盘上已有的页,不为文件末尾之外的页创建空页(否则newPage会冲突)
+ * - 顺序检测用固定大小的槽位数组,按文件哈希,冲突时覆盖,不装箱、不分配
+ *
+ * "实用主义": 一个后台线程顺序读,不做InnoDB的随机预读(random read-ahead)
+ */
+class ReadAhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAhead.class);
+
+    /** 顺序检测的槽位数(2的幂) */
+    private static final int RUN_SLOTS = 64;
+
+    /** 待执行的预读任务上限,超过就丢弃 */
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final BufferPool bufferPool;
+
+    /** 每次预读的页数 */
+    private final int windowPages;
+
+    /** 连续访问多少个相邻页触发线性预读 */
+    private final int sequentialThreshold;
+
+    /** 每个文件的顺序访问状态(按文件哈希取槽位) */
+    private final SequentialRun[] runs;
+
+    /** 预读线程 */
+    private final ThreadPoolExecutor executor;
+
+    ReadAhead(BufferPool bufferPool, int windowPages, int sequentialThreshold) {
+        if (windowPages < 1) {
+            throw new IllegalArgumentException("Read-ahead window must be positive: " + windowPages);
+        }
+        if (sequentialThreshold < 2) {
+            throw new IllegalArgumentException("Read-ahead threshold must be at least 2: " + sequentialThreshold);
+        }
+
+        this.bufferPool = bufferPool;
+        this.windowPages = windowPages;
+        this.sequentialThreshold = sequentialThreshold;
+
+        this.runs = new SequentialRun[RUN_SLOTS];
+        for (int i = 0; i < RUN_SLOTS; i++) {
+            runs[i] = new SequentialRun();
+        }
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                task -> {
+                    Thread thread = new Thread(task, "read-ahead");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    int getWindowPages() {
+        return windowPages;
+    }
+
+    /**
+     * 记录一次页访问,发现顺序访问时提交线性预读
+     *
+     * 预读提前量保持在半个窗口以上:消费到窗口中间时读入下一段。
+     */
+    void onAccess(int id, int pageId, boolean isTableData) {
+        long fileKey = BufferPool.cacheKey(id, 0, isTableData);
+        SequentialRun run = runs[slotOf(fileKey)];
+
+        int from;
+        int to;
+        synchronized (run) {
+            if (run.fileKey != fileKey) {
+                run.reset(fileKey, pageId);
+                return;
+            }
+            if (pageId == run.lastPageId) {
+                return;
+            }
+
+            if (pageId == run.lastPageId + 1) {
+                run.runLength++;
+            } else {
+                run.runLength = 1;
+                run.prefetchedUpTo = pageId;
+            }
+            run.lastPageId = pageId;
+
+            if (run.runLength < sequentialThreshold || run.prefetchedUpTo - pageId > windowPages / 2) {
+                return;
+            }
+            from = Math.max(run.prefetchedUpTo, pageId) + 1;
+            to = pageId + windowPages;
+            run.prefetchedUpTo = to;
+        }
+
+        executor.execute(() -> prefetchRange(id, isTableData, from, to));
+    }
+
+    /**
+     * 提交链式预读
+     *
+     * @param startPageId 链表上第一个要预读的页,-1表示没有
+     * @param nextPageId 从页内容取出下一页的页号,-1表示链表结束
+     */
+    void prefetchChain(int id, boolean isTableData, int startPageId, ToIntFunction<Page> nextPageId) {
+        if (startPageId < 0) {
+            return;
+        }
+        executor.execute(() -> walkChain(id, isTableData, startPageId, nextPageId));
+    }
+
+    /**
+     * 停止预读线程,等待正在执行的任务结束,丢弃排队的任务
+     *
+     * 不用shutdownNow():中断正在FileChannel.read的预读线程会关闭整个文件共享的通道
+     * (ClosedByInterruptException),其他线程的读写都要失败重试。
+     * 排队的任务自己丢弃,正在执行的任务读完当前页就结束。
+     */
+    void shutdown() {
+        executor.shutdown();
+        executor.getQueue().clear();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void prefetchRange(int id, boolean isTableData, int from, int to) {
+        try {
+            for (int pageId = from; pageId <= to && !executor.isShutdown(); pageId++) {
+                // 读到文件末尾就停
+                if (bufferPool.prefetchPage(id, pageId, isTableData, false) == null) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Read-ahead failed: {}={}, pages {}..{}",
+                    isTableData ? "tableId" : "indexId", id, from, to, e);
+        }
+    }
+
+    private void walkChain(int id, boolean isTableData, int startPageId, ToIntFunction<Page> nextPageId) {
+        int pageId = startPageId;
+        try {
+            for (int i = 0; i < windowPages && pageId >= 0 && !executor.isShutdown(); i++) {
+                // 要读页内容:pin住,读完之前页帧不会被淘汰、堆外帧不会被复用
+                PageFrame frame = bufferPool.prefetchPage(id, pageId, isTableData, true);
+                if (frame == null) {
+                    return;
+                }
+                try {
+                    pageId = nextPageId.applyAsInt(frame.getPage());
+                } finally {
+                    frame.unpin(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Chained read-ahead failed: {}={}, pageId={}",
+                    isTableData ? "tableId" : "indexId", id, pageId, e);
+        }
+    }
+
+    private static int slotOf(long fileKey) {
+        long mixed = fileKey * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (RUN_SLOTS - 1);
+    }
+
+    /**
+     * 一个文件的顺序访问状态(用自身作为锁)
+     */
+    private static final class SequentialRun {
+
+        /** 文件键(页号为0的页键),-1表示空槽 */
+        long fileKey = -1;
+
+        /** 上次访问的页号 */
+        int lastPageId;
+
+        /** 连续相邻访问的页数 */
+        int runLength;
+
+        /** 已经提交预读的最大页号 */
+        int prefetchedUpTo;
+
+        void reset(long fileKey, int pageId) {
+            this.fileKey = fileKey;
+            this.lastPageId = pageId;
+            this.runLength = 1;
+            this.prefetchedUpTo = pageId;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.minimysql.storage.buffer;
+
+import java.util.function.Predicate;
+
+/**
+ * ReplacementPolicy - 缓冲池页替换策略
+ *
+ * 决定缓冲池分区满时淘汰哪一页。每个BufferPoolInstance持有一个独立的策略实例,
+ * 所有方法都在分区锁内调用,实现不需要自己加锁。
+ * 策略可以把自己的簿记挂在页帧上(链表节点放PageFrame.replacementState,
+ * CLOCK槽位放PageFrame.clockSlot),命中时直接从页帧拿到,不需要按页键再查一次表。
+ *
+ * 生命周期:
+ * 1. recordInsert: 页放入分区(缺页读入或新建)
+ * 2. recordAccess: 页在分区中命中
+ * 3. selectVictim: 分区满了,挑一个可淘汰的页
+ * 4. remove: 页离开分区(被淘汰或清空)
+ *
+ * 已有实现:
+ * - LruPolicy: 访问顺序链表,命中时移到链表尾部(默认)
+ * - ClockPolicy: 环形数组+引用位,命中只写一个volatile字段(仍在分区锁内)
+ * - MidpointLruPolicy: InnoDB风格的young/old两段LRU,抵抗全表扫描
+ *
+ * 使用模式:
+ * <pre>
+ * BufferPool pool = new BufferPool(1024, "data", 8, ReplacementPolicy.clock());
+ * </pre>
+ *
+ * "Good taste": 策略只管"顺序",缓存内容、pin、I/O全部留在分区里
+ */
+public interface ReplacementPolicy {
+
+    /**
+     * 记录页放入分区
+     *
+     * @param key 页键
+     * @param frame 页帧
+     */
+    void recordInsert(long key, PageFrame frame);
+
+    /**
+     * 记录页命中
+     *
+     * @param key 页键
+     * @param frame 页帧
+     */
+    void recordAccess(long key, PageFrame frame);
+
+    /**
+     * 移除页
+     *
+     * @param key 页键
+     * @param frame 页帧
+     */
+    void remove(long key, PageFrame frame);
+
+    /**
+     * 选择淘汰页
+     *
+     * 只选择满足条件的页(未被pin、不在I/O中),不从策略中移除。
+     *
+     * @param evictable 可淘汰条件
+     * @return 淘汰页,没有可淘汰的页返回null
+     */
+    PageFrame selectVictim(Predicate<PageFrame> evictable);
+
+    /**
+     * 清空所有页
+     */
+    void clear();
+
+    /**
+     * 把策略自己的统计项累加到快照中
+     *
+     * @param stats 统计快照
+     */
+    default void collectStats(BufferPoolStats stats) {
+    }
+
+    /**
+     * 策略工厂:按分区容量创建策略实例
+     */
+    @FunctionalInterface
+    interface Factory {
+
+        /**
+         * 创建策略实例
+         *
+         * @param capacity 分区容量(页数)
+         * @return 策略实例
+         */
+        ReplacementPolicy create(int capacity);
+    }
+
+    /**
+     * LRU策略工厂
+     */
+    static Factory lru() {
+        return capacity -> new LruPolicy();
+    }
+
+    /**
+     * CLOCK策略工厂
+     */
+    static Factory clock() {
+        return ClockPolicy::new;
+    }
+
+    /**
+     * 中点插入LRU策略工厂(默认参数:old段37%,提升窗口1000ms)
+     */
+    static Factory midpointLru() {
+        return midpointLru(MidpointLruPolicy.DEFAULT_OLD_PERCENT, MidpointLruPolicy.DEFAULT_OLD_BLOCKS_TIME_MILLIS);
+    }
+
+    /**
+     * 中点插入LRU策略工厂
+     *
+     * @param oldPercent old段占比(%)
+     * @param oldBlocksTimeMillis 提升窗口(毫秒)
+     */
+    static Factory midpointLru(int oldPercent, long oldBlocksTimeMillis) {
+        return capacity -> new MidpointLruPolicy(capacity, oldPercent, oldBlocksTimeMillis);
+    }
+}
@@ -7,6 +7,7 @@ import com.minimysql.metadata.SchemaManager;
 import com.minimysql.metadata.SystemTables;
 import com.minimysql.storage.StorageEngine;
 import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.buffer.ReplacementPolicy;
 import com.minimysql.storage.index.ClusteredIndex;
 import com.minimysql.storage.index.SecondaryIndex;
 import com.minimysql.storage.page.PageManager;
@@ -15,6 +16,7 @@ import com.minimysql.storage.table.Row;
 import com.minimysql.storage.table.Table;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -97,6 +99,24 @@ public class InnoDBStorageEngine implements StorageEngine {
     /** 默认数据目录 */
     private static final String DEFAULT_DATA_DIR = "data";
 
+    /** 后台刷脏低水位:脏页超过10%开始刷(对应innodb_max_dirty_pages_pct_lwm) */
+    private static final double PAGE_CLEANER_LOW_WATERMARK = 0.10;
+
+    /** 后台刷脏高水位:脏页超过90%连续刷(对应innodb_max_dirty_pages_pct) */
+    private static final double PAGE_CLEANER_HIGH_WATERMARK = 0.90;
+
+    /** 后台刷脏每批页数(对应innodb_lru_scan_depth的量级) */
+    private static final int PAGE_CLEANER_BATCH_SIZE = 100;
+
+    /** 后台刷脏周期:1秒(与InnoDB page cleaner一致) */
+    private static final long PAGE_CLEANER_INTERVAL_MILLIS = 1000;
+
+    /** 预读窗口:16页(256KB) */
+    private static final int READ_AHEAD_WINDOW_PAGES = 16;
+
+    /** 连续访问4个相邻页触发线性预读(对应innodb_read_ahead_threshold) */
+    private static final int READ_AHEAD_THRESHOLD = 4;
+
     /**
      * 创建默认大小的InnoDB引擎(1024页缓冲池)
      */
@@ -131,7 +151,42 @@ public class InnoDBStorageEngine implements StorageEngine {
      * @param dataDir 数据目录路径
      */
     public InnoDBStorageEngine(int bufferPoolSize, boolean enableMetadataPersistence, String dataDir) {
-        this.bufferPool = new BufferPool(bufferPoolSize, dataDir);
+        this(bufferPoolSize, BufferPool.DEFAULT_INSTANCES, enableMetadataPersistence, dataDir);
+    }
+
+    /**
+     * 创建InnoDB引擎（指定缓冲池分区数）
+     *
+     * 对应InnoDB的innodb_buffer_pool_instances:
+     * 缓冲池拆成多个分区,每个分区独立加锁,多线程访问不同的页时互不阻塞。
+     *
+     * @param bufferPoolSize 缓冲池大小(页数)
+     * @param bufferPoolInstances 缓冲池分区数
+     * @param enableMetadataPersistence 是否启用元数据持久化
+     * @param dataDir 数据目录路径
+     */
+    public InnoDBStorageEngine(int bufferPoolSize, int bufferPoolInstances,
+                               boolean enableMetadataPersistence, String dataDir) {
+        this(bufferPoolSize, bufferPoolInstances, ReplacementPolicy.midpointLru(),
+                enableMetadataPersistence, dataDir);
+    }
+
+    /**
+     * 创建InnoDB引擎（指定缓冲池分区数和页替换策略）
+     *
+     * 默认使用中点插入LRU(与InnoDB一致):全表扫描读入的页只进old段,
+     * 不会把主键点查的热页挤出缓冲池。
+     *
+     * @param bufferPoolSize 缓冲池大小(页数)
+     * @param bufferPoolInstances 缓冲池分区数
+     * @param replacementPolicy 页替换策略工厂
+     * @param enableMetadataPersistence 是否启用元数据持久化
+     * @param dataDir 数据目录路径
+     */
+    public InnoDBStorageEngine(int bufferPoolSize, int bufferPoolInstances,
+                               ReplacementPolicy.Factory replacementPolicy,
+                               boolean enableMetadataPersistence, String dataDir) {
+        this.bufferPool = new BufferPool(bufferPoolSize, dataDir, bufferPoolInstances, replacementPolicy);
         this.tables = new ConcurrentHashMap<>();
         this.tableIdGenerator = new AtomicInteger(0);
         this.closed = false;
@@ -150,6 +205,11 @@ public class InnoDBStorageEngine implements StorageEngine {
                 throw new RuntimeException("Failed to initialize SchemaManager", e);
             }
         }
+
+        // 元数据加载完成后再启动后台刷脏和预读,初始化失败时不会留下线程
+        this.bufferPool.startPageCleaner(PAGE_CLEANER_LOW_WATERMARK, PAGE_CLEANER_HIGH_WATERMARK,
+                PAGE_CLEANER_BATCH_SIZE, PAGE_CLEANER_INTERVAL_MILLIS);
+        this.bufferPool.enableReadAhead(READ_AHEAD_WINDOW_PAGES, READ_AHEAD_THRESHOLD);
     }
 
     /**
@@ -328,16 +388,18 @@ public class InnoDBStorageEngine implements StorageEngine {
      * 创建索引
      *
      * 在已存在的表上创建二级索引。
-     * 遍历表的所有数据，为每一行插入索引条目。
+     * 遍历表的所有数据，排序后批量构建索引(见SecondaryIndex.bulkLoad)。
      *
      * @param tableName 表名
      * @param indexName 索引名称
      * @param columnName 索引列名
      * @param unique 是否为唯一索引
-     * @throws IllegalArgumentException 表不存在、列不存在、索引已存在
+     * @param includeColumns INCLUDE列名,为空时创建普通二级索引
+     * @throws IllegalArgumentException 表不存在、列不存在、索引已存在、INCLUDE列重复
      */
     @Override
-    public void createIndex(String tableName, String indexName, String columnName, boolean unique) {
+    public void createIndex(String tableName, String indexName, String columnName, boolean unique,
+                            List<String> includeColumns) {
         checkEngineClosed();
 
         // 参数校验
@@ -397,32 +459,42 @@ public class InnoDBStorageEngine implements StorageEngine {
                 columnName,
                 primaryKeyIndex,
                 unique,
+                includeColumns == null ? List.of() : includeColumns,
                 clusteredIndex,
                 bufferPool,
                 indexPageManager
         );
 
+        // 为现有数据构建索引:全表扫描收集(索引列值, 主键),排序后自底向上批量写入
+        // 构建成功后才加入表,唯一索引有重复值时表上不会留下半个索引
+        secondaryIndex.bulkLoad(table.fullTableScanLazy(), columnIndex);
+
         // 添加到表
         table.addSecondaryIndex(indexName, secondaryIndex);
+    }
 
-        // 为现有数据构建索引
-        // 遍历聚簇索引的所有行,插入到二级索引
-        List<Row> allRows = table.fullTableScan();
-
-        for (Row row : allRows) {
-            // 获取索引列的值
-            Column indexColumn = table.getColumn(columnName);
-            if (indexColumn != null) {
-                int indexColumnIndex = table.getColumns().indexOf(indexColumn);
-                Object indexColumnValue = row.getValue(indexColumnIndex);
-
-                // 获取主键值(用于回表)
-                Object primaryKeyValue = row.getValue(primaryKeyIndex);
+    /**
+     * 批量导入行(LOAD DATA)
+     *
+     * 表必须为空。聚簇索引按主键排序后自底向上构建,
+     * 已有的二级索引再从聚簇索引批量构建,都不经过逐行插入。
+     *
+     * @param tableName 表名
+     * @param rows 要导入的行,顺序任意
+     * @return 导入的行数
+     * @throws IllegalArgumentException 表不存在、行不符合表定义、主键或唯一索引重复
+     * @throws IllegalStateException 表不为空
+     */
+    @Override
+    public long loadRows(String tableName, Iterator<Row> rows) {
+        checkEngineClosed();
 
-                // 插入到二级索引
-                secondaryIndex.insertEntry(indexColumnValue, primaryKeyValue);
-            }
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
         }
+
+        return table.loadRows(rows);
     }
 
     /**
@@ -611,7 +683,7 @@ public class InnoDBStorageEngine implements StorageEngine {
      *
      * 设计原则:
      * - 关闭所有表
-     * - 刷新所有脏页到磁盘
+     * - 刷新所有脏页到磁盘,关闭数据文件
      * - 清空表映射(释放内存)
      * - 关闭SchemaManager(如果启用)
      * - 标记引擎为已关闭
@@ -632,9 +704,9 @@ public class InnoDBStorageEngine implements StorageEngine {
             }
         }
 
-        // 刷新所有脏页到磁盘
+        // 停止预读和后台刷脏线程,刷新所有脏页到磁盘并关闭数据文件
         try {
-            bufferPool.flushAllPages();
+            bufferPool.close();
         } catch (Exception e) {
             logger.error("刷新缓冲池时出错", e);
         }
@@ -720,6 +792,7 @@ public class InnoDBStorageEngine implements StorageEngine {
     public String toString() {
         return "InnoDBStorageEngine{" +
                 "bufferPoolSize=" + bufferPool.getPoolSize() +
+                ", bufferPoolInstances=" + bufferPool.getInstanceCount() +
                 ", tableCount=" + tables.size() +
                 ", nextTableId=" + tableIdGenerator.get() +
                 ", closed=" + closed +
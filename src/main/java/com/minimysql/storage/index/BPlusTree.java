@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * BPlusTree - B+树索引
@@ -30,6 +31,8 @@ import java.util.List;
  * - 每个索引有独立的PageManager
  * - pageId=0保留给根节点
  * - 树的高度自动调整(插入分裂,删除合并)
+ * - 键是KeyEncoder编码的字节串(memcomparable):字节序就是列值的顺序,
+ *   范围查询对所有列类型和组合键都正确,不再有哈希冲突
  *
  * B+树 vs B树:
  * - B+树所有数据在叶子节点 → 范围查询快
@@ -49,6 +52,23 @@ import java.util.List;
  * 3. ✅ B+树删除（节点合并、借位、根节点降级）
  * 4. ✅ 树高度自动计算和持久化
  * 5. ✅ 根节点分裂修复（避免循环引用）
+ * 6. ✅ 分裂/合并沿下降路径向上传播(不再从根重新查找父节点)
+ * 7. ✅ 并发访问:页锁(latch)逐层交接(latch crabbing)
+ * 8. ✅ 键压缩:分隔键后缀截断,叶子公共前缀只存一次(统计见getStats)
+ * 9. ✅ 游标(openCursor):双向移动、包含/不包含的边界,两次移动之间只pin住一个叶子
+ * 10. ✅ 原地更新(updateKey):键不变、叶子放得下新值时直接覆盖,不删除再插入
+ *
+ * 并发控制(对应InnoDB的btr_cur_search_to_nth_level + BTR_MODIFY_LEAF/BTR_MODIFY_TREE):
+ * - 查询:从根向下,先锁子节点(共享)再放父节点,同一时刻最多持有两个页锁
+ * - 插入/删除先乐观:内部节点加共享锁,只有叶子加独占锁;
+ *   叶子放得下(不分裂)/不会下溢时直接修改,绝大多数操作只独占一个叶子
+ * - 乐观失败才悲观:从根开始加独占锁,遇到"安全"的节点(不会分裂/合并到它为止)
+ *   就释放它上面的所有节点,分裂和合并只锁住真正要修改的那一段路径
+ * - 加锁顺序:从上到下、从左到右;向左锁兄弟节点只尝试不等待,拿不到就不向左借位/合并
+ * - 叶子链表扫描:先锁下一个叶子再放当前叶子;惰性迭代器在两次取数之间不持有锁,
+ *   按最后返回的键重新下降继续
+ * - 点查先走乐观读(Optimistic Lock Coupling):不加任何页锁,每读完一页校验版本号,
+ *   冲突时重来,连续冲突几次后退回加共享锁的下降;读多写少时点查之间不会争抢根节点的锁
  *
  * 待优化功能（性能优化，非功能缺陷）:
  * 1. ⚠️ B+树递归插入需要处理节点分裂时的valueType传递
@@ -75,10 +95,25 @@ public abstract class BPlusTree implements Index {
     private final PageManager pageManager;
 
     /** 根节点pageId(固定为0) */
-    private static final int ROOT_PAGE_ID = 0;
+    static final int ROOT_PAGE_ID = 0;
+
+    /** 最小的键(空字节串排在所有编码后的键前面),全量扫描从这里开始 */
+    private static final byte[] MIN_KEY = new byte[0];
+
+    /** 乐观点查连续冲突这么多次后退回加锁下降 */
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 4;
+
+    /** 乐观读冲突的标记(与查找结果null区分) */
+    private static final Object RETRY = new Object();
 
-    /** 树高度 */
-    private int height;
+    /** 树高度(只在持有根节点独占锁时修改,持有根节点的锁时读到的值是稳定的) */
+    private volatile int height;
+
+    /** 读取节点的次数(每访问一个节点页计一次),用于观察一次操作访问了多少个节点 */
+    private final LongAdder nodeReads = new LongAdder();
+
+    /** 乐观点查因版本冲突重来的次数 */
+    private final LongAdder optimisticRetries = new LongAdder();
 
     /**
      * 获取表ID（仅对聚簇索引有效）
@@ -179,195 +214,353 @@ public abstract class BPlusTree implements Index {
     }
 
     /**
-     * 查找键
+     * 将列值编码为索引键
+     *
+     * 默认按Java类型推断列类型;知道列定义的子类重写此方法,按列类型编码
+     * (例如BIGINT列上用Integer查询时也按8字节编码)。
      *
-     * 从根节点开始,递归查找键。
+     * @param value 列值(byte[]视为已编码的键)
+     * @return 编码后的键
+     */
+    protected byte[] encodeKey(Object value) {
+        return KeyEncoder.encode(value);
+    }
+
+    /**
+     * 查找键
      *
-     * @param key 键值(INT类型的哈希码)
+     * @param key 键值
      * @return 找到的值,不存在返回null
      */
     @Override
     public Object search(Object key) {
-        return searchInt(((Number) key).intValue());
+        return searchKey(encodeKey(key));
     }
 
     /**
      * 查找键(int版本)
      *
-     * 内部使用的优化版本，避免类型转换。
-     *
-     * @param key 键值(INT类型的哈希码)
+     * @param key 键值
      * @return 找到的值,不存在返回null
      */
     public Object searchInt(int key) {
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-        return search(root, key);
+        return searchKey(KeyEncoder.encodeInt(key));
     }
 
     /**
-     * 递归查找键
+     * 查找编码后的键
      *
-     * @param node 当前节点
-     * @param key 键值
+     * 先乐观地不加锁下降(searchOptimistic),连续冲突OPTIMISTIC_READ_ATTEMPTS次后
+     * 退回加共享锁的下降(searchKeyLatched),写者很多时也不会饿死。
+     *
+     * @param key 编码后的键
      * @return 找到的值,不存在返回null
      */
-    private Object search(BPlusTreeNode node, int key) {
-        if (node.isLeaf()) {
-            // 叶子节点:在键数组中查找
-            int pos = node.findKeyPosition(key);
+    public Object searchKey(byte[] key) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            Object result = searchOptimistic(key);
+            if (result != RETRY) {
+                return result;
+            }
+            optimisticRetries.increment();
+        }
+        return searchKeyLatched(key);
+    }
+
+    /**
+     * 乐观点查:不加页锁,靠版本号校验
+     *
+     * 每一层:读版本号 → 在页上查找 → 校验版本号;下降到子节点时先读子节点的版本号,
+     * 再校验一次父节点(父节点没变,子节点的页号就还有效,页没有被合并释放)。
+     * 写者在修改期间持有独占锁,版本号为奇数,读者直接重来。
+     *
+     * 读到的页内容可能是写了一半的(二分查找越界、长度是负数),
+     * 这种异常和版本冲突一样当作重来,不会返回错误的结果:返回前一定校验过版本号。
+     *
+     * @return 找到的值/null,冲突时返回RETRY
+     */
+    private Object searchOptimistic(byte[] key) {
+        PageFrame frame = readNodePage(ROOT_PAGE_ID);
+        try {
+            long version = frame.readVersion();
+            while (true) {
+                IndexPage page = nodePageOf(frame.getPage());
+                if (page == null || page.isLeafNode()) {
+                    Object result = null;
+                    if (page != null) {
+                        int pos = page.findKeyPosition(key);
+                        if (pos < page.getKeyCount() && page.compareKeyAt(pos, key) == 0) {
+                            result = page.valueAt(pos);
+                        }
+                    }
+                    return frame.validateVersion(version) ? result : RETRY;
+                }
+
+                int childPageId = page.childAt(page.findChildIndex(key));
+                if (!frame.validateVersion(version)) {
+                    return RETRY;
+                }
+
+                PageFrame child = readNodePage(childPageId);
+                long childVersion = child.readVersion();
+                if (!frame.validateVersion(version)) {
+                    child.unpin(false);
+                    return RETRY;
+                }
+                frame.unpin(false);
+                frame = child;
+                version = childVersion;
+            }
+        } catch (RuntimeException e) {
+            return RETRY; // 读到了写了一半的页
+        } finally {
+            frame.unpin(false);
+        }
+    }
 
-            if (pos < node.getKeyCount() && node.getKey(pos) == key) {
-                return node.getValue(pos);
+    /**
+     * 加锁点查
+     *
+     * 从根到叶每一层pin住页并加共享锁(逐层交接),直接在页内容上二分查找,
+     * 不反序列化节点,只为找到的值分配一个结果对象。
+     *
+     * @param key 编码后的键
+     * @return 找到的值,不存在返回null
+     */
+    Object searchKeyLatched(byte[] key) {
+        LatchedLeaf leaf = latchLeaf(key, false, false);
+        try {
+            IndexPage page = nodePageOf(leaf.frame.getPage());
+            if (page == null) {
+                return null; // 空树
             }
 
+            int pos = page.findKeyPosition(key);
+            if (pos < page.getKeyCount() && page.compareKeyAt(pos, key) == 0) {
+                return page.valueAt(pos);
+            }
             return null; // 未找到
-        } else {
-            // 内部节点:找到子节点,递归查找
-            int pos = node.findKeyPosition(key);
-            int childPageId = node.getChild(pos);
-            BPlusTreeNode child = loadNode(childPageId);
-            return search(child, key);
+        } finally {
+            releaseNodePage(leaf.frame, false);
         }
     }
 
     /**
-     * 分裂叶子节点
+     * 页上的B+树节点视图
      *
-     * @param node 叶子节点
+     * 聚簇索引的空页可能还是DataPage:只包装页内容(只读,不复制),不替换页帧里的页。
+     *
+     * @return 索引页,页上没有B+树节点时返回null
      */
-    private void splitLeafNode(BPlusTreeNode node) {
-        BPlusTreeNode.SplitResult splitResult = node.split();
+    private static IndexPage nodePageOf(Page page) {
+        IndexPage indexPage = page instanceof IndexPage
+                ? (IndexPage) page
+                : IndexPage.wrap(page.getBuffer());
+        return indexPage.hasNode() ? indexPage : null;
+    }
 
-        // 如果是根节点(pageId=0),需要创建新根
-        if (node.getPageId() == ROOT_PAGE_ID) {
-            // 1. 为原根节点分配新的pageId（因为pageId=0要留给新根）
-            int oldRootPageId = pageManager.allocatePage();
-            node.setPageId(oldRootPageId);
-            saveNode(node); // 保存原根节点到新的pageId
+    /**
+     * 下降路径:从根到叶子经过的每个内部节点,以及在它里面选择的子节点下标
+     *
+     * 悲观插入/删除在下降时顺便记录,分裂和合并向上传播时直接取出父节点和子节点的位置,
+     * 不再从根重新查找父节点:一次分裂只访问O(height)个节点。
+     * 对应InnoDB的btr_cur_t在btr_cur_search_to_nth_level中记录的每层位置。
+     *
+     * 路径上的节点都pin住并持有独占锁;下降到安全的节点时release()释放它上面的节点,
+     * 分裂/合并传播不会越过安全的节点,所以用到的父节点一定还锁着。
+     */
+    private static final class TreePath {
+        private int[] pageIds = new int[8];
+        private int[] slots = new int[8];
+        private PageFrame[] frames = new PageFrame[8];
 
-            // 2. 为分裂出的新节点分配pageId
-            int newChildPageId = pageManager.allocatePage();
-            splitResult.newNode.setPageId(newChildPageId);
-            saveNode(splitResult.newNode);
+        /** 传播时的当前层数(pop后减少) */
+        private int depth;
 
-            // 3. 创建新的根节点（内部节点）
-            BPlusTreeNode newRoot = new BPlusTreeNode(false);
-            newRoot.setPageId(ROOT_PAGE_ID);
+        /** 压入的层数 */
+        private int size;
 
-            // 新根的第一个子节点指向原根节点（现在pageId已改变）
-            newRoot.setChild(0, oldRootPageId);
+        /** [locked, size)范围内的页帧还持有锁 */
+        private int locked;
 
-            // 插入分裂键和新节点
-            newRoot.insertChild(splitResult.splitKey, newChildPageId);
+        void push(int pageId, int slot, PageFrame frame) {
+            if (size == pageIds.length) {
+                pageIds = java.util.Arrays.copyOf(pageIds, size * 2);
+                slots = java.util.Arrays.copyOf(slots, size * 2);
+                frames = java.util.Arrays.copyOf(frames, size * 2);
+            }
+            pageIds[size] = pageId;
+            slots[size] = slot;
+            frames[size] = frame;
+            size++;
+            depth = size;
+        }
 
-            // 更新树高度
-            height++;
-            saveNode(newRoot);
-        } else {
-            // 非根节点：需要将分裂键和新节点插入父节点
-            int newChildPageId = pageManager.allocatePage();
-            splitResult.newNode.setPageId(newChildPageId);
-            saveNode(splitResult.newNode);
+        boolean isEmpty() {
+            return depth == 0;
+        }
 
-            // 重要修复：找到父节点并将分裂键和新子节点插入
-            insertSplitKeyToParent(node.getPageId(), splitResult.splitKey, newChildPageId);
+        /** 最近一层的父节点页号 */
+        int parentPageId() {
+            return pageIds[depth - 1];
+        }
+
+        /** 最近一层的父节点页帧(持有独占锁) */
+        PageFrame parentFrame() {
+            if (depth - 1 < locked) {
+                throw new IllegalStateException("Parent page " + parentPageId() + " is no longer latched");
+            }
+            return frames[depth - 1];
+        }
+
+        /** 子节点在最近一层父节点中的下标 */
+        int childSlot() {
+            return slots[depth - 1];
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        /** 释放所有还持有的页锁 */
+        void release() {
+            for (int i = locked; i < size; i++) {
+                releaseNodePage(frames[i], true);
+                frames[i] = null;
+            }
+            locked = size;
         }
     }
 
     /**
-     * 将分裂键插入到父节点
-     *
-     * @param childPageId 子节点的pageId（用于查找父节点）
-     * @param splitKey 分裂键
-     * @param newChildPageId 新子节点的pageId
+     * 加锁下降到的叶子
      */
-    private void insertSplitKeyToParent(int childPageId, int splitKey, int newChildPageId) {
-        // 从根节点开始，查找包含childPageId的父节点
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
+    private static final class LatchedLeaf {
+        final int pageId;
+        final PageFrame frame;
 
-        if (root.isLeaf()) {
-            // 根节点是叶子节点，不应该有这种情况
-            throw new IllegalStateException("Root node is leaf, cannot find parent");
+        /** 叶子上的条目下标(只有latchLeafBefore设置) */
+        final int position;
+
+        LatchedLeaf(int pageId, PageFrame frame) {
+            this(pageId, frame, -1);
         }
 
-        findAndInsertToParent(root, childPageId, splitKey, newChildPageId);
+        LatchedLeaf(int pageId, PageFrame frame, int position) {
+            this.pageId = pageId;
+            this.frame = frame;
+            this.position = position;
+        }
     }
 
     /**
-     * 递归查找父节点并插入分裂键
+     * 从根逐层加共享锁下降到叶子,叶子按exclusive加锁
+     *
+     * 先锁子节点再放父节点(latch crabbing)。加独占锁之前要知道下一层是不是叶子:
+     * 高度只在持有根节点独占锁时修改,锁住根之后读到的高度在整个下降过程中都对;
+     * 根本身是叶子而没有加独占锁时放掉重来。
      *
-     * @param node 当前节点
-     * @param childPageId 要查找的子节点pageId
-     * @param splitKey 分裂键
-     * @param newChildPageId 新子节点的pageId
+     * @param key 编码后的键
+     * @param exclusive 叶子是否加独占锁(内部节点总是共享锁)
+     * @param lowerBound true时等于分隔键走左边(范围查询的起点),否则走右边(点查)
+     * @return 锁住的叶子,调用方用releaseNodePage释放
      */
-    private void findAndInsertToParent(BPlusTreeNode node, int childPageId, int splitKey, int newChildPageId) {
-        if (node.isLeaf()) {
-            // 不应该到达叶子节点
-            throw new IllegalStateException("Reached leaf node while searching for parent");
-        }
-
-        // 检查当前节点的子节点中是否包含childPageId
-        for (int i = 0; i <= node.getKeyCount(); i++) {
-            if (node.getChild(i) == childPageId) {
-                // 找到了！当前节点就是父节点
-                node.insertChild(splitKey, newChildPageId);
-                saveNode(node);
+    private LatchedLeaf latchLeaf(byte[] key, boolean exclusive, boolean lowerBound) {
+        while (true) {
+            boolean rootExclusive = exclusive && height == 1;
+            PageFrame frame = latchNodePage(ROOT_PAGE_ID, rootExclusive);
+            int levels = height;
+            if (rootExclusive != (exclusive && levels == 1)) {
+                releaseNodePage(frame, rootExclusive); // 读到高度之后根分裂或降级了
+                continue;
+            }
 
-                // 检查父节点是否需要分裂
-                if (node.needsSplit()) {
-                    if (node.getPageId() == ROOT_PAGE_ID) {
-                        // 根节点需要分裂
-                        splitInternalNode(node);
-                    } else {
-                        // 非根节点需要分裂，递归向上处理
-                        BPlusTreeNode.SplitResult splitResult = node.split();
-
-                        int newNodePageId = pageManager.allocatePage();
-                        splitResult.newNode.setPageId(newNodePageId);
-                        saveNode(splitResult.newNode);
-
-                        // 继续向上查找父节点
-                        insertSplitKeyToParent(node.getPageId(), splitResult.splitKey, newNodePageId);
-                    }
+            int pageId = ROOT_PAGE_ID;
+            try {
+                for (; levels > 1; levels--) {
+                    IndexPage page = nodePageOf(frame.getPage());
+                    int slot = lowerBound ? page.findKeyPosition(key) : page.findChildIndex(key);
+                    int childPageId = page.childAt(slot);
+                    PageFrame child = latchNodePage(childPageId, exclusive && levels == 2);
+                    releaseNodePage(frame, false);
+                    frame = child;
+                    pageId = childPageId;
                 }
-                return;
+            } catch (RuntimeException e) {
+                releaseNodePage(frame, exclusive && levels == 1);
+                throw e;
             }
+            return new LatchedLeaf(pageId, frame);
         }
-
-        // 当前节点不是父节点，递归查找子节点
-        // 找到应该搜索哪个子节点（基于splitKey）
-        int pos = node.findKeyPosition(splitKey);
-        int nextChildPageId = node.getChild(pos);
-        BPlusTreeNode child = loadNode(nextChildPageId);
-        findAndInsertToParent(child, childPageId, splitKey, newChildPageId);
     }
 
     /**
-     * 分裂内部节点
+     * 分裂超过一页的节点,沿下降路径向上传播
+     *
+     * 每一层:分裂节点 → 新节点分配页 → 分隔键插入路径上的父节点,
+     * 父节点也放不下时继续分裂父节点,直到根(根分裂时树长高一层)。
+     * 路径上的父节点都还持有独占锁,直接取页帧上的节点,不再读一次页。
+     *
+     * @param node 需要分裂的节点(还没有保存)
+     * @param path 下降到node时记录的路径
      */
-    private void splitInternalNode(BPlusTreeNode node) {
-        BPlusTreeNode.SplitResult splitResult = node.split();
+    private void splitUpward(BPlusTreeNode node, TreePath path) {
+        while (true) {
+            BPlusTreeNode.SplitResult splitResult = node.split();
 
-        // 创建新根节点
-        BPlusTreeNode newRoot = new BPlusTreeNode(false);
-        newRoot.setPageId(ROOT_PAGE_ID);
+            if (node.getPageId() == ROOT_PAGE_ID) {
+                growRoot(node, splitResult);
+                return;
+            }
+
+            int newPageId = pageManager.allocatePage();
+            splitResult.newNode.setPageId(newPageId);
+            if (node.isLeaf()) {
+                // 叶子链表: node → newNode → 原来的下一个叶子
+                node.setNextLeafPageId(newPageId);
+            }
+            saveNode(splitResult.newNode);
+            saveNode(node);
+
+            // 分隔键插在node的下标处,新节点在它右边
+            BPlusTreeNode parent = nodeOf(path.parentFrame(), path.parentPageId());
+            parent.insertChildAt(path.childSlot(), splitResult.splitKey, newPageId);
+            path.pop();
+
+            if (!parent.needsSplit()) {
+                saveNode(parent);
+                return;
+            }
+            node = parent;
+        }
+    }
 
-        // 旧根节点变成左子节点
+    /**
+     * 根节点分裂:树长高一层
+     *
+     * 根固定在pageId=0,所以原根搬到新页,pageId=0换成只有两个子节点的新根。
+     * 调用方持有根节点的独占锁,高度在锁内修改。
+     *
+     * @param root 已经分裂过的原根节点
+     * @param splitResult 分裂结果
+     */
+    private void growRoot(BPlusTreeNode root, BPlusTreeNode.SplitResult splitResult) {
         int oldRootPageId = pageManager.allocatePage();
-        node.setPageId(oldRootPageId);
-        saveNode(node);
+        int newPageId = pageManager.allocatePage();
 
-        // 新分裂的节点变成右子节点
-        int newRootPageId = pageManager.allocatePage();
-        splitResult.newNode.setPageId(newRootPageId);
+        root.setPageId(oldRootPageId);
+        splitResult.newNode.setPageId(newPageId);
+        if (root.isLeaf()) {
+            root.setNextLeafPageId(newPageId);
+        }
+        saveNode(root);
         saveNode(splitResult.newNode);
 
-        // 新根节点指向两个子节点
+        BPlusTreeNode newRoot = new BPlusTreeNode(false);
+        newRoot.setPageId(ROOT_PAGE_ID);
         newRoot.setChild(0, oldRootPageId);
-        newRoot.insertChild(splitResult.splitKey, newRootPageId);
+        newRoot.insertChild(splitResult.splitKey, newPageId);
 
-        // 更新树高度
         height++;
         saveNode(newRoot);
     }
@@ -380,700 +573,1291 @@ public abstract class BPlusTree implements Index {
      */
     @Override
     public void insert(Object key, Object value) {
-        insertInt(((Number) key).intValue(), value);
+        insertKey(encodeKey(key), value);
     }
 
     /**
      * 插入键值对(int版本)
      *
-     * 内部使用的优化版本，避免类型转换。
-     *
      * @param key 键值
      * @param value 值
      */
     public void insertInt(int key, Object value) {
-        // 找到应该插入的叶子节点
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-        BPlusTreeNode leaf = findLeafNode(root, key);
+        insertKey(KeyEncoder.encodeInt(key), value);
+    }
 
-        // 在叶子节点插入
-        leaf.insertKeyValue(key, value);
-        saveNode(leaf);
+    /**
+     * 插入编码后的键
+     *
+     * 先乐观插入(只独占叶子),叶子放不下时再悲观插入(独占需要分裂的路径)。
+     *
+     * @param key 编码后的键
+     * @param value 值
+     */
+    public void insertKey(byte[] key, Object value) {
+        checkEntrySize(key, value);
 
-        // 检查是否需要分裂
-        if (leaf.needsSplit()) {
-            splitLeafNode(leaf);
+        if (!insertOptimistic(key, value)) {
+            writePessimistic(key, value, false);
         }
     }
 
     /**
-     * 分裂根节点（增加树高度）
+     * 乐观插入:内部节点加共享锁下降,只独占叶子
+     *
+     * @return 插入是否完成;叶子放不下(需要分裂)时什么也不改,返回false
      */
-    private void splitRootNode() {
-        BPlusTreeNode oldRoot = loadNode(ROOT_PAGE_ID);
-
-        // 根节点不应该是叶子节点（叶子节点的分裂由splitLeafNode处理）
-        if (oldRoot.isLeaf()) {
-            return;
+    private boolean insertOptimistic(byte[] key, Object value) {
+        LatchedLeaf latched = latchLeaf(key, true, false);
+        try {
+            BPlusTreeNode leaf = nodeOf(latched.frame, latched.pageId);
+            if (!leaf.canInsert(key, value)) {
+                return false;
+            }
+            leaf.insertKeyValue(key, value);
+            saveNode(leaf);
+            return true;
+        } finally {
+            releaseNodePage(latched.frame, true);
         }
+    }
 
-        // 分裂旧根节点
-        BPlusTreeNode.SplitResult splitResult = oldRoot.split();
+    /**
+     * 悲观写入:从根开始加独占锁下降,记录路径,分裂沿路径向上传播
+     *
+     * 下降到插入一个分隔键也不会分裂的节点时,释放它上面的所有节点:
+     * 分裂最多传播到这里为止。
+     *
+     * @param replace true表示替换已有键的值(updateKey放不下时),false表示插入
+     * @return 替换时键不存在返回false(什么也不改);插入总是返回true
+     */
+    private boolean writePessimistic(byte[] key, Object value, boolean replace) {
+        TreePath path = new TreePath();
+        int pageId = ROOT_PAGE_ID;
+        PageFrame frame = latchNodePage(pageId, true);
+        try {
+            BPlusTreeNode node = nodeOf(frame, pageId);
+            while (!node.isLeaf()) {
+                if (node.isSafeForInsert()) {
+                    path.release();
+                }
+                int slot = node.findChildIndex(key);
+                path.push(pageId, slot, frame);
+                pageId = node.getChild(slot);
+                frame = null;
+                frame = latchNodePage(pageId, true);
+                node = nodeOf(frame, pageId);
+            }
 
-        // 创建新根节点
-        BPlusTreeNode newRoot = new BPlusTreeNode(false);
-        newRoot.setPageId(ROOT_PAGE_ID);
+            if (replace) {
+                int pos = node.findKeyPosition(key);
+                if (pos >= node.getKeyCount() || KeyEncoder.compare(node.getKey(pos), key) != 0) {
+                    return false; // 下降之前被其他线程删掉了
+                }
+                if (node.canReplaceValue(pos, value)) {
+                    path.release(); // 其他线程已经分裂过了
+                }
+                node.setValue(pos, value);
+            } else {
+                if (node.canInsert(key, value)) {
+                    path.release(); // 其他线程已经分裂过了
+                }
+                node.insertKeyValue(key, value);
+            }
 
-        // 旧根节点变成左子节点，分配新pageId
-        int oldRootPageId = pageManager.allocatePage();
-        oldRoot.setPageId(oldRootPageId);
-        saveNode(oldRoot);
+            // 超过一页的节点先分裂再保存
+            if (node.needsSplit()) {
+                splitUpward(node, path);
+            } else {
+                saveNode(node);
+            }
+            return true;
+        } finally {
+            if (frame != null) {
+                releaseNodePage(frame, true);
+            }
+            path.release();
+        }
+    }
 
-        // 新分裂的节点变成右子节点
-        int newRootPageId = pageManager.allocatePage();
-        splitResult.newNode.setPageId(newRootPageId);
-        saveNode(splitResult.newNode);
+    /**
+     * 原地更新键对应的值
+     *
+     * 只独占叶子:键已经在叶子里,新值放得下就直接覆盖,不会下溢也不会分裂,
+     * 其他索引条目和树结构都不变。新值放不下(记录变长而叶子已满)时走悲观路径:
+     * 从根独占下降,在叶子里替换后分裂。键始终在树里,并发的查找不会看不到这一行。
+     * 记录变短不触发合并,留到以后的删除再处理。
+     * 对应InnoDB的btr_cur_update_in_place和放不下时的btr_cur_pessimistic_update。
+     *
+     * @param key 编码后的键
+     * @param value 新值
+     * @return 键存在并已更新返回true,键不存在返回false(什么也不改)
+     */
+    public boolean updateKey(byte[] key, Object value) {
+        checkEntrySize(key, value);
 
-        // 新根节点指向两个子节点
-        newRoot.setChild(0, oldRootPageId);
-        newRoot.insertChild(splitResult.splitKey, newRootPageId);
+        LatchedLeaf latched = latchLeaf(key, true, false);
+        try {
+            BPlusTreeNode leaf = nodeOf(latched.frame, latched.pageId);
+            int pos = leaf.findKeyPosition(key);
+            if (pos >= leaf.getKeyCount() || KeyEncoder.compare(leaf.getKey(pos), key) != 0) {
+                return false;
+            }
+            if (leaf.canReplaceValue(pos, value)) {
+                leaf.setValue(pos, value);
+                saveNode(leaf);
+                return true;
+            }
+        } finally {
+            releaseNodePage(latched.frame, true);
+        }
 
-        // 更新树高度
-        height++;
-        saveNode(newRoot);
+        // 放不下:独占下降路径,替换后分裂叶子
+        return writePessimistic(key, value, true);
     }
 
     /**
-     * 找到包含键的叶子节点
-     *
-     * @param node 起始节点
-     * @param key 键值
-     * @return 叶子节点
+     * 检查条目大小:键和整个叶子条目都不能超过上限,否则分裂后也放不下一页
      */
-    private BPlusTreeNode findLeafNode(BPlusTreeNode node, int key) {
-        if (node.isLeaf()) {
-            return node;
-        } else {
-            // 内部节点:找到子节点,递归查找
-            int pos = node.findKeyPosition(key);
-            int childPageId = node.getChild(pos);
-            BPlusTreeNode child = loadNode(childPageId);
-            return findLeafNode(child, key);
+    static void checkEntrySize(byte[] key, Object value) {
+        if (key.length > BPlusTreeNode.MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Index key too long: " + key.length
+                    + " bytes, max " + BPlusTreeNode.MAX_KEY_LENGTH);
+        }
+        int valueSize = value instanceof byte[] ? 4 + ((byte[]) value).length : 4;
+        if (2 + key.length + valueSize > BPlusTreeNode.MAX_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Index entry too large: " + (2 + key.length + valueSize)
+                    + " bytes, max " + BPlusTreeNode.MAX_ENTRY_SIZE);
         }
     }
 
     /**
-     * 删除键(简化实现:暂不实现)
+     * 删除键
      *
-     * B+树删除很复杂,需要处理节点合并、借位等。
-     * 生产环境必须实现,学习项目可以先跳过。
+     * 编码后交给deleteKey:节点过少时向兄弟借位或合并,根节点空了降低树高度。
+     * 键不存在时什么也不做。
      *
      * @param key 键值
      */
     @Override
     public void delete(Object key) {
-        deleteInt(((Number) key).intValue());
+        deleteKey(encodeKey(key));
+    }
+
+    /**
+     * 删除键(int版本)
+     *
+     * @param key 键值
+     */
+    public void deleteInt(int key) {
+        deleteKey(KeyEncoder.encodeInt(key));
     }
 
     /**
      * 删除键（完整实现）
      *
      * B+树删除算法:
-     * 1. 找到包含key的叶子节点
+     * 1. 找到包含key的叶子节点,记录下降路径
      * 2. 在叶子节点中删除key
-     * 3. 如果节点过少(键数 < MIN_CHILDREN - 1):
+     * 3. 如果节点过少(不到半页,见BPlusTreeNode.MERGE_THRESHOLD),在路径上的父节点里:
      *    a. 尝试从左兄弟节点借位
      *    b. 如果左兄弟不够，尝试从右兄弟节点借位
-     *    c. 如果兄弟节点都不够，合并节点
-     * 4. 递归向上处理父节点
+     *    c. 如果兄弟节点都不够，合并节点(被合并的页还给PageManager)
+     * 4. 合并后父节点也过少时,沿路径继续向上处理
      * 5. 如果根节点空了，降低树高度
      *
-     * @param key 键值
+     * 与插入一样先乐观(只独占叶子,删除后不下溢才修改),否则悲观地锁住需要合并的路径。
+     *
+     * @param key 编码后的键
      */
-    public void deleteInt(int key) {
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-
-        // 递归删除
-        DeleteResult result = deleteInt(root, key);
-
-        // 如果根节点变空且有一个子节点，降低树高度
-        BPlusTreeNode currentRoot = loadNode(ROOT_PAGE_ID);
-        if (!currentRoot.isLeaf() && currentRoot.getKeyCount() == 0) {
-            // 根节点只有一个子节点，将该子节点提升为新的根节点
-            int childPageId = currentRoot.getChild(0);
-            BPlusTreeNode child = loadNode(childPageId);
-
-            // 将子节点的内容复制到根节点（pageId=0）
-            BPlusTreeNode newRoot = new BPlusTreeNode(child.isLeaf());
-            newRoot.setPageId(ROOT_PAGE_ID);
-
-            // 复制所有键和值/子节点
-            for (int i = 0; i < child.getKeyCount(); i++) {
-                newRoot.setKey(i, child.getKey(i));
-                newRoot.setValue(i, child.getValue(i));
-            }
-            newRoot.setKeyCount(child.getKeyCount());
-
-            if (child.isLeaf()) {
-                newRoot.setNextLeafPageId(child.getNextLeafPageId());
-            } else {
-                // 复制最后一个子节点
-                newRoot.setValue(child.getKeyCount(), child.getValue(child.getKeyCount()));
-            }
-
-            // 保存新根节点
-            saveNode(newRoot);
-
-            // 更新树高度
-            height--;
+    public void deleteKey(byte[] key) {
+        if (!deleteOptimistic(key)) {
+            deletePessimistic(key);
         }
     }
 
     /**
-     * 递归删除内部结果
+     * 乐观删除:内部节点加共享锁下降,只独占叶子
+     *
+     * @return 删除是否完成(键不存在也算完成);删除后叶子会下溢时什么也不改,返回false
      */
-    private static class DeleteResult {
-        boolean rootChanged; // 根节点是否改变
-        boolean underflow;   // 是否发生下溢（需要合并）
-
-        DeleteResult(boolean rootChanged, boolean underflow) {
-            this.rootChanged = rootChanged;
-            this.underflow = underflow;
+    private boolean deleteOptimistic(byte[] key) {
+        LatchedLeaf latched = latchLeaf(key, true, false);
+        try {
+            BPlusTreeNode leaf = nodeOf(latched.frame, latched.pageId);
+            int pos = leaf.findKeyPosition(key);
+            if (pos >= leaf.getKeyCount() || KeyEncoder.compare(leaf.getKey(pos), key) != 0) {
+                return true; // key不存在
+            }
+            if (latched.pageId != ROOT_PAGE_ID && !leaf.canLend(pos)) {
+                return false;
+            }
+            leaf.removeKeyValue(pos);
+            saveNode(leaf);
+            return true;
+        } finally {
+            releaseNodePage(latched.frame, true);
         }
     }
 
     /**
-     * 递归删除键
+     * 悲观删除:从根开始加独占锁下降,记录路径,合并沿路径向上传播
      *
-     * @param node 当前节点
-     * @param key 要删除的键
-     * @return 删除结果
+     * 下降到删掉一个分隔键也不会下溢的节点时,释放它上面的所有节点。
      */
-    private DeleteResult deleteInt(BPlusTreeNode node, int key) {
-        if (node.isLeaf()) {
-            // 叶子节点：直接删除
-            boolean deleted = node.removeKey(key);
-            if (deleted) {
-                saveNode(node);
-
-                // 检查是否下溢
-                boolean underflow = node.getKeyCount() < BPlusTreeNode.MIN_CHILDREN - 1;
-                return new DeleteResult(false, underflow);
+    private void deletePessimistic(byte[] key) {
+        TreePath path = new TreePath();
+        int pageId = ROOT_PAGE_ID;
+        PageFrame frame = latchNodePage(pageId, true);
+        try {
+            BPlusTreeNode node = nodeOf(frame, pageId);
+            while (!node.isLeaf()) {
+                if (pageId == ROOT_PAGE_ID ? node.getKeyCount() > 1 : node.isSafeForDelete()) {
+                    path.release();
+                }
+                int slot = node.findChildIndex(key);
+                path.push(pageId, slot, frame);
+                pageId = node.getChild(slot);
+                frame = null;
+                frame = latchNodePage(pageId, true);
+                node = nodeOf(frame, pageId);
             }
-            return new DeleteResult(false, false);
-        } else {
-            // 内部节点：递归到子节点
-            int childIndex = findChildIndexPath(node, key);
-            int childPageId = node.getChild(childIndex);
-            BPlusTreeNode child = loadNode(childPageId);
-
-            // 递归删除
-            DeleteResult childResult = deleteInt(child, key);
 
-            // 处理子节点的下溢
-            if (childResult.underflow) {
-                return handleUnderflow(node, childIndex);
+            int pos = node.findKeyPosition(key);
+            if (pos >= node.getKeyCount() || KeyEncoder.compare(node.getKey(pos), key) != 0) {
+                return; // key不存在
             }
-
-            return new DeleteResult(false, false);
+            if (path.isEmpty() || node.canLend(pos)) {
+                path.release(); // 根是叶子,或者其他线程已经合并过了
+                node.removeKeyValue(pos);
+                saveNode(node);
+                return;
+            }
+            node.removeKeyValue(pos);
+
+            // 向上传播:rebalance保存所有修改过的节点(包括父节点)
+            do {
+                BPlusTreeNode parent = nodeOf(path.parentFrame(), path.parentPageId());
+                rebalance(parent, path.childSlot(), node);
+                path.pop();
+                node = parent;
+            } while (!path.isEmpty() && node.needsMerge());
+
+            if (node.getPageId() == ROOT_PAGE_ID) {
+                shrinkRoot(node);
+            }
+        } finally {
+            if (frame != null) {
+                releaseNodePage(frame, true);
+            }
+            path.release();
         }
     }
 
     /**
-     * 查找子节点的路径
+     * 根节点只剩一个子节点时,把子节点提升为根(树降低一层)
      *
-     * @param node 内部节点
-     * @param key 键
-     * @return 子节点索引
+     * 调用方持有根节点的独占锁;子节点只能从根到达,锁住后搬走。
+     *
+     * @param root 根节点(已保存)
      */
-    private int findChildIndexPath(BPlusTreeNode node, int key) {
-        int keyCount = node.getKeyCount();
-
-        // 找到第一个 >= key 的键的位置
-        int i = 0;
-        while (i < keyCount && key >= node.getKey(i)) {
-            i++;
+    private void shrinkRoot(BPlusTreeNode root) {
+        while (!root.isLeaf() && root.getKeyCount() == 0) {
+            int childPageId = root.getChild(0);
+            PageFrame childFrame = latchNodePage(childPageId, true);
+            BPlusTreeNode child;
+            try {
+                child = nodeOf(childFrame, childPageId);
+
+                // 子节点的内容搬到pageId=0,原来的页还给PageManager
+                child.setPageId(ROOT_PAGE_ID);
+                saveNode(child);
+                height--;
+            } finally {
+                releaseNodePage(childFrame, true);
+            }
+            pageManager.freePage(childPageId);
+            root = child;
         }
-
-        return i;
     }
 
     /**
-     * 处理节点下溢
+     * 处理子节点下溢
      *
      * 策略:
      * 1. 尝试从左兄弟借位
      * 2. 如果左兄弟不够，从右兄弟借位
-     * 3. 如果兄弟都不够，合并节点
+     * 3. 如果兄弟都不够，合并节点;合并后放不下一页(变长键)时保持不满的状态
+     *
+     * 借位时分隔键轮换:
+     * - 叶子: 借来的条目直接移动,分隔键改为右边节点的第一个键
+     * - 内部节点: 父节点的分隔键下移到子节点,兄弟的边界键上移到父节点
+     *
+     * 所有修改过的节点(child、兄弟、父节点)在这里保存。
+     *
+     * 兄弟节点加独占锁(父节点和child已经锁住):右兄弟按从左到右的顺序等待;
+     * 左兄弟逆着顺序,只尝试加锁,被扫描叶子链表的线程占着时不向左借位/合并,避免死锁。
      *
      * @param parent 父节点
-     * @param childIndex 下溢的子节点索引
-     * @return 删除结果
+     * @param childIndex 下溢的子节点在父节点中的下标
+     * @param child 下溢的子节点(还没有保存)
+     */
+    private void rebalance(BPlusTreeNode parent, int childIndex, BPlusTreeNode child) {
+        PageFrame leftFrame = null;
+        PageFrame rightFrame = null;
+        try {
+            BPlusTreeNode left = null;
+            if (childIndex > 0) {
+                int leftPageId = parent.getChild(childIndex - 1);
+                PageFrame frame = readNodePage(leftPageId);
+                if (frame.tryLatchExclusive()) {
+                    leftFrame = frame;
+                    left = nodeOf(frame, leftPageId);
+                } else {
+                    frame.unpin(false);
+                }
+            }
+
+            BPlusTreeNode right = null;
+            if (childIndex < parent.getKeyCount()) {
+                int rightPageId = parent.getChild(childIndex + 1);
+                rightFrame = latchNodePage(rightPageId, true);
+                right = nodeOf(rightFrame, rightPageId);
+            }
+
+            rebalance(parent, childIndex, child, left, right);
+        } finally {
+            if (leftFrame != null) {
+                releaseNodePage(leftFrame, true);
+            }
+            if (rightFrame != null) {
+                releaseNodePage(rightFrame, true);
+            }
+        }
+    }
+
+    /**
+     * 借位或合并(兄弟节点已经锁住,没有锁住的兄弟为null)
      */
-    private DeleteResult handleUnderflow(BPlusTreeNode parent, int childIndex) {
-        // 尝试从左兄弟借位
-        if (childIndex > 0) {
-            int leftSiblingPageId = parent.getChild(childIndex - 1);
-            BPlusTreeNode leftSibling = loadNode(leftSiblingPageId);
+    private void rebalance(BPlusTreeNode parent, int childIndex, BPlusTreeNode child,
+                           BPlusTreeNode left, BPlusTreeNode right) {
+        // 1. 从左兄弟借最后一个条目
+        if (left != null) {
+            int last = left.getKeyCount() - 1;
+            byte[] newSeparator = child.isLeaf() && last > 0
+                    ? KeyEncoder.shortestSeparator(left.getKey(last - 1), left.getKey(last))
+                    : left.getKey(last);
+            if (left.canLend(last) && fitsWithSeparator(parent, childIndex - 1, newSeparator)) {
+                if (child.isLeaf()) {
+                    child.insertKeyValue(left.getKey(last), left.getValue(last));
+                    left.removeKeyValue(last);
+                } else {
+                    child.insertFirstChild(parent.getKey(childIndex - 1), left.getChild(last + 1));
+                    left.removeChild(last);
+                }
+                parent.setKey(childIndex - 1, newSeparator);
 
-            if (leftSibling.getKeyCount() > BPlusTreeNode.MIN_CHILDREN - 1) {
-                // 左兄弟有多余的键，可以借位
-                borrowFromLeftSibling(parent, childIndex);
-                return new DeleteResult(false, false);
+                saveNode(left);
+                saveNode(child);
+                saveNode(parent);
+                return;
             }
         }
 
-        // 尝试从右兄弟借位
-        if (childIndex < parent.getKeyCount()) {
-            int rightSiblingPageId = parent.getChild(childIndex + 1);
-            BPlusTreeNode rightSibling = loadNode(rightSiblingPageId);
+        // 2. 从右兄弟借第一个条目
+        if (right != null && right.canLend(0)) {
+            byte[] newSeparator = child.isLeaf()
+                    ? KeyEncoder.shortestSeparator(right.getKey(0), right.getKey(1))
+                    : right.getKey(0);
+            if (fitsWithSeparator(parent, childIndex, newSeparator)) {
+                if (child.isLeaf()) {
+                    child.insertKeyValue(right.getKey(0), right.getValue(0));
+                    right.removeKeyValue(0);
+                } else {
+                    child.insertChildAt(child.getKeyCount(), parent.getKey(childIndex), right.getChild(0));
+                    right.removeFirstChild();
+                }
+                parent.setKey(childIndex, newSeparator);
 
-            if (rightSibling.getKeyCount() > BPlusTreeNode.MIN_CHILDREN - 1) {
-                // 右兄弟有多余的键，可以借位
-                borrowFromRightSibling(parent, childIndex);
-                return new DeleteResult(false, false);
+                saveNode(right);
+                saveNode(child);
+                saveNode(parent);
+                return;
             }
         }
 
-        // 兄弟节点都不够，需要合并
-        if (childIndex > 0) {
-            // 与左兄弟合并
-            mergeWithLeftSibling(parent, childIndex - 1);
+        // 3. 合并到左边的节点
+        if (left != null && left.canMerge(child, parent.getKey(childIndex - 1))) {
+            mergeNodes(parent, childIndex - 1, left, child);
+        } else if (right != null && child.canMerge(right, parent.getKey(childIndex))) {
+            mergeNodes(parent, childIndex, child, right);
         } else {
-            // 与右兄弟合并
-            mergeWithRightSibling(parent, childIndex);
+            saveNode(child);
         }
-
-        // 检查父节点是否也下溢
-        boolean parentUnderflow = parent.getKeyCount() < BPlusTreeNode.MIN_CHILDREN - 1;
-        return new DeleteResult(false, parentUnderflow);
     }
 
     /**
-     * 从左兄弟借位
+     * 把right合并到left,从父节点删除它们之间的分隔键,right的页还给PageManager
      *
-     * 策略:
-     * 1. 将左兄弟的最大键移动到父节点
-     * 2. 将父节点的分隔键移动到当前节点
+     * right只能经过父节点和left到达,两者都锁住了,释放之后不会再有线程访问它。
      *
      * @param parent 父节点
-     * @param childIndex 当前子节点索引
+     * @param separatorIndex left和right之间的分隔键下标
+     * @param left 左节点
+     * @param right 右节点
      */
-    private void borrowFromLeftSibling(BPlusTreeNode parent, int childIndex) {
-        int childPageId = parent.getChild(childIndex);
-        int leftSiblingPageId = parent.getChild(childIndex - 1);
-
-        BPlusTreeNode child = loadNode(childPageId);
-        BPlusTreeNode leftSibling = loadNode(leftSiblingPageId);
-
-        if (child.isLeaf()) {
-            // 叶子节点借位
-            // 1. 从左兄弟借最后一个键值对
-            int borrowedKey = leftSibling.getKey(leftSibling.getKeyCount() - 1);
-            Object borrowedValue = leftSibling.getValue(leftSibling.getKeyCount() - 1);
-            leftSibling.removeKeyValue(leftSibling.getKeyCount() - 1);
-
-            // 2. 更新父节点的分隔键
-            int parentSeparatorIndex = childIndex - 1;
-            int oldSeparator = parent.getKey(parentSeparatorIndex);
-            parent.setKey(parentSeparatorIndex, borrowedKey);
-
-            // 3. 将旧的分隔键和借来的值插入当前节点
-            child.insertKeyValue(oldSeparator, borrowedValue);
-
-            // 4. 更新叶子节点的链表（不需要，因为节点顺序不变）
+    private void mergeNodes(BPlusTreeNode parent, int separatorIndex, BPlusTreeNode left, BPlusTreeNode right) {
+        if (left.isLeaf()) {
+            // 叶子合并:条目直接追加(B+树叶子节点不存储父节点的分隔键)
+            for (int i = 0; i < right.getKeyCount(); i++) {
+                left.insertKeyValue(right.getKey(i), right.getValue(i));
+            }
+            left.setNextLeafPageId(right.getNextLeafPageId());
         } else {
-            // 内部节点借位
-            // 1. 从左兄弟借最后一个键和最后一个子节点
-            int borrowedKey = leftSibling.getKey(leftSibling.getKeyCount() - 1);
-            // 最后一个子节点在 index = keyCount（因为子节点数 = keyCount + 1）
-            int borrowedChild = leftSibling.getChild(leftSibling.getKeyCount());
-
-            // 删除左兄弟的最后一个键
-            leftSibling.removeKeyValue(leftSibling.getKeyCount() - 1);
-            // 注意：删除键后，keyCount减少，但子节点指针数量也相应减少，不需要额外删除子节点
-
-            // 2. 更新父节点的分隔键
-            int parentSeparatorIndex = childIndex - 1;
-            int oldSeparator = parent.getKey(parentSeparatorIndex);
-            parent.setKey(parentSeparatorIndex, borrowedKey);
-
-            // 3. 将旧的分隔键作为新键插入当前节点，借来的子节点作为第一个子节点
-            child.insertChild(oldSeparator, borrowedChild);
+            // 内部节点合并:分隔键下移,连接两边的子节点
+            left.insertChildAt(left.getKeyCount(), parent.getKey(separatorIndex), right.getChild(0));
+            for (int i = 0; i < right.getKeyCount(); i++) {
+                left.insertChildAt(left.getKeyCount(), right.getKey(i), right.getChild(i + 1));
+            }
         }
 
-        // 保存修改
-        saveNode(leftSibling);
-        saveNode(child);
+        parent.removeChild(separatorIndex);
+
+        saveNode(left);
         saveNode(parent);
+        pageManager.freePage(right.getPageId());
     }
 
     /**
-     * 从右兄弟借位
-     *
-     * 策略:
-     * 1. 将右兄弟的最小键移动到父节点
-     * 2. 将父节点的分隔键移动到当前节点
+     * 父节点的分隔键换成newKey后是否还放得下一页
      *
-     * @param parent 父节点
-     * @param childIndex 当前子节点索引
+     * 借位会轮换分隔键,变长键可能比原来的长。
      */
-    private void borrowFromRightSibling(BPlusTreeNode parent, int childIndex) {
-        int childPageId = parent.getChild(childIndex);
-        int rightSiblingPageId = parent.getChild(childIndex + 1);
-
-        BPlusTreeNode child = loadNode(childPageId);
-        BPlusTreeNode rightSibling = loadNode(rightSiblingPageId);
-
-        if (child.isLeaf()) {
-            // 叶子节点借位
-            // 1. 从右兄弟借第一个键值对
-            int borrowedKey = rightSibling.getKey(0);
-            Object borrowedValue = rightSibling.getValue(0);
-            rightSibling.removeKeyValue(0);
-
-            // 2. 更新父节点的分隔键
-            int parentSeparatorIndex = childIndex;
-            int oldSeparator = parent.getKey(parentSeparatorIndex);
-            parent.setKey(parentSeparatorIndex, borrowedKey);
-
-            // 3. 将旧的分隔键和借来的值插入当前节点
-            child.insertKeyValue(oldSeparator, borrowedValue);
+    private static boolean fitsWithSeparator(BPlusTreeNode parent, int separatorIndex, byte[] newKey) {
+        int size = parent.getByteSize() - parent.getKey(separatorIndex).length + newKey.length;
+        return size <= BPlusTreeNode.MAX_NODE_SIZE;
+    }
 
-            // 4. 更新叶子节点的链表（不需要，因为节点顺序不变）
-        } else {
-            // 内部节点借位
-            // 1. 从右兄弟借第一个键和第一个子节点
-            int borrowedKey = rightSibling.getKey(0);
-            int borrowedChild = rightSibling.getChild(0);
-
-            // 删除右兄弟的第一个键
-            rightSibling.removeKeyValue(0);
-            // 删除右兄弟的第一个子节点（需要手动移动子节点指针）
-            for (int i = 0; i < rightSibling.getKeyCount(); i++) {
-                rightSibling.setChild(i, rightSibling.getChild(i + 1));
-            }
-
-            // 2. 更新父节点的分隔键
-            int parentSeparatorIndex = childIndex;
-            int oldSeparator = parent.getKey(parentSeparatorIndex);
-            parent.setKey(parentSeparatorIndex, borrowedKey);
+    /**
+     * 范围查询
+     *
+     * 利用叶子节点链表,支持范围查询。
+     * 这是B+树相比B树的核心优势。
+     *
+     * @param startKey 起始键(包含)
+     * @param endKey 结束键(包含)
+     * @return 键值对列表
+     */
+    @Override
+    public List<Object> rangeSearch(Object startKey, Object endKey) {
+        return rangeSearchKeys(encodeKey(startKey), encodeKey(endKey));
+    }
 
-            // 3. 将旧的分隔键作为新键插入当前节点，借来的子节点作为新子节点
-            child.insertChild(oldSeparator, borrowedChild);
-        }
+    /**
+     * 获取所有记录
+     *
+     * 遍历所有叶子节点，返回所有值。
+     * 用于全表扫描操作。
+     *
+     * @return 所有值的列表
+     */
+    public List<Object> getAll() {
+        List<Object> results = scanLeaves(MIN_KEY, null, Integer.MAX_VALUE);
+        logger.debug("getAll() 完成 - 收集{}条记录", results.size());
+        return results;
+    }
 
-        // 保存修改
-        saveNode(rightSibling);
-        saveNode(child);
-        saveNode(parent);
+    /**
+     * 获取所有记录的惰性迭代器
+     *
+     * 按需遍历所有叶子节点，不一次性加载所有数据到内存。
+     * 用于全表扫描操作，特别是大表场景。
+     *
+     * 每次取出一个叶子上的条目,两次取数之间不持有任何页锁:
+     * 叶子可能已经被分裂或合并,下一次按最后返回的键重新从根下降。
+     *
+     * @return 所有值的惰性迭代器
+     */
+    public java.util.Iterator<Object> getAllLazy() {
+        return new LeafChainIterator();
     }
 
     /**
-     * 与左兄弟合并
+     * 按键顺序遍历叶子链表的惰性迭代器
      *
-     * @param parent 父节点
-     * @param leftSiblingIndex 左兄弟索引
+     * 缓存一个叶子的条目;用完后从"最后返回的键"继续:下降到它所在的叶子,
+     * 跳过比它小的键和已经返回过的相同键,取下一个叶子上剩下的条目。
+     * 对应InnoDB的持久游标(btr_pcur_store_position/restore_position)。
      */
-    private void mergeWithLeftSibling(BPlusTreeNode parent, int leftSiblingIndex) {
-        int leftSiblingPageId = parent.getChild(leftSiblingIndex);
-        int childPageId = parent.getChild(leftSiblingIndex + 1);
+    private final class LeafChainIterator implements java.util.Iterator<Object> {
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+        private int position;
 
-        BPlusTreeNode leftSibling = loadNode(leftSiblingPageId);
-        BPlusTreeNode child = loadNode(childPageId);
+        /** 最后返回的键,null表示还没有返回过 */
+        private byte[] lastKey;
+
+        /** 已经返回的等于lastKey的条目数(重复键可能跨越叶子) */
+        private int lastKeyCount;
+
+        private boolean exhausted;
 
-        // 将父节点的分隔键下推到左兄弟
-        int separatorKey = parent.getKey(leftSiblingIndex);
+        private final LeafReadAhead readAhead = new LeafReadAhead();
 
-        if (child.isLeaf()) {
-            // 叶子节点合并
-            // 1. 将child的所有键值对移动到左兄弟（不包括分隔键，B+树叶子节点不存储父节点的分隔键）
-            for (int i = 0; i < child.getKeyCount(); i++) {
-                leftSibling.insertKeyValue(child.getKey(i), child.getValue(i));
+        @Override
+        public boolean hasNext() {
+            if (position < keys.size()) {
+                return true;
             }
+            if (!exhausted) {
+                refill();
+            }
+            return position < keys.size();
+        }
 
-            // 2. 更新左兄弟的nextLeaf指针
-            leftSibling.setNextLeafPageId(child.getNextLeafPageId());
-        } else {
-            // 内部节点合并
-            // 1. 将分隔键插入左兄弟（作为分隔键，不是键值对）
-            leftSibling.insertKeyValue(separatorKey, child.getChild(0));
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new java.util.NoSuchElementException("No more elements in BPlusTree");
+            }
 
-            // 2. 将child的所有键和子节点移动到左兄弟
-            for (int i = 0; i < child.getKeyCount(); i++) {
-                leftSibling.insertKeyValue(child.getKey(i), child.getChild(i + 1));
+            byte[] key = keys.get(position);
+            if (lastKey != null && KeyEncoder.compare(key, lastKey) == 0) {
+                lastKeyCount++;
+            } else {
+                lastKey = key;
+                lastKeyCount = 1;
             }
+            return values.get(position++);
         }
 
-        // 3. 从父节点删除分隔键和child指针
-        parent.removeKeyValue(leftSiblingIndex);
-        parent.removeChild(leftSiblingIndex + 1);
+        private void refill() {
+            keys.clear();
+            values.clear();
+            position = 0;
+
+            byte[] from = lastKey != null ? lastKey : MIN_KEY;
+            int skip = lastKey != null ? lastKeyCount : 0;
+
+            LatchedLeaf latched = latchLeaf(from, false, true);
+            PageFrame frame = latched.frame;
+            int pageId = latched.pageId;
+            try {
+                while (true) {
+                    BPlusTreeNode leaf = nodeOf(frame, pageId);
+                    for (int i = 0; i < leaf.getKeyCount(); i++) {
+                        byte[] key = leaf.getKey(i);
+                        if (lastKey != null) {
+                            int cmp = KeyEncoder.compare(key, lastKey);
+                            if (cmp < 0 || (cmp == 0 && skip-- > 0)) {
+                                continue;
+                            }
+                        }
+                        keys.add(key);
+                        values.add(leaf.getValue(i));
+                    }
 
-        // 4. 保存修改
-        saveNode(leftSibling);
-        saveNode(parent);
+                    int nextLeafPageId = leaf.getNextLeafPageId();
+                    if (nextLeafPageId == -1) {
+                        exhausted = true;
+                        return;
+                    }
+                    if (!keys.isEmpty()) {
+                        readAhead.onLeaf(leaf);
+                        return;
+                    }
 
-        // 注意：child节点现在是孤立的，可以回收（简化实现暂不处理）
+                    PageFrame next = latchNodePage(nextLeafPageId, false);
+                    releaseNodePage(frame, false);
+                    frame = next;
+                    pageId = nextLeafPageId;
+                }
+            } finally {
+                releaseNodePage(frame, false);
+            }
+        }
     }
 
     /**
-     * 与右兄弟合并
+     * 打开范围[lower, upper]上的游标
      *
-     * @param parent 父节点
-     * @param childIndex 当前子节点索引
+     * 游标创建后还没有定位,先调用seekToFirst/seekToLast/seek。
+     * 边界按前缀比较,见IndexCursor。
+     *
+     * @param lower 下界(编码后的键),null表示不限
+     * @param lowerInclusive 是否包含下界
+     * @param upper 上界(编码后的键),null表示不限
+     * @param upperInclusive 是否包含上界
+     * @return 游标,用完必须close
      */
-    private void mergeWithRightSibling(BPlusTreeNode parent, int childIndex) {
-        int childPageId = parent.getChild(childIndex);
-        int rightSiblingPageId = parent.getChild(childIndex + 1);
-
-        BPlusTreeNode child = loadNode(childPageId);
-        BPlusTreeNode rightSibling = loadNode(rightSiblingPageId);
-
-        // 将父节点的分隔键下推到child
-        int separatorKey = parent.getKey(childIndex);
-
-        if (child.isLeaf()) {
-            // 叶子节点合并
-            // 1. 将右兄弟的所有键值对移动到child（不包括分隔键）
-            for (int i = 0; i < rightSibling.getKeyCount(); i++) {
-                child.insertKeyValue(rightSibling.getKey(i), rightSibling.getValue(i));
-            }
-
-            // 2. 更新child的nextLeaf指针
-            child.setNextLeafPageId(rightSibling.getNextLeafPageId());
-        } else {
-            // 内部节点合并
-            // 1. 将分隔键插入child
-            child.insertKeyValue(separatorKey, rightSibling.getChild(0));
-
-            // 2. 将右兄弟的所有键和子节点移动到child
-            for (int i = 0; i < rightSibling.getKeyCount(); i++) {
-                child.insertKeyValue(rightSibling.getKey(i), rightSibling.getChild(i + 1));
-            }
-        }
-
-        // 3. 从父节点删除分隔键和右兄弟指针
-        parent.removeKeyValue(childIndex);
-        parent.removeChild(childIndex + 1);
-
-        // 4. 保存修改
-        saveNode(child);
-        saveNode(parent);
+    public IndexCursor openCursor(byte[] lower, boolean lowerInclusive, byte[] upper, boolean upperInclusive) {
+        return new LeafCursor(lower, lowerInclusive, upper, upperInclusive);
+    }
 
-        // 注意：rightSibling节点现在是孤立的，可以回收（简化实现暂不处理）
+    /**
+     * 打开整个索引上的游标
+     *
+     * @return 游标,用完必须close
+     */
+    public IndexCursor openCursor() {
+        return openCursor(null, true, null, true);
     }
 
     /**
-     * 范围查询
+     * 打开索引列值范围上的行游标
      *
-     * 利用叶子节点链表,支持范围查询。
-     * 这是B+树相比B树的核心优势。
+     * 聚簇索引按主键值,二级索引按索引列值;游标上的值由子类还原成行。
+     * 叶子上的值不是行的B+树(只用Index接口的场景)不支持。
      *
-     * @param startKey 起始键(包含)
-     * @param endKey 结束键(包含)
-     * @return 键值对列表
+     * @param startValue 起始值,null表示不限
+     * @param startInclusive 是否包含起始值
+     * @param endValue 结束值,null表示不限
+     * @param endInclusive 是否包含结束值
+     * @return 行游标,用完必须close
+     * @throws UnsupportedOperationException 索引的值不能还原成行
      */
-    @Override
-    public List<Object> rangeSearch(Object startKey, Object endKey) {
-        return rangeSearchInt(((Number) startKey).intValue(), ((Number) endKey).intValue());
+    public RowCursor openRowCursor(Object startValue, boolean startInclusive,
+                                   Object endValue, boolean endInclusive) {
+        throw new UnsupportedOperationException("Index " + indexName + " does not map entries to rows");
     }
 
     /**
-     * 获取所有记录
+     * 停在一个叶子条目上的游标(IndexCursor的实现)
      *
-     * 遍历所有叶子节点，返回所有值。
-     * 用于全表扫描操作。
+     * 位置 = 叶子页帧(只pin不锁) + 条目下标 + 页版本号 + 条目的键。
+     * 每次移动:给pin住的叶子加共享锁,版本号没变就直接在页上移动下标;
+     * 变了(叶子被修改、分裂或合并)就放掉它,按保存的键重新从根下降:
+     * 向后找第一个大于它的键,向前找最后一个小于它的键。
+     * 对应InnoDB的btr_pcur_store_position/btr_pcur_restore_position
+     * (InnoDB用modify_clock判断是否能直接回到原来的位置)。
      *
-     * @return 所有值的列表
+     * 向前越过叶子:叶子链表只有next指针,从根重新下降到前一个键所在的叶子
+     * (latchLeafBefore),和InnoDB的btr_pcur_move_backward_from_page一样。
+     *
+     * 不是线程安全的,一个游标只在一个线程里使用。
      */
-    public List<Object> getAll() {
-        List<Object> results = new ArrayList<>();
+    private final class LeafCursor implements IndexCursor {
+        private final byte[] lower;
+        private final boolean lowerInclusive;
+        private final byte[] upper;
+        private final boolean upperInclusive;
 
-        // 1. 找到最左边的叶子节点（最小的键）
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-        logger.debug("getAll() - 根节点: pageId={}, keyCount={}, isLeaf={}",
-            root.getPageId(), root.getKeyCount(), root.isLeaf());
+        /** 当前叶子(只pin住,不持有锁),null表示游标无效 */
+        private PageFrame frame;
+        private int pageId;
+        private int position;
 
-        BPlusTreeNode leaf = findLeftmostLeaf(root);
-        logger.debug("getAll() - 最左叶子节点: pageId={}, keyCount={}",
-            leaf.getPageId(), leaf.getKeyCount());
+        /** 停下时叶子的版本号 */
+        private long version;
+
+        /** 当前条目的键(复制出来的,叶子被修改后用它恢复位置) */
+        private byte[] key;
+
+        private Object value;
+        private boolean valueLoaded;
+
+        private boolean closed;
+
+        private final LeafReadAhead readAhead = new LeafReadAhead();
+
+        LeafCursor(byte[] lower, boolean lowerInclusive, byte[] upper, boolean upperInclusive) {
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        @Override
+        public boolean seekToFirst() {
+            checkOpen();
+            invalidate();
+            return forwardFrom(lower != null ? lower : MIN_KEY, false);
+        }
+
+        @Override
+        public boolean seekToLast() {
+            checkOpen();
+            invalidate();
+            // 包含的上界:前缀等于上界的键都在范围内,从前缀的后继往前找
+            byte[] before = upper == null ? null : upperInclusive ? KeyEncoder.prefixSuccessor(upper) : upper;
+            return backwardFrom(latchLeafBefore(before));
+        }
 
-        // 2. 遍历所有叶子节点
-        int leafCount = 0;
-        while (leaf != null) {
-            leafCount++;
-            // 收集当前叶子节点的所有值
-            for (int i = 0; i < leaf.getKeyCount(); i++) {
-                results.add(leaf.getValue(i));
+        @Override
+        public boolean seek(byte[] target) {
+            checkOpen();
+            invalidate();
+            if (lower != null && KeyEncoder.compare(target, lower) < 0) {
+                target = lower;
             }
-            logger.debug("getAll() - 叶子节点{}/{}: pageId={}, keyCount={}, 收集{}个值",
-                leafCount, "-", leaf.getPageId(), leaf.getKeyCount());
+            return forwardFrom(target, false);
+        }
 
-            // 移动到下一个叶子节点
-            int nextLeafPageId = leaf.getNextLeafPageId();
-            if (nextLeafPageId == -1) {
-                break; // 已到最后一个叶子节点
+        @Override
+        public boolean next() {
+            checkOpen();
+            if (frame == null) {
+                return false;
             }
 
-            leaf = loadNode(nextLeafPageId);
+            frame.latchShared();
+            if (frame.validateVersion(version)) {
+                return settleForward(frame, pageId, position + 1);
+            }
+            byte[] from = key;
+            invalidateLatched();
+            return forwardFrom(from, true);
         }
 
-        logger.debug("getAll() 完成 - 共遍历{}个叶子节点，收集{}条记录", leafCount, results.size());
-        return results;
-    }
+        @Override
+        public boolean prev() {
+            checkOpen();
+            if (frame == null) {
+                return false;
+            }
 
-    /**
-     * 获取所有记录的惰性迭代器
-     *
-     * 按需遍历所有叶子节点，不一次性加载所有数据到内存。
-     * 用于全表扫描操作，特别是大表场景。
-     *
-     * @return 所有值的惰性迭代器
-     */
-    public java.util.Iterator<Object> getAllLazy() {
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-        BPlusTreeNode firstLeaf = findLeftmostLeaf(root);
+            frame.latchShared();
+            if (position > 0 && frame.validateVersion(version)) {
+                return settleBackward(new LatchedLeaf(pageId, frame), position - 1);
+            }
+            byte[] before = key;
+            invalidateLatched();
+            return backwardFrom(latchLeafBefore(before));
+        }
 
-        return new java.util.Iterator<Object>() {
-            private BPlusTreeNode currentLeaf = firstLeaf;
-            private int currentKeyIndex = 0;
+        @Override
+        public boolean isValid() {
+            return frame != null;
+        }
 
-            @Override
-            public boolean hasNext() {
-                if (currentLeaf == null) {
-                    return false;
-                }
+        @Override
+        public byte[] key() {
+            checkPositioned();
+            return key;
+        }
 
-                if (currentKeyIndex < currentLeaf.getKeyCount()) {
-                    return true;
+        @Override
+        public Object value() {
+            checkPositioned();
+            if (valueLoaded) {
+                return value;
+            }
+
+            frame.latchShared();
+            try {
+                if (frame.validateVersion(version)) {
+                    value = nodePageOf(frame.getPage()).valueAt(position);
+                    valueLoaded = true;
+                    return value;
                 }
+            } finally {
+                frame.unlatchShared();
+            }
 
-                // 移动到下一个叶子节点
-                int nextLeafPageId = currentLeaf.getNextLeafPageId();
-                return nextLeafPageId != -1;
+            // 叶子变了:按键重新点查,条目可能已经被删除
+            value = searchKeyLatched(key);
+            valueLoaded = true;
+            return value;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                invalidate();
+                closed = true;
+            }
+        }
+
+        /**
+         * 下降到from所在的叶子,向后找第一个(大于/不小于)from的条目
+         */
+        private boolean forwardFrom(byte[] from, boolean after) {
+            LatchedLeaf leaf = latchLeaf(from, false, true);
+            IndexPage page = nodePageOf(leaf.frame.getPage());
+            int pos = 0;
+            if (page != null) {
+                pos = page.findKeyPosition(from);
+                if (after && pos < page.getKeyCount() && page.compareKeyAt(pos, from) == 0) {
+                    pos++;
+                }
             }
+            return settleForward(leaf.frame, leaf.pageId, pos);
+        }
+
+        /**
+         * 从(叶子, pos)开始沿叶子链表向后找第一个在范围内的条目
+         *
+         * 进入时叶子持有共享锁;找到时放锁保留pin,否则全部释放。
+         */
+        private boolean settleForward(PageFrame current, int currentPageId, int pos) {
+            try {
+                while (true) {
+                    IndexPage page = nodePageOf(current.getPage());
+                    if (page == null) {
+                        return false; // 空树
+                    }
+
+                    for (; pos < page.getKeyCount(); pos++) {
+                        byte[] candidate = page.keyAt(pos);
+                        if (!aboveLower(candidate)) {
+                            continue;
+                        }
+                        if (!belowUpper(candidate)) {
+                            return false;
+                        }
+                        park(current, currentPageId, pos, candidate);
+                        current = null;
+                        return true;
+                    }
 
-            @Override
-            public Object next() {
-                if (!hasNext()) {
-                    throw new java.util.NoSuchElementException("No more elements in BPlusTree");
+                    int nextLeafPageId = nextLeafPageIdOf(current.getPage());
+                    if (nextLeafPageId == -1) {
+                        return false;
+                    }
+                    readAhead.onLeaf(nextLeafPageId);
+
+                    PageFrame next = latchNodePage(nextLeafPageId, false);
+                    releaseNodePage(current, false);
+                    current = next;
+                    currentPageId = nextLeafPageId;
+                    pos = 0;
+                }
+            } finally {
+                if (current != null) {
+                    frame = null;
+                    key = null;
+                    releaseNodePage(current, false);
                 }
+            }
+        }
 
-                // 如果当前叶子节点的键已经遍历完，移动到下一个叶子节点
-                if (currentKeyIndex >= currentLeaf.getKeyCount()) {
-                    int nextLeafPageId = currentLeaf.getNextLeafPageId();
-                    currentLeaf = loadNode(nextLeafPageId);
-                    currentKeyIndex = 0;
+        /**
+         * 从latchLeafBefore找到的条目开始向前找第一个在范围内的条目
+         */
+        private boolean backwardFrom(LatchedLeaf leaf) {
+            if (leaf == null) {
+                return false;
+            }
+            return settleBackward(leaf, leaf.position);
+        }
+
+        /**
+         * 从(叶子, pos)开始向前找第一个在范围内的条目
+         *
+         * 进入时叶子持有共享锁;越过叶子的开头时放掉它,从根下降到前一个条目。
+         */
+        private boolean settleBackward(LatchedLeaf leaf, int pos) {
+            PageFrame current = leaf.frame;
+            try {
+                while (true) {
+                    IndexPage page = nodePageOf(current.getPage());
+                    byte[] candidate = page.keyAt(pos);
+                    if (!aboveLower(candidate)) {
+                        return false;
+                    }
+                    if (belowUpper(candidate)) {
+                        park(current, leaf.pageId, pos, candidate);
+                        current = null;
+                        return true;
+                    }
+
+                    if (pos > 0) {
+                        pos--;
+                        continue;
+                    }
+                    releaseNodePage(current, false);
+                    current = null;
+                    leaf = latchLeafBefore(candidate);
+                    if (leaf == null) {
+                        return false;
+                    }
+                    current = leaf.frame;
+                    pos = leaf.position;
                 }
+            } finally {
+                if (current != null) {
+                    frame = null;
+                    key = null;
+                    releaseNodePage(current, false);
+                }
+            }
+        }
+
+        /**
+         * 停在(叶子, pos)上:记下版本号和键,放锁保留pin
+         */
+        private void park(PageFrame leafFrame, int leafPageId, int pos, byte[] leafKey) {
+            version = leafFrame.readVersion();
+            leafFrame.unlatchShared();
+            frame = leafFrame;
+            pageId = leafPageId;
+            position = pos;
+            key = leafKey;
+            value = null;
+            valueLoaded = false;
+        }
+
+        private boolean aboveLower(byte[] candidate) {
+            if (lower == null) {
+                return true;
+            }
+            return lowerInclusive
+                    ? KeyEncoder.compare(candidate, lower) >= 0
+                    : KeyEncoder.comparePrefix(candidate, lower) > 0;
+        }
+
+        private boolean belowUpper(byte[] candidate) {
+            if (upper == null) {
+                return true;
+            }
+            int cmp = KeyEncoder.comparePrefix(candidate, upper);
+            return upperInclusive ? cmp <= 0 : cmp < 0;
+        }
+
+        /** 放掉pin住的叶子(没有持有锁) */
+        private void invalidate() {
+            if (frame != null) {
+                frame.unpin(false);
+                frame = null;
+            }
+            key = null;
+        }
+
+        /** 放掉pin住并且已经加了共享锁的叶子 */
+        private void invalidateLatched() {
+            PageFrame latched = frame;
+            frame = null;
+            key = null;
+            releaseNodePage(latched, false);
+        }
 
-                return currentLeaf.getValue(currentKeyIndex++);
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Cursor on " + indexName + " is closed");
             }
-        };
+        }
+
+        private void checkPositioned() {
+            checkOpen();
+            if (frame == null) {
+                throw new IllegalStateException("Cursor on " + indexName + " is not positioned");
+            }
+        }
     }
 
     /**
-     * 找到最左边的叶子节点
+     * 加锁下降到最后一个小于key的条目所在的叶子
+     *
+     * 从根到叶子逐层加共享锁并且一直持有(不交接):
+     * 叶子上没有小于key的条目时,回到最近一个还有左边子节点的祖先,
+     * 从左边的子节点一直走最右边下降到叶子。
+     * 对应InnoDB游标越过页的开头向前移动时的重新定位(btr_pcur_move_backward_from_page)。
      *
-     * @param node 当前节点
-     * @return 最左边的叶子节点
+     * @param key 编码后的键,null表示比所有键都大
+     * @return 锁住的叶子(position是条目下标),没有小于key的条目时返回null
      */
-    protected BPlusTreeNode findLeftmostLeaf(BPlusTreeNode node) {
-        while (!node.isLeaf()) {
-            // 总是走最左边的路径
-            int leftmostChildPageId = node.getChild(0);
-            node = loadNode(leftmostChildPageId);
+    private LatchedLeaf latchLeafBefore(byte[] key) {
+        PageFrame root = latchNodePage(ROOT_PAGE_ID, false);
+        int levels = height; // 持有根节点的锁,高度不会再变
+        PageFrame[] frames = new PageFrame[levels];
+        int[] pageIds = new int[levels];
+        int[] slots = new int[levels];
+        frames[0] = root;
+        pageIds[0] = ROOT_PAGE_ID;
+        int depth = 1;
+        try {
+
+            for (; levels > 1; levels--) {
+                IndexPage page = nodePageOf(frames[depth - 1].getPage());
+                int slot = key == null ? page.getKeyCount() : page.findKeyPosition(key);
+                slots[depth - 1] = slot;
+                pageIds[depth] = page.childAt(slot);
+                frames[depth] = latchNodePage(pageIds[depth], false);
+                depth++;
+            }
+
+            IndexPage leafPage = nodePageOf(frames[depth - 1].getPage());
+            int pos = leafPage == null ? 0 : key == null ? leafPage.getKeyCount() : leafPage.findKeyPosition(key);
+            if (pos == 0) {
+                // 叶子上没有更小的键:回到还有左边子节点的祖先
+                releaseNodePage(frames[--depth], false);
+                while (depth > 0 && slots[depth - 1] == 0) {
+                    releaseNodePage(frames[--depth], false);
+                }
+                if (depth == 0) {
+                    return null;
+                }
+
+                IndexPage page = nodePageOf(frames[depth - 1].getPage());
+                int childPageId = page.childAt(slots[depth - 1] - 1);
+                while (true) {
+                    pageIds[depth] = childPageId;
+                    frames[depth++] = latchNodePage(childPageId, false);
+                    page = nodePageOf(frames[depth - 1].getPage());
+                    if (page.isLeafNode()) {
+                        break;
+                    }
+                    childPageId = page.childAt(page.getKeyCount());
+                }
+                pos = page.getKeyCount();
+            }
+
+            LatchedLeaf leaf = new LatchedLeaf(pageIds[depth - 1], frames[depth - 1], pos - 1);
+            depth--;
+            while (depth > 0) {
+                releaseNodePage(frames[--depth], false);
+            }
+            return leaf;
+        } catch (RuntimeException e) {
+            while (depth > 0) {
+                releaseNodePage(frames[--depth], false);
+            }
+            throw e;
         }
-        return node;
     }
 
     /**
-     * 范围查询
-     *
-     * 利用叶子节点链表,支持范围查询。
-     * 这是B+树相比B树的核心优势。
+     * 范围查询(int版本)
      *
      * @param startKey 起始键(包含)
      * @param endKey 结束键(包含)
      * @return 键值对列表
      */
     public List<Object> rangeSearchInt(int startKey, int endKey) {
+        return rangeSearchKeys(KeyEncoder.encodeInt(startKey), KeyEncoder.encodeInt(endKey));
+    }
+
+    /**
+     * 编码后的键的范围查询
+     *
+     * 上界按前缀包含(见KeyEncoder.withinUpperBound):
+     * 组合键上用前几列作为上界时,前缀相同的键都在范围内。
+     *
+     * @param startKey 起始键(包含)
+     * @param endKey 结束键(包含)
+     * @return 键值对列表
+     */
+    public List<Object> rangeSearchKeys(byte[] startKey, byte[] endKey) {
+        return scanLeaves(startKey, endKey, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 编码后的键的范围查询,最多返回limit个值
+     *
+     * 找到足够的值后立即停止,不继续沿叶子链表读后面的页。
+     * 用于"存在一个就够"的查找,例如非唯一索引上取某个值的第一条记录。
+     *
+     * @param startKey 起始键(包含)
+     * @param endKey 结束键(前缀包含)
+     * @param limit 最多返回的值的数量
+     * @return 范围内的前limit个值
+     */
+    public List<Object> rangeSearchKeys(byte[] startKey, byte[] endKey, int limit) {
+        return scanLeaves(startKey, endKey, limit);
+    }
+
+    /**
+     * 从startKey开始沿叶子链表扫描
+     *
+     * 先锁住下一个叶子(共享)再放开当前叶子:扫描过程中前面的叶子可以被修改,
+     * 正在读的叶子和链表指针不会变。值在持有锁时复制到结果里。
+     *
+     * @param startKey 起始键(包含)
+     * @param endKey 结束键(前缀包含),null表示扫描到最后
+     * @param limit 最多返回的值的数量
+     * @return 范围内的值
+     */
+    private List<Object> scanLeaves(byte[] startKey, byte[] endKey, int limit) {
         List<Object> results = new ArrayList<>();
 
         // 1. 找到起始叶子节点
-        BPlusTreeNode root = loadNode(ROOT_PAGE_ID);
-        BPlusTreeNode leaf = findLeafNode(root, startKey);
+        LatchedLeaf latched = latchLeaf(startKey, false, true);
+        PageFrame frame = latched.frame;
+        int pageId = latched.pageId;
 
         // 2. 在叶子链表中遍历
-        while (leaf != null) {
-            for (int i = 0; i < leaf.getKeyCount(); i++) {
-                int key = leaf.getKey(i);
+        LeafReadAhead readAhead = new LeafReadAhead();
+        try {
+            while (true) {
+                BPlusTreeNode leaf = nodeOf(frame, pageId);
+                readAhead.onLeaf(leaf);
+                for (int i = 0; i < leaf.getKeyCount(); i++) {
+                    byte[] key = leaf.getKey(i);
+
+                    if (endKey != null && !KeyEncoder.withinUpperBound(key, endKey)) {
+                        return results; // 超出范围,结束
+                    }
 
-                if (key > endKey) {
-                    return results; // 超出范围,结束
+                    if (KeyEncoder.compare(key, startKey) >= 0) {
+                        results.add(leaf.getValue(i));
+                        if (results.size() >= limit) {
+                            return results;
+                        }
+                    }
                 }
 
-                if (key >= startKey) {
-                    results.add(leaf.getValue(i));
+                // 移动到下一个叶子节点
+                int nextLeafPageId = leaf.getNextLeafPageId();
+                if (nextLeafPageId == -1) {
+                    return results;
                 }
+
+                PageFrame next = latchNodePage(nextLeafPageId, false);
+                releaseNodePage(frame, false);
+                frame = next;
+                pageId = nextLeafPageId;
+            }
+        } finally {
+            releaseNodePage(frame, false);
+        }
+    }
+
+    /**
+     * 叶子链表预读
+     *
+     * 扫描每前进半个预读窗口,沿nextLeafPageId在后台预读后面一个窗口的叶子。
+     * 叶子的页号不一定连续(分裂出来的新页在文件末尾),线性预读覆盖不到,
+     * 只能顺着链表读。BufferPool没有开启预读时什么也不做。
+     */
+    private final class LeafReadAhead {
+
+        /** 还要经过几个叶子才提交下一次预读 */
+        private int leavesUntilPrefetch;
+
+        void onLeaf(BPlusTreeNode leaf) {
+            onLeaf(leaf.getNextLeafPageId());
+        }
+
+        /**
+         * 经过一个叶子(只知道它的下一个叶子的页号,不反序列化节点)
+         */
+        void onLeaf(int nextLeafPageId) {
+            if (leavesUntilPrefetch > 0) {
+                leavesUntilPrefetch--;
+                return;
             }
 
-            // 移动到下一个叶子节点
-            int nextLeafPageId = leaf.getNextLeafPageId();
-            if (nextLeafPageId == -1) {
-                break;
+            int window = bufferPool.getReadAheadWindow();
+            if (window == 0 || nextLeafPageId == -1) {
+                return;
             }
+            leavesUntilPrefetch = Math.max(0, window / 2 - 1);
 
-            leaf = loadNode(nextLeafPageId);
+            if (isClustered) {
+                bufferPool.prefetchChain(getTableId(), nextLeafPageId, BPlusTree::nextLeafPageIdOf);
+            } else {
+                bufferPool.prefetchIndexChain(indexId, nextLeafPageId, BPlusTree::nextLeafPageIdOf);
+            }
         }
+    }
 
-        return results;
+    private static int nextLeafPageIdOf(Page page) {
+        return BPlusTreeNode.peekNextLeafPageId(page.getBuffer(), IndexPage.HEADER_SIZE);
+    }
+
+    /**
+     * 获取节点所在的页并pin住(聚簇索引在表数据文件,二级索引在索引文件)
+     *
+     * 在缓冲池分区锁内pin住页帧:页内容可能在会被复用的堆外帧上,
+     * 取到页帧之后、pin之前不能被淘汰。调用方用完后必须unpin。
+     */
+    private PageFrame pinNodePage(int pageId) {
+        return isClustered
+            ? bufferPool.pinPage(getTableId(), pageId)
+            : bufferPool.pinIndexPage(indexId, pageId);
+    }
+
+    /**
+     * 为读取节点pin住页,计入nodeReads
+     *
+     * 反序列化节点(loadNode)和加锁下降(latchNodePage)都经过这里,
+     * 保存节点不算。
+     */
+    private PageFrame readNodePage(int pageId) {
+        nodeReads.increment();
+        return pinNodePage(pageId);
+    }
+
+    /**
+     * pin住节点所在的页并加页锁
+     *
+     * @param exclusive true加独占锁(修改节点),false加共享锁
+     * @return 页帧,用releaseNodePage释放
+     */
+    private PageFrame latchNodePage(int pageId, boolean exclusive) {
+        PageFrame frame = readNodePage(pageId);
+        if (exclusive) {
+            frame.latchExclusive();
+        } else {
+            frame.latchShared();
+        }
+        return frame;
+    }
+
+    /**
+     * 释放页锁并unpin(先放锁再unpin,与加锁顺序相反)
+     */
+    private static void releaseNodePage(PageFrame frame, boolean exclusive) {
+        if (exclusive) {
+            frame.unlatchExclusive();
+        } else {
+            frame.unlatchShared();
+        }
+        frame.unpin(false);
     }
 
     /**
      * 从BufferPool加载节点
      *
+     * 不加页锁,只在没有并发访问时使用(打开索引时计算高度)。
+     *
      * @param pageId 页号
      * @return 节点对象
      */
     private BPlusTreeNode loadNode(int pageId) {
-        PageFrame frame = isClustered
-            ? bufferPool.getPage(getTableId(), pageId)
-            : bufferPool.getIndexPage(indexId, pageId);
-        frame.pin();
+        PageFrame frame = readNodePage(pageId);
 
         try {
-            Page page = frame.getPage();
-            byte[] pageData = page.getData();
+            return nodeOf(frame, pageId);
+        } finally {
+            frame.unpin(false);
+        }
+    }
 
-            // 通过Magic Number判断页是否包含B+树节点
-            if (pageData.length < IndexPage.HEADER_SIZE + 4) {
-                return new BPlusTreeNode(true);
-            }
+    /**
+     * 反序列化已经pin住的页上的节点
+     *
+     * @param frame 页帧(调用方负责unpin)
+     * @param pageId 页号
+     * @return 节点对象,页上没有节点时返回空叶子
+     */
+    private static BPlusTreeNode nodeOf(PageFrame frame, int pageId) {
+        Page page = frame.getPage();
 
-            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(pageData);
-            buffer.position(IndexPage.HEADER_SIZE);
-            int magic = buffer.getInt();
+        // 通过Magic Number判断页是否包含B+树节点(只读视图,内存映射的页不会被复制)
+        java.nio.ByteBuffer buffer = page.getBuffer();
+        if (buffer.limit() < IndexPage.HEADER_SIZE + 4) {
+            return new BPlusTreeNode(true);
+        }
 
-            if (magic != BPlusTreeNode.MAGIC) {
-                return new BPlusTreeNode(true);
-            }
+        int magic = buffer.getInt(IndexPage.HEADER_SIZE);
 
-            // 聚簇索引的空页可能是DataPage，需要转换
-            if (page instanceof DataPage) {
-                IndexPage indexPage = new IndexPage();
-                indexPage.fromBytes(pageData);
-                indexPage.setPageId(pageId);
-                frame.setPage(indexPage);
-                return indexPage.getNode();
-            }
+        if (magic != BPlusTreeNode.MAGIC) {
+            return new BPlusTreeNode(true);
+        }
 
-            IndexPage indexPage = (IndexPage) page;
-            BPlusTreeNode node = indexPage.getNode();
-            node.setPageId(pageId);
-            return node;
-        } finally {
-            frame.unpin(false);
+        // 聚簇索引的空页可能是DataPage，需要转换(共享页内容,修改时才复制)
+        if (page instanceof DataPage) {
+            IndexPage indexPage = IndexPage.wrap(buffer);
+            indexPage.setPageId(pageId);
+            frame.setPage(indexPage);
+            return indexPage.getNode();
         }
+
+        IndexPage indexPage = (IndexPage) page;
+        BPlusTreeNode node = indexPage.getNode();
+        node.setPageId(pageId);
+        return node;
     }
 
     /**
@@ -1081,14 +1865,10 @@ public abstract class BPlusTree implements Index {
      *
      * @param node 节点对象
      */
-    private void saveNode(BPlusTreeNode node) {
+    void saveNode(BPlusTreeNode node) {
         int pageId = node.getPageId();
 
-        PageFrame frame = isClustered
-            ? bufferPool.getPage(getTableId(), pageId)
-            : bufferPool.getIndexPage(indexId, pageId);
-
-        frame.pin();
+        PageFrame frame = pinNodePage(pageId);
 
         try {
             Page page = frame.getPage();
@@ -1161,6 +1941,113 @@ public abstract class BPlusTree implements Index {
         return height;
     }
 
+    /**
+     * 树是否为空(根是没有键的叶子)
+     */
+    public boolean isEmpty() {
+        PageFrame frame = latchNodePage(ROOT_PAGE_ID, false);
+        try {
+            BPlusTreeNode root = nodeOf(frame, ROOT_PAGE_ID);
+            return root.isLeaf() && root.getKeyCount() == 0;
+        } finally {
+            releaseNodePage(frame, false);
+        }
+    }
+
+    /**
+     * 清空索引:释放根以外的所有页,根重新写成空叶子
+     *
+     * 用于撤销失败的批量导入(见Table.loadRows),调用方保证没有并发访问。
+     */
+    public void truncate() {
+        List<Integer> level = List.of(ROOT_PAGE_ID);
+        while (!level.isEmpty()) {
+            List<Integer> next = new ArrayList<>();
+            for (int pageId : level) {
+                PageFrame frame = latchNodePage(pageId, false);
+                try {
+                    BPlusTreeNode node = nodeOf(frame, pageId);
+                    if (!node.isLeaf()) {
+                        for (int i = 0; i <= node.getKeyCount(); i++) {
+                            next.add(node.getChild(i));
+                        }
+                    }
+                } finally {
+                    releaseNodePage(frame, false);
+                }
+                if (pageId != ROOT_PAGE_ID) {
+                    pageManager.freePage(pageId);
+                }
+            }
+            level = next;
+        }
+
+        BPlusTreeNode root = createRootNode();
+        root.setPageId(ROOT_PAGE_ID);
+        saveNode(root);
+        this.height = 1;
+    }
+
+    /**
+     * 批量构建完成后设置树高度(见BulkLoader)
+     */
+    void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * 获取读取节点的累计次数
+     *
+     * 一次插入读取height个节点(需要分裂时悲观地再下降一次,共2*height),
+     * 不需要从根重新查找父节点。两次调用的差值就是中间操作访问的节点数。
+     */
+    public long getNodeReadCount() {
+        return nodeReads.sum();
+    }
+
+    /**
+     * 获取乐观点查因版本冲突重来的累计次数
+     *
+     * 只读负载下应该一直是0;和写并发时增长,说明乐观读确实检测到了冲突。
+     */
+    public long getOptimisticRetryCount() {
+        return optimisticRetries.sum();
+    }
+
+    /**
+     * 收集索引统计:高度、页数、叶子键的前缀压缩比、分隔键的平均长度
+     *
+     * 从根开始逐层遍历,每个节点只在读取时加共享锁。
+     * 会读取所有页,代价和全表扫描相当,用于观察而不是查询优化。
+     *
+     * @return 统计快照
+     */
+    public IndexStats getStats() {
+        IndexStats stats = new IndexStats();
+        stats.setHeight(height);
+
+        List<Integer> level = List.of(ROOT_PAGE_ID);
+        while (!level.isEmpty()) {
+            List<Integer> next = new ArrayList<>();
+            for (int pageId : level) {
+                PageFrame frame = latchNodePage(pageId, false);
+                try {
+                    BPlusTreeNode node = nodeOf(frame, pageId);
+                    stats.addNode(node);
+                    if (!node.isLeaf()) {
+                        for (int i = 0; i <= node.getKeyCount(); i++) {
+                            next.add(node.getChild(i));
+                        }
+                    }
+                } finally {
+                    releaseNodePage(frame, false);
+                }
+            }
+            level = next;
+        }
+        return stats;
+    }
+
     /**
      * 获取PageManager
      *
@@ -1,5 +1,7 @@
 package com.minimysql.storage.index;
 
+import com.minimysql.storage.page.IndexPage;
+import com.minimysql.storage.page.Page;
 import com.minimysql.storage.table.Column;
 import com.minimysql.storage.table.Row;
 
@@ -9,6 +11,7 @@ import com.minimysql.storage.table.Row;
  *
  * B+树节点可以是内部节点或叶子节点,统一用isLeaf区分。
  * 节点存储在DataPage中,大小固定为16KB。
+ * 容量按字节计算:节点序列化后放不下一页时分裂,而不是按固定的键数量。
  *
  * 节点布局:
  * - 内部节点: [key0, key1, ..., keyN] + [child0, child1, ..., childN+1]
@@ -19,7 +22,13 @@ import com.minimysql.storage.table.Row;
  * - 内部节点的value指向子节点pageId
  * - 叶子节点的value指向实际数据(Row或主键)
  * - 叶子节点通过nextLeaf形成有序链表(范围查询)
- * - 支持INT和VARCHAR两种键类型
+ * - 键是KeyEncoder编码的字节串,按无符号字典序比较(支持所有列类型和组合键)
+ *
+ * 键压缩:
+ * - 后缀截断:叶子分裂时提升到父节点的分隔键是能区分左右两边的最短前缀
+ *   (KeyEncoder.shortestSeparator),内部节点的扇出更大
+ * - 前缀压缩:叶子所有键的公共前缀在页上只存一次,每个键只存后缀;
+ *   内存中的keys仍然是完整的键,只有序列化和页上的直接读取(peekXxx)处理前缀
  *
  * "Good taste": 内部节点和叶子节点统一结构,消除特殊情况
  *
@@ -30,11 +39,39 @@ import com.minimysql.storage.table.Row;
  */
 public class BPlusTreeNode {
 
-    /** 最大子节点数(阶数) */
-    public static final int MAX_CHILDREN = 100; // 可根据页大小调整
+    /**
+     * 节点序列化后的最大字节数(一页去掉页头)
+     *
+     * INT键的内部节点每个分隔键约11字节(槽位2 + 键5 + 子节点4),一页能放约1480个,
+     * 3层树就能覆盖几十亿行;Row数据较大的叶子则少放几条,不会溢出页。
+     */
+    public static final int MAX_NODE_SIZE = Page.PAGE_SIZE - IndexPage.HEADER_SIZE;
+
+    /**
+     * 合并阈值:节点小于半页时算下溢,需要借位或合并
+     *
+     * 对应InnoDB的MERGE_THRESHOLD(默认50%)。
+     */
+    public static final int MERGE_THRESHOLD = MAX_NODE_SIZE / 2;
+
+    /**
+     * 键的最大长度(编码后)
+     *
+     * 对应InnoDB 16KB页上3072字节的索引键长度上限;
+     * 分隔键会进入内部节点,限制长度保证合并后的内部节点放得下。
+     */
+    public static final int MAX_KEY_LENGTH = 3072;
+
+    /**
+     * 一个叶子条目(键 + 值)的最大字节数
+     *
+     * 节点超过一页时才分裂,分裂前最多多出一个条目;
+     * 条目不超过1/3页保证按字节平分后的两半都放得下。
+     */
+    public static final int MAX_ENTRY_SIZE = (MAX_NODE_SIZE - BPlusTreeNode.NODE_HEADER_SIZE) / 3;
 
-    /** 最小子节点数(阶数/2,保证平衡) */
-    public static final int MIN_CHILDREN = MAX_CHILDREN / 2;
+    /** 新节点数组的初始容量,插入时按需扩容 */
+    private static final int INITIAL_CAPACITY = 16;
 
     /** 是否为叶子节点 */
     private boolean isLeaf;
@@ -42,15 +79,15 @@ public class BPlusTreeNode {
     /** 键的数量 */
     private int keyCount;
 
-    /** 键数组(INT类型或VARCHAR的哈希码) */
-    private final int[] keys;
+    /** 键数组(KeyEncoder编码的字节串,按无符号字典序有序) */
+    private byte[][] keys;
 
     /** 值数组
      *  - 内部节点: 子节点pageId (Integer)
      *  - 叶子节点(聚簇索引): Row数据
      *  - 叶子节点(二级索引): 主键值 (Integer)
      */
-    private final Object[] values;
+    private Object[] values;
 
     /** 叶子节点链表:指向下一个叶子节点的pageId */
     private int nextLeafPageId;
@@ -58,6 +95,12 @@ public class BPlusTreeNode {
     /** 当前节点所在的pageId */
     private int pageId;
 
+    /** 不压缩前缀时序列化的字节数缓存,-1表示需要重新计算(插入时增量更新,其他修改时失效) */
+    private int rawSize = -1;
+
+    /** 叶子键的公共前缀长度缓存,-1表示需要重新计算(第一个或最后一个键变化时失效) */
+    private int prefixLength = -1;
+
     /** 值类型(仅叶子节点): 0=INT(pageId), 1=BYTES(Row数据) */
     private byte valueType;
 
@@ -73,8 +116,8 @@ public class BPlusTreeNode {
     public BPlusTreeNode(boolean isLeaf) {
         this.isLeaf = isLeaf;
         this.keyCount = 0;
-        this.keys = new int[MAX_CHILDREN - 1]; // m个key
-        this.values = new Object[MAX_CHILDREN]; // m+1个child或m个value
+        this.keys = new byte[INITIAL_CAPACITY][]; // n个key
+        this.values = new Object[INITIAL_CAPACITY + 1]; // n+1个child或n个value
         this.nextLeafPageId = -1;
         this.pageId = -1;
         this.valueType = VALUE_TYPE_INT; // 默认INT类型
@@ -88,16 +131,17 @@ public class BPlusTreeNode {
      * @param key 要查找的键
      * @return 键的位置(0~keyCount),如果存在返回对应位置
      */
-    public int findKeyPosition(int key) {
+    public int findKeyPosition(byte[] key) {
         int left = 0;
         int right = keyCount - 1;
 
         while (left <= right) {
-            int mid = (left + right) / 2;
+            int mid = (left + right) >>> 1;
+            int cmp = KeyEncoder.compare(keys[mid], key);
 
-            if (keys[mid] == key) {
+            if (cmp == 0) {
                 return mid;
-            } else if (keys[mid] < key) {
+            } else if (cmp < 0) {
                 left = mid + 1;
             } else {
                 right = mid - 1;
@@ -107,10 +151,27 @@ public class BPlusTreeNode {
         return left;
     }
 
+    /**
+     * 查找key应该下降到的子节点(内部节点)
+     *
+     * 第i个子树里的键k满足 keys[i-1] <= k < keys[i],
+     * 所以子节点下标 = 不大于key的分隔键个数(等于分隔键时走右边)。
+     *
+     * @param key 要查找的键
+     * @return 子节点下标(0~keyCount)
+     */
+    public int findChildIndex(byte[] key) {
+        int pos = findKeyPosition(key);
+        if (pos < keyCount && KeyEncoder.compare(keys[pos], key) == 0) {
+            return pos + 1;
+        }
+        return pos;
+    }
+
     /**
      * 获取键
      */
-    public int getKey(int index) {
+    public byte[] getKey(int index) {
         if (index < 0 || index >= keyCount) {
             throw new IndexOutOfBoundsException("Key index out of bounds: " + index);
         }
@@ -120,11 +181,13 @@ public class BPlusTreeNode {
     /**
      * 设置键
      */
-    public void setKey(int index, int key) {
-        if (index < 0 || index >= keys.length) {
+    public void setKey(int index, byte[] key) {
+        if (index < 0) {
             throw new IndexOutOfBoundsException("Key index out of bounds: " + index);
         }
+        ensureCapacity(index + 1);
         keys[index] = key;
+        invalidateSize();
     }
 
     /**
@@ -141,10 +204,12 @@ public class BPlusTreeNode {
      * 设置值
      */
     public void setValue(int index, Object value) {
-        if (index < 0 || index >= values.length) {
+        if (index < 0) {
             throw new IndexOutOfBoundsException("Value index out of bounds: " + index);
         }
+        ensureCapacity(index);
         values[index] = value;
+        invalidateSize();
     }
 
     /**
@@ -154,12 +219,13 @@ public class BPlusTreeNode {
      * @param value 值
      * @return 插入位置
      */
-    public int insertKeyValue(int key, Object value) {
+    public int insertKeyValue(byte[] key, Object value) {
         if (!isLeaf) {
             throw new IllegalStateException("Only leaf nodes can insert key-value pairs");
         }
 
         int pos = findKeyPosition(key);
+        ensureCapacity(keyCount + 1);
 
         // 移动现有键和值
         for (int i = keyCount; i > pos; i--) {
@@ -171,6 +237,12 @@ public class BPlusTreeNode {
         keys[pos] = key;
         values[pos] = value;
         keyCount++;
+        if (rawSize >= 0) {
+            rawSize += rawEntrySize(pos);
+        }
+        if (pos == 0 || pos == keyCount - 1) {
+            prefixLength = -1; // 首尾的键变了,公共前缀可能变短
+        }
 
         return pos;
     }
@@ -182,12 +254,30 @@ public class BPlusTreeNode {
      * @param child 子节点pageId
      * @return 插入位置
      */
-    public int insertChild(int key, int child) {
+    public int insertChild(byte[] key, int child) {
+        return insertChildAt(findKeyPosition(key), key, child);
+    }
+
+    /**
+     * 在指定位置插入分隔键和它右边的子节点(内部节点)
+     *
+     * 子节点分裂时调用方已经知道它在父节点中的下标(下降路径),
+     * 新的分隔键就在这个下标处,不用再查找。
+     *
+     * @param pos 分隔键的位置(0~keyCount)
+     * @param key 分隔键
+     * @param child 分隔键右边的子节点pageId
+     * @return 插入位置
+     */
+    public int insertChildAt(int pos, byte[] key, int child) {
         if (isLeaf) {
             throw new IllegalStateException("Only internal nodes can insert children");
         }
+        if (pos < 0 || pos > keyCount) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + pos);
+        }
 
-        int pos = findKeyPosition(key);
+        ensureCapacity(keyCount + 1);
 
         // 移动现有键和子节点
         for (int i = keyCount; i > pos; i--) {
@@ -199,6 +289,9 @@ public class BPlusTreeNode {
         keys[pos] = key;
         values[pos + 1] = child;
         keyCount++;
+        if (rawSize >= 0) {
+            rawSize += rawEntrySize(pos);
+        }
 
         return pos;
     }
@@ -224,6 +317,7 @@ public class BPlusTreeNode {
         }
 
         keyCount--;
+        invalidateSize();
     }
 
     /**
@@ -234,22 +328,16 @@ public class BPlusTreeNode {
      * @param key 要删除的键
      * @return 如果找到并删除返回true，否则返回false
      */
-    public boolean removeKey(int key) {
+    public boolean removeKey(byte[] key) {
         if (!isLeaf) {
             throw new IllegalStateException("Only leaf nodes can remove key-value pairs");
         }
 
         // 查找key的位置
-        int index = -1;
-        for (int i = 0; i < keyCount; i++) {
-            if (keys[i] == key) {
-                index = i;
-                break;
-            }
-        }
+        int index = findKeyPosition(key);
 
         // 如果找到key，删除它
-        if (index != -1) {
+        if (index < keyCount && KeyEncoder.compare(keys[index], key) == 0) {
             removeKeyValue(index);
             return true;
         }
@@ -278,50 +366,95 @@ public class BPlusTreeNode {
         }
 
         keyCount--;
+        invalidateSize();
+    }
+
+    /**
+     * 在最前面插入子节点和它右边的分隔键(内部节点,从左兄弟借位时使用)
+     *
+     * 原来的第0个子节点变成第1个,key是新子节点和它之间的分隔键。
+     *
+     * @param key 分隔键
+     * @param child 新的第0个子节点pageId
+     */
+    public void insertFirstChild(byte[] key, int child) {
+        if (isLeaf) {
+            throw new IllegalStateException("Only internal nodes can insert children");
+        }
+
+        ensureCapacity(keyCount + 1);
+        System.arraycopy(keys, 0, keys, 1, keyCount);
+        System.arraycopy(values, 0, values, 1, keyCount + 1);
+        keys[0] = key;
+        values[0] = child;
+        keyCount++;
+        invalidateSize();
+    }
+
+    /**
+     * 删除第0个子节点和第0个分隔键(内部节点,向右兄弟借位时使用)
+     */
+    public void removeFirstChild() {
+        if (isLeaf) {
+            throw new IllegalStateException("Only internal nodes can remove children");
+        }
+        if (keyCount == 0) {
+            throw new IllegalStateException("Node has no separator to remove");
+        }
+
+        System.arraycopy(keys, 1, keys, 0, keyCount - 1);
+        System.arraycopy(values, 1, values, 0, keyCount);
+        keyCount--;
+        keys[keyCount] = null;
+        values[keyCount + 1] = null;
+        invalidateSize();
     }
 
     /**
      * 分裂节点
      *
-     * 当节点满时,分裂成两个节点,返回中间键和新节点。
+     * 当节点超过一页时,按字节平分成两个节点,返回中间键和新节点。
      *
      * B+树分裂逻辑(MySQL InnoDB):
-     * - 叶子节点: 平分键值对,中间键提升到父节点,新节点插入链表
+     * - 叶子节点: 平分键值对,新节点第一个键复制到父节点,新节点插入链表
      * - 内部节点: 中间键提升到父节点,右边键+右边所有子节点移到新节点
      *
-     * 示例(叶子节点, MAX_CHILDREN=4, keyCount=3):
+     * 示例(叶子节点, keyCount=3, 条目大小相同):
      *   原节点: [k0,v0] [k1,v1] [k2,v2]
      *   mid=1, splitKey=k1
      *   原节点变成: [k0,v0]
-     *   新节点: [k2,v2], nextLeaf→原节点的nextLeaf
+     *   新节点: [k1,v1] [k2,v2], nextLeaf→原节点的nextLeaf
      *   返回: (k1, 新节点)
      *
+     * 新节点还没有pageId,调用方分配之后要把原节点的nextLeaf指向它。
+     * 叶子分裂的分隔键做后缀截断:左边最大键 &lt; splitKey &lt;= 右边最小键的最短前缀。
+     *
      * @return [分裂出的键, 新节点]
      */
     public SplitResult split() {
-        int mid = keyCount / 2;
-        int splitKey = keys[mid];
+        int mid = splitPosition();
+        byte[] splitKey = isLeaf ? KeyEncoder.shortestSeparator(keys[mid - 1], keys[mid]) : keys[mid];
 
         BPlusTreeNode newNode = new BPlusTreeNode(isLeaf);
         newNode.pageId = -1; // 新节点尚未分配pageId
+        newNode.valueType = valueType;
 
         if (isLeaf) {
-            // 叶子节点分裂: 平分键值对
+            // 叶子节点分裂: 平分键值对,splitKey留在新节点(叶子保存所有键)
             // 原节点: [k0,v0] [k1,v1] [k2,v2] [k3,v3]
             // mid=2, splitKey=k2
             // 原节点保留: [k0,v0] [k1,v1]
-            // 新节点获得: [k3,v3]
-            int newKeyCount = keyCount - mid - 1;
+            // 新节点获得: [k2,v2] [k3,v3]
+            int newKeyCount = keyCount - mid;
+            newNode.ensureCapacity(newKeyCount);
             newNode.keyCount = newKeyCount;
 
-            // 复制键: keys[mid+1 ... keyCount-1] → newNode.keys[0 ... newKeyCount-1]
-            System.arraycopy(keys, mid + 1, newNode.keys, 0, newKeyCount);
-            // 复制值: values[mid+1 ... keyCount-1] → newNode.values[0 ... newKeyCount-1]
-            System.arraycopy(values, mid + 1, newNode.values, 0, newKeyCount);
+            // 复制键值: [mid ... keyCount-1] → newNode[0 ... newKeyCount-1]
+            System.arraycopy(keys, mid, newNode.keys, 0, newKeyCount);
+            System.arraycopy(values, mid, newNode.values, 0, newKeyCount);
 
-            // 更新链表指针: 原节点 → 新节点 → 原nextLeaf
+            // 链表: 新节点 → 原nextLeaf(原节点 → 新节点由调用方在分配pageId后设置)
             newNode.nextLeafPageId = this.nextLeafPageId;
-            this.nextLeafPageId = newNode.pageId; // 稍后在BPlusTree中分配pageId后更新
 
         } else {
             // 内部节点分裂: 中间键提升,右边键+子节点移到新节点
@@ -330,6 +463,7 @@ public class BPlusTreeNode {
             // 原节点保留: [k0] [k1] + [c0] [c1] [c2]
             // 新节点获得: [k3] + [c3] [c4]
             int newKeyCount = keyCount - mid - 1;
+            newNode.ensureCapacity(newKeyCount);
             newNode.keyCount = newKeyCount;
 
             // 复制键: keys[mid+1 ... keyCount-1] → newNode.keys[0 ... newKeyCount-1]
@@ -339,37 +473,242 @@ public class BPlusTreeNode {
             System.arraycopy(values, mid + 1, newNode.values, 0, newKeyCount + 1);
         }
 
-        // 更新当前节点的键数量(去掉分裂出去的部分)
+        // 更新当前节点的键数量(去掉分裂出去的部分),释放移走的引用
+        java.util.Arrays.fill(keys, mid, keyCount, null);
+        java.util.Arrays.fill(values, isLeaf ? mid : mid + 1, keyCount + 1, null);
         keyCount = mid;
+        invalidateSize();
 
         return new SplitResult(splitKey, newNode);
     }
 
+    /**
+     * 按字节找分裂点:左边的条目累计到一半字节数的位置
+     *
+     * 条目大小差别很大(变长键、Row数据)时,按键数量平分会让一边仍然放不下。
+     * 两边至少各留一个键。
+     */
+    private int splitPosition() {
+        if (keyCount < 3) {
+            throw new IllegalStateException("Cannot split node with " + keyCount + " keys");
+        }
+
+        int half = (getByteSize() - NODE_HEADER_SIZE) / 2;
+        int accumulated = 0;
+        int mid = 0;
+        while (mid < keyCount - 2) {
+            accumulated += entrySize(mid);
+            if (accumulated >= half) {
+                break;
+            }
+            mid++;
+        }
+        return Math.max(1, mid);
+    }
+
     /**
      * 分裂结果
      */
     public static class SplitResult {
-        public final int splitKey;
+        public final byte[] splitKey;
         public final BPlusTreeNode newNode;
 
-        public SplitResult(int splitKey, BPlusTreeNode newNode) {
+        public SplitResult(byte[] splitKey, BPlusTreeNode newNode) {
             this.splitKey = splitKey;
             this.newNode = newNode;
         }
     }
 
     /**
-     * 检查节点是否需要分裂
+     * 检查节点是否需要分裂(序列化后超过一页)
      */
     public boolean needsSplit() {
-        return keyCount >= MAX_CHILDREN - 1;
+        return getByteSize() > MAX_NODE_SIZE;
     }
 
     /**
-     * 检查节点是否需要合并
+     * 检查节点是否需要合并(不到半页)
      */
     public boolean needsMerge() {
-        return keyCount < MIN_CHILDREN - 1;
+        return getByteSize() < MERGE_THRESHOLD;
+    }
+
+    /**
+     * 借出index处的条目后是否仍然不低于合并阈值
+     *
+     * 用于删除时判断兄弟节点能不能借位。
+     */
+    public boolean canLend(int index) {
+        return keyCount > 1 && sizeWithout(index) >= MERGE_THRESHOLD;
+    }
+
+    /**
+     * 去掉index处的条目后序列化的字节数
+     *
+     * 叶子去掉第一个或最后一个键时公共前缀可能变长,按剩下的首尾键重新算。
+     */
+    private int sizeWithout(int index) {
+        int size = getRawSize() - rawEntrySize(index);
+        int remaining = keyCount - 1;
+        if (!isLeaf || remaining < 2) {
+            return size;
+        }
+        byte[] first = index == 0 ? keys[1] : keys[0];
+        byte[] last = index == keyCount - 1 ? keys[keyCount - 2] : keys[keyCount - 1];
+        return size - (remaining - 1) * KeyEncoder.commonPrefixLength(first, last);
+    }
+
+    /**
+     * 把right(以及内部节点的分隔键)合并进来后是否还放得下一页
+     *
+     * @param right 右边的兄弟节点
+     * @param separator 父节点中的分隔键(内部节点合并时下推)
+     */
+    public boolean canMerge(BPlusTreeNode right, byte[] separator) {
+        if (!isLeaf) {
+            int merged = getByteSize() + right.getByteSize() - NODE_HEADER_SIZE + SLOT_SIZE + separator.length;
+            return merged <= MAX_NODE_SIZE;
+        }
+
+        // 叶子:合并后的公共前缀是左边第一个键和右边最后一个键的公共前缀
+        int count = keyCount + right.keyCount;
+        int raw = getRawSize() + right.getRawSize() - NODE_HEADER_SIZE;
+        if (count >= 2) {
+            byte[] first = keyCount > 0 ? keys[0] : right.keys[0];
+            byte[] last = right.keyCount > 0 ? right.keys[right.keyCount - 1] : keys[keyCount - 1];
+            raw -= (count - 1) * KeyEncoder.commonPrefixLength(first, last);
+        }
+        return raw <= MAX_NODE_SIZE;
+    }
+
+    /**
+     * 插入这个条目后是否还放得下一页(叶子节点,不会引起分裂)
+     *
+     * 乐观插入时判断:放得下就只修改叶子,放不下才悲观地锁住路径重来。
+     */
+    public boolean canInsert(byte[] key, Object value) {
+        int size = SLOT_SIZE + key.length;
+        size += value instanceof byte[] ? SLOT_SIZE + RECORD_LENGTH_SIZE + ((byte[]) value).length : 4;
+        if (keyCount == 0) {
+            return getByteSize() + size <= MAX_NODE_SIZE;
+        }
+
+        // 插在最前或最后时公共前缀可能变短,其他键存的后缀都会变长
+        byte[] first = KeyEncoder.compare(key, keys[0]) < 0 ? key : keys[0];
+        byte[] last = KeyEncoder.compare(key, keys[keyCount - 1]) > 0 ? key : keys[keyCount - 1];
+        int prefix = KeyEncoder.commonPrefixLength(first, last);
+        return getRawSize() + size - keyCount * prefix <= MAX_NODE_SIZE;
+    }
+
+    /**
+     * 把index处的值换成value后是否还放得下一页(叶子节点)
+     *
+     * 键不变,公共前缀也不变,只差新旧两个值的大小。
+     */
+    public boolean canReplaceValue(int index, Object value) {
+        int oldSize = rawEntrySize(index);
+        int newSize = SLOT_SIZE + keys[index].length;
+        newSize += value instanceof byte[] ? SLOT_SIZE + RECORD_LENGTH_SIZE + ((byte[]) value).length : 4;
+        return getByteSize() - oldSize + newSize <= MAX_NODE_SIZE;
+    }
+
+    /**
+     * 子节点分裂时插入一个分隔键后是否还放得下一页(内部节点)
+     *
+     * 分隔键来自下层,长度按上限算。安全的节点不会继续向上分裂,
+     * 加写锁下降时可以释放它上面的所有节点(latch crabbing)。
+     */
+    public boolean isSafeForInsert() {
+        return getByteSize() + SLOT_SIZE + MAX_KEY_LENGTH + 4 <= MAX_NODE_SIZE;
+    }
+
+    /**
+     * 子节点合并时删除一个分隔键(或借位时换成更短的)后是否仍然不低于合并阈值(内部节点)
+     *
+     * 减少的字节数不超过本节点最长的分隔键。安全的节点不会继续向上合并。
+     */
+    public boolean isSafeForDelete() {
+        int maxKeyLength = 0;
+        for (int i = 0; i < keyCount; i++) {
+            maxKeyLength = Math.max(maxKeyLength, keys[i].length);
+        }
+        return keyCount > 1 && getByteSize() - (SLOT_SIZE + maxKeyLength + 4) >= MERGE_THRESHOLD;
+    }
+
+    /**
+     * 序列化后的字节数(与toBytes的长度相同)
+     *
+     * 公共前缀只存一次:不压缩的字节数减去(keyCount - 1)个前缀。
+     */
+    public int getByteSize() {
+        int prefix = getPrefixLength();
+        return prefix == 0 ? getRawSize() : getRawSize() - (keyCount - 1) * prefix;
+    }
+
+    /**
+     * 叶子所有键的公共前缀长度(内部节点和少于两个键的叶子为0)
+     *
+     * 键有序,所以就是第一个键和最后一个键的公共前缀。
+     */
+    public int getPrefixLength() {
+        if (prefixLength < 0) {
+            prefixLength = isLeaf && keyCount >= 2
+                    ? KeyEncoder.commonPrefixLength(keys[0], keys[keyCount - 1])
+                    : 0;
+        }
+        return prefixLength;
+    }
+
+    /**
+     * 不压缩前缀时序列化的字节数
+     */
+    private int getRawSize() {
+        if (rawSize < 0) {
+            int size = NODE_HEADER_SIZE;
+            for (int i = 0; i < keyCount; i++) {
+                size += rawEntrySize(i);
+            }
+            rawSize = isLeaf ? size : size + 4; // 内部节点多一个子节点指针
+        }
+        return rawSize;
+    }
+
+    /**
+     * 第index个条目占用的字节数
+     *
+     * 键槽位 + 键的后缀(去掉公共前缀),再加上子节点pageId / 整数值 / 值槽位 + Row数据。
+     */
+    public int entrySize(int index) {
+        return rawEntrySize(index) - getPrefixLength();
+    }
+
+    /**
+     * 第index个条目不压缩前缀时的字节数
+     */
+    private int rawEntrySize(int index) {
+        int size = SLOT_SIZE + keys[index].length;
+        if (isLeaf && hasBytesValues()) {
+            return size + SLOT_SIZE + RECORD_LENGTH_SIZE + rowBytesAt(index).length;
+        }
+        return size + 4;
+    }
+
+    private void invalidateSize() {
+        rawSize = -1;
+        prefixLength = -1;
+    }
+
+    /**
+     * 保证数组能放下keyCount个键和keyCount+1个值
+     */
+    private void ensureCapacity(int keyCapacity) {
+        if (keyCapacity > keys.length) {
+            int newCapacity = Math.max(keyCapacity, keys.length * 2);
+            keys = java.util.Arrays.copyOf(keys, newCapacity);
+            values = java.util.Arrays.copyOf(values, newCapacity + 1);
+        } else if (keyCapacity + 1 > values.length) {
+            values = java.util.Arrays.copyOf(values, keyCapacity + 1);
+        }
     }
 
     /**
@@ -384,6 +723,7 @@ public class BPlusTreeNode {
      */
     public void setLeaf(boolean leaf) {
         this.isLeaf = leaf;
+        invalidateSize();
     }
 
     /**
@@ -397,7 +737,9 @@ public class BPlusTreeNode {
      * 设置键数量
      */
     public void setKeyCount(int keyCount) {
+        ensureCapacity(keyCount);
         this.keyCount = keyCount;
+        invalidateSize();
     }
 
     /**
@@ -449,7 +791,9 @@ public class BPlusTreeNode {
         if (isLeaf) {
             throw new IllegalStateException("Leaf nodes have no children");
         }
+        ensureCapacity(index);
         values[index] = childPageId;
+        invalidateSize();
     }
 
     /**
@@ -464,6 +808,7 @@ public class BPlusTreeNode {
      */
     public void setValueType(byte valueType) {
         this.valueType = valueType;
+        invalidateSize();
     }
 
     @Override
@@ -475,7 +820,7 @@ public class BPlusTreeNode {
                 .append(", keys=[");
         for (int i = 0; i < keyCount; i++) {
             if (i > 0) sb.append(", ");
-            sb.append(keys[i]);
+            sb.append(java.util.HexFormat.of().formatHex(keys[i]));
         }
         sb.append("], keyCount=").append(keyCount);
 
@@ -495,125 +840,168 @@ public class BPlusTreeNode {
      * +------------------+ <- 0
      * | Magic (4 bytes)  |  0x4254504E ("BPTN" = BPlusTreeNode)
      * +------------------+ <- 4
-     * | Version (1 byte) |  当前版本=1
+     * | Version (1 byte) |  当前版本=5
      * +------------------+ <- 5
      * | Flags (1 byte)   |  bit0: isLeaf, bit1: valueType(0=INT, 1=BYTES)
      * +------------------+ <- 6
-     * | Reserved (2)     |
+     * | keyHeapEnd (2)   |  键记录区的结束偏移量(相对节点起点)
      * +------------------+ <- 8
-     * | keyCount (4)     |
+     * | keyCount (2)     |
+     * +------------------+ <- 10
+     * | prefixLength (2) |  叶子键的公共前缀长度(内部节点为0)
      * +------------------+ <- 12
      * | nextLeafPageId (4)| 仅叶子节点
      * +------------------+ <- 16
-     * | keys[] (4N)      |  每个key 4字节
+     * | keySlots[] (2N)  |  第i个键相对节点起点的偏移量,按键顺序排列
+     * +------------------+
+     * | 内部节点:        |  children[] (4(N+1)):子节点pageId
+     * | 叶子(INT):       |  values[] (4N):主键值
+     * | 叶子(BYTES):     |  valueSlots[] (2N):第i条Row数据相对节点起点的偏移量
      * +------------------+
-     * | values[] (4N/VAR)|  内部节点:子节点pageId(4字节)
-     *                   |  叶子节点(valueType=0):主键值(4字节)
-     *                   |  叶子节点(valueType=1):Row序列化数据(变长)
+     * | 公共前缀:        |  prefixLength字节,紧挨在第0个键的后缀之前
+     * | 键记录:          |  编码后的键去掉公共前缀的后缀,按键顺序紧密排列;
+     * |                  |  第i个后缀的长度 = 下一个槽位(最后一个键是keyHeapEnd) - 本槽位
+     * | Row数据:         |  [长度(2)][Row数据],按键顺序排列(仅BYTES叶子)
      * +------------------+
      *
      * 设计原则:
      * - 固定头部便于快速读取节点元信息
-     * - keys连续存储,利用CPU缓存
-     * - values根据类型灵活存储
-     * - 支持快速二分查找
+     * - 键是变长的(KeyEncoder编码),通过槽位定位(对应InnoDB的Page Directory),
+     *   所以第i个键/子节点/值都是O(1)访问,可以直接在页上二分查找
+     * - 点查直接在页内容上比较键(见peekXxx方法),不反序列化整个节点
+     * - 键没有长度前缀(由相邻槽位算出),INT键的内部节点条目只占11字节
+     * - 叶子的公共前缀只存一次,二分查找时先比一次前缀,再只比后缀(Bayer的Prefix B-tree)
+     *
+     * 版本1/2的键是4字节的int(VARCHAR存的是哈希码),顺序和新的编码不兼容;
+     * 版本3的键带2字节长度前缀;版本4没有前缀压缩,keyCount占4字节。旧版本都不再读取。
      */
 
     /** Magic Number: "BPTN" (BPlusTreeNode) */
     public static final int MAGIC = 0x4254504E;
 
-    /** 当前版本 */
-    private static final int VERSION = 1;
+    /** 当前版本(5:叶子键的公共前缀只存一次) */
+    private static final int VERSION = 5;
+
+    /** 节点头部大小(Magic到nextLeafPageId) */
+    public static final int NODE_HEADER_SIZE = 16;
+
+    /** 槽位大小:2字节(记录偏移量) */
+    private static final int SLOT_SIZE = 2;
+
+    /** Row数据的长度前缀:2字节 */
+    private static final int RECORD_LENGTH_SIZE = 2;
 
     /**
      * 序列化节点到字节数组
      *
-     * ⚠️ 简化实现:只支持INT类型的键和值
-     * 生产环境:需要支持VARCHAR、Row序列化等
+     * 先算出总长度,一次分配,按绝对位置写入。
      *
      * @return 字节数组
      */
     public byte[] toBytes() {
-        try {
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            java.nio.ByteBuffer buffer;
-
-            // 1. 写入Magic Number (4 bytes)
-            buffer = java.nio.ByteBuffer.allocate(4);
-            buffer.putInt(MAGIC);
-            baos.write(buffer.array());
-
-            // 2. 写入版本 (1 byte)
-            baos.write(VERSION);
-
-            // 3. 写入标志位 (1 byte)
-            byte flags = 0;
-            if (isLeaf) {
-                flags |= 0x01;
-            }
-            if (valueType == VALUE_TYPE_BYTES) {
-                flags |= 0x02; // bit1: 值类型为BYTES
-            }
-            baos.write(flags);
+        boolean bytesValues = isLeaf && hasBytesValues();
 
-            // 4. 写入保留字段 (2 bytes)
-            baos.write(0);
-            baos.write(0);
+        int slotsEnd = NODE_HEADER_SIZE + SLOT_SIZE * keyCount;
+        int fixedEnd = slotsEnd;
+        if (!isLeaf) {
+            fixedEnd += 4 * (keyCount + 1);
+        } else if (bytesValues) {
+            fixedEnd += SLOT_SIZE * keyCount;
+        } else {
+            fixedEnd += 4 * keyCount;
+        }
 
-            // 5. 写入keyCount (4 bytes)
-            buffer = java.nio.ByteBuffer.allocate(4);
-            buffer.putInt(keyCount);
-            baos.write(buffer.array());
+        byte[] array = new byte[getByteSize()];
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(array);
 
-            // 6. 写入nextLeafPageId (4 bytes, 仅叶子节点)
-            buffer = java.nio.ByteBuffer.allocate(4);
-            buffer.putInt(nextLeafPageId);
-            baos.write(buffer.array());
+        // 1. 头部
+        byte flags = 0;
+        if (isLeaf) {
+            flags |= 0x01;
+        }
+        if (bytesValues) {
+            flags |= 0x02; // bit1: 值类型为BYTES
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, (byte) VERSION);
+        buffer.put(5, flags);
+        int prefix = getPrefixLength();
+        buffer.putShort(8, (short) keyCount);
+        buffer.putShort(10, (short) prefix);
+        buffer.putInt(12, nextLeafPageId);
+
+        // 2. 公共前缀 + 键槽位 + 键后缀
+        int recordOffset = fixedEnd;
+        if (prefix > 0) {
+            System.arraycopy(keys[0], 0, array, recordOffset, prefix);
+            recordOffset += prefix;
+        }
+        for (int i = 0; i < keyCount; i++) {
+            int suffixLength = keys[i].length - prefix;
+            buffer.putShort(NODE_HEADER_SIZE + SLOT_SIZE * i, (short) recordOffset);
+            System.arraycopy(keys[i], prefix, array, recordOffset, suffixLength);
+            recordOffset += suffixLength;
+        }
+        buffer.putShort(6, (short) recordOffset);
 
-            // 7. 写入keys数组 (4 bytes * keyCount)
+        // 3. 子节点 / 值
+        if (!isLeaf) {
+            for (int i = 0; i < keyCount + 1; i++) {
+                buffer.putInt(slotsEnd + 4 * i, (Integer) values[i]);
+            }
+        } else if (bytesValues) {
             for (int i = 0; i < keyCount; i++) {
-                buffer = java.nio.ByteBuffer.allocate(4);
-                buffer.putInt(keys[i]);
-                baos.write(buffer.array());
+                buffer.putShort(slotsEnd + SLOT_SIZE * i, (short) recordOffset);
+                recordOffset = putRecord(buffer, recordOffset, rowBytesAt(i));
             }
-
-            // 8. 写入values数组
-            if (isLeaf) {
-                // 叶子节点:values存储数据(简化:只存储Integer)
-                // 生产环境:需要存储Row序列化数据
-                for (int i = 0; i < keyCount; i++) {
-                    Object value = values[i];
-                    if (value instanceof Integer) {
-                        buffer = java.nio.ByteBuffer.allocate(4);
-                        buffer.putInt((Integer) value);
-                        baos.write(buffer.array());
-                    } else if (value instanceof byte[]) {
-                        // Row数据(字节数组)
-                        byte[] rowBytes = (byte[]) value;
-                        // 先写入长度(2 bytes)
-                        buffer = java.nio.ByteBuffer.allocate(2);
-                        buffer.putShort((short) rowBytes.length);
-                        baos.write(buffer.array());
-                        // 再写入数据
-                        baos.write(rowBytes);
-                    } else {
-                        throw new IllegalArgumentException(
-                                "Unsupported value type: " + value.getClass());
-                    }
-                }
-            } else {
-                // 内部节点:values存储子节点pageId
-                for (int i = 0; i < keyCount + 1; i++) {
-                    buffer = java.nio.ByteBuffer.allocate(4);
-                    buffer.putInt((Integer) values[i]);
-                    baos.write(buffer.array());
+        } else {
+            for (int i = 0; i < keyCount; i++) {
+                Object value = values[i];
+                if (!(value instanceof Integer)) {
+                    throw new IllegalArgumentException(
+                            "Unsupported value type: " + (value == null ? "null" : value.getClass()));
                 }
+                buffer.putInt(slotsEnd + 4 * i, (Integer) value);
             }
+        }
+
+        return array;
+    }
+
+    private static int putRecord(java.nio.ByteBuffer buffer, int offset, byte[] bytes) {
+        buffer.putShort(offset, (short) bytes.length);
+        buffer.put(offset + RECORD_LENGTH_SIZE, bytes);
+        return offset + RECORD_LENGTH_SIZE + bytes.length;
+    }
+
+    /** 第index个键的起点(相对节点起点) */
+    private static int keyStart(java.nio.ByteBuffer buffer, int offset, int index) {
+        return slotAt(buffer, offset + NODE_HEADER_SIZE, index);
+    }
 
-            return baos.toByteArray();
-        } catch (java.io.IOException e) {
-            throw new RuntimeException("Failed to serialize node", e);
+    /** 第index个键的终点(相对节点起点):下一个键的起点,最后一个键是keyHeapEnd */
+    private static int keyEnd(java.nio.ByteBuffer buffer, int offset, int index) {
+        return index + 1 < peekKeyCount(buffer, offset)
+                ? slotAt(buffer, offset + NODE_HEADER_SIZE, index + 1)
+                : buffer.getShort(offset + 6) & 0xFFFF;
+    }
+
+    /**
+     * 叶子的值是否是Row数据
+     *
+     * 以实际的值为准:分裂出来的新叶子没有继承valueType时也能正确序列化。
+     */
+    private boolean hasBytesValues() {
+        return valueType == VALUE_TYPE_BYTES || (keyCount > 0 && values[0] instanceof byte[]);
+    }
+
+    private byte[] rowBytesAt(int index) {
+        Object value = values[index];
+        if (!(value instanceof byte[])) {
+            throw new IllegalArgumentException(
+                    "Unsupported value type: " + (value == null ? "null" : value.getClass()));
         }
+        return (byte[]) value;
     }
 
     /**
@@ -623,78 +1011,287 @@ public class BPlusTreeNode {
      * @return BPlusTreeNode对象
      */
     public static BPlusTreeNode fromBytes(byte[] data) {
-        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(data);
+        return fromBuffer(java.nio.ByteBuffer.wrap(data));
+    }
 
-        // 1. 读取并验证Magic Number
-        int magic = buffer.getInt();
-        if (magic != MAGIC) {
-            throw new IllegalArgumentException(
-                    "Invalid magic number: 0x" + Integer.toHexString(magic));
-        }
+    /**
+     * 从ByteBuffer反序列化节点(从position开始读,不复制)
+     *
+     * 用于需要修改节点的场景(插入、删除、分裂)。只读的点查用peekXxx方法直接读页内容。
+     *
+     * @param buffer 节点数据
+     * @return BPlusTreeNode对象
+     */
+    public static BPlusTreeNode fromBuffer(java.nio.ByteBuffer buffer) {
+        int offset = buffer.position();
 
-        // 2. 读取版本
-        int version = buffer.get();
-        if (version != VERSION) {
-            throw new IllegalArgumentException(
-                    "Unsupported version: " + version);
-        }
+        // 1. 读取并验证Magic Number和版本
+        checkNode(buffer, offset);
 
-        // 3. 读取标志位
-        byte flags = buffer.get();
+        // 2. 读取标志位
+        byte flags = buffer.get(offset + 5);
         boolean isLeaf = (flags & 0x01) != 0;
         boolean isBytesValue = (flags & 0x02) != 0;
 
-        // 4. 跳过保留字段 (2 bytes)
-        buffer.getShort();
-
-        // 5. 读取keyCount
-        int keyCount = buffer.getInt();
-
-        // 6. 读取nextLeafPageId
-        int nextLeafPageId = buffer.getInt();
+        // 3. 读取keyCount和nextLeafPageId
+        int keyCount = peekKeyCount(buffer, offset);
+        int nextLeafPageId = buffer.getInt(offset + 12);
 
         // 创建节点
         BPlusTreeNode node = new BPlusTreeNode(isLeaf);
+        node.ensureCapacity(keyCount);
         node.keyCount = keyCount;
         node.nextLeafPageId = nextLeafPageId;
 
         // 设置值类型
         node.valueType = isBytesValue ? VALUE_TYPE_BYTES : VALUE_TYPE_INT;
 
-        // 7. 读取keys数组
+        // 4. 读取keys数组
         for (int i = 0; i < keyCount; i++) {
-            node.keys[i] = buffer.getInt();
+            node.keys[i] = peekKey(buffer, offset, i);
         }
 
-        // 8. 读取values数组
-        if (isLeaf) {
-            // 叶子节点
-            if (node.valueType == VALUE_TYPE_BYTES) {
-                // BYTES类型:Row数据
-                for (int i = 0; i < keyCount; i++) {
-                    // 读取长度(2 bytes)
-                    short len = buffer.getShort();
-                    // 读取数据
-                    byte[] rowBytes = new byte[len];
-                    buffer.get(rowBytes);
-                    node.values[i] = rowBytes;
-                }
-            } else {
-                // INT类型:主键值
-                for (int i = 0; i < keyCount; i++) {
-                    node.values[i] = buffer.getInt();
-                }
+        // 5. 读取values数组
+        if (!isLeaf) {
+            for (int i = 0; i < keyCount + 1; i++) {
+                node.values[i] = peekChild(buffer, offset, i);
+            }
+        } else if (isBytesValue) {
+            for (int i = 0; i < keyCount; i++) {
+                java.nio.ByteBuffer slice = peekValueSlice(buffer, offset, i);
+                byte[] rowBytes = new byte[slice.remaining()];
+                slice.get(rowBytes);
+                node.values[i] = rowBytes;
             }
         } else {
-            // 内部节点:子节点pageId
-            for (int i = 0; i < keyCount + 1; i++) {
-                node.values[i] = buffer.getInt();
+            for (int i = 0; i < keyCount; i++) {
+                node.values[i] = peekIntValue(buffer, offset, i);
             }
         }
 
         return node;
     }
 
+    // ==================== 在页内容上直接读取(不反序列化) ====================
+
+    /**
+     * 页内容中offset处是否是一个B+树节点
+     *
+     * @param buffer 页数据(按绝对位置读取,大端序)
+     * @param offset 节点数据在页中的起始位置
+     */
+    public static boolean isNode(java.nio.ByteBuffer buffer, int offset) {
+        return buffer.limit() >= offset + NODE_HEADER_SIZE && buffer.getInt(offset) == MAGIC;
+    }
+
+    /**
+     * 是否为叶子节点
+     */
+    public static boolean peekIsLeaf(java.nio.ByteBuffer buffer, int offset) {
+        return (buffer.get(offset + 5) & 0x01) != 0;
+    }
+
+    /**
+     * 叶子的值是否是Row数据(否则是4字节整数)
+     */
+    public static boolean peekIsBytesValue(java.nio.ByteBuffer buffer, int offset) {
+        return (buffer.get(offset + 5) & 0x02) != 0;
+    }
+
+    /**
+     * 键数量
+     */
+    public static int peekKeyCount(java.nio.ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + 8) & 0xFFFF;
+    }
+
+    /**
+     * 叶子键的公共前缀长度(内部节点为0)
+     */
+    public static int peekPrefixLength(java.nio.ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + 10) & 0xFFFF;
+    }
+
+    /**
+     * 第index个键(公共前缀 + 后缀,复制一份)
+     */
+    public static byte[] peekKey(java.nio.ByteBuffer buffer, int offset, int index) {
+        int prefix = peekPrefixLength(buffer, offset);
+        int start = keyStart(buffer, offset, index);
+        int suffixLength = keyEnd(buffer, offset, index) - start;
+        byte[] key = new byte[prefix + suffixLength];
+        if (prefix > 0) {
+            buffer.get(offset + prefixStart(buffer, offset), key, 0, prefix);
+        }
+        buffer.get(offset + start, key, prefix, suffixLength);
+        return key;
+    }
+
+    /**
+     * 第index个键与key比较,不复制键
+     *
+     * @return 负数/0/正数分别表示页上的键小于/等于/大于key
+     */
+    public static int peekCompareKey(java.nio.ByteBuffer buffer, int offset, int index, byte[] key) {
+        int prefix = peekPrefixLength(buffer, offset);
+        if (prefix > 0) {
+            int cmp = comparePrefix(buffer, offset, prefix, key);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        int start = keyStart(buffer, offset, index);
+        int length = keyEnd(buffer, offset, index) - start;
+        return compareRegion(buffer, offset + start, length, key, prefix, key.length);
+    }
+
+    /**
+     * 公共前缀与key的开头比较:key比前缀短而且是它的前缀时,页上的键更大
+     */
+    private static int comparePrefix(java.nio.ByteBuffer buffer, int offset, int prefix, byte[] key) {
+        int common = Math.min(prefix, key.length);
+        int cmp = compareRegion(buffer, offset + prefixStart(buffer, offset), common, key, 0, common);
+        return cmp != 0 ? cmp : prefix - common;
+    }
+
+    /**
+     * 页上[start, start + length)与key[from, to)按无符号字典序比较
+     */
+    private static int compareRegion(java.nio.ByteBuffer buffer, int start, int length, byte[] key, int from, int to) {
+        if (buffer.hasArray()) {
+            int base = buffer.arrayOffset() + start;
+            return java.util.Arrays.compareUnsigned(buffer.array(), base, base + length, key, from, to);
+        }
+
+        int common = Math.min(length, to - from);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.toUnsignedInt(buffer.get(start + i)) - Byte.toUnsignedInt(key[from + i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - (to - from);
+    }
+
+    /**
+     * 第index个子节点的页号(内部节点,0~keyCount)
+     */
+    public static int peekChild(java.nio.ByteBuffer buffer, int offset, int index) {
+        return buffer.getInt(fixedRegionStart(buffer, offset) + 4 * index);
+    }
+
+    /**
+     * 第index个整数值(INT叶子)
+     */
+    public static int peekIntValue(java.nio.ByteBuffer buffer, int offset, int index) {
+        return buffer.getInt(fixedRegionStart(buffer, offset) + 4 * index);
+    }
+
+    /**
+     * 第index个Row数据(BYTES叶子),返回页内容上的只读切片,不复制
+     */
+    public static java.nio.ByteBuffer peekValueSlice(java.nio.ByteBuffer buffer, int offset, int index) {
+        int recordStart = offset + slotAt(buffer, fixedRegionStart(buffer, offset), index);
+        int length = buffer.getShort(recordStart) & 0xFFFF;
+        return buffer.slice(recordStart + RECORD_LENGTH_SIZE, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * 在页内容上二分查找键的位置,语义与findKeyPosition相同
+     *
+     * @return 键的位置(0~keyCount),如果存在返回对应位置
+     */
+    public static int peekFindKeyPosition(java.nio.ByteBuffer buffer, int offset, byte[] key) {
+        int keyCount = peekKeyCount(buffer, offset);
+        int prefix = peekPrefixLength(buffer, offset);
+
+        // 公共前缀只比一次:key不以它开头时要么在所有键之前,要么在所有键之后
+        if (prefix > 0) {
+            int cmp = comparePrefix(buffer, offset, prefix, key);
+            if (cmp != 0) {
+                return cmp > 0 ? 0 : keyCount;
+            }
+        }
+
+        int left = 0;
+        int right = keyCount - 1;
+
+        while (left <= right) {
+            int mid = (left + right) >>> 1;
+            int start = keyStart(buffer, offset, mid);
+            int cmp = compareRegion(buffer, offset + start, keyEnd(buffer, offset, mid) - start,
+                    key, prefix, key.length);
+
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+
+        return left;
+    }
+
+    /**
+     * 在页内容上查找key应该下降到的子节点,语义与findChildIndex相同
+     *
+     * @return 子节点下标(0~keyCount)
+     */
+    public static int peekFindChildIndex(java.nio.ByteBuffer buffer, int offset, byte[] key) {
+        int pos = peekFindKeyPosition(buffer, offset, key);
+        if (pos < peekKeyCount(buffer, offset) && peekCompareKey(buffer, offset, pos, key) == 0) {
+            return pos + 1;
+        }
+        return pos;
+    }
+
+    /** 公共前缀的起点(相对节点起点):紧挨在第0个键的后缀之前 */
+    private static int prefixStart(java.nio.ByteBuffer buffer, int offset) {
+        return keyStart(buffer, offset, 0) - peekPrefixLength(buffer, offset);
+    }
+
+    /** 键槽位之后的定长区域(子节点/整数值/值槽位)的起点 */
+    private static int fixedRegionStart(java.nio.ByteBuffer buffer, int offset) {
+        return offset + NODE_HEADER_SIZE + SLOT_SIZE * peekKeyCount(buffer, offset);
+    }
+
+    private static int slotAt(java.nio.ByteBuffer buffer, int slotsStart, int index) {
+        return buffer.getShort(slotsStart + SLOT_SIZE * index) & 0xFFFF;
+    }
+
+    private static void checkNode(java.nio.ByteBuffer buffer, int offset) {
+        int magic = buffer.getInt(offset);
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException(
+                    "Invalid magic number: 0x" + Integer.toHexString(magic));
+        }
+
+        int version = buffer.get(offset + 4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported version: " + version);
+        }
+    }
+
+    /**
+     * 不反序列化整个节点,直接从页数据中读出下一个叶子的页号
+     *
+     * 用于叶子链表预读:预读线程只需要nextLeafPageId。
+     *
+     * @param buffer 页数据(按绝对位置读取,大端序)
+     * @param offset 节点数据在页中的起始位置
+     * @return 下一个叶子的页号,不是叶子节点或不是B+树节点时返回-1
+     */
+    public static int peekNextLeafPageId(java.nio.ByteBuffer buffer, int offset) {
+        if (!isNode(buffer, offset) || !peekIsLeaf(buffer, offset)) {
+            return -1;
+        }
+        return buffer.getInt(offset + 12);
+    }
+
     /**
      * 序列化叶子节点的Row数据(辅助方法)
      *
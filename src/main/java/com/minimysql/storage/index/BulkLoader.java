@@ -0,0 +1,185 @@
+package com.minimysql.storage.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BulkLoader - 自底向上批量构建B+树
+ *
+ * 输入是按键排好序的条目(见ExternalSorter),从左到右依次填满叶子,
+ * 每填满一个节点就把它写出,同时把分隔键交给上一层;上一层满了再交给更上一层。
+ * 每一层只有最右边的一个节点在内存中,最后剩下的最上层节点写到根页(pageId=0)。
+ * 对应InnoDB排序建索引的BtrBulk(btr0bulk.cc):逐层PageBulk,页满后提交到父层。
+ *
+ * 与逐条insertKey相比:
+ * - 不需要每条都从根下降
+ * - 不会分裂,每个页只写一次
+ * - 叶子按分配顺序首尾相连,范围扫描基本是顺序读
+ *
+ * 叶子的公共前缀只存一次,节点大小按压缩后的字节数计算;提升到父层的分隔键做后缀截断,
+ * 与逐条插入时的叶子分裂相同(见BPlusTreeNode)。
+ *
+ * 填充因子:每个节点只填到页的fillFactor,给之后的插入留空间,
+ * 对应innodb_fill_factor(默认100,实际保留1/16)。
+ *
+ * 节点通过BPlusTree写入BufferPool,随刷脏页落到表文件/index_N.db。
+ *
+ * 用法:
+ * <pre>
+ * BulkLoader loader = new BulkLoader(index, BulkLoader.DEFAULT_FILL_FACTOR);
+ * for (...) loader.add(key, value);   // 键非递减
+ * loader.finish();
+ * </pre>
+ */
+public final class BulkLoader {
+
+    /** 默认填充因子:每页保留1/16的空间(InnoDB的默认值) */
+    public static final double DEFAULT_FILL_FACTOR = 15.0 / 16;
+
+    private final BPlusTree tree;
+
+    /** 节点写出前的目标大小(字节) */
+    private final int targetSize;
+
+    /** 每一层最右边正在填充的节点,下标0是叶子层 */
+    private final List<BPlusTreeNode> levels = new ArrayList<>();
+
+    private byte[] lastKey;
+
+    private long entryCount;
+
+    private boolean finished;
+
+    /**
+     * @param tree 要构建的B+树,必须是空树
+     * @param fillFactor 填充因子,(0, 1]
+     */
+    public BulkLoader(BPlusTree tree, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Fill factor must be in (0, 1]: " + fillFactor);
+        }
+        if (!tree.isEmpty()) {
+            throw new IllegalStateException("Bulk load requires an empty index: " + tree.getIndexName());
+        }
+
+        this.tree = tree;
+        this.targetSize = (int) (BPlusTreeNode.MAX_NODE_SIZE * fillFactor);
+        levels.add(tree.createRootNode());
+    }
+
+    /**
+     * 追加一个条目
+     *
+     * @param key 编码后的键,不能小于上一个键
+     * @param value 值(Integer或byte[],与逐条插入相同)
+     * @throws IllegalArgumentException 键没有排序,或者条目超过上限
+     */
+    public void add(byte[] key, Object value) {
+        if (finished) {
+            throw new IllegalStateException("Bulk load already finished");
+        }
+        if (lastKey != null && KeyEncoder.compare(key, lastKey) < 0) {
+            throw new IllegalArgumentException("Bulk load keys must be sorted");
+        }
+        BPlusTree.checkEntrySize(key, value);
+
+        BPlusTreeNode leaf = levels.get(0);
+        leaf.insertKeyValue(key, value);
+
+        if (leaf.getByteSize() > targetSize && leaf.getKeyCount() > 1) {
+            // 放不下了:这个条目移到新叶子,写出当前叶子
+            leaf.removeKeyValue(leaf.getKeyCount() - 1);
+
+            int leafPageId = pageIdOf(leaf);
+            int nextPageId = tree.getPageManager().allocatePage();
+            leaf.setNextLeafPageId(nextPageId);
+            tree.saveNode(leaf);
+
+            BPlusTreeNode next = tree.createRootNode();
+            next.setPageId(nextPageId);
+            next.insertKeyValue(key, value);
+            levels.set(0, next);
+
+            // 新叶子的第一个键复制到父层,截断成能区分两边的最短前缀
+            addSeparator(1, leafPageId, KeyEncoder.shortestSeparator(lastKey, key), nextPageId);
+        }
+
+        lastKey = key;
+        entryCount++;
+    }
+
+    /**
+     * 写出所有节点,最上层的节点成为根
+     *
+     * @return 加载的条目数
+     */
+    public long finish() {
+        if (finished) {
+            throw new IllegalStateException("Bulk load already finished");
+        }
+        finished = true;
+
+        if (entryCount == 0) {
+            return 0; // 保持原来的空根
+        }
+
+        // 除最上层外,每层最右边的节点都已经分配了页
+        int top = levels.size() - 1;
+        for (int level = 0; level < top; level++) {
+            tree.saveNode(levels.get(level));
+        }
+
+        BPlusTreeNode root = levels.get(top);
+        root.setPageId(BPlusTree.ROOT_PAGE_ID);
+        tree.saveNode(root);
+        tree.setHeight(levels.size());
+
+        return entryCount;
+    }
+
+    /**
+     * 把(分隔键, 右边的子节点)追加到level层
+     *
+     * @param level 层(1是叶子的父层)
+     * @param leftPageId 分隔键左边的子节点(这一层还没有节点时成为第0个子节点)
+     * @param key 分隔键
+     * @param rightPageId 分隔键右边的子节点
+     */
+    private void addSeparator(int level, int leftPageId, byte[] key, int rightPageId) {
+        if (level == levels.size()) {
+            // 下一层的第一个节点刚写出,长出新的一层
+            BPlusTreeNode node = new BPlusTreeNode(false);
+            node.setChild(0, leftPageId);
+            levels.add(node);
+        }
+
+        BPlusTreeNode node = levels.get(level);
+        node.insertChildAt(node.getKeyCount(), key, rightPageId);
+
+        if (node.getByteSize() > targetSize && node.getKeyCount() > 1) {
+            // 放不下了:分隔键提升到更上一层,右边的子节点成为新节点的第0个子节点
+            node.removeChild(node.getKeyCount() - 1);
+
+            int nodePageId = pageIdOf(node);
+            tree.saveNode(node);
+
+            BPlusTreeNode next = new BPlusTreeNode(false);
+            int nextPageId = tree.getPageManager().allocatePage();
+            next.setPageId(nextPageId);
+            next.setChild(0, rightPageId);
+            levels.set(level, next);
+
+            addSeparator(level + 1, nodePageId, key, nextPageId);
+        }
+    }
+
+    /**
+     * 节点的页号,每层第一个节点在写出时才分配(如果它一直没写出,就是根)
+     */
+    private int pageIdOf(BPlusTreeNode node) {
+        if (node.getPageId() < 0) {
+            node.setPageId(tree.getPageManager().allocatePage());
+        }
+        return node.getPageId();
+    }
+}
@@ -0,0 +1,289 @@
+package com.minimysql.storage.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * ExternalSorter - 索引条目的外部排序
+ *
+ * 批量建索引前先把(键, 值)按键排序:内存中攒到预算上限就排序写成一个临时文件(run),
+ * 最后多路归并所有run。数据量小于预算时不写文件,直接在内存中排序。
+ * 对应InnoDB在线建索引的row_merge_sort(merge file + 多路归并)。
+ *
+ * 值只支持两种:Integer(二级索引的主键)和byte[](聚簇索引的行记录)。
+ * 键相同的条目保持加入的顺序(稳定排序,归并时按run的先后)。
+ *
+ * 用法:add()加入所有条目 → sorted()按键顺序遍历 → close()删除临时文件
+ */
+final class ExternalSorter implements Closeable {
+
+    /** 默认内存预算:64MB */
+    static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /** 每个条目除键和值之外的估计内存开销(对象头、引用、ArrayList槽位) */
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private static final byte VALUE_INT = 0;
+    private static final byte VALUE_BYTES = 1;
+
+    /** 排序后的条目 */
+    static final class Entry {
+        final byte[] key;
+        final Object value;
+
+        Entry(byte[] key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final long memoryBudget;
+
+    /** 临时文件目录,null表示系统临时目录 */
+    private final Path tempDir;
+
+    private final List<Entry> buffer = new ArrayList<>();
+    private long bufferedBytes;
+
+    /** 已经写出的有序run文件 */
+    private final List<Path> runs = new ArrayList<>();
+
+    private final List<RunReader> openReaders = new ArrayList<>();
+
+    private boolean sorting;
+
+    /**
+     * @param memoryBudget 内存中最多缓存的字节数(估计值),超过后写出一个run
+     * @param tempDir 临时文件目录,null表示系统临时目录
+     */
+    ExternalSorter(long memoryBudget, Path tempDir) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 加入一个条目
+     *
+     * @param key 编码后的键
+     * @param value Integer或byte[]
+     */
+    void add(byte[] key, Object value) {
+        if (sorting) {
+            throw new IllegalStateException("Cannot add entries after sorted() was called");
+        }
+        if (!(value instanceof Integer) && !(value instanceof byte[])) {
+            throw new IllegalArgumentException("Unsupported value type: "
+                    + (value == null ? "null" : value.getClass().getSimpleName()));
+        }
+
+        buffer.add(new Entry(key, value));
+        bufferedBytes += key.length + valueSize(value) + ENTRY_OVERHEAD;
+        if (bufferedBytes >= memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * 写出的run文件数(0表示全部在内存中排序)
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * 按键顺序遍历所有条目
+     *
+     * 只能调用一次;遍历完成后调用close()删除临时文件。
+     */
+    Iterator<Entry> sorted() {
+        if (sorting) {
+            throw new IllegalStateException("sorted() can only be called once");
+        }
+        sorting = true;
+
+        if (runs.isEmpty()) {
+            sortBuffer();
+            return buffer.iterator();
+        }
+
+        spill();
+        return new MergeIterator();
+    }
+
+    @Override
+    public void close() {
+        for (RunReader reader : openReaders) {
+            reader.close();
+        }
+        openReaders.clear();
+
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete sort run: " + run, e);
+            }
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void sortBuffer() {
+        // List.sort是稳定排序:键相同的条目保持加入的顺序
+        buffer.sort((a, b) -> KeyEncoder.compare(a.key, b.key));
+    }
+
+    /**
+     * 把内存中的条目排序后写成一个run文件
+     */
+    private void spill() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        sortBuffer();
+
+        try {
+            Path run = tempDir == null
+                    ? Files.createTempFile("minimysql-sort-", ".run")
+                    : Files.createTempFile(tempDir, "minimysql-sort-", ".run");
+            runs.add(run);
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                for (Entry entry : buffer) {
+                    out.writeInt(entry.key.length);
+                    out.write(entry.key);
+                    if (entry.value instanceof Integer) {
+                        out.writeByte(VALUE_INT);
+                        out.writeInt((Integer) entry.value);
+                    } else {
+                        byte[] bytes = (byte[]) entry.value;
+                        out.writeByte(VALUE_BYTES);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write sort run", e);
+        }
+
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private static int valueSize(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : 4;
+    }
+
+    /**
+     * 顺序读取一个run文件
+     */
+    private static final class RunReader {
+        private final int runIndex;
+        private final DataInputStream in;
+        private Entry current;
+
+        RunReader(int runIndex, Path run) throws IOException {
+            this.runIndex = runIndex;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        /**
+         * 读下一个条目,读完返回false
+         */
+        boolean advance() {
+            try {
+                int keyLength;
+                try {
+                    keyLength = in.readInt();
+                } catch (EOFException e) {
+                    current = null;
+                    return false;
+                }
+
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                Object value;
+                if (in.readByte() == VALUE_INT) {
+                    value = in.readInt();
+                } else {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    value = bytes;
+                }
+                current = new Entry(key, value);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read sort run", e);
+            }
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close sort run", e);
+            }
+        }
+    }
+
+    /**
+     * 多路归并:每次取出当前键最小的run的条目,键相同时取先写出的run
+     */
+    private final class MergeIterator implements Iterator<Entry> {
+        private final PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> {
+            int cmp = KeyEncoder.compare(a.current.key, b.current.key);
+            return cmp != 0 ? cmp : Integer.compare(a.runIndex, b.runIndex);
+        });
+
+        MergeIterator() {
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader reader = new RunReader(i, runs.get(i));
+                    openReaders.add(reader);
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open sort runs", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            RunReader reader = heap.poll();
+            if (reader == null) {
+                throw new NoSuchElementException();
+            }
+
+            Entry entry = reader.current;
+            if (reader.advance()) {
+                heap.add(reader);
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.minimysql.storage.index;
+
+/**
+ * IndexCursor - B+树游标
+ *
+ * 在索引的一个键范围上双向移动,每次只停在一个条目上,不把范围内的条目收集到列表里。
+ * 对应InnoDB的持久游标(btr_pcur_t):LIMIT、EXISTS这类只要前几行的查询读到够了就关闭,
+ * 不会把整个范围读一遍。
+ *
+ * 范围:
+ * - 下界/上界可以为null(不限),各自可以是包含或不包含
+ * - 边界按前缀比较(KeyEncoder.comparePrefix):非唯一二级索引的键是(value, pk),
+ *   以(value)为包含的上界时(value, 任何pk)都在范围内,不包含的下界时都不在范围内
+ *
+ * 定位与移动:
+ * - seekToFirst / seekToLast / seek 定位,next / prev 移动,返回值都是isValid()
+ * - 移出范围后游标无效,需要重新定位
+ *
+ * 资源:
+ * - 两次调用之间只pin住当前叶子(不加页锁),写者可以修改这个叶子;
+ *   下一次移动时发现页版本变了,就按当前键重新从根下降(和LeafChainIterator一样)
+ * - 值在调用value()时才从页上复制
+ * - 用完必须close(),否则当前叶子一直被pin住,不能被淘汰
+ *
+ * 索引的键必须唯一(聚簇索引、唯一二级索引、(value, pk)的非唯一二级索引都是),
+ * 按键重新定位时才能准确地跳过已经访问过的条目。
+ *
+ * 使用示例:
+ * <pre>
+ * try (IndexCursor cursor = tree.openCursor(KeyEncoder.encodeInt(1), true, null, false)) {
+ *     for (cursor.seekToFirst(); cursor.isValid(); cursor.next()) {
+ *         byte[] key = cursor.key();
+ *         Object value = cursor.value();
+ *     }
+ * }
+ * </pre>
+ *
+ * "Good taste": 游标只是一个位置(叶子页号 + 下标 + 页版本号 + 当前键),
+ * 位置失效时用当前键恢复,不需要在写路径上通知游标
+ */
+public interface IndexCursor extends AutoCloseable {
+
+    /**
+     * 定位到范围内的第一个条目
+     *
+     * @return 是否定位到了条目
+     */
+    boolean seekToFirst();
+
+    /**
+     * 定位到范围内的最后一个条目
+     *
+     * @return 是否定位到了条目
+     */
+    boolean seekToLast();
+
+    /**
+     * 定位到范围内第一个不小于key的条目
+     *
+     * key小于下界时从下界开始。
+     *
+     * @param key 编码后的键
+     * @return 是否定位到了条目
+     */
+    boolean seek(byte[] key);
+
+    /**
+     * 移动到下一个条目
+     *
+     * @return 是否还在范围内,游标无效时返回false
+     */
+    boolean next();
+
+    /**
+     * 移动到上一个条目
+     *
+     * @return 是否还在范围内,游标无效时返回false
+     */
+    boolean prev();
+
+    /**
+     * 游标是否停在一个条目上
+     */
+    boolean isValid();
+
+    /**
+     * 当前条目的键
+     *
+     * @return 编码后的键
+     * @throws IllegalStateException 游标无效
+     */
+    byte[] key();
+
+    /**
+     * 当前条目的值(第一次调用时从页上读取)
+     *
+     * @return 值,与BPlusTreeNode.getValue的类型一致;定位之后条目被并发删除时返回null
+     * @throws IllegalStateException 游标无效
+     */
+    Object value();
+
+    /**
+     * 关闭游标,释放pin住的叶子
+     *
+     * 可以重复调用;关闭后不能再定位。
+     */
+    @Override
+    void close();
+}
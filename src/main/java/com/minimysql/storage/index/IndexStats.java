@@ -0,0 +1,200 @@
+package com.minimysql.storage.index;
+
+/**
+ * IndexStats - B+树索引统计快照
+ *
+ * 由BPlusTree.getStats()生成,逐层遍历所有节点汇总。
+ * 对应InnoDB的mysql.innodb_index_stats(n_leaf_pages、size)和
+ * INFORMATION_SCHEMA.INNODB_CMP中压缩效果的观察。
+ *
+ * 统计项:
+ * - 高度、叶子页数、内部节点页数、条目数
+ * - 叶子键的原始字节数和前缀压缩后实际存储的字节数(压缩比)
+ * - 内部节点分隔键的数量和字节数(后缀截断的效果:平均分隔键长度 vs 平均键长度)
+ * - 节点占用的字节数(填充率)
+ *
+ * 收集时逐个节点加共享锁,快照在节点之间不是原子的,用于观察压缩效果足够。
+ *
+ * "Good taste": 快照是普通对象,拿到之后不会再变,也不持有任何锁
+ */
+public class IndexStats {
+
+    private int height;
+
+    private int leafPages;
+    private int internalPages;
+    private long entries;
+
+    private long rawKeyBytes;
+    private long storedKeyBytes;
+
+    private long separatorCount;
+    private long separatorBytes;
+
+    private long usedBytes;
+
+    IndexStats() {
+    }
+
+    void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * 累加一个节点
+     *
+     * 叶子的公共前缀只算一次存储字节;内部节点的键都是分隔键。
+     */
+    void addNode(BPlusTreeNode node) {
+        usedBytes += node.getByteSize();
+
+        int keyCount = node.getKeyCount();
+        if (!node.isLeaf()) {
+            internalPages++;
+            separatorCount += keyCount;
+            for (int i = 0; i < keyCount; i++) {
+                separatorBytes += node.getKey(i).length;
+            }
+            return;
+        }
+
+        leafPages++;
+        entries += keyCount;
+        int prefix = node.getPrefixLength();
+        for (int i = 0; i < keyCount; i++) {
+            int length = node.getKey(i).length;
+            rawKeyBytes += length;
+            storedKeyBytes += length - prefix;
+        }
+        if (keyCount > 0) {
+            storedKeyBytes += prefix;
+        }
+    }
+
+    /**
+     * 树高度(只有根叶子时为1)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 叶子页数
+     */
+    public int getLeafPages() {
+        return leafPages;
+    }
+
+    /**
+     * 内部节点页数
+     */
+    public int getInternalPages() {
+        return internalPages;
+    }
+
+    /**
+     * 总页数
+     */
+    public int getTotalPages() {
+        return leafPages + internalPages;
+    }
+
+    /**
+     * 叶子中的条目数
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * 叶子键的原始字节数(每个键完整存储时)
+     */
+    public long getRawKeyBytes() {
+        return rawKeyBytes;
+    }
+
+    /**
+     * 叶子键实际存储的字节数(公共前缀每页只存一次)
+     */
+    public long getStoredKeyBytes() {
+        return storedKeyBytes;
+    }
+
+    /**
+     * 叶子键的压缩比
+     *
+     * @return 原始字节数 / 实际存储字节数,没有键时返回1
+     */
+    public double getKeyCompressionRatio() {
+        return storedKeyBytes == 0 ? 1.0 : (double) rawKeyBytes / storedKeyBytes;
+    }
+
+    /**
+     * 内部节点中分隔键的数量
+     */
+    public long getSeparatorCount() {
+        return separatorCount;
+    }
+
+    /**
+     * 内部节点中分隔键的总字节数
+     */
+    public long getSeparatorBytes() {
+        return separatorBytes;
+    }
+
+    /**
+     * 平均分隔键长度(后缀截断后),没有内部节点时返回0
+     */
+    public double getAverageSeparatorLength() {
+        return separatorCount == 0 ? 0.0 : (double) separatorBytes / separatorCount;
+    }
+
+    /**
+     * 平均键长度(叶子中的完整键),没有键时返回0
+     */
+    public double getAverageKeyLength() {
+        return entries == 0 ? 0.0 : (double) rawKeyBytes / entries;
+    }
+
+    /**
+     * 内部节点的平均扇出(子节点数),没有内部节点时返回0
+     */
+    public double getAverageFanout() {
+        return internalPages == 0 ? 0.0 : (double) (separatorCount + internalPages) / internalPages;
+    }
+
+    /**
+     * 节点序列化后占用的字节数
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 平均填充率
+     *
+     * @return 占用字节数 / (页数 * 节点最大字节数)
+     */
+    public double getFillFactor() {
+        int pages = getTotalPages();
+        return pages == 0 ? 0.0 : (double) usedBytes / ((long) pages * BPlusTreeNode.MAX_NODE_SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStats{" +
+                "height=" + height +
+                ", leafPages=" + leafPages +
+                ", internalPages=" + internalPages +
+                ", entries=" + entries +
+                ", rawKeyBytes=" + rawKeyBytes +
+                ", storedKeyBytes=" + storedKeyBytes +
+                ", keyCompressionRatio=" + String.format("%.2f", getKeyCompressionRatio()) +
+                ", separatorCount=" + separatorCount +
+                ", averageSeparatorLength=" + String.format("%.1f", getAverageSeparatorLength()) +
+                ", averageKeyLength=" + String.format("%.1f", getAverageKeyLength()) +
+                ", fillFactor=" + String.format("%.2f", getFillFactor()) +
+                '}';
+    }
+}
@@ -0,0 +1,327 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.table.DataType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * KeyEncoder - 保序的索引键编码(memcomparable)
+ *
+ * 把列值编码成字节串,使字节串的无符号字典序与列值的自然顺序一致。
+ * B+树只需要一种比较:Arrays.compareUnsigned,不关心列类型,
+ * 也可以直接在页内容上比较(见BPlusTreeNode.peekCompareKey)。
+ * 对应InnoDB的rec_get_offsets/cmp_dtuple_rec(按列类型比较),
+ * 以及MyRocks/TiDB的memcomparable格式(编码后按字节比较)。
+ *
+ * 编码格式(每一列):
+ * - 1字节NULL标记:0x00=NULL(排在最前),0x01=非NULL
+ * - INT: 4字节大端序,符号位取反(负数排在正数前面)
+ * - BIGINT: 8字节大端序,符号位取反
+ * - DATE/TIMESTAMP: 毫秒时间戳,同BIGINT
+ * - DOUBLE: IEEE 754位模式,正数符号位取反,负数所有位取反;-0.0归一为0.0,NaN归一为一个值
+ * - BOOLEAN: 1字节,0=false,1=true
+ * - VARCHAR: UTF-8字节,其中的0x00转义为0x00 0xFF,以0x00 0x00结尾
+ *   (结尾比任何字符都小,所以"ab" < "abc";UTF-8的字节序就是码点顺序)
+ *
+ * 多列键(组合索引)就是各列编码首尾相接:每一列都能自己确定长度,
+ * 所以前缀相同时按下一列比较,与逐列比较的结果一致。
+ *
+ * "Good taste": 类型相关的逻辑全部在编码时处理,比较时没有任何特殊情况
+ *
+ * 注意: 排序规则是二进制(utf8mb4_bin),不是MySQL默认的大小写不敏感排序规则
+ */
+public final class KeyEncoder {
+
+    /** NULL标记 */
+    private static final byte NULL_MARKER = 0x00;
+
+    /** 非NULL标记 */
+    private static final byte NOT_NULL_MARKER = 0x01;
+
+    /** VARCHAR中0x00的转义字节 */
+    private static final byte ESCAPED_ZERO = (byte) 0xFF;
+
+    private KeyEncoder() {
+    }
+
+    /**
+     * 编码单列的值
+     *
+     * @param type 列类型
+     * @param value 列值,可以为null
+     * @return 编码后的键
+     */
+    public static byte[] encode(DataType type, Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        appendColumn(out, type, value);
+        return out.toByteArray();
+    }
+
+    /**
+     * 编码多列的值(组合索引)
+     *
+     * @param types 各列类型
+     * @param values 各列的值,数量必须和类型一致
+     * @return 编码后的键
+     */
+    public static byte[] encode(List<DataType> types, List<?> values) {
+        if (types.size() != values.size()) {
+            throw new IllegalArgumentException(
+                    "Key has " + values.size() + " values but " + types.size() + " columns");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * types.size());
+        for (int i = 0; i < types.size(); i++) {
+            appendColumn(out, types.get(i), values.get(i));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 按Java类型推断列类型后编码
+     *
+     * 用于不知道列定义的场景(Index接口的Object参数)。
+     * byte[]视为已经编码好的键,原样返回。
+     *
+     * @param value 列值
+     * @return 编码后的键
+     */
+    public static byte[] encode(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return encode(inferType(value), value);
+    }
+
+    /**
+     * 编码INT值(最常用的键,避免装箱和类型判断)
+     */
+    public static byte[] encodeInt(int value) {
+        byte[] key = new byte[5];
+        key[0] = NOT_NULL_MARKER;
+        int flipped = value ^ Integer.MIN_VALUE;
+        key[1] = (byte) (flipped >>> 24);
+        key[2] = (byte) (flipped >>> 16);
+        key[3] = (byte) (flipped >>> 8);
+        key[4] = (byte) flipped;
+        return key;
+    }
+
+    /**
+     * 比较两个编码后的键(无符号字典序)
+     *
+     * @return 负数/0/正数分别表示a小于/等于/大于b
+     */
+    public static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    /**
+     * 键是否不大于范围上界(前缀包含)
+     *
+     * 只比较两者共同长度的部分:上界是组合键的前几列时,
+     * 前缀等于上界的所有键都在范围内,例如(value)包含所有(value, pk)。
+     * 单列键的编码自带结尾,"abc"不会被当成"ab"的前缀。
+     *
+     * @param key 键
+     * @param upperBound 上界(包含)
+     */
+    public static boolean withinUpperBound(byte[] key, byte[] upperBound) {
+        return comparePrefix(key, upperBound) <= 0;
+    }
+
+    /**
+     * 只比较键和边界共同长度的部分
+     *
+     * 边界是组合键的前几列时,前缀等于边界的键比较结果为0,
+     * 用于按前缀判断范围的两端:(value, pk)既不大于也不小于(value)。
+     *
+     * @param key 键
+     * @param bound 边界
+     * @return 负数/0/正数分别表示键的前缀小于/等于/大于边界
+     */
+    public static int comparePrefix(byte[] key, byte[] bound) {
+        int length = Math.min(key.length, bound.length);
+        return Arrays.compareUnsigned(key, 0, length, bound, 0, length);
+    }
+
+    /**
+     * 大于所有以prefix开头的键的最短字节串
+     *
+     * 去掉末尾的0xFF再把最后一个字节加一。
+     *
+     * @param prefix 前缀
+     * @return 后继,prefix全是0xFF(没有后继)时返回null
+     */
+    public static byte[] prefixSuccessor(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] successor = Arrays.copyOf(prefix, i + 1);
+                successor[i]++;
+                return successor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 两个键相同前缀的长度
+     */
+    public static int commonPrefixLength(byte[] a, byte[] b) {
+        int mismatch = Arrays.mismatch(a, b);
+        return mismatch < 0 ? a.length : mismatch;
+    }
+
+    /**
+     * 最短的分隔键s:lower &lt; s &lt;= upper(后缀截断)
+     *
+     * 取upper到与lower第一个不同的字节为止的前缀:这个字节比lower的大,
+     * 或者lower就是这个前缀少一个字节的前缀,所以s &gt; lower;s是upper的前缀,所以s &lt;= upper。
+     * 分隔键只用来在内部节点里选择子节点,不需要是真实存在的键。
+     * InnoDB的节点指针存完整的键;这里是Bayer的prefix B-tree(LevelDB的FindShortestSeparator)的做法。
+     *
+     * @param lower 左边节点的最大键
+     * @param upper 右边节点的最小键
+     * @return 分隔键;lower不小于upper(重复键)时返回upper本身
+     */
+    public static byte[] shortestSeparator(byte[] lower, byte[] upper) {
+        if (compare(lower, upper) >= 0) {
+            return upper;
+        }
+        int length = commonPrefixLength(lower, upper) + 1;
+        return length >= upper.length ? upper : Arrays.copyOf(upper, length);
+    }
+
+    private static DataType inferType(Object value) {
+        if (value == null || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return DataType.INT;
+        } else if (value instanceof Long) {
+            return DataType.BIGINT;
+        } else if (value instanceof Double || value instanceof Float) {
+            return DataType.DOUBLE;
+        } else if (value instanceof Boolean) {
+            return DataType.BOOLEAN;
+        } else if (value instanceof String) {
+            return DataType.VARCHAR;
+        } else if (value instanceof java.util.Date) {
+            return DataType.TIMESTAMP;
+        }
+        throw new IllegalArgumentException(
+                "Unsupported key type: " + value.getClass().getSimpleName());
+    }
+
+    private static void appendColumn(ByteArrayOutputStream out, DataType type, Object value) {
+        if (value == null) {
+            out.write(NULL_MARKER);
+            return;
+        }
+        out.write(NOT_NULL_MARKER);
+
+        switch (type) {
+            case INT:
+                appendInt(out, toInt(value) ^ Integer.MIN_VALUE);
+                break;
+            case BIGINT:
+                appendLong(out, toLong(value, type) ^ Long.MIN_VALUE);
+                break;
+            case DATE:
+            case TIMESTAMP:
+                long millis = value instanceof java.util.Date
+                        ? ((java.util.Date) value).getTime()
+                        : toNumber(value, type).longValue();
+                appendLong(out, millis ^ Long.MIN_VALUE);
+                break;
+            case DOUBLE:
+                appendLong(out, sortableDoubleBits(toNumber(value, type).doubleValue()));
+                break;
+            case BOOLEAN:
+                if (!(value instanceof Boolean)) {
+                    throw new IllegalArgumentException("Expected BOOLEAN key, got: " + value);
+                }
+                out.write((Boolean) value ? 1 : 0);
+                break;
+            case VARCHAR:
+                appendString(out, value.toString());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported key type: " + type);
+        }
+    }
+
+    private static Number toNumber(Object value, DataType type) {
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Expected " + type + " key, got: " + value);
+        }
+        return (Number) value;
+    }
+
+    /**
+     * INT列的键值:必须是INT范围内的整数
+     *
+     * 不能直接intValue():4294967301L会被截断成5,查到另一行。
+     */
+    private static int toInt(Object value) {
+        long longValue = toLong(value, DataType.INT);
+        if (longValue != (int) longValue) {
+            throw new IllegalArgumentException("Value out of range for INT key: " + value);
+        }
+        return (int) longValue;
+    }
+
+    /**
+     * BIGINT(以及INT)列的键值:浮点数必须是BIGINT范围内的整数,不做截断
+     */
+    private static long toLong(Object value, DataType type) {
+        Number number = toNumber(value, type);
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            // -2^63 <= d < 2^63;NaN和带小数的值也被拒绝
+            if (d != Math.rint(d) || d < -0x1p63 || d >= 0x1p63) {
+                throw new IllegalArgumentException("Value out of range for " + type + " key: " + value);
+            }
+            return (long) d;
+        }
+        return number.longValue();
+    }
+
+    /**
+     * DOUBLE的可排序位模式
+     *
+     * 正数:符号位取反,排在所有负数后面;
+     * 负数:所有位取反,绝对值越大排得越前。
+     */
+    private static long sortableDoubleBits(double value) {
+        if (value == 0.0) {
+            value = 0.0; // -0.0 == 0.0
+        }
+        long bits = Double.doubleToLongBits(value); // NaN归一为同一个位模式
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    private static void appendInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void appendLong(ByteArrayOutputStream out, long value) {
+        appendInt(out, (int) (value >>> 32));
+        appendInt(out, (int) value);
+    }
+
+    private static void appendString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            out.write(b);
+            if (b == 0) {
+                out.write(ESCAPED_ZERO);
+            }
+        }
+        out.write(0);
+        out.write(0);
+    }
+}
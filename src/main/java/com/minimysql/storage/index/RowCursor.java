@@ -0,0 +1,139 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.table.Row;
+
+/**
+ * RowCursor - 按索引顺序逐行移动的游标
+ *
+ * 包装B+树的IndexCursor,把叶子上的值还原成行:
+ * - 聚簇索引:值就是物理记录,反序列化成行
+ * - 二级索引:值里只有主键,row()时回表查询完整行
+ *
+ * 行在第一次调用row()时才解码(并缓存到下一次移动),
+ * 只需要主键的调用方(例如按二级索引找出要删除的行)用primaryKey(),不回表也不反序列化整行。
+ *
+ * 由ClusteredIndex.openRowCursor / SecondaryIndex.openRowCursor创建,用完必须close。
+ *
+ * "Good taste": 游标的定位和移动全部交给IndexCursor,这里只负责"值 → 行"
+ */
+public abstract class RowCursor implements AutoCloseable {
+
+    private final BPlusTree tree;
+    private final IndexCursor cursor;
+
+    /** 当前条目解码出的行,null表示还没有解码 */
+    private Row row;
+
+    RowCursor(BPlusTree tree, IndexCursor cursor) {
+        this.tree = tree;
+        this.cursor = cursor;
+    }
+
+    /**
+     * 定位到范围内的第一行
+     *
+     * @return 是否定位到了行
+     */
+    public boolean first() {
+        row = null;
+        return cursor.seekToFirst();
+    }
+
+    /**
+     * 定位到范围内的最后一行
+     *
+     * @return 是否定位到了行
+     */
+    public boolean last() {
+        row = null;
+        return cursor.seekToLast();
+    }
+
+    /**
+     * 定位到范围内第一个索引列值不小于value的行
+     *
+     * @param value 索引列值(聚簇索引是主键值)
+     * @return 是否定位到了行
+     */
+    public boolean seek(Object value) {
+        row = null;
+        return cursor.seek(tree.encodeKey(value));
+    }
+
+    /**
+     * 移动到下一行
+     *
+     * @return 是否还在范围内
+     */
+    public boolean next() {
+        row = null;
+        return cursor.next();
+    }
+
+    /**
+     * 移动到上一行
+     *
+     * @return 是否还在范围内
+     */
+    public boolean prev() {
+        row = null;
+        return cursor.prev();
+    }
+
+    /**
+     * 游标是否停在一行上
+     */
+    public boolean isValid() {
+        return cursor.isValid();
+    }
+
+    /**
+     * 当前行(第一次调用时解码)
+     *
+     * @return 行,定位之后被并发删除时返回null
+     * @throws IllegalStateException 游标无效
+     */
+    public Row row() {
+        if (row == null) {
+            Object value = cursor.value();
+            row = value == null ? null : decodeRow(value);
+        }
+        return row;
+    }
+
+    /**
+     * 当前行的主键值(不回表)
+     *
+     * @return 主键值,定位之后被并发删除时返回null
+     * @throws IllegalStateException 游标无效
+     */
+    public Object primaryKey() {
+        Object value = cursor.value();
+        return value == null ? null : decodePrimaryKey(value);
+    }
+
+    /**
+     * 关闭游标,释放pin住的叶子
+     */
+    @Override
+    public void close() {
+        row = null;
+        cursor.close();
+    }
+
+    /**
+     * 叶子上的值还原成行
+     *
+     * @param value 叶子上的值
+     * @return 行,不存在时返回null
+     */
+    protected abstract Row decodeRow(Object value);
+
+    /**
+     * 叶子上的值中的主键值
+     *
+     * @param value 叶子上的值
+     * @return 主键值
+     */
+    protected abstract Object decodePrimaryKey(Object value);
+}
@@ -2,7 +2,17 @@ package com.minimysql.storage.index;
 
 import com.minimysql.storage.buffer.BufferPool;
 import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.RecordSerializer;
 import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * SecondaryIndex - 二级索引
@@ -27,11 +37,18 @@ import com.minimysql.storage.table.Row;
  * - 二级索引:叶子节点存储主键值 → 需要回表查询
  *
  * 设计原则:
- * - 二级索引键 = 索引列值
- * - B+树叶子节点value = 主键值(Integer)
+ * - 唯一索引键 = 索引列值(按列类型保序编码,见KeyEncoder)
+ * - 非唯一索引键 = (索引列值, 主键):同一个值的每一行都有自己的键,在叶子中按主键排序。
+ *   主键部分就是聚簇索引的键编码,每一列都能自己确定长度,所以可以直接接在后面
+ * - B+树叶子节点value = 主键值:INT主键直接存int,其他类型的主键存一列的记录(RecordSerializer格式)
  * - 支持索引列去重(如果UNIQUE索引)
  * - 回表查询通过ClusteredIndex完成
  *
+ * 非唯一索引上的等值查找:
+ * 以索引列值作为起点和上界做一次范围扫描。上界按前缀包含(KeyEncoder.withinUpperBound),
+ * (value)包含所有(value, pk),重复值再多也是一次下降加顺序读叶子。
+ * 对应InnoDB非唯一二级索引的键:索引列 + 主键列(dict_index_t的n_uniq包含主键)。
+ *
  * 回表查询示例:
  * ```sql
  * SELECT * FROM users WHERE username = 'Alice';
@@ -46,6 +63,16 @@ import com.minimysql.storage.table.Row;
  * ```
  * 因为id是主键,已经在二级索引中,无需回表。
  *
+ * INCLUDE列(覆盖索引):
+ * ```sql
+ * CREATE INDEX idx_name ON users (name) INCLUDE (email, age);
+ * SELECT email, age FROM users WHERE name = 'Alice';
+ * ```
+ * - 叶子value不再是主键值,而是一条记录:[主键, 索引列, INCLUDE列...](RecordSerializer格式)
+ * - 索引列的值也存一份:编码后的键不能还原成列值
+ * - 查询只涉及这些列时,执行计划直接扫描二级索引(IndexOnlyScanOperator),不回表
+ * - 对应SQL Server/PostgreSQL的INCLUDE;InnoDB没有INCLUDE,只能把列加进索引键
+ *
  * "Good taste": 二级索引和聚簇索引结构完全一致,只是叶子节点value不同
  *
  * 性能权衡(MySQL兼容):
@@ -65,6 +92,18 @@ public class SecondaryIndex extends BPlusTree {
     /** 聚簇索引引用(用于回表查询) */
     private final ClusteredIndex clusteredIndex;
 
+    /** INCLUDE列名,为空表示普通二级索引(叶子value是主键值) */
+    private final List<String> includeColumns;
+
+    /** 普通索引叶子记录的列:只有主键列;INT主键(或没有表定义)时为空,叶子value直接存int */
+    private final List<Column> primaryKeyColumns;
+
+    /** 覆盖索引叶子记录的列:主键、索引列、INCLUDE列 */
+    private final List<Column> coveredColumns;
+
+    /** coveredColumns中每一列在表中的下标 */
+    private final int[] coveredPositions;
+
     /**
      * 创建二级索引
      *
@@ -81,12 +120,70 @@ public class SecondaryIndex extends BPlusTree {
                           int primaryKeyIndex, boolean unique,
                           ClusteredIndex clusteredIndex,
                           BufferPool bufferPool, PageManager pageManager) {
+        this(tableId, indexName, columnName, primaryKeyIndex, unique, List.of(),
+                clusteredIndex, bufferPool, pageManager);
+    }
+
+    /**
+     * 创建带INCLUDE列的二级索引(覆盖索引)
+     *
+     * @param includeColumns 叶子中额外存储的列,为空时与普通二级索引相同
+     * @throws IllegalArgumentException 有INCLUDE列但没有表定义,列不存在或重复
+     */
+    public SecondaryIndex(int tableId, String indexName, String columnName,
+                          int primaryKeyIndex, boolean unique, List<String> includeColumns,
+                          ClusteredIndex clusteredIndex,
+                          BufferPool bufferPool, PageManager pageManager) {
         // 二级索引的indexId = tableId * 100 + 索引编号(1, 2, 3, ...)
         super(tableId * 100 + 1, indexName, false, columnName, bufferPool, pageManager);
 
         this.primaryKeyIndex = primaryKeyIndex;
         this.unique = unique;
         this.clusteredIndex = clusteredIndex;
+        this.includeColumns = List.copyOf(includeColumns);
+
+        Table table = clusteredIndex == null ? null : clusteredIndex.getTable();
+        Column primaryKeyColumn = table == null ? null : table.getColumns().get(primaryKeyIndex);
+        this.primaryKeyColumns = primaryKeyColumn == null || primaryKeyColumn.getType() == DataType.INT
+                ? List.of()
+                : List.of(primaryKeyColumn);
+
+        if (this.includeColumns.isEmpty()) {
+            this.coveredColumns = List.of();
+            this.coveredPositions = new int[0];
+            return;
+        }
+
+        if (table == null) {
+            throw new IllegalArgumentException("INCLUDE columns require a table definition: " + indexName);
+        }
+
+        List<String> names = new ArrayList<>();
+        names.add(table.getColumns().get(primaryKeyIndex).getName());
+        if (!names.get(0).equalsIgnoreCase(columnName)) {
+            names.add(columnName);
+        }
+        for (String include : this.includeColumns) {
+            for (String name : names) {
+                if (name.equalsIgnoreCase(include)) {
+                    throw new IllegalArgumentException(
+                            "Column '" + include + "' is already stored in index '" + indexName + "'");
+                }
+            }
+            names.add(include);
+        }
+
+        List<Column> columns = new ArrayList<>();
+        this.coveredPositions = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            Column column = table.getColumn(names.get(i));
+            if (column == null) {
+                throw new IllegalArgumentException("Column does not exist: " + names.get(i));
+            }
+            columns.add(column);
+            coveredPositions[i] = table.getColumns().indexOf(column);
+        }
+        this.coveredColumns = List.copyOf(columns);
     }
 
     /**
@@ -107,41 +204,304 @@ public class SecondaryIndex extends BPlusTree {
             return;
         }
 
+        if (isCovering()) {
+            throw new IllegalStateException(
+                    "Index '" + getIndexName() + "' has INCLUDE columns, insert the whole row");
+        }
+
+        insertChecked(indexColumnValue, primaryKeyValue, primaryKeyRecord(primaryKeyValue));
+    }
+
+    /**
+     * 插入一行对应的索引条目
+     *
+     * 覆盖索引的叶子记录需要INCLUDE列的值,所以表维护索引时传整行。
+     *
+     * @param row 表中的一行
+     * @param indexColumnIndex 索引列在行中的下标
+     */
+    public void insertRowEntry(Row row, int indexColumnIndex) {
+        Object primaryKeyValue = row.getValue(primaryKeyIndex);
+        if (primaryKeyValue == null) {
+            throw new IllegalArgumentException("Primary key cannot be NULL");
+        }
+
+        Object indexColumnValue = row.getValue(indexColumnIndex);
+        if (indexColumnValue == null) {
+            return; // NULL值不索引(MySQL兼容)
+        }
+
+        insertChecked(indexColumnValue, primaryKeyValue, entryValue(row));
+    }
+
+    private void insertChecked(Object indexColumnValue, Object primaryKeyValue, Object value) {
         // 唯一索引检查
         if (unique && exists(indexColumnValue)) {
             throw new IllegalArgumentException(
                     "Duplicate entry '" + indexColumnValue + "' for key '" + getIndexName() + "'");
         }
 
-        // 将索引列值哈希为键
-        int key = hashKey(indexColumnValue);
+        // 插入到B+树
+        insertKey(entryKey(indexColumnValue, primaryKeyValue), value);
+    }
+
+    /**
+     * 删除一行对应的索引条目
+     *
+     * 非唯一索引上同一个值可能有很多行,必须用主键定位到这一行的条目。
+     *
+     * @param indexColumnValue 索引列值,NULL值没有被索引,直接返回
+     * @param primaryKeyValue 主键值
+     */
+    public void deleteEntry(Object indexColumnValue, Object primaryKeyValue) {
+        if (indexColumnValue == null) {
+            return;
+        }
+        deleteKey(entryKey(indexColumnValue, primaryKeyValue));
+    }
+
+    /**
+     * 更新前检查:索引列改成的新值在唯一索引中是否已经存在
+     *
+     * Table在修改任何索引之前对所有二级索引检查一遍,重复时整行更新都不做。
+     *
+     * @param oldRow 更新前的行
+     * @param newRow 更新后的行
+     * @param indexColumnIndex 索引列在行中的下标
+     * @throws IllegalArgumentException 唯一索引中已经有新值
+     */
+    public void checkUpdate(Row oldRow, Row newRow, int indexColumnIndex) {
+        Object newValue = newRow.getValue(indexColumnIndex);
+        if (unique && newValue != null && keyChanged(oldRow, newRow, indexColumnIndex) && exists(newValue)) {
+            throw new IllegalArgumentException(
+                    "Duplicate entry '" + newValue + "' for key '" + getIndexName() + "'");
+        }
+    }
+
+    /**
+     * 更新一行对应的索引条目,只改真正变化的部分
+     *
+     * - 索引列变了:删除旧条目,插入新条目
+     * - 索引列没变、INCLUDE列变了:原地覆盖叶子记录(updateKey)
+     * - 都没变:不碰这个索引
+     *
+     * 主键不变(Table只对主键不变的更新调用),条目键里的主键部分也不变。
+     *
+     * @param oldRow 更新前的行
+     * @param newRow 更新后的行
+     * @param indexColumnIndex 索引列在行中的下标
+     * @return 索引是否被修改
+     */
+    public boolean updateRowEntry(Row oldRow, Row newRow, int indexColumnIndex) {
+        Object primaryKeyValue = oldRow.getValue(primaryKeyIndex);
+        Object oldValue = oldRow.getValue(indexColumnIndex);
 
-        // 将主键值哈希为值(简化:只支持INT主键)
-        int value = hashPrimaryKey(primaryKeyValue);
+        if (keyChanged(oldRow, newRow, indexColumnIndex)) {
+            deleteEntry(oldValue, primaryKeyValue);
+            insertRowEntry(newRow, indexColumnIndex);
+            return true;
+        }
 
-        // 插入到B+树(调用int版本避免类型转换)
-        insertInt(key, value);
+        if (oldValue == null || !isCovering()) {
+            return false; // NULL值不在索引中;普通索引的value只有主键
+        }
+
+        byte[] newRecord = (byte[]) entryValue(newRow);
+        if (Arrays.equals((byte[]) entryValue(oldRow), newRecord)) {
+            return false;
+        }
+        return updateKey(entryKey(oldValue, primaryKeyValue), newRecord);
     }
 
     /**
-     * 根据索引列值查找主键
+     * 索引列的值是否变了(按编码后的键比较,NULL只等于NULL)
+     */
+    private boolean keyChanged(Row oldRow, Row newRow, int indexColumnIndex) {
+        Object oldValue = oldRow.getValue(indexColumnIndex);
+        Object newValue = newRow.getValue(indexColumnIndex);
+        if (oldValue == null || newValue == null) {
+            return oldValue != newValue;
+        }
+        return KeyEncoder.compare(encodeKey(oldValue), encodeKey(newValue)) != 0;
+    }
+
+    /**
+     * 条目的B+树键:唯一索引是索引列值,非唯一索引是(索引列值, 主键)
+     */
+    private byte[] entryKey(Object indexColumnValue, Object primaryKeyValue) {
+        byte[] valueKey = encodeKey(indexColumnValue);
+        if (unique) {
+            return valueKey;
+        }
+
+        byte[] primaryKey = clusteredIndex == null
+                ? KeyEncoder.encode(primaryKeyValue)
+                : clusteredIndex.encodeKey(primaryKeyValue);
+        byte[] key = Arrays.copyOf(valueKey, valueKey.length + primaryKey.length);
+        System.arraycopy(primaryKey, 0, key, valueKey.length, primaryKey.length);
+        return key;
+    }
+
+    /**
+     * 索引列值等于给定值的所有叶子value,按主键排序
      *
-     * @param indexColumnValue 索引列值
-     * @return 主键值,不存在返回null
+     * @param limit 最多返回的数量
      */
-    public Object findPrimaryKey(Object indexColumnValue) {
+    private List<Object> lookup(Object indexColumnValue, int limit) {
         if (indexColumnValue == null) {
-            return null; // NULL值不在索引中
+            return new ArrayList<>(); // NULL值不在索引中
+        }
+
+        byte[] valueKey = encodeKey(indexColumnValue);
+        if (unique) {
+            Object value = searchKey(valueKey);
+            List<Object> values = new ArrayList<>(1);
+            if (value != null) {
+                values.add(value);
+            }
+            return values;
         }
+        return rangeSearchKeys(valueKey, valueKey, limit);
+    }
 
-        int key = hashKey(indexColumnValue);
-        Object value = searchInt(key);
+    /**
+     * 一行在叶子中的value:普通索引是主键值,覆盖索引是[主键, 索引列, INCLUDE列...]的记录
+     */
+    private Object entryValue(Row row) {
+        if (!isCovering()) {
+            return primaryKeyRecord(row.getValue(primaryKeyIndex));
+        }
 
-        if (value != null) {
-            return value;
+        Object[] values = new Object[coveredPositions.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.getValue(coveredPositions[i]);
         }
+        return RecordSerializer.serialize(new Row(values), coveredColumns);
+    }
 
-        return null;
+    /**
+     * 普通索引叶子中的value:INT主键直接存int,其他类型的主键存一列的记录
+     *
+     * 一棵树里的value类型由主键列的类型决定,不会int和记录混在一起。
+     */
+    private Object primaryKeyRecord(Object primaryKeyValue) {
+        if (!primaryKeyColumns.isEmpty()) {
+            return RecordSerializer.serialize(new Row(new Object[]{primaryKeyValue}), primaryKeyColumns);
+        }
+        if (!(primaryKeyValue instanceof Integer)) {
+            throw new IllegalArgumentException(
+                    "Unsupported primary key type: " + primaryKeyValue.getClass().getSimpleName());
+        }
+        return primaryKeyValue;
+    }
+
+    /**
+     * 叶子value中的主键值
+     */
+    private Object primaryKeyOf(Object value) {
+        if (value instanceof byte[]) {
+            List<Column> columns = isCovering() ? coveredColumns : primaryKeyColumns;
+            return RecordSerializer.deserialize((byte[]) value, columns).getValue(0);
+        }
+        return value;
+    }
+
+    /**
+     * 覆盖索引的叶子记录还原成表宽度的行,没有存储的列为null
+     */
+    private Row coveredRow(byte[] record) {
+        Row covered = RecordSerializer.deserialize(record, coveredColumns);
+        Object[] values = new Object[clusteredIndex.getTable().getColumns().size()];
+        for (int i = 0; i < coveredPositions.length; i++) {
+            values[coveredPositions[i]] = covered.getValue(i);
+        }
+        return new Row(values);
+    }
+
+    /**
+     * 批量构建索引(在已有数据的表上创建索引)
+     *
+     * 收集每一行的(索引列值, 主键) → 外部排序 → BulkLoader自底向上写入,
+     * 不逐条从根下降,也不会页分裂。对应InnoDB在线建索引的排序建树(row_merge_build_indexes)。
+     * NULL值不索引;唯一索引在排好序的相邻条目上检查重复。
+     *
+     * @param rows 表的所有行
+     * @param indexColumnIndex 索引列在行中的下标
+     * @param fillFactor 页填充因子 (0, 1]
+     * @return 索引条目数
+     * @throws IllegalArgumentException 唯一索引有重复值,或主键为NULL
+     * @throws IllegalStateException 索引不为空
+     */
+    public long bulkLoad(Iterator<Row> rows, int indexColumnIndex, double fillFactor) {
+        BulkLoader loader = new BulkLoader(this, fillFactor);
+        try (ExternalSorter sorter = new ExternalSorter(ExternalSorter.DEFAULT_MEMORY_BUDGET, null)) {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                Object indexColumnValue = row.getValue(indexColumnIndex);
+                Object primaryKeyValue = row.getValue(primaryKeyIndex);
+                if (primaryKeyValue == null) {
+                    throw new IllegalArgumentException("Primary key cannot be NULL");
+                }
+                if (indexColumnValue != null) {
+                    sorter.add(entryKey(indexColumnValue, primaryKeyValue), entryValue(row));
+                }
+            }
+
+            byte[] previousKey = null;
+            for (Iterator<ExternalSorter.Entry> it = sorter.sorted(); it.hasNext(); ) {
+                ExternalSorter.Entry entry = it.next();
+                if (unique && previousKey != null && KeyEncoder.compare(previousKey, entry.key) == 0) {
+                    throw new IllegalArgumentException("Duplicate entry '" + duplicateValue(entry, indexColumnIndex)
+                            + "' for key '" + getIndexName() + "'");
+                }
+                loader.add(entry.key, entry.value);
+                previousKey = entry.key;
+            }
+        }
+        return loader.finish();
+    }
+
+    /**
+     * 按默认填充因子批量构建索引
+     *
+     * @see #bulkLoad(Iterator, int, double)
+     */
+    public long bulkLoad(Iterator<Row> rows, int indexColumnIndex) {
+        return bulkLoad(rows, indexColumnIndex, BulkLoader.DEFAULT_FILL_FACTOR);
+    }
+
+    /**
+     * 重复条目的索引列值(编码后的键不能还原,回表取)
+     */
+    private Object duplicateValue(ExternalSorter.Entry entry, int indexColumnIndex) {
+        Object primaryKeyValue = primaryKeyOf(entry.value);
+        Row row = clusteredIndex == null ? null : clusteredIndex.selectByPrimaryKey(primaryKeyValue);
+        return row == null ? primaryKeyValue : row.getValue(indexColumnIndex);
+    }
+
+    /**
+     * 根据索引列值查找主键
+     *
+     * 非唯一索引上有多行时返回主键最小的一行。
+     *
+     * @param indexColumnValue 索引列值
+     * @return 主键值,不存在返回null
+     */
+    public Object findPrimaryKey(Object indexColumnValue) {
+        List<Object> values = lookup(indexColumnValue, 1);
+        return values.isEmpty() ? null : primaryKeyOf(values.get(0));
+    }
+
+    /**
+     * 根据索引列值查找所有主键
+     *
+     * @param indexColumnValue 索引列值
+     * @return 按主键排序的主键值列表,不存在返回空列表
+     */
+    public List<Object> findPrimaryKeys(Object indexColumnValue) {
+        List<Object> values = lookup(indexColumnValue, Integer.MAX_VALUE);
+        values.replaceAll(this::primaryKeyOf);
+        return values;
     }
 
     /**
@@ -161,18 +521,157 @@ public class SecondaryIndex extends BPlusTree {
         return null;
     }
 
+    /**
+     * 根据索引列值查找所有完整行(回表查询)
+     *
+     * @param indexColumnValue 索引列值
+     * @return 按主键排序的行列表,不存在返回空列表
+     */
+    public List<Row> selectRows(Object indexColumnValue) {
+        List<Row> rows = new ArrayList<>();
+        for (Object primaryKeyValue : findPrimaryKeys(indexColumnValue)) {
+            Row row = clusteredIndex.selectByPrimaryKey(primaryKeyValue);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
     /**
      * 索引列范围查询
      *
+     * 非唯一索引的键是(索引列值, 主键):起始值是所有(startValue, pk)的下界,
+     * 上界按前缀包含,所以两端的重复值都在结果里。
+     *
      * @param startValue 起始值(包含)
      * @param endValue 结束值(包含)
-     * @return 主键值列表
+     * @return 按(索引列值, 主键)排序的主键值列表
      */
     public java.util.List<Object> rangeSelect(Object startValue, Object endValue) {
-        int startKey = hashKey(startValue);
-        int endKey = hashKey(endValue);
+        List<Object> values = rangeSearchKeys(encodeKey(startValue), encodeKey(endValue));
+        values.replaceAll(this::primaryKeyOf);
+        return values;
+    }
 
-        return rangeSearchInt(startKey, endKey);
+    /**
+     * 打开索引列值范围上的行游标
+     *
+     * 按(索引列值, 主键)的顺序移动,每次只pin住一个叶子。
+     * row()时才回表查询完整行,只需要主键时用primaryKey(),不回表。
+     * 非唯一索引上边界按前缀比较:包含的边界包含这个值的所有行,不包含的边界排除所有行。
+     *
+     * @param startValue 起始值,null表示不限
+     * @param startInclusive 是否包含起始值
+     * @param endValue 结束值,null表示不限
+     * @param endInclusive 是否包含结束值
+     * @return 行游标,用完必须close
+     */
+    @Override
+    public RowCursor openRowCursor(Object startValue, boolean startInclusive,
+                                   Object endValue, boolean endInclusive) {
+        IndexCursor cursor = openCursor(
+                startValue == null ? null : encodeKey(startValue), startInclusive,
+                endValue == null ? null : encodeKey(endValue), endInclusive);
+
+        return new RowCursor(this, cursor) {
+            @Override
+            protected Row decodeRow(Object value) {
+                // 回表查询:在聚簇索引中查找完整行
+                return clusteredIndex.selectByPrimaryKey(primaryKeyOf(value));
+            }
+
+            @Override
+            protected Object decodePrimaryKey(Object value) {
+                return primaryKeyOf(value);
+            }
+        };
+    }
+
+    /**
+     * 只读覆盖索引查找行,不回表
+     *
+     * 非唯一索引上有多行时返回主键最小的一行。
+     *
+     * @param indexColumnValue 索引列值
+     * @return 表宽度的行,只有主键、索引列和INCLUDE列有值;不存在返回null
+     * @throws IllegalStateException 索引没有INCLUDE列
+     */
+    public Row selectCoveredRow(Object indexColumnValue) {
+        checkCovering();
+        List<Object> values = lookup(indexColumnValue, 1);
+        return values.isEmpty() ? null : coveredRow((byte[]) values.get(0));
+    }
+
+    /**
+     * 只读覆盖索引查找索引列等于给定值的所有行,不回表
+     *
+     * @param indexColumnValue 索引列值
+     * @return 按主键排序的表宽度的行,只有主键、索引列和INCLUDE列有值
+     * @throws IllegalStateException 索引没有INCLUDE列
+     */
+    public List<Row> selectCoveredRows(Object indexColumnValue) {
+        checkCovering();
+        List<Row> rows = new ArrayList<>();
+        for (Object value : lookup(indexColumnValue, Integer.MAX_VALUE)) {
+            rows.add(coveredRow((byte[]) value));
+        }
+        return rows;
+    }
+
+    /**
+     * 按索引列顺序扫描覆盖索引的所有行,不回表
+     *
+     * 二级索引的叶子比聚簇索引的叶子窄得多,扫描的页数也少得多。
+     *
+     * @return 表宽度的行的惰性迭代器,只有主键、索引列和INCLUDE列有值
+     * @throws IllegalStateException 索引没有INCLUDE列
+     */
+    public Iterator<Row> scanCoveredRows() {
+        checkCovering();
+        Iterator<Object> records = getAllLazy();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                return coveredRow((byte[]) records.next());
+            }
+        };
+    }
+
+    /**
+     * 索引是否存储了所有这些列(可以只读索引,不回表)
+     *
+     * @param columnNames 查询涉及的列名
+     * @return 有INCLUDE列并且每一列都是主键、索引列或INCLUDE列时返回true
+     */
+    public boolean covers(Collection<String> columnNames) {
+        if (!isCovering()) {
+            return false;
+        }
+        for (String name : columnNames) {
+            boolean found = false;
+            for (Column column : coveredColumns) {
+                if (column.getName().equalsIgnoreCase(name)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkCovering() {
+        if (!isCovering()) {
+            throw new IllegalStateException("Index '" + getIndexName() + "' has no INCLUDE columns");
+        }
     }
 
     /**
@@ -188,39 +687,35 @@ public class SecondaryIndex extends BPlusTree {
     }
 
     /**
-     * 将索引列值哈希为int
+     * 按索引列的类型编码键
+     *
+     * 列类型从聚簇索引的表定义中查找;没有表定义时按Java类型推断。
      *
      * @param indexValue 索引列值
-     * @return int类型的键
-     */
-    private int hashKey(Object indexValue) {
-        if (indexValue instanceof Integer) {
-            return (Integer) indexValue;
-        } else if (indexValue instanceof String) {
-            return indexValue.hashCode();
-        } else if (indexValue instanceof Long) {
-            return ((Long) indexValue).hashCode();
-        } else {
-            throw new IllegalArgumentException(
-                    "Unsupported index column type: " + indexValue.getClass().getSimpleName());
+     * @return 编码后的键
+     */
+    @Override
+    protected byte[] encodeKey(Object indexValue) {
+        Table table = clusteredIndex == null ? null : clusteredIndex.getTable();
+        Column column = table == null ? null : table.getColumn(getColumnName());
+        if (column == null || indexValue instanceof byte[]) {
+            return super.encodeKey(indexValue);
         }
+        return KeyEncoder.encode(column.getType(), indexValue);
     }
 
     /**
-     * 将主键值哈希为int
-     *
-     * 简化实现:只支持INT主键
-     *
-     * @param primaryKeyValue 主键值
-     * @return int类型的主键
+     * 是否有INCLUDE列(覆盖索引)
      */
-    private int hashPrimaryKey(Object primaryKeyValue) {
-        if (primaryKeyValue instanceof Integer) {
-            return (Integer) primaryKeyValue;
-        } else {
-            throw new IllegalArgumentException(
-                    "Unsupported primary key type: " + primaryKeyValue.getClass().getSimpleName());
-        }
+    public boolean isCovering() {
+        return !includeColumns.isEmpty();
+    }
+
+    /**
+     * 获取INCLUDE列名
+     */
+    public List<String> getIncludeColumns() {
+        return includeColumns;
     }
 
     /**
@@ -251,6 +746,7 @@ public class SecondaryIndex extends BPlusTree {
                 ", indexName='" + getIndexName() + '\'' +
                 ", columnName='" + getColumnName() + '\'' +
                 ", unique=" + unique +
+                (isCovering() ? ", include=" + includeColumns : "") +
                 ", height=" + getHeight() +
                 '}';
     }
@@ -1,5 +1,7 @@
 package com.minimysql.storage.page;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -66,6 +68,8 @@ import java.util.List;
  *   <li>行数据从页尾向前生长，槽位表从页头向后生长，中间是自由空间</li>
  *   <li>删除行时只需要将对应槽位设为 0，不需要移动数据 (碎片化由后续整理解决)</li>
  *   <li>行数据可变长，每个行头存储长度信息</li>
+ *   <li>页内容是一个ByteBuffer:通常是堆内数组,也可以是文件映射的只读切片(wrap),
+ *       第一次修改时复制到堆内(写时复制);或者是缓冲池的堆外帧(format/wrap),直接在帧上修改</li>
  * </ul>
  *
  * <p>"Good taste": 没有特殊情况，所有行都通过槽位访问，删除、插入逻辑统一
@@ -81,8 +85,8 @@ public class DataPage implements Page {
     /** 行头大小:4字节(存储行数据长度) */
     private static final int ROW_HEADER_SIZE = 4;
 
-    /** 页的原始数据 */
-    private final byte[] data;
+    /** 页的原始数据(小端序;只读映射时第一次修改前不是堆内数组) */
+    private ByteBuffer data;
 
     /** 页号 */
     private int pageId;
@@ -93,22 +97,62 @@ public class DataPage implements Page {
     /** 已使用的槽位数 */
     private int slotCount;
 
+    /** 空数据页的完整内容(页头 + 全零),format时整页复制 */
+    private static final byte[] EMPTY_PAGE = new DataPage().data.array().clone();
+
     /**
      * 创建一个新的空数据页
      */
     public DataPage() {
-        this.data = new byte[PAGE_SIZE];
+        this.data = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
         this.pageId = 0;
         this.freeSpaceEnd = PAGE_SIZE;
         this.slotCount = 0;
 
-        // 写入页类型
-        data[0] = PageType.DATA_PAGE.getCode();
-
-        // 初始化页头
+        // 初始化页头(包括页类型)
         serializeHeader();
     }
 
+    private DataPage(ByteBuffer view) {
+        this.data = view;
+        deserializeHeader();
+    }
+
+    /**
+     * 在已有的页内容上创建数据页,不复制
+     *
+     * 用于内存映射读:页内容直接是映射的切片。
+     * 只读的切片在第一次修改时复制到堆内,之后的修改不会写回映射。
+     *
+     * @param pageBuffer 页内容(position到limit正好PAGE_SIZE字节)
+     * @return 数据页
+     */
+    public static DataPage wrap(ByteBuffer pageBuffer) {
+        if (pageBuffer.remaining() != PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page size: expected " + PAGE_SIZE + ", got " + pageBuffer.remaining());
+        }
+        return new DataPage(pageBuffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * 把一块可写的页内存格式化为空数据页,不复制
+     *
+     * 用于缓冲池的堆外帧:帧里是上一个页留下的内容,整页覆盖为空页。
+     *
+     * @param pageBuffer 页内存(position到limit正好PAGE_SIZE字节)
+     * @return 空数据页,页号为0
+     */
+    public static DataPage format(ByteBuffer pageBuffer) {
+        if (pageBuffer.remaining() != PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page size: expected " + PAGE_SIZE + ", got " + pageBuffer.remaining());
+        }
+        ByteBuffer view = pageBuffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        view.put(0, EMPTY_PAGE);
+        return new DataPage(view);
+    }
+
     /**
      * 从字节数组恢复数据页
      *
@@ -126,25 +170,50 @@ public class DataPage implements Page {
 
     @Override
     public void setPageId(int pageId) {
+        if (pageId == this.pageId && isReadOnlyView()) {
+            return;
+        }
         this.pageId = pageId;
         serializeHeader();
     }
 
+    /**
+     * 获取页数据
+     *
+     * 页内容还是只读映射时,先复制到堆内(写时复制)。
+     * 页内容在堆外帧上时返回一份副本。
+     */
     @Override
     public byte[] getData() {
-        return data;
+        ensureWritable();
+        return contentBytes();
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return data.asReadOnlyBuffer();
     }
 
     @Override
     public void fromBytes(byte[] data) {
-        System.arraycopy(data, 0, this.data, 0, PAGE_SIZE);
+        if (this.data.isReadOnly()) {
+            this.data = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.data.put(0, data, 0, PAGE_SIZE);
         deserializeHeader();
     }
 
     @Override
     public byte[] toBytes() {
         serializeHeader();
-        return data;
+        return contentBytes();
+    }
+
+    /**
+     * 页内容是否还是只读视图(内存映射,第一次修改前)
+     */
+    public boolean isReadOnlyView() {
+        return data.isReadOnly();
     }
 
     @Override
@@ -176,7 +245,7 @@ public class DataPage implements Page {
         writeInt(newRowOffset, row.length);
 
         // 写入行数据
-        System.arraycopy(row, 0, data, newRowOffset + ROW_HEADER_SIZE, row.length);
+        data.put(newRowOffset + ROW_HEADER_SIZE, row);
 
         // 更新自由空间结束位置
         freeSpaceEnd = newRowOffset;
@@ -217,7 +286,7 @@ public class DataPage implements Page {
 
         // 读取行数据
         byte[] row = new byte[rowLength];
-        System.arraycopy(data, rowOffset + ROW_HEADER_SIZE, row, 0, rowLength);
+        data.get(rowOffset + ROW_HEADER_SIZE, row);
 
         return row;
     }
@@ -304,7 +373,8 @@ public class DataPage implements Page {
      * +-------------------+
      */
     private void serializeHeader() {
-        data[0] = PageType.DATA_PAGE.getCode();
+        ensureWritable();
+        data.put(0, PageType.DATA_PAGE.getCode());
         writeInt(1, pageId);
         writeInt(5, freeSpaceEnd);
         writeShort(9, slotCount);
@@ -315,7 +385,7 @@ public class DataPage implements Page {
      */
     private void deserializeHeader() {
         // 验证页类型
-        PageType type = PageType.fromCode(data[0]);
+        PageType type = PageType.fromCode(data.get(0));
         if (type != PageType.DATA_PAGE) {
             throw new IllegalArgumentException("Invalid page type: expected DATA_PAGE, got " + type);
         }
@@ -341,39 +411,56 @@ public class DataPage implements Page {
         writeShort(slotOffset, rowOffset);
     }
 
+    /**
+     * 页内容的字节数组:堆内数组直接返回,堆外帧复制一份
+     */
+    private byte[] contentBytes() {
+        if (data.hasArray() && data.arrayOffset() == 0) {
+            return data.array();
+        }
+        byte[] copy = new byte[PAGE_SIZE];
+        data.get(0, copy);
+        return copy;
+    }
+
+    /**
+     * 只读视图在第一次修改前复制到堆内
+     */
+    private void ensureWritable() {
+        if (data.isReadOnly()) {
+            ByteBuffer copy = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            copy.put(0, data, 0, PAGE_SIZE);
+            data = copy;
+        }
+    }
+
     /**
      * 在指定偏移量读取一个整数(4字节,小端序)
      */
     private int readInt(int offset) {
-        return ((data[offset] & 0xFF)) |
-               ((data[offset + 1] & 0xFF) << 8) |
-               ((data[offset + 2] & 0xFF) << 16) |
-               ((data[offset + 3] & 0xFF) << 24);
+        return data.getInt(offset);
     }
 
     /**
      * 在指定偏移量写入一个整数(4字节,小端序)
      */
     private void writeInt(int offset, int value) {
-        data[offset] = (byte) (value & 0xFF);
-        data[offset + 1] = (byte) ((value >> 8) & 0xFF);
-        data[offset + 2] = (byte) ((value >> 16) & 0xFF);
-        data[offset + 3] = (byte) ((value >> 24) & 0xFF);
+        ensureWritable();
+        data.putInt(offset, value);
     }
 
     /**
      * 在指定偏移量读取一个短整数(2字节,小端序)
      */
     private int readShort(int offset) {
-        return ((data[offset] & 0xFF)) |
-               ((data[offset + 1] & 0xFF) << 8);
+        return data.getShort(offset) & 0xFFFF;
     }
 
     /**
      * 在指定偏移量写入一个短整数(2字节,小端序)
      */
     private void writeShort(int offset, int value) {
-        data[offset] = (byte) (value & 0xFF);
-        data[offset + 1] = (byte) ((value >> 8) & 0xFF);
+        ensureWritable();
+        data.putShort(offset, (short) value);
     }
 }
@@ -30,6 +30,10 @@ import java.nio.ByteBuffer;
  * - 节点序列化由BPlusTreeNode.toBytes()完成
  * - 页头仅存储类型和页号,简化结构
  * - 无需槽位表和空间管理(节点大小固定)
+ * - 页内容可以是文件映射的只读切片(wrap),第一次修改时复制到堆内(写时复制)
+ * - 页内容也可以是缓冲池的堆外帧(format/wrap),直接在帧上修改
+ * - 只读访问(点查)用keyAt/childAt/valueSlice直接读页内容,
+ *   不反序列化节点;需要修改节点时才用getNode()
  *
  * "Good taste": 索引页是B+树节点的容器,职责单一,无特殊情况
  */
@@ -38,30 +42,75 @@ public class IndexPage implements Page {
     /** 页头大小:类型(1) + 页号(4) + 保留(7) = 12字节 */
     public static final int HEADER_SIZE = 12;
 
-    /** 页的原始数据 */
-    private final byte[] data;
+    /** 页的原始数据(只读映射时第一次修改前不是堆内数组) */
+    private ByteBuffer data;
 
     /** 页号 */
     private int pageId;
 
     /** B+树节点(内存中缓存) */
-    private BPlusTreeNode node;
+    private volatile BPlusTreeNode node;
+
+    /** 全零的页内容,用于清零NodeData区域和格式化空页 */
+    private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE];
 
     /**
      * 创建一个新的空索引页
      */
     public IndexPage() {
-        this.data = new byte[PAGE_SIZE];
+        this.data = ByteBuffer.allocate(PAGE_SIZE);
         this.pageId = 0;  // 默认为0，避免负数pageId导致写入失败
         this.node = null;
 
         // 写入页类型
-        data[0] = PageType.INDEX_PAGE.getCode();
+        data.put(0, PageType.INDEX_PAGE.getCode());
 
         // 初始化页头
         serializeHeader();
     }
 
+    private IndexPage(ByteBuffer view) {
+        this.data = view;
+        this.node = null;
+        deserializeHeader();
+    }
+
+    /**
+     * 在已有的页内容上创建索引页,不复制
+     *
+     * 用于内存映射读:页内容直接是映射的切片,getNode()直接从映射反序列化。
+     * 只读的切片在第一次修改时复制到堆内。
+     *
+     * @param pageBuffer 页内容(position到limit正好PAGE_SIZE字节)
+     * @return 索引页
+     */
+    public static IndexPage wrap(ByteBuffer pageBuffer) {
+        if (pageBuffer.remaining() != PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page size: expected " + PAGE_SIZE + ", got " + pageBuffer.remaining());
+        }
+        return new IndexPage(pageBuffer.slice());
+    }
+
+    /**
+     * 把一块可写的页内存格式化为空索引页,不复制
+     *
+     * 用于缓冲池的堆外帧:帧里是上一个页留下的内容,整页清零后写入页头。
+     *
+     * @param pageBuffer 页内存(position到limit正好PAGE_SIZE字节)
+     * @return 空索引页,页号为0
+     */
+    public static IndexPage format(ByteBuffer pageBuffer) {
+        if (pageBuffer.remaining() != PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid page size: expected " + PAGE_SIZE + ", got " + pageBuffer.remaining());
+        }
+        ByteBuffer view = pageBuffer.slice();
+        view.put(0, ZERO_PAGE);
+        view.put(0, PageType.INDEX_PAGE.getCode());
+        return new IndexPage(view);
+    }
+
     /**
      * 从B+树节点创建索引页
      *
@@ -89,13 +138,40 @@ public class IndexPage implements Page {
 
     @Override
     public void setPageId(int pageId) {
+        if (pageId == this.pageId && isReadOnlyView()) {
+            return;
+        }
         this.pageId = pageId;
         serializeHeader();
     }
 
+    /**
+     * 获取页数据
+     *
+     * 页内容还是只读映射时,先复制到堆内(写时复制)。
+     * 页内容在堆外帧上时返回一份副本。
+     */
     @Override
     public byte[] getData() {
-        return data;
+        ensureWritable();
+        if (data.hasArray() && data.arrayOffset() == 0) {
+            return data.array();
+        }
+        byte[] copy = new byte[PAGE_SIZE];
+        data.get(0, copy);
+        return copy;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * 页内容是否还是只读视图(内存映射,第一次修改前)
+     */
+    public boolean isReadOnlyView() {
+        return data.isReadOnly();
     }
 
     @Override
@@ -106,7 +182,11 @@ public class IndexPage implements Page {
         }
 
         // 复制数据
-        System.arraycopy(data, 0, this.data, 0, PAGE_SIZE);
+        if (this.data.isReadOnly()) {
+            this.data = ByteBuffer.allocate(PAGE_SIZE);
+        }
+        this.data.put(0, data, 0, PAGE_SIZE);
+        this.node = null;
 
         // 读取页头
         deserializeHeader();
@@ -114,7 +194,7 @@ public class IndexPage implements Page {
 
     @Override
     public byte[] toBytes() {
-        return data;
+        return getData();
     }
 
     @Override
@@ -131,15 +211,112 @@ public class IndexPage implements Page {
      */
     public BPlusTreeNode getNode() {
         if (node == null) {
-            // 从字节数组反序列化节点
-            byte[] nodeData = new byte[PAGE_SIZE - HEADER_SIZE];
-            System.arraycopy(data, HEADER_SIZE, nodeData, 0, nodeData.length);
-            node = BPlusTreeNode.fromBytes(nodeData);
+            // 直接从页内容反序列化节点(不复制NodeData区域)
+            node = BPlusTreeNode.fromBuffer(data.slice(HEADER_SIZE, PAGE_SIZE - HEADER_SIZE));
             node.setPageId(pageId);
         }
         return node;
     }
 
+    // ==================== 直接读取页上的节点(不反序列化) ====================
+
+    /**
+     * 页上是否有B+树节点(新分配或清空的页没有)
+     */
+    public boolean hasNode() {
+        return BPlusTreeNode.isNode(data, HEADER_SIZE);
+    }
+
+    /**
+     * 节点是否为叶子
+     */
+    public boolean isLeafNode() {
+        return BPlusTreeNode.peekIsLeaf(data, HEADER_SIZE);
+    }
+
+    /**
+     * 节点的键数量
+     */
+    public int getKeyCount() {
+        return BPlusTreeNode.peekKeyCount(data, HEADER_SIZE);
+    }
+
+    /**
+     * 第index个键(编码后的字节串,复制一份)
+     */
+    public byte[] keyAt(int index) {
+        checkIndex(index, getKeyCount());
+        return BPlusTreeNode.peekKey(data, HEADER_SIZE, index);
+    }
+
+    /**
+     * 第index个键与key比较,不复制键
+     *
+     * @return 负数/0/正数分别表示页上的键小于/等于/大于key
+     */
+    public int compareKeyAt(int index, byte[] key) {
+        checkIndex(index, getKeyCount());
+        return BPlusTreeNode.peekCompareKey(data, HEADER_SIZE, index, key);
+    }
+
+    /**
+     * 第index个子节点的页号(内部节点)
+     */
+    public int childAt(int index) {
+        checkIndex(index, getKeyCount() + 1);
+        return BPlusTreeNode.peekChild(data, HEADER_SIZE, index);
+    }
+
+    /**
+     * 第index个值在页上的只读切片(叶子节点,值为Row数据),不复制
+     */
+    public ByteBuffer valueSlice(int index) {
+        checkIndex(index, getKeyCount());
+        return BPlusTreeNode.peekValueSlice(data, HEADER_SIZE, index);
+    }
+
+    /**
+     * 第index个值(叶子节点),与BPlusTreeNode.getValue的类型一致:
+     * Row数据返回byte[]副本,整数值返回Integer
+     */
+    public Object valueAt(int index) {
+        if (BPlusTreeNode.peekIsBytesValue(data, HEADER_SIZE)) {
+            ByteBuffer slice = valueSlice(index);
+            byte[] value = new byte[slice.remaining()];
+            slice.get(value);
+            return value;
+        }
+        checkIndex(index, getKeyCount());
+        return BPlusTreeNode.peekIntValue(data, HEADER_SIZE, index);
+    }
+
+    /**
+     * 在页上二分查找键的位置,语义与BPlusTreeNode.findKeyPosition相同
+     *
+     * @return 键的位置(0~keyCount),如果存在返回对应位置
+     */
+    public int findKeyPosition(byte[] key) {
+        return BPlusTreeNode.peekFindKeyPosition(data, HEADER_SIZE, key);
+    }
+
+    /**
+     * 在页上查找key应该下降到的子节点(内部节点),语义与BPlusTreeNode.findChildIndex相同
+     *
+     * @return 子节点下标(0~keyCount)
+     */
+    public int findChildIndex(byte[] key) {
+        return BPlusTreeNode.peekFindChildIndex(data, HEADER_SIZE, key);
+    }
+
+    /**
+     * 检查条目下标在[0, size)内
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Node entry index out of bounds: " + index);
+        }
+    }
+
     /**
      * 设置B+树节点
      *
@@ -158,14 +335,10 @@ public class IndexPage implements Page {
      * 写入页号到页头。
      */
     private void serializeHeader() {
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.position(1); // 跳过PageType
-
-        // 写入页号(4 bytes)
-        buffer.putInt(pageId);
+        ensureWritable();
 
-        // 保留字段(7 bytes) - 暂时填充0
-        buffer.position(HEADER_SIZE);
+        // 写入页号(4 bytes,跳过PageType);保留字段(7 bytes)暂时填充0
+        data.putInt(1, pageId);
     }
 
     /**
@@ -174,14 +347,8 @@ public class IndexPage implements Page {
      * 从data中读取页号。
      */
     private void deserializeHeader() {
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.position(1); // 跳过PageType
-
-        // 读取页号(4 bytes)
-        this.pageId = buffer.getInt();
-
-        // 跳过保留字段(7 bytes)
-        buffer.position(HEADER_SIZE);
+        // 读取页号(4 bytes,跳过PageType)
+        this.pageId = data.getInt(1);
     }
 
     /**
@@ -194,15 +361,18 @@ public class IndexPage implements Page {
             return;
         }
 
+        ensureWritable();
+
         // 序列化节点
         byte[] nodeData = node.toBytes();
 
         // 写入页的NodeData区域(跳过页头)
-        System.arraycopy(nodeData, 0, data, HEADER_SIZE, nodeData.length);
+        data.put(HEADER_SIZE, nodeData);
 
         // 清零剩余空间(避免旧数据干扰)
-        if (nodeData.length < PAGE_SIZE - HEADER_SIZE) {
-            java.util.Arrays.fill(data, HEADER_SIZE + nodeData.length, PAGE_SIZE, (byte) 0);
+        int end = HEADER_SIZE + nodeData.length;
+        if (end < PAGE_SIZE) {
+            data.put(end, ZERO_PAGE, 0, PAGE_SIZE - end);
         }
     }
 
@@ -215,7 +385,19 @@ public class IndexPage implements Page {
         this.node = null;
 
         // 清零NodeData区域(保留页头)
-        java.util.Arrays.fill(data, HEADER_SIZE, PAGE_SIZE, (byte) 0);
+        ensureWritable();
+        data.put(HEADER_SIZE, ZERO_PAGE, 0, PAGE_SIZE - HEADER_SIZE);
+    }
+
+    /**
+     * 只读视图在第一次修改前复制到堆内
+     */
+    private void ensureWritable() {
+        if (data.isReadOnly()) {
+            ByteBuffer copy = ByteBuffer.allocate(PAGE_SIZE);
+            copy.put(0, data, 0, PAGE_SIZE);
+            data = copy;
+        }
     }
 
     @Override
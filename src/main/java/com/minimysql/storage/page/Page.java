@@ -44,6 +44,16 @@ public interface Page {
      */
     byte[] getData();
 
+    /**
+     * 获取页内容的只读视图(不复制)
+     *
+     * 从0到PAGE_SIZE按绝对位置读取。用于只需要读几个字段、
+     * 或者把整页写入文件的场景,不会触发写时复制。
+     */
+    default ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(getData()).asReadOnlyBuffer();
+    }
+
     /**
      * 从字节数组反序列化页
      *
@@ -207,10 +207,11 @@ public class PageManager {
      * 2. 否则分配下一个新页号
      *
      * 分配后自动保存到元数据文件。
+     * B+树并发分裂时会从多个线程分配,所以分配和释放都是synchronized的。
      *
      * @return 分配的页号
      */
-    public int allocatePage() {
+    public synchronized int allocatePage() {
         int pageId;
 
         if (!freePages.isEmpty()) {
@@ -243,7 +244,7 @@ public class PageManager {
      *
      * @param pageId 要释放的页号
      */
-    public void freePage(int pageId) {
+    public synchronized void freePage(int pageId) {
         // 检查页是否已分配
         if (!allocatedPages.get(pageId)) {
             // 页号不存在或已被释放,静默忽略
@@ -193,6 +193,76 @@ public class RecordSerializer {
         return new Row(values);
     }
 
+    /**
+     * ValueSink - 反序列化的接收方
+     *
+     * 逐列接收原始类型的值,不创建Row和装箱对象。
+     * 批量扫描用它把记录直接解码进列式数组(见executor.batch.RowBatch)。
+     */
+    public interface ValueSink {
+
+        void putNull(int column);
+
+        void putInt(int column, int value);
+
+        void putLong(int column, long value);
+
+        void putDouble(int column, double value);
+
+        void putBoolean(int column, boolean value);
+
+        void putString(int column, String value);
+
+        /** DATE/TIMESTAMP:毫秒数 */
+        void putDate(int column, long millis);
+    }
+
+    /**
+     * 反序列化:物理记录 → 逐列交给sink
+     *
+     * <p>与 {@link #deserialize} 读取同样的格式,但不创建 Row,
+     * 数值列不装箱,DATE/TIMESTAMP 不创建 Date 对象。
+     *
+     * @param record  物理记录 (字节数组)
+     * @param columns 列定义列表
+     * @param sink    接收每一列的值
+     * @throws IllegalArgumentException 如果参数无效或记录格式错误
+     */
+    public static void deserializeInto(byte[] record, List<Column> columns, ValueSink sink) {
+        if (record == null || record.length == 0) {
+            throw new IllegalArgumentException("Record cannot be null or empty");
+        }
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Columns cannot be null or empty");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        boolean[] nullBitmap = deserializeNullBitmap(buffer, columns);
+        int[] variableLengths = deserializeVariableLengths(buffer, columns, nullBitmap);
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (nullBitmap[i]) {
+                sink.putNull(i);
+                continue;
+            }
+
+            DataType type = columns.get(i).getType();
+            switch (type) {
+                case INT -> sink.putInt(i, buffer.getInt());
+                case BIGINT -> sink.putLong(i, buffer.getLong());
+                case DOUBLE -> sink.putDouble(i, buffer.getDouble());
+                case BOOLEAN -> sink.putBoolean(i, buffer.get() == 1);
+                case VARCHAR -> {
+                    int strLen = variableLengths[i];
+                    sink.putString(i, new String(record, buffer.position(), strLen, StandardCharsets.UTF_8));
+                    buffer.position(buffer.position() + strLen);
+                }
+                case DATE, TIMESTAMP -> sink.putDate(i, buffer.getLong());
+                default -> throw new IllegalArgumentException("Unsupported data type: " + type);
+            }
+        }
+    }
+
     /**
      * 计算记录的物理存储大小
      *
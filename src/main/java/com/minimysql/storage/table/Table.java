@@ -237,15 +237,8 @@ public class Table {
             String indexColumnName = index.getColumnName();
             Column indexColumn = getColumn(indexColumnName);
             if (indexColumn != null) {
-                int indexColumnIndex = columns.indexOf(indexColumn);
-                Object indexColumnValue = row.getValue(indexColumnIndex);
-
-                // 获取主键值 (用于回表)
-                int primaryKeyIndex = clusteredIndex.getPrimaryKeyIndex();
-                Object primaryKeyValue = row.getValue(primaryKeyIndex);
-
-                // 插入到二级索引
-                index.insertEntry(indexColumnValue, primaryKeyValue);
+                // 插入到二级索引(传整行:覆盖索引还要存INCLUDE列)
+                index.insertRowEntry(row, columns.indexOf(indexColumn));
             }
         }
 
@@ -256,6 +249,69 @@ public class Table {
         return 0; // 返回值不再有意义 (数据存储在聚簇索引中)
     }
 
+    /**
+     * 批量导入行到空表(LOAD DATA)
+     *
+     * <p>流程:
+     * <ul>
+     *   <li>逐行验证后,聚簇索引按主键排序批量构建 ({@link ClusteredIndex#bulkLoadRows})</li>
+     *   <li>每个二级索引再从聚簇索引批量构建 ({@link SecondaryIndex#bulkLoad})</li>
+     *   <li>任何一步失败(例如唯一索引重复)时清空聚簇索引和所有二级索引,表仍然是空表</li>
+     * </ul>
+     *
+     * @param rows 要导入的行,顺序任意
+     * @return 导入的行数
+     * @throws IllegalArgumentException 行不符合表定义、主键或唯一索引重复
+     * @throws IllegalStateException 表未打开、没有聚簇索引或表不为空
+     */
+    public long loadRows(java.util.Iterator<Row> rows) {
+        if (!opened) {
+            throw new IllegalStateException("Table is not opened");
+        }
+        if (clusteredIndex == null) {
+            throw new IllegalStateException("Clustered index not set");
+        }
+        if (!clusteredIndex.isEmpty()) {
+            throw new IllegalStateException("Bulk load requires an empty table: " + tableName);
+        }
+
+        java.util.Iterator<Row> validated = new java.util.Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                Row row = rows.next();
+                if (row == null) {
+                    throw new IllegalArgumentException("Row cannot be null");
+                }
+                validateRow(row);
+                return row;
+            }
+        };
+        try {
+            long count = clusteredIndex.bulkLoadRows(validated);
+
+            for (SecondaryIndex index : secondaryIndexes.values()) {
+                Column indexColumn = getColumn(index.getColumnName());
+                if (indexColumn != null) {
+                    index.bulkLoad(clusteredIndex.getAllRowsLazy(), columns.indexOf(indexColumn));
+                }
+            }
+
+            return count;
+        } catch (RuntimeException e) {
+            // 导入前表是空的:全部清空,不留下只有一部分索引的行
+            clusteredIndex.truncate();
+            for (SecondaryIndex index : secondaryIndexes.values()) {
+                index.truncate();
+            }
+            throw e;
+        }
+    }
+
     /**
      * 验证行数据是否符合表约束
      *
@@ -453,6 +509,24 @@ public class Table {
         return index.selectRow(indexValue);
     }
 
+    /**
+     * 根据二级索引查询所有匹配的行
+     *
+     * 非唯一索引上同一个值可能对应多行,按主键顺序返回。
+     *
+     * @param indexName 索引名称
+     * @param indexValue 索引列值
+     * @return 行列表,不存在返回空列表
+     */
+    public List<Row> selectAllBySecondaryIndex(String indexName, Object indexValue) {
+        SecondaryIndex index = secondaryIndexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("Secondary index not found: " + indexName);
+        }
+
+        return index.selectRows(indexValue);
+    }
+
     /**
      * 主键范围查询
      *
@@ -520,16 +594,20 @@ public class Table {
     /**
      * 根据主键更新行
      *
-     * 简化实现:直接覆盖,不处理旧值删除和索引更新
-     * 生产环境需要:
-     * 1. 从聚簇索引中删除旧行
-     * 2. 从所有二级索引中删除旧索引条目
-     * 3. 插入新行到聚簇索引
-     * 4. 为所有二级索引插入新索引条目
+     * <p>主键不变时原地更新:
+     * <ul>
+     *   <li>先对所有二级索引检查唯一约束,重复时什么也不改</li>
+     *   <li>聚簇索引覆盖叶子中的记录 ({@link ClusteredIndex#updateInPlace}),
+     *       不删除再插入,不会引起合并和分裂</li>
+     *   <li>只维护列值真正变了的二级索引 ({@link SecondaryIndex#updateRowEntry})</li>
+     * </ul>
+     *
+     * <p>主键变了(行要搬到树中的另一个位置)时删除旧行再插入新行。
+     * 注意:这不是原子操作,生产环境需要事务支持
      *
      * @param primaryKeyValue 主键值
      * @param newRow 新行数据
-     * @return 更新成功返回true,主键不存在返回false
+     * @return 更新成功返回1,主键不存在返回0
      */
     public int updateRow(Object primaryKeyValue, Row newRow) {
         if (clusteredIndex == null) {
@@ -542,10 +620,34 @@ public class Table {
             return 0; // 主键不存在
         }
 
-        // 简化实现:直接删除旧数据并插入新数据
-        // 注意:这不是原子操作,生产环境需要事务支持
-        deleteRow(primaryKeyValue);
-        insertRow(newRow);
+        validateRow(newRow);
+
+        int primaryKeyIndex = clusteredIndex.getPrimaryKeyIndex();
+        Object newPrimaryKeyValue = newRow.getValue(primaryKeyIndex);
+        if (!clusteredIndex.isSameKey(oldRow.getValue(primaryKeyIndex), newPrimaryKeyValue)) {
+            deleteRow(primaryKeyValue);
+            insertRow(newRow);
+            return 1;
+        }
+
+        // 1. 唯一约束:修改任何索引之前检查
+        for (SecondaryIndex index : secondaryIndexes.values()) {
+            int columnIndex = columns.indexOf(getColumn(index.getColumnName()));
+            if (columnIndex >= 0) {
+                index.checkUpdate(oldRow, newRow, columnIndex);
+            }
+        }
+
+        // 2. 聚簇索引原地覆盖
+        clusteredIndex.updateInPlace(primaryKeyValue, newRow);
+
+        // 3. 只维护变了的二级索引
+        for (SecondaryIndex index : secondaryIndexes.values()) {
+            int columnIndex = columns.indexOf(getColumn(index.getColumnName()));
+            if (columnIndex >= 0) {
+                index.updateRowEntry(oldRow, newRow, columnIndex);
+            }
+        }
 
         return 1;
     }
@@ -553,12 +655,10 @@ public class Table {
     /**
      * 根据主键删除行
      *
-     * 从聚簇索引和所有二级索引中删除行。
-     * 简化实现:只从聚簇索引删除,二级索引标记为过期(懒删除)
-     * 生产环境需要实现B+树的完整删除逻辑(节点合并、借位等)
+     * 先从所有二级索引删除该行的索引项,再从聚簇索引删除行。
      *
      * @param primaryKeyValue 主键值
-     * @return 删除成功返回true,主键不存在返回false
+     * @return 删除的行数(主键不存在返回0)
      */
     public int deleteRow(Object primaryKeyValue) {
         if (clusteredIndex == null) {
@@ -571,27 +671,12 @@ public class Table {
             return 0; // 主键不存在
         }
 
-        // 简化实现:从所有二级索引中删除(标记为过期)
-        // 注意:BPlusTree.delete()还未完整实现,这里会抛出UnsupportedOperationException
+        // 从所有二级索引中删除
+        Object rowPrimaryKey = row.getValue(clusteredIndex.getPrimaryKeyIndex());
         for (SecondaryIndex index : secondaryIndexes.values()) {
-            try {
-                // 获取索引列的值
-                String columnName = index.getColumnName();
-                int columnIndex = -1;
-                for (int i = 0; i < columns.size(); i++) {
-                    if (columns.get(i).getName().equals(columnName)) {
-                        columnIndex = i;
-                        break;
-                    }
-                }
-
-                if (columnIndex >= 0) {
-                    Object indexValue = row.getValue(columnIndex);
-                    index.delete(indexValue);
-                }
-            } catch (UnsupportedOperationException e) {
-                // B+树删除未实现,忽略
-                // 生产环境必须实现
+            int columnIndex = columns.indexOf(getColumn(index.getColumnName()));
+            if (columnIndex >= 0) {
+                index.deleteEntry(row.getValue(columnIndex), rowPrimaryKey);
             }
         }
 
@@ -161,6 +161,25 @@ class DeleteOperatorTest {
         assertNull(row3);
     }
 
+    @Test
+    @DisplayName("默认不保留删除的主键,开启后最多记录指定个数")
+    void testDeletedPrimaryKeysOptIn() {
+        DeleteOperator deleteAll = new DeleteOperator(table, null, evaluator);
+        assertEquals(3, deleteAll.execute());
+        assertTrue(deleteAll.getDeletedPrimaryKeys().isEmpty());
+        assertThrows(IllegalStateException.class, () -> deleteAll.recordDeletedPrimaryKeys(1));
+
+        for (int id = 1; id <= 3; id++) {
+            table.insertRow(new Row(new Object[]{id, "user" + id, 20 + id}));
+        }
+        DeleteOperator capped = new DeleteOperator(table, null, evaluator);
+        capped.recordDeletedPrimaryKeys(2);
+        assertEquals(3, capped.execute());
+        assertEquals(2, capped.getDeletedPrimaryKeys().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeleteOperator(table, null, evaluator).recordDeletedPrimaryKeys(-1));
+    }
+
     @Test
     @DisplayName("测试删除不匹配任何行")
     void testDeleteNoRowsMatched() {
@@ -197,6 +216,7 @@ class DeleteOperatorTest {
         );
 
         DeleteOperator deleteOp = new DeleteOperator(table, whereClause, evaluator);
+        deleteOp.recordDeletedPrimaryKeys(10);
 
         deleteOp.execute();
 
@@ -0,0 +1,167 @@
+package com.minimysql.executor;
+
+import com.minimysql.executor.operator.FilterOperator;
+import com.minimysql.executor.operator.IndexLookupOperator;
+import com.minimysql.executor.operator.IndexRangeScanOperator;
+import com.minimysql.executor.operator.ScanOperator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.parser.statements.SelectStatement;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.index.ClusteredIndex;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.minimysql.executor.OrdersFixture.and;
+import static com.minimysql.executor.OrdersFixture.compare;
+import static com.minimysql.executor.OrdersFixture.createOrders;
+import static com.minimysql.executor.OrdersFixture.customer;
+import static com.minimysql.executor.OrdersFixture.drain;
+import static com.minimysql.executor.OrdersFixture.ids;
+import static com.minimysql.executor.OrdersFixture.openEngine;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexAccessPathTest - 索引访问路径选择测试
+ *
+ * - 主键等值/范围条件走聚簇索引,用掉的条件不再过滤
+ * - 二级索引列上的等值/范围条件走二级索引(回表)
+ * - 剩下的条件留在FilterOperator里,结果与全表扫描 + 过滤相同
+ * - 不能精确用索引的条件(丢精度的常量、可以为NULL的列上的 &lt;)退回全表扫描
+ */
+@DisplayName("索引访问路径选择测试")
+class IndexAccessPathTest {
+
+    private static final String TEST_DATA_DIR = "test_data_index_access_path";
+
+    private static final int ROW_COUNT = 2000;
+
+    private StorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        storageEngine = openEngine(TEST_DATA_DIR);
+        table = createOrders(storageEngine, ROW_COUNT);
+        storageEngine.createIndex("orders", "idx_amount", "amount", false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("主键等值:聚簇索引点查,不再需要FilterOperator,只读根到叶的路径")
+    void testPrimaryKeyLookup() {
+        SelectStatement select = selectAll(compare("id", OperatorEnum.EQUAL, 1234));
+
+        Operator plan = ExecutionPlan.buildFilteredAccessPath(select, table);
+        assertInstanceOf(IndexLookupOperator.class, plan);
+        assertSame(table.getClusteredIndex(), ((IndexLookupOperator) plan).getIndex());
+
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        long before = clusteredIndex.getNodeReadCount();
+        List<Row> rows = new VolcanoExecutor(storageEngine).execute(select).getRows();
+        assertEquals(1, rows.size());
+        assertEquals(1234, rows.get(0).getValue(0));
+        assertTrue(clusteredIndex.getNodeReadCount() - before <= clusteredIndex.getHeight() + 1);
+
+        assertTrue(drain(ExecutionPlan.build(selectAll(compare("id", OperatorEnum.EQUAL, ROW_COUNT + 1)),
+                storageEngine)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("主键范围:上下界都用聚簇索引,其他条件留在FilterOperator里")
+    void testPrimaryKeyRange() {
+        Expression where = and(and(
+                compare("id", OperatorEnum.GREATER_EQUAL, 100),
+                new BinaryExpression(new LiteralExpression(300), OperatorEnum.GREATER_THAN, new ColumnExpression("id"))),
+                compare("customer", OperatorEnum.EQUAL, customer(7)));
+        SelectStatement select = selectAll(where);
+
+        Operator plan = ExecutionPlan.buildFilteredAccessPath(select, table);
+        assertInstanceOf(FilterOperator.class, plan);
+        assertEquals(compare("customer", OperatorEnum.EQUAL, customer(7)).toString(),
+                ((FilterOperator) plan).getWhereCondition().toString());
+        IndexRangeScanOperator scan = (IndexRangeScanOperator) ((FilterOperator) plan).getChild();
+        assertEquals(100, scan.getLowerValue());
+        assertEquals(300, scan.getUpperValue());
+
+        List<Row> rows = drain(ExecutionPlan.build(select, storageEngine));
+        assertEquals(ids(fullScan(where)), ids(rows));
+        assertEquals(List.of(107, 157, 207, 257), ids(rows));
+
+        // 同一列上的多个下界取最紧的,另一个仍然过滤
+        Expression tighter = and(compare("id", OperatorEnum.GREATER_THAN, 1990),
+                compare("id", OperatorEnum.GREATER_EQUAL, 10));
+        assertEquals(List.of(1991, 1992, 1993, 1994, 1995, 1996, 1997, 1998, 1999, 2000),
+                ids(drain(ExecutionPlan.build(selectAll(tighter), storageEngine))));
+    }
+
+    @Test
+    @DisplayName("二级索引:等值条件读出这个值的所有行,范围条件回表,结果与全表扫描相同")
+    void testSecondaryIndex() {
+        Expression equal = compare("amount", OperatorEnum.EQUAL, 42);
+        Operator lookup = ExecutionPlan.buildAccessPath(selectAll(equal), table);
+        assertInstanceOf(IndexLookupOperator.class, lookup);
+        assertEquals("idx_amount", ((IndexLookupOperator) lookup).getIndex().getIndexName());
+
+        List<Row> rows = drain(ExecutionPlan.build(selectAll(equal), storageEngine));
+        assertEquals(ids(fullScan(equal)), ids(rows));
+        assertFalse(rows.isEmpty());
+
+        Expression range = and(compare("amount", OperatorEnum.GREATER_THAN, 90),
+                compare("amount", OperatorEnum.LESS_EQUAL, 92));
+        // amount可以为NULL:<= 不用索引,> 用索引
+        IndexRangeScanOperator scan = (IndexRangeScanOperator) ExecutionPlan.buildAccessPath(selectAll(range), table);
+        assertEquals(90, scan.getLowerValue());
+        assertNull(scan.getUpperValue());
+
+        List<Object> expected = ids(fullScan(range));
+        List<Object> actual = ids(drain(ExecutionPlan.build(selectAll(range), storageEngine)));
+        actual.sort(null);
+        assertEquals(expected, actual);
+        assertEquals(40, actual.size()); // 91和92各20行
+    }
+
+    @Test
+    @DisplayName("不能精确用索引的条件:丢精度的常量、可以为NULL的列上的 <,退回全表扫描")
+    void testNotSargable() {
+        Expression fraction = compare("id", OperatorEnum.EQUAL, 5.5);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(selectAll(fraction), table));
+        assertTrue(drain(ExecutionPlan.build(selectAll(fraction), storageEngine)).isEmpty());
+
+        Expression nullable = compare("amount", OperatorEnum.LESS_THAN, 3);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(selectAll(nullable), table));
+
+        Expression or = new BinaryExpression(compare("id", OperatorEnum.EQUAL, 1), OperatorEnum.OR,
+                compare("id", OperatorEnum.EQUAL, 2));
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(selectAll(or), table));
+        assertEquals(List.of(1, 2), ids(drain(ExecutionPlan.build(selectAll(or), storageEngine))));
+    }
+
+    private List<Row> fullScan(Expression where) {
+        return drain(new FilterOperator(new ScanOperator(table), where, table.getColumns()));
+    }
+
+    private static SelectStatement selectAll(Expression where) {
+        return new SelectStatement(List.of(), "orders", where);
+    }
+
+}
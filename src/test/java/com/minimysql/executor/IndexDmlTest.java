@@ -0,0 +1,165 @@
+package com.minimysql.executor;
+
+import com.minimysql.executor.operator.DeleteOperator;
+import com.minimysql.executor.operator.FilterOperator;
+import com.minimysql.executor.operator.ScanOperator;
+import com.minimysql.executor.operator.UpdateOperator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.parser.statements.DeleteStatement;
+import com.minimysql.parser.statements.UpdateStatement;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.index.ClusteredIndex;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.minimysql.executor.OrdersFixture.and;
+import static com.minimysql.executor.OrdersFixture.compare;
+import static com.minimysql.executor.OrdersFixture.createOrders;
+import static com.minimysql.executor.OrdersFixture.customer;
+import static com.minimysql.executor.OrdersFixture.drain;
+import static com.minimysql.executor.OrdersFixture.ids;
+import static com.minimysql.executor.OrdersFixture.openEngine;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexDmlTest - UPDATE/DELETE走索引访问路径测试
+ *
+ * - WHERE id = k 只读根到叶的路径,不再全表扫描
+ * - 按二级索引删除:边读边删,结果与全表扫描 + 过滤相同
+ * - 访问路径按被更新的列有序(Halloween问题):每行只更新一次
+ */
+@DisplayName("UPDATE/DELETE索引访问路径测试")
+class IndexDmlTest {
+
+    private static final String TEST_DATA_DIR = "test_data_index_dml";
+
+    private static final int ROW_COUNT = 2000;
+
+    private StorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        storageEngine = openEngine(TEST_DATA_DIR);
+        table = createOrders(storageEngine, ROW_COUNT);
+        storageEngine.createIndex("orders", "idx_amount", "amount", false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("主键等值UPDATE/DELETE:只读很少的节点,不再全表扫描")
+    void testPrimaryKeyDml() {
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        int leafPages = clusteredIndex.getStats().getLeafPages();
+        assertTrue(leafPages > 10, "leafPages " + leafPages);
+
+        UpdateOperator update = (UpdateOperator) ExecutionPlan.build(new UpdateStatement("orders",
+                Map.of("customer", new LiteralExpression("vip")), compare("id", OperatorEnum.EQUAL, 1234)), storageEngine);
+        assertFalse(update.isBufferPrimaryKeys());
+
+        long before = clusteredIndex.getNodeReadCount();
+        assertEquals(1, update.execute());
+        assertTrue(clusteredIndex.getNodeReadCount() - before < leafPages,
+                "reads " + (clusteredIndex.getNodeReadCount() - before));
+        assertEquals("vip", table.selectByPrimaryKey(1234).getValue(1));
+        assertEquals(customer(1235), table.selectByPrimaryKey(1235).getValue(1));
+
+        DeleteOperator delete = (DeleteOperator) ExecutionPlan.build(
+                new DeleteStatement("orders", compare("id", OperatorEnum.EQUAL, 1234)), storageEngine);
+        before = clusteredIndex.getNodeReadCount();
+        assertEquals(1, delete.execute());
+        assertTrue(clusteredIndex.getNodeReadCount() - before < leafPages,
+                "reads " + (clusteredIndex.getNodeReadCount() - before));
+        assertNull(table.selectByPrimaryKey(1234));
+        assertEquals(ROW_COUNT - 1, table.fullTableScan().size());
+
+        // 不存在的主键:影响0行
+        assertEquals(0, ((DeleteOperator) ExecutionPlan.build(
+                new DeleteStatement("orders", compare("id", OperatorEnum.EQUAL, 1234)), storageEngine)).execute());
+    }
+
+    @Test
+    @DisplayName("按二级索引和主键范围边读边删:结果与全表扫描 + 过滤相同")
+    void testStreamingDelete() {
+        Expression byAmount = compare("amount", OperatorEnum.EQUAL, 5);
+        List<Object> matching = ids(scanAndFilter(byAmount));
+        assertFalse(matching.isEmpty());
+
+        DeleteOperator delete = (DeleteOperator) ExecutionPlan.build(new DeleteStatement("orders", byAmount), storageEngine);
+        delete.recordDeletedPrimaryKeys(ROW_COUNT);
+        assertEquals(matching.size(), delete.execute());
+        assertEquals(matching, delete.getDeletedPrimaryKeys());
+        assertTrue(scanAndFilter(byAmount).isEmpty());
+        assertTrue(table.selectAllBySecondaryIndex("idx_amount", 5).isEmpty());
+
+        // 主键范围 + 剩余条件:只删除范围内customer匹配的行
+        Expression rangeAndCustomer = and(and(
+                compare("id", OperatorEnum.GREATER_EQUAL, 1000),
+                compare("id", OperatorEnum.LESS_THAN, 1500)),
+                compare("customer", OperatorEnum.EQUAL, customer(7)));
+        int expected = scanAndFilter(rangeAndCustomer).size();
+        int before = table.fullTableScan().size();
+
+        delete = (DeleteOperator) ExecutionPlan.build(new DeleteStatement("orders", rangeAndCustomer), storageEngine);
+        assertEquals(expected, delete.execute());
+        assertTrue(scanAndFilter(rangeAndCustomer).isEmpty());
+        assertEquals(before - expected, table.fullTableScan().size());
+    }
+
+    @Test
+    @DisplayName("访问路径按被更新的列有序:先收集主键,每行只更新一次")
+    void testHalloweenUpdate() {
+        Expression where = compare("amount", OperatorEnum.GREATER_EQUAL, 90);
+        List<Object> matching = ids(scanAndFilter(where));
+        assertFalse(matching.isEmpty());
+
+        // UPDATE orders SET amount = amount + 100 WHERE amount >= 90
+        Expression plusHundred = new BinaryExpression(
+                new ColumnExpression("amount"), OperatorEnum.ADD, new LiteralExpression(100));
+        UpdateOperator update = (UpdateOperator) ExecutionPlan.build(
+                new UpdateStatement("orders", Map.of("amount", plusHundred), where), storageEngine);
+        assertTrue(update.isBufferPrimaryKeys());
+        assertEquals(matching.size(), update.execute());
+
+        for (Object id : matching) {
+            int original = (Integer) id % 97;
+            assertEquals(original + 100, table.selectByPrimaryKey(id).getValue(2));
+        }
+        assertEquals(matching, ids(scanAndFilter(compare("amount", OperatorEnum.GREATER_EQUAL, 190))));
+
+        // 更新其他列时不按被更新的列有序,边读边改
+        UpdateOperator other = (UpdateOperator) ExecutionPlan.build(new UpdateStatement("orders",
+                Map.of("customer", new LiteralExpression("big")), where), storageEngine);
+        assertFalse(other.isBufferPrimaryKeys());
+        assertEquals(matching.size(), other.execute());
+        for (Row row : scanAndFilter(where)) {
+            assertEquals("big", row.getValue(1));
+        }
+    }
+
+    private List<Row> scanAndFilter(Expression where) {
+        return drain(new FilterOperator(new ScanOperator(table), where, table.getColumns()));
+    }
+
+}
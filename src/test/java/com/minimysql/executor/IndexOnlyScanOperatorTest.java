@@ -0,0 +1,251 @@
+package com.minimysql.executor;
+
+import com.minimysql.executor.operator.DeleteOperator;
+import com.minimysql.executor.operator.FilterOperator;
+import com.minimysql.executor.operator.IndexOnlyScanOperator;
+import com.minimysql.executor.operator.ProjectOperator;
+import com.minimysql.executor.operator.ScanOperator;
+import com.minimysql.executor.operator.UpdateOperator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.parser.statements.DeleteStatement;
+import com.minimysql.parser.statements.SelectStatement;
+import com.minimysql.parser.statements.UpdateStatement;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.StorageEngineFactory;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexOnlyScanOperatorTest - 覆盖索引扫描测试
+ *
+ * 测试执行计划的访问路径选择和覆盖索引扫描的结果:
+ * - 查询涉及的列都在覆盖索引里时使用IndexOnlyScanOperator
+ * - 索引列上的等值条件走等值查找,非唯一索引返回这个值的所有行
+ * - 涉及未覆盖的列时退回全表扫描
+ * - 索引列可以为NULL时不做全索引扫描(NULL不在索引里),SELECT/UPDATE/DELETE不漏行
+ * - 两种访问路径的结果相同
+ */
+@DisplayName("覆盖索引扫描测试")
+class IndexOnlyScanOperatorTest {
+
+    private static final String TEST_DATA_DIR = "test_data_index_only_scan";
+
+    private StorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        storageEngine = StorageEngineFactory.createEngine(
+                StorageEngineFactory.EngineType.INNODB,
+                10,
+                false,
+                TEST_DATA_DIR
+        );
+
+        // users(id INT, name VARCHAR(100) NOT NULL, age INT, city VARCHAR(100))
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 100, false),
+                new Column("age", DataType.INT, true),
+                new Column("city", DataType.VARCHAR, 100, true)
+        );
+        storageEngine.createTable("users", columns);
+        table = storageEngine.getTable("users");
+
+        for (int i = 1; i <= 200; i++) {
+            table.insertRow(new Row(new Object[]{i, "user" + i, 18 + i % 40, "city" + i % 7}));
+        }
+        storageEngine.createIndex("users", "idx_name", "name", true, List.of("age"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("唯一覆盖索引上的等值条件:点查,不回表")
+    void testPointLookup() {
+        Expression where = and(
+                new BinaryExpression(new ColumnExpression("name"), OperatorEnum.EQUAL, new LiteralExpression("user42")),
+                new BinaryExpression(new ColumnExpression("age"), OperatorEnum.GREATER_THAN, new LiteralExpression(0)));
+        SelectStatement select = new SelectStatement(columns("id", "age"), "users", where);
+
+        Operator access = ExecutionPlan.buildAccessPath(select, table);
+        assertInstanceOf(IndexOnlyScanOperator.class, access);
+        assertTrue(((IndexOnlyScanOperator) access).isPointLookup());
+
+        List<Row> rows = drain(ExecutionPlan.build(select, storageEngine));
+        assertEquals(1, rows.size());
+        assertEquals(42, rows.get(0).getValue(0));
+        assertEquals(18 + 42 % 40, rows.get(0).getValue(1));
+
+        SelectStatement missing = new SelectStatement(columns("id"), "users",
+                new BinaryExpression(new LiteralExpression("nobody"), OperatorEnum.EQUAL, new ColumnExpression("name")));
+        assertTrue(drain(ExecutionPlan.build(missing, storageEngine)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("没有等值条件:全索引扫描,结果与全表扫描相同")
+    void testFullIndexScan() {
+        Expression where = new BinaryExpression(new ColumnExpression("age"), OperatorEnum.LESS_THAN,
+                new LiteralExpression(25));
+        SelectStatement select = new SelectStatement(columns("name", "age"), "users", where);
+
+        Operator access = ExecutionPlan.buildAccessPath(select, table);
+        assertInstanceOf(IndexOnlyScanOperator.class, access);
+        assertFalse(((IndexOnlyScanOperator) access).isPointLookup());
+
+        List<Row> indexRows = drain(ExecutionPlan.build(select, storageEngine));
+        List<Row> scanRows = drain(new ProjectOperator(
+                new FilterOperator(new ScanOperator(table), where, table.getColumns()),
+                select.getSelectItems(), table.getColumns()));
+
+        assertEquals(scanRows.size(), indexRows.size());
+        assertFalse(indexRows.isEmpty());
+        List<String> expected = new ArrayList<>();
+        for (Row row : scanRows) {
+            expected.add(row.getValue(0) + ":" + row.getValue(1));
+        }
+        for (Row row : indexRows) {
+            assertTrue(expected.contains(row.getValue(0) + ":" + row.getValue(1)));
+        }
+    }
+
+    @Test
+    @DisplayName("涉及未覆盖的列或SELECT *:退回全表扫描")
+    void testFallbackToTableScan() {
+        SelectStatement withCity = new SelectStatement(columns("name", "city"), "users", null);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(withCity, table));
+
+        Expression cityFilter = new BinaryExpression(new ColumnExpression("city"), OperatorEnum.EQUAL,
+                new LiteralExpression("city1"));
+        SelectStatement filterOnCity = new SelectStatement(columns("name"), "users", cityFilter);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(filterOnCity, table));
+
+        SelectStatement selectAll = new SelectStatement(List.of(), "users", null);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(selectAll, table));
+        assertEquals(200, drain(ExecutionPlan.build(selectAll, storageEngine)).size());
+    }
+
+    @Test
+    @DisplayName("非唯一覆盖索引上的等值条件:读出这个值的所有行")
+    void testNonUniqueLookup() {
+        // 另建一张表:同一张表上的二级索引共用indexId
+        storageEngine.createTable("members", table.getColumns());
+        Table members = storageEngine.getTable("members");
+        for (int i = 1; i <= 200; i++) {
+            members.insertRow(new Row(new Object[]{i, "user" + i, 18 + i % 40, "city" + i % 7}));
+        }
+        storageEngine.createIndex("members", "idx_city", "city", false, List.of("name"));
+
+        SelectStatement select = new SelectStatement(columns("id", "name"), "members",
+                new BinaryExpression(new ColumnExpression("city"), OperatorEnum.EQUAL, new LiteralExpression("city3")));
+
+        Operator access = ExecutionPlan.buildAccessPath(select, members);
+        assertInstanceOf(IndexOnlyScanOperator.class, access);
+        assertTrue(((IndexOnlyScanOperator) access).isPointLookup());
+
+        List<Row> rows = drain(ExecutionPlan.build(select, storageEngine));
+        List<Object> ids = new ArrayList<>();
+        for (Row row : rows) {
+            ids.add(row.getValue(0));
+            assertEquals("user" + row.getValue(0), row.getValue(1));
+        }
+        List<Object> expected = new ArrayList<>();
+        for (int i = 3; i <= 200; i += 7) {
+            expected.add(i);
+        }
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    @DisplayName("索引列可以为NULL:不做全索引扫描,SELECT/UPDATE/DELETE不漏掉NULL的行")
+    void testNullableIndexColumnNotFullScanned() {
+        // contacts(id INT, name VARCHAR(100), age INT),idx_name INCLUDE(age)覆盖所有列
+        storageEngine.createTable("contacts", Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 100, true),
+                new Column("age", DataType.INT, true)));
+        Table contacts = storageEngine.getTable("contacts");
+        for (int i = 1; i <= 100; i++) {
+            contacts.insertRow(new Row(new Object[]{i, i % 5 == 0 ? null : "user" + i, 18 + i % 40}));
+        }
+        storageEngine.createIndex("contacts", "idx_contact_name", "name", false, List.of("age"));
+
+        SelectStatement select = new SelectStatement(columns("name", "age"), "contacts", null);
+        assertInstanceOf(ScanOperator.class, ExecutionPlan.buildAccessPath(select, contacts));
+        assertEquals(100, drain(ExecutionPlan.build(select, storageEngine)).size());
+
+        // 索引列上的等值条件本来就不匹配NULL,照样走覆盖索引
+        SelectStatement lookup = new SelectStatement(columns("id"), "contacts",
+                new BinaryExpression(new ColumnExpression("name"), OperatorEnum.EQUAL, new LiteralExpression("user7")));
+        assertInstanceOf(IndexOnlyScanOperator.class, ExecutionPlan.buildAccessPath(lookup, contacts));
+
+        UpdateOperator update = (UpdateOperator) ExecutionPlan.build(new UpdateStatement("contacts",
+                Map.of("age", new LiteralExpression(1)), null), storageEngine);
+        assertEquals(100, update.execute());
+        for (Row row : contacts.fullTableScan()) {
+            assertEquals(1, row.getValue(2));
+        }
+
+        DeleteOperator delete = (DeleteOperator) ExecutionPlan.build(
+                new DeleteStatement("contacts", null), storageEngine);
+        assertEquals(100, delete.execute());
+        assertTrue(contacts.fullTableScan().isEmpty());
+    }
+
+    @Test
+    @DisplayName("VolcanoExecutor使用同样的访问路径")
+    void testVolcanoExecutor() {
+        SelectStatement select = new SelectStatement(columns("id"), "users",
+                new BinaryExpression(new ColumnExpression("name"), OperatorEnum.EQUAL, new LiteralExpression("user7")));
+
+        List<Row> rows = new VolcanoExecutor(storageEngine).execute(select).getRows();
+        assertEquals(1, rows.size());
+        assertEquals(7, rows.get(0).getValue(0));
+    }
+
+    private static List<Expression> columns(String... names) {
+        List<Expression> items = new ArrayList<>();
+        for (String name : names) {
+            items.add(new ColumnExpression(name));
+        }
+        return items;
+    }
+
+    private static Expression and(Expression left, Expression right) {
+        return new BinaryExpression(left, OperatorEnum.AND, right);
+    }
+
+    private static List<Row> drain(Operator operator) {
+        List<Row> rows = new ArrayList<>();
+        while (operator.hasNext()) {
+            rows.add(operator.next());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,110 @@
+package com.minimysql.executor;
+
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.StorageEngineFactory;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OrdersFixture - 访问路径/流式结果集测试共用的orders表
+ *
+ * orders(id INT, customer VARCHAR(100), amount INT),第i行是
+ * (i, "customer" + i % 50 + NOTE, i % 97):主键连续,customer有50个不同值,amount有97个。
+ *
+ * 缓冲池只有64页,加上每行的NOTE,几千行就能让聚簇索引的叶子远多于缓冲池,
+ * 全表扫描和索引访问读的页数差别明显。
+ */
+final class OrdersFixture {
+
+    /** 让每行大一些,聚簇索引有足够多的叶子 */
+    private static final String NOTE = "-" + "x".repeat(80);
+
+    /** 缓冲池大小(页数) */
+    private static final int POOL_SIZE = 64;
+
+    private OrdersFixture() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 在指定数据目录打开InnoDB存储引擎
+     *
+     * @param dataDir 数据目录
+     * @return 存储引擎
+     */
+    static StorageEngine openEngine(String dataDir) {
+        return StorageEngineFactory.createEngine(
+                StorageEngineFactory.EngineType.INNODB,
+                POOL_SIZE,
+                false,
+                dataDir
+        );
+    }
+
+    /**
+     * 创建orders表并插入rowCount行
+     *
+     * @param storageEngine 存储引擎
+     * @param rowCount 行数(主键为1..rowCount)
+     * @return orders表
+     */
+    static Table createOrders(StorageEngine storageEngine, int rowCount) {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("customer", DataType.VARCHAR, 100, true),
+                new Column("amount", DataType.INT, true)
+        );
+        storageEngine.createTable("orders", columns);
+        Table table = storageEngine.getTable("orders");
+
+        for (int i = 1; i <= rowCount; i++) {
+            table.insertRow(new Row(new Object[]{i, customer(i), i % 97}));
+        }
+        return table;
+    }
+
+    /**
+     * 第id行的customer列
+     *
+     * @param id 主键
+     * @return customer值
+     */
+    static String customer(int id) {
+        return "customer" + id % 50 + NOTE;
+    }
+
+    static Expression compare(String column, OperatorEnum operator, Object value) {
+        return new BinaryExpression(new ColumnExpression(column), operator, new LiteralExpression(value));
+    }
+
+    static Expression and(Expression left, Expression right) {
+        return new BinaryExpression(left, OperatorEnum.AND, right);
+    }
+
+    static List<Object> ids(List<Row> rows) {
+        List<Object> ids = new ArrayList<>();
+        for (Row row : rows) {
+            ids.add(row.getValue(0));
+        }
+        return ids;
+    }
+
+    static List<Row> drain(Operator operator) {
+        List<Row> rows = new ArrayList<>();
+        while (operator.hasNext()) {
+            rows.add(operator.next());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,138 @@
+package com.minimysql.executor;
+
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.parser.statements.SelectStatement;
+import com.minimysql.result.QueryResult;
+import com.minimysql.result.ResultCursor;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.index.ClusteredIndex;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.minimysql.executor.OrdersFixture.compare;
+import static com.minimysql.executor.OrdersFixture.createOrders;
+import static com.minimysql.executor.OrdersFixture.openEngine;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamingResultTest - 流式结果集测试
+ *
+ * - 第一行不用等整个结果集:取一行只读很少的页
+ * - fetch(n)按批取,取完自动关闭
+ * - 缓冲的execute()与逐行读取的结果相同
+ * - 提前close()之后不再返回行
+ */
+@DisplayName("流式结果集测试")
+class StreamingResultTest {
+
+    private static final String TEST_DATA_DIR = "test_data_streaming_result";
+
+    private static final int ROW_COUNT = 3000;
+
+    private StorageEngine storageEngine;
+    private Table table;
+    private VolcanoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        storageEngine = openEngine(TEST_DATA_DIR);
+        table = createOrders(storageEngine, ROW_COUNT);
+        executor = new VolcanoExecutor(storageEngine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("第一行不用等整个结果集:取第一行只读很少的页")
+    void testFirstRowWithoutFullScan() {
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        int leafPages = clusteredIndex.getStats().getLeafPages();
+        assertTrue(leafPages > 20, "leafPages " + leafPages);
+
+        long before = clusteredIndex.getNodeReadCount();
+        try (ResultCursor cursor = executor.openCursor(new SelectStatement(List.of(), "orders", null))) {
+            assertEquals(0, clusteredIndex.getNodeReadCount() - before);
+
+            assertTrue(cursor.hasNext());
+            assertEquals(1, cursor.next().getValue(0));
+            assertTrue(clusteredIndex.getNodeReadCount() - before <= clusteredIndex.getHeight() + 2,
+                    "reads " + (clusteredIndex.getNodeReadCount() - before));
+            assertEquals(1, cursor.getRowCount());
+        }
+    }
+
+    @Test
+    @DisplayName("fetch(n)按批取,取完自动关闭;与缓冲的execute()结果相同")
+    void testFetchBatches() {
+        SelectStatement select = new SelectStatement(
+                List.of(new ColumnExpression("id"), new ColumnExpression("amount")),
+                "orders",
+                compare("amount", OperatorEnum.LESS_THAN, 10));
+        QueryResult buffered = executor.execute(select);
+        assertEquals(2, buffered.getColumnCount());
+        assertTrue(buffered.getRowCount() > 100);
+
+        ResultCursor cursor = executor.openCursor(select);
+        assertEquals(List.of("id", "amount"),
+                cursor.getColumns().stream().map(Column::getName).toList());
+
+        int fetched = 0;
+        List<Row> batch;
+        do {
+            batch = cursor.fetch(64);
+            assertTrue(batch.size() <= 64);
+            for (Row row : batch) {
+                assertEquals(buffered.getRows().get(fetched).getValue(0), row.getValue(0));
+                assertEquals(buffered.getRows().get(fetched).getValue(1), row.getValue(1));
+                fetched++;
+            }
+        } while (batch.size() == 64);
+
+        assertEquals(buffered.getRowCount(), fetched);
+        assertTrue(cursor.isClosed());
+        assertTrue(cursor.fetch(64).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> cursor.fetch(0));
+    }
+
+    @Test
+    @DisplayName("提前close():不再返回行,可以多次关闭;剩下的行用toQueryResult()缓冲")
+    void testCloseEarly() {
+        SelectStatement select = new SelectStatement(List.of(), "orders",
+                compare("id", OperatorEnum.GREATER_THAN, ROW_COUNT - 10));
+
+        ResultCursor cursor = executor.openCursor(select);
+        assertEquals(ROW_COUNT - 9, cursor.next().getValue(0));
+        cursor.close();
+        cursor.close();
+        assertTrue(cursor.isClosed());
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::next);
+
+        try (ResultCursor rest = executor.openCursor(select)) {
+            rest.next();
+            QueryResult remaining = rest.toQueryResult();
+            assertEquals(9, remaining.getRowCount());
+            assertEquals(ROW_COUNT - 8, remaining.getRows().get(0).getValue(0));
+            assertTrue(rest.isClosed());
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.minimysql.executor.batch;
+
+import com.minimysql.executor.VolcanoExecutor;
+import com.minimysql.executor.operator.ScanOperator;
+import com.minimysql.parser.Expression;
+import com.minimysql.parser.expressions.BinaryExpression;
+import com.minimysql.parser.expressions.ColumnExpression;
+import com.minimysql.parser.expressions.LiteralExpression;
+import com.minimysql.parser.expressions.NotExpression;
+import com.minimysql.parser.expressions.OperatorEnum;
+import com.minimysql.parser.statements.SelectStatement;
+import com.minimysql.result.QueryResult;
+import com.minimysql.storage.StorageEngine;
+import com.minimysql.storage.StorageEngineFactory;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchExecutionTest - 批量执行测试
+ *
+ * - 批量执行与一行一行执行的结果完全相同(INT/BIGINT/DOUBLE/VARCHAR条件、NULL、AND/OR/NOT)
+ * - 能编译的条件在列数组上循环,其他条件逐行求值
+ * - 批大小、选择向量和两个方向的适配器
+ */
+@DisplayName("批量执行测试")
+class BatchExecutionTest {
+
+    private static final String TEST_DATA_DIR = "test_data_batch_execution";
+
+    private static final int ROW_COUNT = 2500;
+
+    private StorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        storageEngine = StorageEngineFactory.createEngine(
+                StorageEngineFactory.EngineType.INNODB,
+                64,
+                false,
+                TEST_DATA_DIR
+        );
+
+        // items(id INT, qty INT, total BIGINT, price DOUBLE, name VARCHAR(50), active BOOLEAN)
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("qty", DataType.INT, true),
+                new Column("total", DataType.BIGINT, true),
+                new Column("price", DataType.DOUBLE, true),
+                new Column("name", DataType.VARCHAR, 50, true),
+                new Column("active", DataType.BOOLEAN, true)
+        );
+        storageEngine.createTable("items", columns);
+        table = storageEngine.getTable("items");
+
+        for (int i = 1; i <= ROW_COUNT; i++) {
+            boolean nulls = i % 7 == 0;
+            table.insertRow(new Row(new Object[]{
+                    i,
+                    nulls ? null : i % 100 - 50,
+                    nulls ? null : (long) i * 1_000_000L,
+                    nulls ? null : (i % 40) / 4.0,
+                    nulls ? null : "item" + i % 30,
+                    i % 2 == 0
+            }));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("批量执行与一行一行执行的结果相同")
+    void testSameResultsAsRowExecution() {
+        List<Expression> conditions = List.of(
+                compare("qty", OperatorEnum.LESS_THAN, 10),
+                compare("qty", OperatorEnum.LESS_EQUAL, 2.5),
+                compare("qty", OperatorEnum.GREATER_THAN, -3.5),
+                compare("qty", OperatorEnum.GREATER_EQUAL, 49),
+                compare("qty", OperatorEnum.EQUAL, 7),
+                compare("qty", OperatorEnum.EQUAL, 7.5),
+                compare("qty", OperatorEnum.NOT_EQUAL, 7),
+                compare("qty", OperatorEnum.NOT_EQUAL, 7.5),
+                compare("qty", OperatorEnum.LESS_THAN, 1e30),
+                compare("qty", OperatorEnum.GREATER_THAN, -1e30),
+                compare("qty", OperatorEnum.GREATER_EQUAL, 3_000_000_000L),
+                new BinaryExpression(new LiteralExpression(10), OperatorEnum.GREATER_THAN, new ColumnExpression("qty")),
+                new BinaryExpression(new LiteralExpression(10), OperatorEnum.LESS_THAN, new ColumnExpression("qty")),
+                compare("total", OperatorEnum.GREATER_EQUAL, 1_500_000_000L),
+                compare("total", OperatorEnum.LESS_THAN, 20_000_000),
+                compare("price", OperatorEnum.LESS_EQUAL, 4.75),
+                compare("price", OperatorEnum.EQUAL, 5),
+                compare("name", OperatorEnum.EQUAL, "item7"),
+                compare("name", OperatorEnum.LESS_THAN, "item2"),
+                new BinaryExpression(
+                        compare("qty", OperatorEnum.GREATER_THAN, 0),
+                        OperatorEnum.AND,
+                        compare("name", OperatorEnum.NOT_EQUAL, "item3")),
+                new BinaryExpression(
+                        compare("price", OperatorEnum.GREATER_THAN, 9),
+                        OperatorEnum.OR,
+                        compare("total", OperatorEnum.LESS_THAN, 100_000_000L)),
+                new NotExpression(new BinaryExpression(
+                        compare("qty", OperatorEnum.LESS_THAN, 0),
+                        OperatorEnum.OR,
+                        compare("name", OperatorEnum.EQUAL, "item1"))),
+                compare("active", OperatorEnum.EQUAL, true),
+                new BinaryExpression(
+                        new BinaryExpression(new ColumnExpression("id"), OperatorEnum.MODULO, new LiteralExpression(3)),
+                        OperatorEnum.EQUAL,
+                        new LiteralExpression(0))
+        );
+
+        VolcanoExecutor rowExecutor = new VolcanoExecutor(storageEngine);
+        VolcanoExecutor batchExecutor = new VolcanoExecutor(storageEngine, true);
+        assertTrue(batchExecutor.isVectorized());
+
+        for (Expression where : conditions) {
+            SelectStatement select = new SelectStatement(List.of(), "items", where);
+            QueryResult expected = rowExecutor.execute(select);
+            QueryResult actual = batchExecutor.execute(select);
+            assertEquals(values(expected.getRows()), values(actual.getRows()), where.toString());
+        }
+
+        SelectStatement projected = new SelectStatement(
+                List.of(new ColumnExpression("name"), new ColumnExpression("id")),
+                "items",
+                compare("qty", OperatorEnum.LESS_THAN, 0));
+        QueryResult expected = rowExecutor.execute(projected);
+        QueryResult actual = batchExecutor.execute(projected);
+        assertEquals(List.of("name", "id"), actual.getColumns().stream().map(Column::getName).toList());
+        assertEquals(values(expected.getRows()), values(actual.getRows()));
+        assertTrue(actual.getRowCount() > 0);
+    }
+
+    @Test
+    @DisplayName("能编译的条件在列数组上循环,其他条件逐行求值")
+    void testVectorizedAndFallbackConditions() {
+        assertTrue(filter(compare("qty", OperatorEnum.LESS_THAN, 10)).isVectorized());
+        assertTrue(filter(compare("total", OperatorEnum.GREATER_THAN, 5)).isVectorized());
+        assertTrue(filter(compare("name", OperatorEnum.EQUAL, "item1")).isVectorized());
+        assertTrue(filter(new NotExpression(new BinaryExpression(
+                compare("qty", OperatorEnum.LESS_THAN, 0),
+                OperatorEnum.OR,
+                compare("price", OperatorEnum.GREATER_EQUAL, 2.5)))).isVectorized());
+
+        assertFalse(filter(compare("active", OperatorEnum.EQUAL, true)).isVectorized());
+        assertFalse(filter(compare("name", OperatorEnum.EQUAL, 5)).isVectorized());
+        assertFalse(filter(new BinaryExpression(
+                compare("qty", OperatorEnum.LESS_THAN, 0),
+                OperatorEnum.AND,
+                new BinaryExpression(new ColumnExpression("qty"), OperatorEnum.LESS_THAN,
+                        new ColumnExpression("id")))).isVectorized());
+    }
+
+    @Test
+    @DisplayName("批大小和选择向量:过滤不搬动数据,只缩短选择向量")
+    void testBatchSizeAndSelection() {
+        BatchScanOperator scan = new BatchScanOperator(table, 100);
+        int batches = 0;
+        int rows = 0;
+        RowBatch batch;
+        while ((batch = scan.nextBatch()) != null) {
+            batches++;
+            rows += batch.getSelectedCount();
+            assertEquals(100, batch.getSize());
+            assertEquals(batch.getSize(), batch.getSelectedCount());
+        }
+        assertEquals(ROW_COUNT / 100, batches);
+        assertEquals(ROW_COUNT, rows);
+
+        // qty = i % 100 - 50,i % 7 == 0时为NULL:每批100行里qty < 0的是前50行中不为NULL的
+        BatchFilterOperator filter = new BatchFilterOperator(
+                new BatchScanOperator(table, 100), compare("qty", OperatorEnum.LESS_THAN, 0));
+        int selected = 0;
+        while ((batch = filter.nextBatch()) != null) {
+            assertEquals(100, batch.getSize());
+            int[] selection = batch.getSelection();
+            for (int i = 0; i < batch.getSelectedCount(); i++) {
+                if (i > 0) {
+                    assertTrue(selection[i] > selection[i - 1]);
+                }
+                Object qty = batch.getVector(1).get(selection[i]);
+                assertTrue(qty == null || (Integer) qty < 0, String.valueOf(qty));
+            }
+            selected += batch.getSelectedCount();
+        }
+        assertEquals(countRows(compare("qty", OperatorEnum.LESS_THAN, 0)), selected);
+        filter.close();
+    }
+
+    @Test
+    @DisplayName("适配器:行 → 批 → 行,投影不拷贝列")
+    void testAdapters() {
+        List<Column> columns = table.getColumns();
+        RowToBatchOperator toBatch = new RowToBatchOperator(new ScanOperator(table), columns, 64);
+        BatchProjectOperator project = new BatchProjectOperator(toBatch,
+                List.of(new ColumnExpression("price"), new ColumnExpression("id")));
+        assertEquals(List.of("price", "id"), project.getColumns().stream().map(Column::getName).toList());
+
+        BatchToRowOperator rows = new BatchToRowOperator(project);
+        List<Row> expected = table.fullTableScan();
+        int count = 0;
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            Row original = expected.get(count++);
+            assertEquals(original.getValue(3), row.getValue(0));
+            assertEquals(original.getValue(0), row.getValue(1));
+        }
+        rows.close();
+        assertEquals(ROW_COUNT, count);
+        assertFalse(rows.hasNext());
+
+        assertThrows(UnsupportedOperationException.class, () -> new BatchProjectOperator(
+                new BatchScanOperator(table),
+                List.of(new BinaryExpression(new ColumnExpression("qty"), OperatorEnum.ADD, new LiteralExpression(1)))));
+        assertThrows(IllegalArgumentException.class, () -> new BatchProjectOperator(
+                new BatchScanOperator(table), List.of(new ColumnExpression("missing"))));
+    }
+
+    private BatchFilterOperator filter(Expression where) {
+        return new BatchFilterOperator(new BatchScanOperator(table), where);
+    }
+
+    private int countRows(Expression where) {
+        return new VolcanoExecutor(storageEngine)
+                .execute(new SelectStatement(List.of(), "items", where))
+                .getRowCount();
+    }
+
+    private static Expression compare(String column, OperatorEnum op, Object value) {
+        return new BinaryExpression(new ColumnExpression(column), op, new LiteralExpression(value));
+    }
+
+    private static List<List<Object>> values(List<Row> rows) {
+        List<List<Object>> values = new ArrayList<>();
+        for (Row row : rows) {
+            List<Object> rowValues = new ArrayList<>();
+            for (int i = 0; i < row.getColumnCount(); i++) {
+                rowValues.add(row.getValue(i));
+            }
+            values.add(rowValues);
+        }
+        return values;
+    }
+}
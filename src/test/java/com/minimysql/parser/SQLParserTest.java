@@ -6,6 +6,8 @@ import com.minimysql.storage.table.DataType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -75,6 +77,25 @@ class SQLParserTest {
         assertEquals("users", drop.getTableName());
     }
 
+    @Test
+    @DisplayName("解析 CREATE INDEX 语句 - UNIQUE和INCLUDE列")
+    void testCreateIndex() {
+        Statement stmt = parser.parse("CREATE UNIQUE INDEX idx_name ON users (name) INCLUDE (email, age);");
+
+        assertInstanceOf(CreateIndexStatement.class, stmt);
+        CreateIndexStatement create = (CreateIndexStatement) stmt;
+
+        assertEquals("idx_name", create.getIndexName());
+        assertEquals("users", create.getTableName());
+        assertEquals("name", create.getColumnName());
+        assertTrue(create.isUnique());
+        assertEquals(List.of("email", "age"), create.getIncludeColumns());
+
+        CreateIndexStatement plain = (CreateIndexStatement) parser.parse("CREATE INDEX idx_age ON users (age)");
+        assertFalse(plain.isUnique());
+        assertTrue(plain.getIncludeColumns().isEmpty());
+    }
+
     @Test
     @DisplayName("解析 SELECT * 语句")
     void testSelectAll() {
@@ -0,0 +1,176 @@
+package com.minimysql.storage;
+
+import com.minimysql.storage.impl.InnoDBStorageEngine;
+import com.minimysql.storage.index.SecondaryIndex;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CoveringIndexTest - 覆盖索引(INCLUDE列)测试
+ *
+ * - 已有数据批量构建和逐行插入都把INCLUDE列存进叶子
+ * - 只读索引就能还原主键、索引列和INCLUDE列,其他列为null
+ * - 回表查询、更新、删除、唯一约束与普通二级索引一致
+ * - covers()判断查询涉及的列是否都在索引里
+ */
+@DisplayName("CoveringIndexTest - 覆盖索引测试")
+class CoveringIndexTest {
+
+    private static final String DATA_DIR = "test_covering_index";
+
+    private InnoDBStorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(DATA_DIR);
+        storageEngine = new InnoDBStorageEngine(100, true, DATA_DIR);
+
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 50, true),
+                new Column("email", DataType.VARCHAR, 100, true),
+                new Column("age", DataType.INT, true),
+                new Column("bio", DataType.VARCHAR, 200, true)
+        );
+        table = storageEngine.createTable("users", columns);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("批量构建和逐行插入:只读索引返回主键、索引列和INCLUDE列")
+    void testCoveredRows() {
+        for (int i = 0; i < 500; i++) {
+            table.insertRow(user(i));
+        }
+
+        storageEngine.createIndex("users", "idx_name", "name", true, List.of("email", "age"));
+        SecondaryIndex index = table.getSecondaryIndex("idx_name");
+        assertTrue(index.isCovering());
+        assertEquals(List.of("email", "age"), index.getIncludeColumns());
+
+        for (int i = 500; i < 1000; i++) {
+            table.insertRow(user(i));
+        }
+
+        for (int i = 0; i < 1000; i += 37) {
+            Row row = index.selectCoveredRow(name(i));
+            assertNotNull(row);
+            assertEquals(5, row.getColumnCount());
+            assertEquals(i, row.getValue(0));
+            assertEquals(name(i), row.getValue(1));
+            assertEquals(email(i), row.getValue(2));
+            assertEquals(i % 80, row.getValue(3));
+            assertNull(row.getValue(4), "bio is not stored in the index");
+
+            // 回表查询不受影响
+            assertEquals(i, index.findPrimaryKey(name(i)));
+            assertEquals("bio-" + i, index.selectRow(name(i)).getValue(4));
+        }
+        assertNull(index.selectCoveredRow("nobody"));
+
+        // 全索引扫描按索引列排序
+        List<Object> names = new ArrayList<>();
+        Iterator<Row> rows = index.scanCoveredRows();
+        while (rows.hasNext()) {
+            names.add(rows.next().getValue(1));
+        }
+        assertEquals(1000, names.size());
+        for (int i = 0; i + 1 < names.size(); i++) {
+            assertTrue(((String) names.get(i)).compareTo((String) names.get(i + 1)) < 0);
+        }
+
+        assertEquals(List.of(10, 11, 12), index.rangeSelect(name(10), name(12)));
+    }
+
+    @Test
+    @DisplayName("更新和删除:叶子中的INCLUDE列跟着变,唯一约束仍然生效")
+    void testUpdateDeleteAndUnique() {
+        storageEngine.createIndex("users", "idx_name", "name", true, List.of("email"));
+        SecondaryIndex index = table.getSecondaryIndex("idx_name");
+
+        table.insertRow(user(1));
+        table.insertRow(user(2));
+
+        table.updateRow(1, new Row(new Object[]{1, name(1), "new@example.com", 30, "bio"}));
+        assertEquals("new@example.com", index.selectCoveredRow(name(1)).getValue(2));
+        assertNull(index.selectCoveredRow(name(1)).getValue(3), "age is not included");
+
+        table.deleteRow(2);
+        assertNull(index.selectCoveredRow(name(2)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> table.insertRow(new Row(new Object[]{3, name(1), "x", 1, "y"})));
+
+        // 覆盖索引只能整行插入,单独的(索引列值, 主键)不够
+        assertThrows(IllegalStateException.class, () -> index.insertEntry(name(9), 9));
+    }
+
+    @Test
+    @DisplayName("covers:主键、索引列和INCLUDE列之外的列都不能覆盖")
+    void testCovers() {
+        storageEngine.createIndex("users", "idx_name", "name", false, List.of("email"));
+        SecondaryIndex index = table.getSecondaryIndex("idx_name");
+
+        assertTrue(index.covers(List.of("id", "name", "email")));
+        assertTrue(index.covers(List.of("EMAIL")));
+        assertTrue(index.covers(List.of()));
+        assertFalse(index.covers(List.of("email", "age")));
+
+        // 普通二级索引没有存列值,不做覆盖扫描
+        storageEngine.dropIndex("users", "idx_name");
+        storageEngine.createIndex("users", "idx_plain", "name", false);
+        SecondaryIndex plain = table.getSecondaryIndex("idx_plain");
+        assertFalse(plain.isCovering());
+        assertFalse(plain.covers(List.of("id", "name")));
+        assertThrows(IllegalStateException.class, plain::scanCoveredRows);
+    }
+
+    @Test
+    @DisplayName("INCLUDE列不存在或重复时创建失败,表上不留下索引")
+    void testInvalidIncludeColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storageEngine.createIndex("users", "idx_a", "name", false, List.of("missing")));
+        assertThrows(IllegalArgumentException.class,
+                () -> storageEngine.createIndex("users", "idx_b", "name", false, List.of("name")));
+        assertThrows(IllegalArgumentException.class,
+                () -> storageEngine.createIndex("users", "idx_c", "name", false, List.of("id")));
+        assertThrows(IllegalArgumentException.class,
+                () -> storageEngine.createIndex("users", "idx_d", "name", false, List.of("age", "AGE")));
+
+        assertEquals(0, table.getSecondaryIndexCount());
+    }
+
+    private static Row user(int id) {
+        return new Row(new Object[]{id, name(id), email(id), id % 80, "bio-" + id});
+    }
+
+    private static String name(int id) {
+        return String.format("user-%04d", id);
+    }
+
+    private static String email(int id) {
+        return "user" + id + "@example.com";
+    }
+}
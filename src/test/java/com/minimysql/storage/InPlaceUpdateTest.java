@@ -0,0 +1,216 @@
+package com.minimysql.storage;
+
+import com.minimysql.storage.impl.InnoDBStorageEngine;
+import com.minimysql.storage.index.ClusteredIndex;
+import com.minimysql.storage.index.IndexStats;
+import com.minimysql.storage.index.SecondaryIndex;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InPlaceUpdateTest - 原地更新测试
+ *
+ * - 主键不变时聚簇索引直接覆盖叶子中的记录,树结构不变
+ * - 只维护列值真正变了的二级索引,唯一约束在修改之前检查
+ * - 记录变长放不下时在悲观路径上替换并分裂叶子,键始终在树里
+ */
+@DisplayName("InPlaceUpdateTest - 原地更新测试")
+class InPlaceUpdateTest {
+
+    private static final String DATA_DIR = "test_in_place_update";
+
+    private static final int ROW_COUNT = 2000;
+
+    private InnoDBStorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(DATA_DIR);
+        storageEngine = new InnoDBStorageEngine(100, true, DATA_DIR);
+
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 50, true),
+                new Column("email", DataType.VARCHAR, 100, true),
+                new Column("age", DataType.INT, true),
+                new Column("bio", DataType.VARCHAR, 200, true)
+        );
+        table = storageEngine.createTable("users", columns);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            table.insertRow(user(i, i % 80, "b" + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("只改非索引列:聚簇索引原地覆盖,树结构不变,二级索引一页都不读")
+    void testUpdateNonIndexedColumn() {
+        storageEngine.createIndex("users", "idx_name", "name", true);
+        SecondaryIndex index = table.getSecondaryIndex("idx_name");
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        IndexStats before = clusteredIndex.getStats();
+
+        long indexReads = index.getNodeReadCount();
+        for (int i = 0; i < ROW_COUNT; i += 3) {
+            assertEquals(1, table.updateRow(i, user(i, 200 + i % 80, "b" + i)));
+        }
+        assertEquals(indexReads, index.getNodeReadCount());
+
+        IndexStats after = clusteredIndex.getStats();
+        assertEquals(before.getLeafPages(), after.getLeafPages());
+        assertEquals(before.getInternalPages(), after.getInternalPages());
+        assertEquals(before.getHeight(), after.getHeight());
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            int expectedAge = i % 3 == 0 ? 200 + i % 80 : i % 80;
+            assertEquals(expectedAge, table.selectByPrimaryKey(i).getValue(3));
+        }
+        assertEquals(ROW_COUNT, table.fullTableScan().size());
+        assertEquals(0, table.updateRow(ROW_COUNT, user(ROW_COUNT, 1, "b")));
+    }
+
+    @Test
+    @DisplayName("改索引列:只替换这一行的索引条目;唯一值重复时整行都不改")
+    void testUpdateIndexedColumn() {
+        storageEngine.createIndex("users", "idx_name", "name", true);
+        SecondaryIndex index = table.getSecondaryIndex("idx_name");
+
+        Row renamed = new Row(new Object[]{7, "renamed", email(7), 99, "b7"});
+        assertEquals(1, table.updateRow(7, renamed));
+        assertNull(index.findPrimaryKey(name(7)));
+        assertEquals(7, index.findPrimaryKey("renamed"));
+        assertEquals(99, table.selectBySecondaryIndex("idx_name", "renamed").getValue(3));
+
+        // 改成已有的名字:唯一约束在修改任何索引之前检查
+        Row duplicate = new Row(new Object[]{8, name(9), email(8), 123, "b8"});
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> table.updateRow(8, duplicate));
+        assertTrue(e.getMessage().contains("Duplicate entry"), e.getMessage());
+        assertEquals(8 % 80, table.selectByPrimaryKey(8).getValue(3));
+        assertEquals(8, index.findPrimaryKey(name(8)));
+        assertEquals(9, index.findPrimaryKey(name(9)));
+
+        // 改成NULL:条目删除,NULL值不索引
+        assertEquals(1, table.updateRow(10, new Row(new Object[]{10, null, email(10), 1, "b10"})));
+        assertNull(index.findPrimaryKey(name(10)));
+        assertNull(table.selectByPrimaryKey(10).getValue(1));
+        assertEquals(ROW_COUNT - 1, index.getAll().size());
+    }
+
+    @Test
+    @DisplayName("覆盖索引的INCLUDE列变了:原地覆盖叶子记录,只读索引拿到新值")
+    void testUpdateIncludeColumn() {
+        storageEngine.createIndex("users", "idx_name_cover", "name", false, List.of("email"));
+        SecondaryIndex index = table.getSecondaryIndex("idx_name_cover");
+        IndexStats before = index.getStats();
+
+        for (int i = 0; i < ROW_COUNT; i += 2) {
+            table.updateRow(i, new Row(new Object[]{i, name(i), "new" + i + "@example.com", i % 80, "b" + i}));
+        }
+
+        assertEquals(before.getLeafPages(), index.getStats().getLeafPages());
+        assertEquals(ROW_COUNT, index.getStats().getEntries());
+        for (int i = 0; i < ROW_COUNT; i++) {
+            String expected = i % 2 == 0 ? "new" + i + "@example.com" : email(i);
+            assertEquals(expected, index.selectCoveredRow(name(i)).getValue(2));
+        }
+    }
+
+    @Test
+    @DisplayName("记录变长放不下:替换后分裂叶子,所有行都还在")
+    void testGrowingRecords() {
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        int leafPages = clusteredIndex.getStats().getLeafPages();
+
+        String longBio = "x".repeat(190);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertEquals(1, table.updateRow(i, user(i, i % 80, longBio + i % 10)));
+        }
+
+        assertTrue(clusteredIndex.getStats().getLeafPages() > leafPages);
+        List<Row> rows = table.fullTableScan();
+        assertEquals(ROW_COUNT, rows.size());
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertEquals(i, rows.get(i).getValue(0));
+            assertEquals(longBio + i % 10, rows.get(i).getValue(4));
+        }
+    }
+
+    @Test
+    @DisplayName("记录变长放不下时并发的主键查找始终能找到行")
+    void testGrowingRecordsVisibleToConcurrentReaders() throws InterruptedException {
+        ClusteredIndex clusteredIndex = table.getClusteredIndex();
+        int leafPages = clusteredIndex.getStats().getLeafPages();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger current = new AtomicInteger();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // 读线程盯着正在更新的那一行
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    int id = current.get();
+                    if (table.selectByPrimaryKey(id) == null) {
+                        failure.set("row " + id + " missing");
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        String longBio = "y".repeat(190);
+        try {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                current.set(i);
+                assertEquals(1, table.updateRow(i, user(i, i % 80, longBio + i % 10)));
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(clusteredIndex.getStats().getLeafPages() > leafPages);
+        assertEquals(ROW_COUNT, table.fullTableScan().size());
+    }
+
+    private static Row user(int id, int age, String bio) {
+        return new Row(new Object[]{id, name(id), email(id), age, bio});
+    }
+
+    private static String name(int id) {
+        return "user" + id;
+    }
+
+    private static String email(int id) {
+        return "user" + id + "@example.com";
+    }
+}
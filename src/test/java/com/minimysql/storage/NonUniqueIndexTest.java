@@ -0,0 +1,212 @@
+package com.minimysql.storage;
+
+import com.minimysql.storage.impl.InnoDBStorageEngine;
+import com.minimysql.storage.index.SecondaryIndex;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NonUniqueIndexTest - 非唯一二级索引测试
+ *
+ * 非唯一索引的键是(索引列值, 主键):
+ * - 同一个值的所有行都能查到,按主键排序
+ * - 重复值跨越很多叶子时,等值查找和范围查询也不会漏
+ * - 删除和更新只影响这一行的条目
+ * - 批量构建和逐行插入的结果相同
+ */
+@DisplayName("NonUniqueIndexTest - 非唯一二级索引测试")
+class NonUniqueIndexTest {
+
+    private static final String DATA_DIR = "test_non_unique_index";
+
+    private static final String[] STATUSES = {"active", "banned", "deleted", "pending"};
+
+    private InnoDBStorageEngine storageEngine;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(DATA_DIR);
+        storageEngine = new InnoDBStorageEngine(200, true, DATA_DIR);
+
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("status", DataType.VARCHAR, 20, true),
+                new Column("country", DataType.VARCHAR, 2, true)
+        );
+        table = storageEngine.createTable("accounts", columns);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storageEngine != null) {
+            storageEngine.close();
+        }
+        TestHelper.cleanupTestDir(DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("低基数列:每个值的所有行都能查到,按主键排序,跨越多个叶子")
+    void testDuplicateLookup() {
+        storageEngine.createIndex("accounts", "idx_status", "status", false);
+        SecondaryIndex index = table.getSecondaryIndex("idx_status");
+
+        List<Integer> ids = shuffledIds(8000);
+        for (int id : ids) {
+            table.insertRow(account(id));
+        }
+        assertTrue(index.getHeight() > 1, "duplicates must span several leaves");
+
+        for (int s = 0; s < STATUSES.length; s++) {
+            List<Object> expected = new ArrayList<>();
+            for (int id = s; id < 8000; id += STATUSES.length) {
+                expected.add(id);
+            }
+            assertEquals(expected, index.findPrimaryKeys(STATUSES[s]));
+            assertEquals(expected.get(0), index.findPrimaryKey(STATUSES[s]));
+        }
+        assertTrue(index.findPrimaryKeys("unknown").isEmpty());
+        assertNull(index.findPrimaryKey("unknown"));
+
+        // 范围两端的重复值都在结果里
+        assertEquals(4000, index.rangeSelect("banned", "deleted").size());
+
+        List<Row> banned = table.selectAllBySecondaryIndex("idx_status", "banned");
+        assertEquals(2000, banned.size());
+        for (Row row : banned) {
+            assertEquals("banned", row.getValue(1));
+        }
+    }
+
+    @Test
+    @DisplayName("删除和更新:只移除这一行的条目,同一个值的其他行不受影响")
+    void testDeleteAndUpdate() {
+        storageEngine.createIndex("accounts", "idx_status", "status", false);
+        SecondaryIndex index = table.getSecondaryIndex("idx_status");
+
+        for (int id = 0; id < 400; id++) {
+            table.insertRow(account(id));
+        }
+
+        // 删除所有id是8的倍数的行(都是active)
+        for (int id = 0; id < 400; id += 8) {
+            table.deleteRow(id);
+        }
+        List<Object> active = index.findPrimaryKeys("active");
+        assertEquals(50, active.size());
+        for (Object id : active) {
+            assertEquals(4, (Integer) id % 8);
+        }
+
+        // active → pending
+        table.updateRow(4, new Row(new Object[]{4, "pending", "US"}));
+        assertFalse(index.findPrimaryKeys("active").contains(4));
+        assertTrue(index.findPrimaryKeys("pending").contains(4));
+        assertEquals(49, index.findPrimaryKeys("active").size());
+        assertEquals(101, index.findPrimaryKeys("pending").size());
+    }
+
+    @Test
+    @DisplayName("批量构建与逐行插入的结果相同")
+    void testBulkLoadMatchesIncrementalInsert() {
+        for (int id : shuffledIds(3000)) {
+            table.insertRow(account(id));
+        }
+        storageEngine.createIndex("accounts", "idx_country", "country", false);
+        SecondaryIndex bulk = table.getSecondaryIndex("idx_country");
+
+        for (int id = 3000; id < 3100; id++) {
+            table.insertRow(account(id));
+        }
+
+        int total = 0;
+        for (String country : List.of("CN", "DE", "US")) {
+            List<Object> ids = bulk.findPrimaryKeys(country);
+            List<Object> sorted = new ArrayList<>(ids);
+            sorted.sort(null);
+            assertEquals(sorted, ids);
+            for (Object id : ids) {
+                assertEquals(country, country((Integer) id));
+            }
+            total += ids.size();
+        }
+        assertEquals(3100, total);
+    }
+
+    @Test
+    @DisplayName("非INT主键:BIGINT和VARCHAR主键的非唯一索引和覆盖索引")
+    void testNonIntPrimaryKeys() {
+        // 主键大于INT范围,按主键顺序也要和数值顺序一致
+        Table events = storageEngine.createTable("events", Arrays.asList(
+                new Column("id", DataType.BIGINT, false),
+                new Column("status", DataType.VARCHAR, 20, true)));
+        storageEngine.createIndex("events", "idx_event_status", "status", false);
+        for (int i = 0; i < 300; i++) {
+            events.insertRow(new Row(new Object[]{(1L << 40) - 150 + i, STATUSES[i % STATUSES.length]}));
+        }
+        SecondaryIndex byStatus = events.getSecondaryIndex("idx_event_status");
+        List<Object> banned = byStatus.findPrimaryKeys("banned");
+        assertEquals(75, banned.size());
+        assertEquals((1L << 40) - 149, banned.get(0));
+        for (int i = 1; i < banned.size(); i++) {
+            assertTrue((Long) banned.get(i - 1) < (Long) banned.get(i));
+        }
+        events.deleteRow((1L << 40) - 149);
+        assertFalse(byStatus.findPrimaryKeys("banned").contains((1L << 40) - 149));
+        assertEquals(74, byStatus.findPrimaryKeys("banned").size());
+
+        // VARCHAR主键:唯一索引、非唯一覆盖索引
+        Table users = storageEngine.createTable("users", Arrays.asList(
+                new Column("login", DataType.VARCHAR, 20, false),
+                new Column("status", DataType.VARCHAR, 20, true),
+                new Column("country", DataType.VARCHAR, 2, true)));
+        storageEngine.createIndex("users", "idx_user_status", "status", false, List.of("country"));
+        storageEngine.createIndex("users", "idx_user_country", "country", true);
+        for (int i = 0; i < 4; i++) {
+            users.insertRow(new Row(new Object[]{"user" + i, "active", "C" + i}));
+        }
+        SecondaryIndex covering = users.getSecondaryIndex("idx_user_status");
+        assertEquals(List.of("user0", "user1", "user2", "user3"), covering.findPrimaryKeys("active"));
+        Row covered = covering.selectCoveredRow("active");
+        assertEquals("user0", covered.getValue(0));
+        assertEquals("C0", covered.getValue(2));
+        assertEquals("user3", users.getSecondaryIndex("idx_user_country").findPrimaryKey("C3"));
+
+        users.updateRow("user1", new Row(new Object[]{"user1", "pending", "C1"}));
+        assertEquals(List.of("user0", "user2", "user3"), covering.findPrimaryKeys("active"));
+        assertEquals(List.of("user1"), covering.findPrimaryKeys("pending"));
+        assertEquals(List.of("user0", "user2", "user3", "user1"), covering.rangeSelect("active", "pending"));
+    }
+
+    private static Row account(int id) {
+        return new Row(new Object[]{id, STATUSES[id % STATUSES.length], country(id)});
+    }
+
+    private static String country(int id) {
+        return id % 3 == 0 ? "CN" : id % 3 == 1 ? "DE" : "US";
+    }
+
+    private static List<Integer> shuffledIds(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids, new Random(19));
+        return ids;
+    }
+}
@@ -8,6 +8,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -19,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * - 脏页管理
  * - 并发访问安全
  * - 磁盘读写持久化
+ * - 内存映射读
  */
 @DisplayName("BufferPool - 缓冲池管理器测试")
 class BufferPoolTest {
@@ -249,6 +253,81 @@ class BufferPoolTest {
         assertArrayEquals(rowData, reloadedData);
     }
 
+    @Test
+    @DisplayName("淘汰时写脏页失败:脏页留在缓存中,新页的pin不泄漏,恢复后正常写回")
+    void testDirtyVictimWriteFailure() {
+        FailingWritePageFileManager files = new FailingWritePageFileManager();
+        BufferPool pool = new BufferPool(3, TEST_DATA_DIR, BufferPool.DEFAULT_INSTANCES,
+                ReplacementPolicy.lru(), false, files);
+        try {
+            PageFrame frame0 = pool.newPage(TABLE_ID, 0);
+            byte[] rowData = "Must not be lost".getBytes();
+            ((DataPage) frame0.getPage()).insertRow(rowData);
+            frame0.markDirty();
+            pool.newPage(TABLE_ID, 1);
+            pool.newPage(TABLE_ID, 2);
+
+            // 只有frame0是脏页,但淘汰顺序由策略决定:把另外两页pin住,只能淘汰frame0
+            PageFrame frame1 = pool.pinPage(TABLE_ID, 1);
+            PageFrame frame2 = pool.pinPage(TABLE_ID, 2);
+
+            files.failWrites = true;
+            assertThrows(IllegalStateException.class, () -> pool.pinPage(TABLE_ID, 3));
+            assertThrows(IllegalStateException.class, () -> pool.newPage(TABLE_ID, 4));
+
+            // 脏页还在缓存中,仍然是脏页;失败的缺页没有留下页帧
+            assertSame(frame0, pool.getPage(TABLE_ID, 0));
+            assertTrue(frame0.isDirty());
+            assertEquals(1, pool.getDirtyPageCount());
+            assertEquals(3, pool.getCacheSize());
+            assertEquals(0, frame0.getPinCount());
+
+            files.failWrites = false;
+            frame1.unpin(false);
+            frame2.unpin(false);
+            PageFrame frame3 = pool.pinPage(TABLE_ID, 3);
+            assertEquals(1, frame3.getPinCount());
+            frame3.unpin(false);
+            assertEquals(3, pool.getCacheSize());
+
+            // 写回成功后从磁盘读到的是修改后的内容
+            pool.clear();
+            DataPage reloaded = (DataPage) pool.getPage(TABLE_ID, 0).getPage();
+            assertArrayEquals(rowData, reloaded.getRow(0));
+        } finally {
+            pool.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("刷新所有脏页时等正在修改的页放开独占页锁,不写出半截的页")
+    void testFlushAllWaitsForExclusiveLatch() throws InterruptedException {
+        PageFrame frame = bufferPool.pinPage(TABLE_ID, 0);
+        DataPage page = (DataPage) frame.getPage();
+        frame.latchExclusive();
+        page.insertRow("first half".getBytes());
+        frame.markDirty();
+
+        Thread flusher = new Thread(bufferPool::flushAllPages);
+        flusher.start();
+        flusher.join(200);
+        assertTrue(flusher.isAlive(), "flush must wait for the exclusive latch");
+
+        page.insertRow("second half".getBytes());
+        frame.unlatchExclusive();
+        // 已经标过脏了;unpin(true)会在写完之后再标一次脏
+        frame.unpin(false);
+        flusher.join(5000);
+        assertFalse(flusher.isAlive());
+        assertEquals(0, bufferPool.getDirtyPageCount());
+        assertEquals(0, frame.getPinCount());
+
+        bufferPool.clear();
+        DataPage reloaded = (DataPage) bufferPool.getPage(TABLE_ID, 0).getPage();
+        assertArrayEquals("first half".getBytes(), reloaded.getRow(0));
+        assertArrayEquals("second half".getBytes(), reloaded.getRow(1));
+    }
+
     @Test
     @DisplayName("刷新页应该写回磁盘")
     void testFlushPage() {
@@ -348,4 +427,66 @@ class BufferPoolTest {
         // 验证缓冲池状态正常
         assertTrue(bufferPool.getCacheSize() <= 5);
     }
+
+    @Test
+    @DisplayName("内存映射读:页内容是映射的只读视图,修改后写回磁盘")
+    void testMmapReads() {
+        PageFrame frame = bufferPool.newPage(TABLE_ID, 0);
+        ((DataPage) frame.getPage()).insertRow("mapped".getBytes());
+        frame.markDirty();
+        bufferPool.clear();
+
+        bufferPool.enableMmapReads();
+        assertTrue(bufferPool.isMmapReadsEnabled());
+
+        DataPage mapped = (DataPage) bufferPool.getPage(TABLE_ID, 0).getPage();
+        assertTrue(mapped.isReadOnlyView());
+        assertArrayEquals("mapped".getBytes(), mapped.getRow(0));
+
+        // 只读页写回磁盘不触发复制
+        bufferPool.flushPage(TABLE_ID, 0);
+        assertTrue(mapped.isReadOnlyView());
+
+        // 修改:复制到堆内,写回走定位写
+        PageFrame mappedFrame = bufferPool.getPage(TABLE_ID, 0);
+        mappedFrame.pin();
+        mapped.insertRow("written".getBytes());
+        mappedFrame.unpin(true);
+        assertFalse(mapped.isReadOnlyView());
+        bufferPool.clear();
+
+        DataPage reloaded = (DataPage) bufferPool.getPage(TABLE_ID, 0).getPage();
+        assertTrue(reloaded.isReadOnlyView());
+        assertEquals(2, reloaded.getRowCount());
+        assertArrayEquals("written".getBytes(), reloaded.getRow(1));
+    }
+
+    @Test
+    @DisplayName("内存映射读:文件末尾之外的页是堆内空页,可以正常写入")
+    void testMmapReadsBeyondEndOfFile() {
+        bufferPool.enableMmapReads();
+
+        DataPage page = (DataPage) bufferPool.getPage(TABLE_ID, 5).getPage();
+        assertFalse(page.isReadOnlyView());
+        assertEquals(0, page.getRowCount());
+
+        bufferPool.disableMmapReads();
+        assertFalse(bufferPool.isMmapReadsEnabled());
+    }
+
+    /**
+     * 可以让写盘失败的页文件I/O层(模拟磁盘满、I/O错误)
+     */
+    private static final class FailingWritePageFileManager extends PageFileManager {
+
+        volatile boolean failWrites;
+
+        @Override
+        public void writePage(Path filePath, int pageId, ByteBuffer src) {
+            if (failWrites) {
+                throw new IllegalStateException("Simulated write failure");
+            }
+            super.writePage(filePath, pageId, src);
+        }
+    }
 }
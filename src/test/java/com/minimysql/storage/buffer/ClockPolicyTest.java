@@ -0,0 +1,160 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClockPolicy单元测试
+ *
+ * 测试CLOCK(二次机会)替换策略:
+ * - 引用位给页第二次机会
+ * - 跳过被pin住的页
+ * - 指针从上次停下的位置继续
+ * - 作为BufferPool的替换策略时淘汰和脏页写回正常
+ */
+@DisplayName("ClockPolicy - CLOCK替换策略测试")
+class ClockPolicyTest {
+
+    private static final String TEST_DATA_DIR = "test_clock_policy";
+
+    private ClockPolicy policy;
+    private PageFrame[] frames;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        policy = new ClockPolicy(4);
+        frames = new PageFrame[4];
+        for (int i = 0; i < frames.length; i++) {
+            DataPage page = new DataPage();
+            page.setPageId(i);
+            frames[i] = new PageFrame(page);
+            policy.recordInsert(i, frames[i]);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("新页带引用位进入,第一圈只清引用位")
+    void testNewPagesGetSecondChance() {
+        for (PageFrame frame : frames) {
+            assertTrue(frame.isReferenced());
+        }
+
+        // 第一圈清掉所有引用位,第二圈选中槽位0
+        assertSame(frames[0], policy.selectVictim(PageFrame::isEvictable));
+        for (PageFrame frame : frames) {
+            assertFalse(frame.isReferenced());
+        }
+    }
+
+    @Test
+    @DisplayName("命中的页被跳过,淘汰未被访问的页")
+    void testReferencedPageSkipped() {
+        clearAllReferenceBits();
+
+        policy.recordAccess(0, frames[0]);
+        policy.recordAccess(1, frames[1]);
+
+        assertSame(frames[2], policy.selectVictim(PageFrame::isEvictable));
+        assertFalse(frames[0].isReferenced());
+        assertFalse(frames[1].isReferenced());
+    }
+
+    @Test
+    @DisplayName("被pin住的页不会被选中")
+    void testPinnedPageSkipped() {
+        clearAllReferenceBits();
+        frames[0].pin();
+        frames[1].pin();
+
+        assertSame(frames[2], policy.selectVictim(PageFrame::isEvictable));
+
+        frames[0].unpin(false);
+        frames[1].unpin(false);
+    }
+
+    @Test
+    @DisplayName("所有页都被pin住时返回null")
+    void testAllPinned() {
+        for (PageFrame frame : frames) {
+            frame.pin();
+        }
+
+        assertNull(policy.selectVictim(PageFrame::isEvictable));
+    }
+
+    @Test
+    @DisplayName("指针从上次选中位置的下一个继续")
+    void testHandAdvances() {
+        clearAllReferenceBits();
+
+        PageFrame first = policy.selectVictim(PageFrame::isEvictable);
+        policy.remove(first.getPage().getPageId(), first);
+
+        PageFrame second = policy.selectVictim(PageFrame::isEvictable);
+        assertSame(frames[0], first);
+        assertSame(frames[1], second);
+    }
+
+    @Test
+    @DisplayName("移除的槽位可以被新页复用")
+    void testRemovedSlotReused() {
+        assertEquals(2, frames[2].getClockSlot());
+        policy.remove(2, frames[2]);
+        assertEquals(-1, frames[2].getClockSlot());
+        // 重复移除不会把槽位再压一次栈
+        policy.remove(2, frames[2]);
+
+        DataPage page = new DataPage();
+        page.setPageId(9);
+        PageFrame newFrame = new PageFrame(page);
+        policy.recordInsert(9, newFrame);
+        assertEquals(2, newFrame.getClockSlot());
+
+        DataPage extra = new DataPage();
+        extra.setPageId(10);
+        assertThrows(IllegalStateException.class, () -> policy.recordInsert(10, new PageFrame(extra)));
+    }
+
+    @Test
+    @DisplayName("BufferPool使用CLOCK策略:淘汰未被访问的页,脏页写回磁盘")
+    void testBufferPoolWithClock() {
+        BufferPool pool = new BufferPool(3, TEST_DATA_DIR, 1, ReplacementPolicy.clock());
+        try {
+            PageFrame frame0 = pool.newPage(0, 0);
+            ((DataPage) frame0.getPage()).insertRow("clock".getBytes());
+            frame0.markDirty();
+            pool.newPage(0, 1);
+            pool.newPage(0, 2);
+
+            // 第4页:三页都带引用位,清一圈后淘汰页0(脏页,写回磁盘)
+            pool.newPage(0, 3);
+            assertEquals(3, pool.getCacheSize());
+
+            // 页0被淘汰后重新读入,数据来自磁盘
+            PageFrame reloaded = pool.getPage(0, 0);
+            assertNotSame(frame0, reloaded);
+            assertArrayEquals("clock".getBytes(), ((DataPage) reloaded.getPage()).getRow(0));
+        } finally {
+            pool.clear();
+        }
+    }
+
+    private void clearAllReferenceBits() {
+        for (PageFrame frame : frames) {
+            frame.setReferenced(false);
+        }
+    }
+}
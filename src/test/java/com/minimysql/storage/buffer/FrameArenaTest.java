@@ -0,0 +1,166 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.storage.page.IndexPage;
+import com.minimysql.storage.page.Page;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FrameArena单元测试
+ *
+ * 测试堆外页帧:
+ * - 帧的分配、归还、用完时返回-1
+ * - 开启堆外页帧的缓冲池:页内容在直接内存上,淘汰后数据从磁盘读回
+ * - 淘汰和清空时帧被归还、复用,占用数不超过帧总数
+ * - pinPage在返回前已经pin住页帧
+ */
+@DisplayName("FrameArena - 堆外页帧测试")
+class FrameArenaTest {
+
+    private static final String TEST_DATA_DIR = "test_frame_arena";
+
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(4, TEST_DATA_DIR, 1, ReplacementPolicy.lru(), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("分配、归还、用完时返回-1并计数")
+    void testAcquireRelease() {
+        FrameArena arena = new FrameArena(2);
+
+        int first = arena.acquire();
+        int second = arena.acquire();
+        assertNotEquals(first, second);
+        assertEquals(2, arena.getFramesInUse());
+
+        ByteBuffer frame = arena.frame(first);
+        assertTrue(frame.isDirect());
+        assertEquals(Page.PAGE_SIZE, frame.remaining());
+
+        assertEquals(-1, arena.acquire());
+        assertEquals(1, arena.getHeapFallbacks());
+
+        arena.release(first);
+        assertEquals(1, arena.getFramesInUse());
+        assertEquals(first, arena.acquire());
+    }
+
+    @Test
+    @DisplayName("重复归还和非法大小被拒绝")
+    void testInvalidUsage() {
+        FrameArena arena = new FrameArena(1);
+        int slot = arena.acquire();
+        arena.release(slot);
+
+        assertThrows(IllegalStateException.class, () -> arena.release(slot));
+        assertThrows(IllegalArgumentException.class, () -> new FrameArena(0));
+    }
+
+    @Test
+    @DisplayName("格式化会覆盖帧里上一个页留下的内容")
+    void testFormatOverwritesStaleContent() {
+        FrameArena arena = new FrameArena(1);
+        int slot = arena.acquire();
+
+        DataPage old = DataPage.format(arena.frame(slot));
+        old.setPageId(7);
+        old.insertRow("stale".getBytes());
+        arena.release(slot);
+
+        slot = arena.acquire();
+        DataPage data = DataPage.format(arena.frame(slot));
+        assertEquals(0, data.getPageId());
+        assertEquals(0, data.getRowCount());
+
+        IndexPage index = IndexPage.format(arena.frame(slot));
+        assertEquals(Page.PageType.INDEX_PAGE, Page.PageType.fromCode(index.getBuffer().get(0)));
+        assertEquals(0, index.getBuffer().getInt(IndexPage.HEADER_SIZE));
+    }
+
+    @Test
+    @DisplayName("堆外缓冲池:页内容在直接内存上,淘汰后从磁盘读回")
+    void testOffHeapRoundTrip() {
+        for (int i = 0; i < 20; i++) {
+            PageFrame frame = bufferPool.newPage(0, i);
+            assertTrue(frame.getPage().getBuffer().isDirect());
+            ((DataPage) frame.getPage()).insertRow(("row" + i).getBytes());
+            frame.markDirty();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            PageFrame frame = bufferPool.pinPage(0, i);
+            try {
+                assertTrue(frame.getPage().getBuffer().isDirect());
+                assertArrayEquals(("row" + i).getBytes(), ((DataPage) frame.getPage()).getRow(0));
+            } finally {
+                frame.unpin(false);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("淘汰时帧被复用,占用数不超过缓冲池容量")
+    void testFramesRecycled() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                PageFrame frame = round == 0 ? bufferPool.newPage(0, i) : bufferPool.getPage(0, i);
+                if (round == 0) {
+                    frame.markDirty();
+                }
+            }
+        }
+
+        BufferPoolStats stats = bufferPool.getStats();
+        assertTrue(stats.getOffHeapFrames() >= 4);
+        assertEquals(bufferPool.getCacheSize(), stats.getOffHeapFramesInUse());
+        assertEquals(0, stats.getHeapFrameFallbacks());
+
+        bufferPool.clear();
+        assertEquals(0, bufferPool.getStats().getOffHeapFramesInUse());
+    }
+
+    @Test
+    @DisplayName("pinPage返回时页帧已被pin住,不会被淘汰")
+    void testPinPage() {
+        PageFrame pinned = bufferPool.pinPage(0, 0);
+        assertEquals(1, pinned.getPinCount());
+
+        for (int i = 1; i < 10; i++) {
+            bufferPool.getPage(0, i);
+        }
+
+        assertSame(pinned, bufferPool.getPage(0, 0));
+        pinned.unpin(false);
+    }
+
+    @Test
+    @DisplayName("默认不开启堆外页帧")
+    void testHeapByDefault() {
+        BufferPool heapPool = new BufferPool(4, TEST_DATA_DIR);
+        try {
+            PageFrame frame = heapPool.newPage(1, 0);
+            assertFalse(frame.getPage().getBuffer().isDirect());
+            assertEquals(0, heapPool.getStats().getOffHeapFrames());
+        } finally {
+            heapPool.clear();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MidpointLruPolicy单元测试
+ *
+ * 测试InnoDB风格的中点插入LRU:
+ * - 新页只进old段
+ * - 窗口内的重复访问不提升,超过窗口才提升到young段
+ * - young段超过容量上限时降级到old段
+ * - 全表扫描不会把热页挤出缓冲池
+ */
+@DisplayName("MidpointLruPolicy - 中点插入LRU测试")
+class MidpointLruPolicyTest {
+
+    private static final String TEST_DATA_DIR = "test_midpoint_lru";
+
+    private static final long WINDOW_MILLIS = 1000;
+
+    /** 测试时钟(纳秒) */
+    private final AtomicLong now = new AtomicLong();
+
+    private MidpointLruPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        policy = new MidpointLruPolicy(100, 37, WINDOW_MILLIS, now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("新页进入old段")
+    void testInsertGoesToOld() {
+        for (int i = 0; i < 5; i++) {
+            policy.recordInsert(i, frame(i));
+        }
+
+        assertEquals(0, policy.getYoungSize());
+        assertEquals(5, policy.getOldSize());
+    }
+
+    @Test
+    @DisplayName("窗口内重复访问不提升,超过窗口后提升")
+    void testPromotionAfterWindow() {
+        PageFrame frame = frame(1);
+        policy.recordInsert(1, frame);
+
+        advanceMillis(WINDOW_MILLIS / 2);
+        policy.recordAccess(1, frame);
+        assertFalse(policy.isYoung(frame));
+
+        advanceMillis(WINDOW_MILLIS);
+        policy.recordAccess(1, frame);
+        assertTrue(policy.isYoung(frame));
+
+        BufferPoolStats stats = new BufferPoolStats();
+        policy.collectStats(stats);
+        assertEquals(1, stats.getPromotions());
+        assertEquals(1, stats.getPromotionsDeferred());
+    }
+
+    @Test
+    @DisplayName("先淘汰old段,old段最久未使用的页先出")
+    void testVictimFromOldFirst() {
+        PageFrame hot = frame(0);
+        policy.recordInsert(0, hot);
+        advanceMillis(WINDOW_MILLIS);
+        policy.recordAccess(0, hot);
+
+        PageFrame cold1 = frame(1);
+        PageFrame cold2 = frame(2);
+        policy.recordInsert(1, cold1);
+        policy.recordInsert(2, cold2);
+
+        assertSame(cold1, policy.selectVictim(PageFrame::isEvictable));
+
+        // old段全部被pin时才淘汰young段
+        cold1.pin();
+        cold2.pin();
+        assertSame(hot, policy.selectVictim(PageFrame::isEvictable));
+        cold1.unpin(false);
+        cold2.unpin(false);
+    }
+
+    @Test
+    @DisplayName("young段超过容量的63%时降级")
+    void testDemoteWhenYoungFull() {
+        int total = 100;
+        PageFrame[] frames = new PageFrame[total];
+        for (int i = 0; i < total; i++) {
+            frames[i] = frame(i);
+            policy.recordInsert(i, frames[i]);
+        }
+
+        // 所有页都超过窗口后再访问一次,全部想进入young段
+        advanceMillis(WINDOW_MILLIS);
+        for (int i = 0; i < total; i++) {
+            policy.recordAccess(i, frames[i]);
+        }
+
+        assertEquals(total, policy.getYoungSize() + policy.getOldSize());
+        assertEquals(63, policy.getYoungSize());
+        assertEquals(37, policy.getOldSize());
+
+        // 最早提升的页最先被降级
+        assertFalse(policy.isYoung(frames[0]));
+        assertTrue(policy.isYoung(frames[total - 1]));
+
+        BufferPoolStats stats = new BufferPoolStats();
+        policy.collectStats(stats);
+        assertEquals(37, stats.getDemotions());
+    }
+
+    @Test
+    @DisplayName("参数非法时抛异常")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MidpointLruPolicy(0, 37, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new MidpointLruPolicy(100, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new MidpointLruPolicy(100, 100, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new MidpointLruPolicy(100, 37, -1));
+    }
+
+    @Test
+    @DisplayName("全表扫描不会挤掉热页(对比普通LRU)")
+    void testScanResistance() {
+        BufferPool midpoint = new BufferPool(20, TEST_DATA_DIR, 1,
+                capacity -> new MidpointLruPolicy(capacity, 37, WINDOW_MILLIS, now::get));
+        BufferPool lru = new BufferPool(20, TEST_DATA_DIR, 1, ReplacementPolicy.lru());
+
+        try {
+            PageFrame[] midpointHot = warmUp(midpoint);
+            PageFrame[] lruHot = warmUp(lru);
+
+            scan(midpoint);
+            scan(lru);
+
+            for (int i = 0; i < midpointHot.length; i++) {
+                assertSame(midpointHot[i], midpoint.getPage(HOT_TABLE, i), "hot page " + i + " evicted");
+            }
+
+            // 普通LRU:扫描把热页全部挤出
+            for (int i = 0; i < lruHot.length; i++) {
+                assertNotSame(lruHot[i], lru.getPage(HOT_TABLE, i));
+            }
+
+            BufferPoolStats stats = midpoint.getStats();
+            assertEquals(5, stats.getYoungPages());
+            assertEquals(5, stats.getPromotions());
+            assertTrue(stats.getPromotionsDeferred() >= 100);
+            assertTrue(stats.getEvictions() > 0);
+        } finally {
+            midpoint.clear();
+            lru.clear();
+        }
+    }
+
+    private static final int HOT_TABLE = 1;
+    private static final int SCAN_TABLE = 2;
+
+    /**
+     * 读入5个热页,超过窗口后再访问一次,使其进入young段
+     */
+    private PageFrame[] warmUp(BufferPool pool) {
+        PageFrame[] hot = new PageFrame[5];
+        for (int i = 0; i < hot.length; i++) {
+            hot[i] = pool.getPage(HOT_TABLE, i);
+        }
+        advanceMillis(WINDOW_MILLIS);
+        for (int i = 0; i < hot.length; i++) {
+            pool.getPage(HOT_TABLE, i);
+        }
+        return hot;
+    }
+
+    /**
+     * 扫描100页,每页在窗口内访问两次(模拟逐行读取同一页)
+     */
+    private void scan(BufferPool pool) {
+        for (int i = 0; i < 100; i++) {
+            pool.getPage(SCAN_TABLE, i);
+            pool.getPage(SCAN_TABLE, i);
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(millis * 1_000_000L);
+    }
+
+    private static PageFrame frame(int pageId) {
+        DataPage page = new DataPage();
+        page.setPageId(pageId);
+        return new PageFrame(page);
+    }
+}
@@ -0,0 +1,228 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageCleaner单元测试
+ *
+ * 测试刷新链表和后台刷脏:
+ * - 刷新链表按第一次修改的顺序排列,重复修改不改变位置
+ * - 低水位以下不刷,超过低水位从最老的脏页开始刷
+ * - 被pin住的脏页跳过
+ * - 刷脏线程运行时淘汰优先选择干净页,前台同步写盘计数
+ * - 后台线程把脏页比例降到低水位
+ */
+@DisplayName("PageCleaner - 后台刷脏测试")
+class PageCleanerTest {
+
+    private static final String TEST_DATA_DIR = "test_page_cleaner";
+
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(10, TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("脏页计数跟随标脏和写回变化")
+    void testDirtyCount() {
+        PageFrame frame0 = bufferPool.newPage(0, 0);
+        PageFrame frame1 = bufferPool.newPage(0, 1);
+
+        frame0.markDirty();
+        frame0.markDirty();
+        frame1.pin();
+        frame1.unpin(true);
+
+        assertEquals(2, bufferPool.getDirtyPageCount());
+        assertEquals(0.2, bufferPool.getDirtyRatio(), 1e-9);
+
+        bufferPool.flushPage(0, 0);
+        assertEquals(1, bufferPool.getDirtyPageCount());
+        assertFalse(frame0.isDirty());
+
+        bufferPool.flushAllPages();
+        assertEquals(0, bufferPool.getDirtyPageCount());
+        assertEquals(0, bufferPool.getStats().getDirtyPages());
+    }
+
+    @Test
+    @DisplayName("从最老的脏页开始刷,重复修改不改变顺序")
+    void testFlushOldestFirst() {
+        PageFrame[] frames = new PageFrame[4];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = bufferPool.newPage(0, i);
+        }
+
+        // 修改顺序:2, 0, 3, 1;之后再改一次页2,它仍然是最老的
+        frames[2].markDirty();
+        frames[0].markDirty();
+        frames[3].markDirty();
+        frames[1].markDirty();
+        frames[2].markDirty();
+
+        assertTrue(frames[2].getOldestModification() < frames[0].getOldestModification());
+
+        assertEquals(2, bufferPool.flushOldestDirtyPages(2));
+        assertFalse(frames[2].isDirty());
+        assertFalse(frames[0].isDirty());
+        assertTrue(frames[3].isDirty());
+        assertTrue(frames[1].isDirty());
+
+        // 写回后再修改,排到链表尾部
+        frames[2].markDirty();
+        assertEquals(1, bufferPool.flushOldestDirtyPages(1));
+        assertFalse(frames[3].isDirty());
+        assertTrue(frames[1].isDirty());
+        assertTrue(frames[2].isDirty());
+    }
+
+    @Test
+    @DisplayName("低水位以下不刷,超过低水位刷一批")
+    void testWatermarks() {
+        PageCleaner cleaner = new PageCleaner(bufferPool, 0.2, 0.8, 2, 1000);
+
+        dirtyPages(2);
+        assertEquals(0, cleaner.runOnce());
+        assertEquals(2, bufferPool.getDirtyPageCount());
+
+        dirtyPages(5);
+        assertEquals(2, cleaner.runOnce());
+        assertEquals(3, bufferPool.getDirtyPageCount());
+        assertEquals(2, cleaner.getFlushedPages());
+
+        // 3/10仍高于低水位,再刷一批;1/10低于低水位就停
+        assertEquals(2, cleaner.runOnce());
+        assertEquals(0, cleaner.runOnce());
+        assertEquals(1, bufferPool.getDirtyPageCount());
+    }
+
+    @Test
+    @DisplayName("被pin住的脏页跳过")
+    void testPinnedPagesSkipped() {
+        PageFrame pinned = bufferPool.newPage(0, 0);
+        PageFrame unpinned = bufferPool.newPage(0, 1);
+        pinned.markDirty();
+        unpinned.markDirty();
+
+        pinned.pin();
+        try {
+            assertEquals(1, bufferPool.flushOldestDirtyPages(10));
+            assertTrue(pinned.isDirty());
+            assertFalse(unpinned.isDirty());
+        } finally {
+            pinned.unpin(false);
+        }
+
+        assertEquals(1, bufferPool.flushOldestDirtyPages(10));
+        assertFalse(pinned.isDirty());
+    }
+
+    @Test
+    @DisplayName("刷出的页内容写到磁盘")
+    void testFlushedDataOnDisk() {
+        PageFrame frame = bufferPool.newPage(0, 0);
+        ((DataPage) frame.getPage()).insertRow("cleaner".getBytes());
+        frame.markDirty();
+
+        assertEquals(1, bufferPool.flushOldestDirtyPages(1));
+
+        BufferPool other = new BufferPool(10, TEST_DATA_DIR);
+        try {
+            PageFrame reloaded = other.getPage(0, 0);
+            assertArrayEquals("cleaner".getBytes(), ((DataPage) reloaded.getPage()).getRow(0));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    @DisplayName("刷脏线程运行时淘汰优先选择干净页")
+    void testCleanVictimPreferred() {
+        // 高水位设为1、周期很长:线程基本不刷,只验证淘汰偏好
+        bufferPool.startPageCleaner(1.0, 1.0, 1, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            bufferPool.newPage(0, i);
+        }
+        bufferPool.getPage(0, 0).markDirty();
+
+        // 页0最久未使用但是脏页,淘汰页1
+        bufferPool.newPage(0, 10);
+        assertEquals(0, bufferPool.getStats().getForegroundFlushes());
+        assertEquals(1, bufferPool.getDirtyPageCount());
+
+        bufferPool.stopPageCleaner();
+        assertFalse(bufferPool.isPageCleanerRunning());
+    }
+
+    @Test
+    @DisplayName("没有刷脏线程时淘汰脏页计入前台同步刷脏")
+    void testForegroundFlushCounted() {
+        for (int i = 0; i < 10; i++) {
+            bufferPool.newPage(0, i).markDirty();
+        }
+
+        bufferPool.newPage(0, 10);
+
+        BufferPoolStats stats = bufferPool.getStats();
+        assertEquals(1, stats.getForegroundFlushes());
+        assertEquals(9, stats.getDirtyPages());
+    }
+
+    @Test
+    @DisplayName("后台线程把脏页比例降到低水位")
+    void testBackgroundThreadFlushes() throws InterruptedException {
+        dirtyPages(10);
+        bufferPool.startPageCleaner(0.3, 0.5, 2, 10);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bufferPool.getDirtyRatio() > 0.3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(bufferPool.getDirtyRatio() <= 0.3);
+        BufferPoolStats stats = bufferPool.getStats();
+        assertTrue(stats.getCleanerFlushedPages() >= 7);
+        assertTrue(stats.getCleanerFlushRate() > 0);
+
+        bufferPool.stopPageCleaner();
+    }
+
+    @Test
+    @DisplayName("参数检查和重复启动")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> bufferPool.startPageCleaner(0.9, 0.1, 10, 100));
+        assertThrows(IllegalArgumentException.class, () -> bufferPool.startPageCleaner(0.1, 0.9, 0, 100));
+        assertFalse(bufferPool.isPageCleanerRunning());
+
+        bufferPool.startPageCleaner(0.1, 0.9, 10, 100);
+        assertThrows(IllegalStateException.class, () -> bufferPool.startPageCleaner(0.1, 0.9, 10, 100));
+        bufferPool.stopPageCleaner();
+    }
+
+    /**
+     * 把页0..count-1都变成脏页(不存在的先创建)
+     */
+    private void dirtyPages(int count) {
+        for (int i = 0; i < count; i++) {
+            PageFrame frame = bufferPool.getPage(0, i);
+            frame.markDirty();
+        }
+    }
+}
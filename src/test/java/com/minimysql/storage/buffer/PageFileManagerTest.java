@@ -0,0 +1,193 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.Page;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageFileManager单元测试
+ *
+ * 测试页文件I/O层:
+ * - 定位读写单页
+ * - 文件不存在/页超出文件末尾
+ * - 写入只影响目标页
+ * - 关闭后重新打开
+ * - 内存映射读:跨段、文件变长后重新映射、映射对定位写可见
+ */
+@DisplayName("PageFileManager - 页文件I/O测试")
+class PageFileManagerTest {
+
+    private static final String TEST_DATA_DIR = "test_pagefile";
+
+    private PageFileManager pageFileManager;
+    private Path filePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        Files.createDirectories(Path.of(TEST_DATA_DIR));
+
+        pageFileManager = new PageFileManager();
+        filePath = Path.of(TEST_DATA_DIR, "table_1.db");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pageFileManager.closeAll();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("文件不存在时读页返回false且不创建文件")
+    void testReadMissingFile() {
+        byte[] buffer = new byte[Page.PAGE_SIZE];
+
+        assertFalse(pageFileManager.readPage(filePath, 0, buffer));
+        assertFalse(Files.exists(filePath));
+        assertEquals(0, pageFileManager.getPageCount(filePath));
+    }
+
+    @Test
+    @DisplayName("写入的页可以按页号读回")
+    void testWriteAndReadPage() {
+        byte[] page3 = filledPage((byte) 3);
+        pageFileManager.writePage(filePath, 3, page3);
+
+        byte[] buffer = new byte[Page.PAGE_SIZE];
+        assertTrue(pageFileManager.readPage(filePath, 3, buffer));
+        assertArrayEquals(page3, buffer);
+
+        // 文件扩展到4页,中间的空洞读出来是0
+        assertEquals(4, pageFileManager.getPageCount(filePath));
+        assertTrue(pageFileManager.readPage(filePath, 1, buffer));
+        assertArrayEquals(new byte[Page.PAGE_SIZE], buffer);
+    }
+
+    @Test
+    @DisplayName("页超出文件末尾时返回false")
+    void testReadBeyondEndOfFile() {
+        pageFileManager.writePage(filePath, 0, filledPage((byte) 1));
+
+        byte[] buffer = new byte[Page.PAGE_SIZE];
+        assertFalse(pageFileManager.readPage(filePath, 1, buffer));
+    }
+
+    @Test
+    @DisplayName("写入一页不影响其他页,文件大小不变")
+    void testOverwriteSinglePage() throws IOException {
+        for (int pageId = 0; pageId < 5; pageId++) {
+            pageFileManager.writePage(filePath, pageId, filledPage((byte) pageId));
+        }
+        long sizeBefore = Files.size(filePath);
+
+        pageFileManager.writePage(filePath, 2, filledPage((byte) 42));
+
+        assertEquals(sizeBefore, Files.size(filePath));
+
+        byte[] buffer = new byte[Page.PAGE_SIZE];
+        for (int pageId = 0; pageId < 5; pageId++) {
+            assertTrue(pageFileManager.readPage(filePath, pageId, buffer));
+            byte expected = pageId == 2 ? (byte) 42 : (byte) pageId;
+            assertArrayEquals(filledPage(expected), buffer);
+        }
+    }
+
+    @Test
+    @DisplayName("关闭所有文件后可以重新打开继续读写")
+    void testReopenAfterClose() {
+        pageFileManager.writePage(filePath, 0, filledPage((byte) 7));
+        assertEquals(1, pageFileManager.getOpenFileCount());
+
+        pageFileManager.syncAll();
+        pageFileManager.closeAll();
+        assertEquals(0, pageFileManager.getOpenFileCount());
+
+        byte[] buffer = new byte[Page.PAGE_SIZE];
+        assertTrue(pageFileManager.readPage(filePath, 0, buffer));
+        assertArrayEquals(filledPage((byte) 7), buffer);
+    }
+
+    @Test
+    @DisplayName("页缓冲区大小不是PAGE_SIZE时抛异常")
+    void testInvalidBufferSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> pageFileManager.writePage(filePath, 0, new byte[100]));
+        assertThrows(IllegalArgumentException.class,
+                () -> pageFileManager.readPage(filePath, 0, new byte[100]));
+    }
+
+    @Test
+    @DisplayName("内存映射读返回只读切片,超出文件末尾返回null")
+    void testMapPage() {
+        assertNull(pageFileManager.mapPage(filePath, 0));
+        assertFalse(Files.exists(filePath));
+
+        pageFileManager.writePage(filePath, 0, filledPage((byte) 5));
+        pageFileManager.writePage(filePath, 1, filledPage((byte) 6));
+
+        ByteBuffer mapped = pageFileManager.mapPage(filePath, 1);
+        assertNotNull(mapped);
+        assertTrue(mapped.isReadOnly());
+        assertEquals(Page.PAGE_SIZE, mapped.remaining());
+        assertArrayEquals(filledPage((byte) 6), toArray(mapped));
+
+        assertNull(pageFileManager.mapPage(filePath, 2));
+    }
+
+    @Test
+    @DisplayName("大文件按段映射,文件变长后可以映射新页")
+    void testMapPageAcrossSegments() {
+        // 每段2页:页0-1在第0段,页2-3在第1段,页4在第2段
+        PageFileManager segmented = new PageFileManager(2);
+        try {
+            for (int pageId = 0; pageId < 3; pageId++) {
+                segmented.writePage(filePath, pageId, filledPage((byte) pageId));
+            }
+            for (int pageId = 0; pageId < 3; pageId++) {
+                assertArrayEquals(filledPage((byte) pageId), toArray(segmented.mapPage(filePath, pageId)));
+            }
+
+            // 第1段映射时只有页2,文件变长后页3需要重新映射
+            segmented.writePage(filePath, 3, filledPage((byte) 3));
+            segmented.writePage(filePath, 4, filledPage((byte) 4));
+            assertArrayEquals(filledPage((byte) 3), toArray(segmented.mapPage(filePath, 3)));
+            assertArrayEquals(filledPage((byte) 4), toArray(segmented.mapPage(filePath, 4)));
+        } finally {
+            segmented.closeAll();
+        }
+    }
+
+    @Test
+    @DisplayName("定位写对已映射的页立即可见")
+    void testWriteVisibleThroughMapping() {
+        pageFileManager.writePage(filePath, 0, filledPage((byte) 1));
+        ByteBuffer mapped = pageFileManager.mapPage(filePath, 0);
+
+        pageFileManager.writePage(filePath, 0, ByteBuffer.wrap(filledPage((byte) 9)));
+
+        assertArrayEquals(filledPage((byte) 9), toArray(mapped));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] data = new byte[Page.PAGE_SIZE];
+        buffer.get(0, data);
+        return data;
+    }
+
+    private static byte[] filledPage(byte value) {
+        byte[] data = new byte[Page.PAGE_SIZE];
+        Arrays.fill(data, value);
+        return data;
+    }
+}
@@ -0,0 +1,139 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.metadata.SystemTables;
+import com.minimysql.storage.page.DataPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageTable单元测试
+ *
+ * 测试开放寻址页表:
+ * - 基本的put/get/remove
+ * - 页键打包:负数系统表ID、超过一百万页、表/索引文件同号
+ * - 删除后探测链仍然正确(向后移位)
+ * - 扩容
+ */
+@DisplayName("PageTable - 开放寻址页表测试")
+class PageTableTest {
+
+    private PageTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new PageTable(16);
+    }
+
+    @Test
+    @DisplayName("put/get/remove基本操作")
+    void testBasicOperations() {
+        PageFrame frame = frame(1);
+
+        assertNull(table.get(42));
+        assertNull(table.put(42, frame));
+        assertSame(frame, table.get(42));
+        assertTrue(table.containsKey(42));
+        assertEquals(1, table.size());
+
+        PageFrame replacement = frame(1);
+        assertSame(frame, table.put(42, replacement));
+        assertEquals(1, table.size());
+
+        assertSame(replacement, table.remove(42));
+        assertNull(table.get(42));
+        assertNull(table.remove(42));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    @DisplayName("页键不再冲突:负数表ID、超过一百万页、表和索引同号")
+    void testPackedKeysDistinct() {
+        long[] keys = {
+                BufferPool.cacheKey(SystemTables.SYS_TABLES_ID, 0, true),
+                BufferPool.cacheKey(SystemTables.SYS_COLUMNS_ID, 0, true),
+                BufferPool.cacheKey(0, 0, true),
+                BufferPool.cacheKey(0, 0, false),
+                BufferPool.cacheKey(1, 0, true),
+                BufferPool.cacheKey(0, 1_000_000, true),
+                BufferPool.cacheKey(1, 1_000_000, true),
+                BufferPool.cacheKey(0, Integer.MAX_VALUE, true),
+                BufferPool.cacheKey(101, 5, true),
+                BufferPool.cacheKey(101, 5, false)
+        };
+
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = i + 1; j < keys.length; j++) {
+                assertNotEquals(keys[i], keys[j], "keys " + i + " and " + j + " collide");
+            }
+        }
+
+        // 旧的 id * 1_000_000 + pageId 方案下,(0, 1000000) 和 (1, 0) 是同一个键
+        assertNotEquals(BufferPool.cacheKey(0, 1_000_000, true), BufferPool.cacheKey(1, 0, true));
+    }
+
+    @Test
+    @DisplayName("随机操作结果与HashMap一致(覆盖删除后的向后移位和扩容)")
+    void testMatchesHashMap() {
+        Map<Long, PageFrame> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            // 键集中在小范围内,制造大量冲突和删除
+            long key = BufferPool.cacheKey(random.nextInt(4) - 2, random.nextInt(300), random.nextBoolean());
+            int op = random.nextInt(3);
+
+            if (op == 0) {
+                PageFrame frame = frame(i);
+                assertSame(expected.put(key, frame), table.put(key, frame));
+            } else if (op == 1) {
+                assertSame(expected.remove(key), table.remove(key));
+            } else {
+                assertSame(expected.get(key), table.get(key));
+            }
+            assertEquals(expected.size(), table.size());
+        }
+
+        for (Map.Entry<Long, PageFrame> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), table.get(entry.getKey()));
+        }
+
+        int[] count = {0};
+        table.forEach(frame -> count[0]++);
+        assertEquals(expected.size(), count[0]);
+    }
+
+    @Test
+    @DisplayName("清空后为空且可以继续使用")
+    void testClear() {
+        for (int i = 0; i < 100; i++) {
+            table.put(i, frame(i));
+        }
+
+        table.clear();
+
+        assertEquals(0, table.size());
+        assertNull(table.get(5));
+
+        table.put(5, frame(5));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    @DisplayName("不接受null页帧")
+    void testNullFrameRejected() {
+        assertThrows(IllegalArgumentException.class, () -> table.put(1, null));
+    }
+
+    private static PageFrame frame(int pageId) {
+        DataPage page = new DataPage();
+        page.setPageId(pageId);
+        return new PageFrame(page);
+    }
+}
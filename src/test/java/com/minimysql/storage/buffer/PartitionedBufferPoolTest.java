@@ -0,0 +1,289 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分区缓冲池测试
+ *
+ * 测试BufferPool拆成多个BufferPoolInstance后的行为:
+ * - 容量分配和参数校验
+ * - 每个分区独立淘汰,总页数不超过缓冲池大小
+ * - 并发缺页、并发淘汰脏页时数据不丢失
+ * - 多线程吞吐量(单分区 vs 多分区)
+ */
+@DisplayName("PartitionedBufferPool - 分区缓冲池测试")
+class PartitionedBufferPoolTest {
+
+    private static final String TEST_DATA_DIR = "test_partitioned_bufferpool";
+
+    private final List<BufferPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (BufferPool pool : pools) {
+            pool.clear();
+        }
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    private BufferPool createPool(int poolSize, int instances) {
+        BufferPool pool = new BufferPool(poolSize, TEST_DATA_DIR, instances);
+        pools.add(pool);
+        return pool;
+    }
+
+    @Test
+    @DisplayName("默认只有一个分区")
+    void testDefaultSingleInstance() {
+        BufferPool pool = new BufferPool(10, TEST_DATA_DIR);
+        pools.add(pool);
+
+        assertEquals(1, pool.getInstanceCount());
+        assertEquals(10, pool.getPoolSize());
+    }
+
+    @Test
+    @DisplayName("分区数非法时抛异常")
+    void testInvalidInstanceCount() {
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(10, TEST_DATA_DIR, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(4, TEST_DATA_DIR, 8));
+    }
+
+    @Test
+    @DisplayName("缓存页数不超过缓冲池大小")
+    void testCacheSizeBounded() {
+        BufferPool pool = createPool(10, 4);
+
+        for (int pageId = 0; pageId < 100; pageId++) {
+            pool.getPage(1, pageId);
+        }
+
+        assertTrue(pool.getCacheSize() <= 10);
+        assertTrue(pool.getCacheSize() > 0);
+    }
+
+    @Test
+    @DisplayName("表数据页和索引页的ID相同也不会冲突")
+    void testTableAndIndexPagesDistinct() {
+        BufferPool pool = createPool(10, 4);
+
+        PageFrame tableFrame = pool.newPage(101, 0);
+        PageFrame indexFrame = pool.newIndexPage(101, 0);
+
+        assertNotSame(tableFrame, indexFrame);
+        assertTrue(tableFrame.isClusteredIndex());
+        assertFalse(indexFrame.isClusteredIndex());
+        assertSame(tableFrame, pool.getPage(101, 0));
+        assertSame(indexFrame, pool.getIndexPage(101, 0));
+    }
+
+    @Test
+    @DisplayName("重复创建同一页应该抛异常")
+    void testNewPageAlreadyExists() {
+        BufferPool pool = createPool(10, 4);
+        pool.newPage(1, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.newPage(1, 5));
+    }
+
+    @Test
+    @DisplayName("多线程同时缺同一页,返回同一个页帧")
+    void testConcurrentMissSamePage() throws InterruptedException {
+        BufferPool pool = createPool(16, 4);
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<PageFrame> frames = Collections.synchronizedList(new ArrayList<>());
+
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                frames.add(pool.getPage(1, 7));
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadCount, frames.size());
+        for (PageFrame frame : frames) {
+            assertSame(frames.get(0), frame);
+        }
+    }
+
+    @Test
+    @DisplayName("并发淘汰脏页后数据不丢失")
+    void testConcurrentDirtyEvictionPersists() throws InterruptedException {
+        // 8个分区共16页,4个线程各写50页,大量脏页在锁外写回
+        BufferPool pool = createPool(16, 8);
+        int threadCount = 4;
+        int pagesPerThread = 50;
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int tableId = t + 1;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int pageId = 0; pageId < pagesPerThread; pageId++) {
+                        PageFrame frame = getPinnedPage(pool, tableId, pageId);
+                        try {
+                            ((DataPage) frame.getPage()).insertRow(("t" + tableId + "p" + pageId).getBytes());
+                        } finally {
+                            frame.unpin(true);
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+
+        pool.clear();
+
+        for (int tableId = 1; tableId <= threadCount; tableId++) {
+            for (int pageId = 0; pageId < pagesPerThread; pageId++) {
+                DataPage page = (DataPage) pool.getPage(tableId, pageId).getPage();
+                assertEquals(1, page.getRowCount());
+                assertArrayEquals(("t" + tableId + "p" + pageId).getBytes(), page.getRow(0));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("多线程吞吐量:多分区不低于单分区")
+    void testThroughputScaling() throws InterruptedException {
+        int threadCount = 8;
+        int pagesPerTable = 64;
+
+        // 预先写好数据文件,让缺页真正读盘
+        BufferPool loader = createPool(threadCount * pagesPerTable, 1);
+        for (int tableId = 1; tableId <= threadCount; tableId++) {
+            for (int pageId = 0; pageId < pagesPerTable; pageId++) {
+                PageFrame frame = loader.newPage(tableId, pageId);
+                ((DataPage) frame.getPage()).insertRow(("row" + pageId).getBytes());
+                frame.markDirty();
+            }
+        }
+        loader.clear();
+
+        // 工作集512页,缓冲池128页:约3/4的访问缺页
+        long single = measureThroughput(createPool(128, 1), threadCount, pagesPerTable);
+        long partitioned = measureThroughput(createPool(128, 8), threadCount, pagesPerTable);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("BufferPool吞吐量(%d线程, %d核): 1分区=%d ops/s, 8分区=%d ops/s, 加速比=%.2f%n",
+                threadCount, cores, single, partitioned, (double) partitioned / single);
+
+        assertTrue(single > 0);
+        assertTrue(partitioned > 0);
+
+        // 只有核数足够时才要求可扩展,避免在小机器上误报
+        if (cores >= threadCount) {
+            assertTrue(partitioned > single,
+                    "8 partitions should outperform a single partition on " + cores + " cores");
+        }
+    }
+
+    /**
+     * 获取并pin住页
+     *
+     * getPage返回到pin之间,页可能被其他线程淘汰。
+     * pin之后再确认页帧仍在缓存中,否则重试。
+     */
+    private static PageFrame getPinnedPage(BufferPool pool, int tableId, int pageId) {
+        while (true) {
+            PageFrame frame = pool.getPage(tableId, pageId);
+            frame.pin();
+            if (pool.getPage(tableId, pageId) == frame) {
+                return frame;
+            }
+            frame.unpin(false);
+        }
+    }
+
+    /**
+     * 多线程随机访问页,返回每秒操作数
+     */
+    private long measureThroughput(BufferPool pool, int threadCount, int pagesPerTable)
+            throws InterruptedException {
+        long durationMillis = 300;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong operations = new AtomicLong();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int tableId = t + 1;
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                    while (running.get()) {
+                        PageFrame frame = pool.getPage(tableId, random.nextInt(pagesPerTable));
+                        frame.pin();
+                        try {
+                            frame.getPage().getPageId();
+                        } finally {
+                            frame.unpin(false);
+                        }
+                        count++;
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+                operations.addAndGet(count);
+            });
+            threads[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(durationMillis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+
+        assertNull(error.get());
+        return operations.get() * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,180 @@
+package com.minimysql.storage.buffer;
+
+import com.minimysql.storage.page.DataPage;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadAhead单元测试
+ *
+ * 测试预读:
+ * - 连续访问相邻页触发线性预读,预读的页再访问是命中
+ * - 随机访问不触发
+ * - 不预读文件末尾之外的页
+ * - 沿链表预读
+ * - 预读的页没被访问就被淘汰计入浪费
+ */
+@DisplayName("ReadAhead - 预读测试")
+class ReadAheadTest {
+
+    private static final String TEST_DATA_DIR = "test_read_ahead";
+
+    /** 磁盘上的页数 */
+    private static final int FILE_PAGES = 20;
+
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+
+        // 先写FILE_PAGES页到磁盘,每页一行记录自己的页号
+        BufferPool writer = new BufferPool(FILE_PAGES, TEST_DATA_DIR);
+        for (int i = 0; i < FILE_PAGES; i++) {
+            PageFrame frame = writer.newPage(0, i);
+            ((DataPage) frame.getPage()).insertRow(("page" + i).getBytes());
+            frame.markDirty();
+        }
+        writer.clear();
+
+        bufferPool = new BufferPool(16, TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("未开启时窗口为0,链式预读什么也不做")
+    void testDisabledByDefault() {
+        assertEquals(0, bufferPool.getReadAheadWindow());
+
+        bufferPool.prefetchChain(0, 0, page -> page.getPageId() + 1);
+        for (int i = 0; i < 5; i++) {
+            bufferPool.getPage(0, i);
+        }
+
+        assertEquals(0, bufferPool.getStats().getReadAheadPages());
+        assertEquals(5, bufferPool.getCacheSize());
+    }
+
+    @Test
+    @DisplayName("连续访问触发线性预读,之后的访问命中预读的页")
+    void testLinearReadAhead() throws InterruptedException {
+        bufferPool.enableReadAhead(8, 3);
+        assertEquals(8, bufferPool.getReadAheadWindow());
+
+        for (int i = 0; i < 3; i++) {
+            bufferPool.getPage(0, i);
+        }
+        awaitCondition(() -> bufferPool.getStats().getReadAheadPages() >= 8);
+
+        // 页3..10已经在缓存中
+        for (int i = 3; i <= 10; i++) {
+            PageFrame frame = bufferPool.getPage(0, i);
+            assertArrayEquals(("page" + i).getBytes(), ((DataPage) frame.getPage()).getRow(0));
+        }
+
+        BufferPoolStats stats = bufferPool.getStats();
+        assertEquals(3, stats.getMisses());
+        assertEquals(8, stats.getReadAheadHits());
+        assertEquals(0, stats.getReadAheadEvictedUnused());
+    }
+
+    @Test
+    @DisplayName("随机访问不触发预读")
+    void testRandomAccessNoReadAhead() {
+        bufferPool.enableReadAhead(8, 3);
+
+        int[] pages = {5, 0, 9, 2, 14, 7, 3};
+        for (int pageId : pages) {
+            bufferPool.getPage(0, pageId);
+        }
+        bufferPool.disableReadAhead();
+
+        assertEquals(0, bufferPool.getStats().getReadAheadPages());
+        assertEquals(pages.length, bufferPool.getCacheSize());
+    }
+
+    @Test
+    @DisplayName("不预读文件末尾之外的页,之后仍可创建新页")
+    void testReadAheadStopsAtEndOfFile() {
+        bufferPool.enableReadAhead(8, 3);
+
+        // 第3次相邻访问是最后一页,触发的预读全部超出文件末尾
+        for (int i = FILE_PAGES - 3; i < FILE_PAGES; i++) {
+            bufferPool.getPage(0, i);
+        }
+        // 等待预读线程处理完(关闭时等待正在执行的任务)
+        bufferPool.disableReadAhead();
+
+        assertEquals(0, bufferPool.getStats().getReadAheadPages());
+        assertNotNull(bufferPool.newPage(0, FILE_PAGES));
+    }
+
+    @Test
+    @DisplayName("沿链表预读,页号不必连续")
+    void testChainReadAhead() throws InterruptedException {
+        bufferPool.enableReadAhead(4, 3);
+
+        // 链表:1 → 4 → 7 → 10 → 13(窗口4页,13不预读)
+        bufferPool.prefetchChain(0, 1, page -> page.getPageId() + 3);
+        awaitCondition(() -> bufferPool.getStats().getReadAheadPages() >= 4);
+
+        assertEquals(4, bufferPool.getCacheSize());
+        for (int pageId : new int[]{1, 4, 7, 10}) {
+            // 读链表指针时加的pin已经释放
+            assertEquals(0, bufferPool.getPage(0, pageId).getPinCount());
+        }
+
+        BufferPoolStats stats = bufferPool.getStats();
+        assertEquals(4, stats.getReadAheadHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(1.0, stats.getReadAheadHitRatio(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("预读的页没被访问就被淘汰计入浪费")
+    void testWastedReadAhead() throws InterruptedException {
+        bufferPool.enableReadAhead(4, 3);
+
+        bufferPool.prefetchChain(0, 0, page -> page.getPageId() + 1);
+        awaitCondition(() -> bufferPool.getStats().getReadAheadPages() >= 4);
+        bufferPool.disableReadAhead();
+
+        // 填满缓冲池,把预读的4页挤出去
+        for (int i = 0; i < 16; i++) {
+            bufferPool.newPage(1, i);
+        }
+
+        BufferPoolStats stats = bufferPool.getStats();
+        assertEquals(4, stats.getReadAheadEvictedUnused());
+        assertEquals(1.0, stats.getReadAheadWasteRatio(), 1e-9);
+        assertEquals(0, stats.getReadAheadHits());
+    }
+
+    @Test
+    @DisplayName("参数检查")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> bufferPool.enableReadAhead(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> bufferPool.enableReadAhead(8, 1));
+        assertEquals(0, bufferPool.getReadAheadWindow());
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached within 5s");
+    }
+}
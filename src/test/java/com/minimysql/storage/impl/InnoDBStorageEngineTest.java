@@ -459,4 +459,69 @@ class InnoDBStorageEngineTest {
             engine.getTableCount();
         });
     }
+
+    /**
+     * 测试批量导入
+     */
+    @Test
+    @DisplayName("批量导入:乱序的行导入空表,主键和二级索引都能查到")
+    void testLoadRows() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("email", DataType.VARCHAR, 100, false)
+        );
+        Table table = engine.createTable("users", columns);
+        engine.createIndex("users", "idx_email", "email", true);
+
+        List<Row> rows = new java.util.ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int id = (i * 7919) % 3000; // 乱序
+            rows.add(new Row(new Object[]{id, "user" + id + "@example.com"}));
+        }
+
+        assertEquals(3000, engine.loadRows("users", rows.iterator()));
+
+        assertEquals(3000, table.fullTableScan().size());
+        assertEquals("user42@example.com", table.selectByPrimaryKey(42).getValue(1));
+        assertEquals(2999, table.selectBySecondaryIndex("idx_email", "user2999@example.com").getValue(0));
+
+        // 只能导入空表
+        assertThrows(IllegalStateException.class,
+                () -> engine.loadRows("users", List.of(new Row(new Object[]{5000, "x"})).iterator()));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.loadRows("missing", rows.iterator()));
+    }
+
+    /**
+     * 测试批量导入失败
+     */
+    @Test
+    @DisplayName("批量导入:唯一索引重复时整个导入失败,表仍然是空表,之后可以重新导入")
+    void testLoadRowsFailureLeavesTableEmpty() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("email", DataType.VARCHAR, 100, false)
+        );
+        Table table = engine.createTable("users", columns);
+        engine.createIndex("users", "idx_email", "email", true);
+
+        List<Row> rows = new java.util.ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            rows.add(new Row(new Object[]{i, "user" + i + "@example.com"}));
+        }
+        rows.add(new Row(new Object[]{3000, "user42@example.com"}));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> engine.loadRows("users", rows.iterator()));
+        assertTrue(e.getMessage().contains("Duplicate entry"), e.getMessage());
+
+        assertTrue(table.fullTableScan().isEmpty());
+        assertNull(table.selectByPrimaryKey(42));
+        assertNull(table.selectBySecondaryIndex("idx_email", "user7@example.com"));
+
+        rows.remove(rows.size() - 1);
+        assertEquals(3000, engine.loadRows("users", rows.iterator()));
+        assertEquals(3000, table.fullTableScan().size());
+        assertEquals(42, table.selectBySecondaryIndex("idx_email", "user42@example.com").getValue(0));
+    }
 }
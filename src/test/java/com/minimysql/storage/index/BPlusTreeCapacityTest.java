@@ -0,0 +1,146 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.IndexPage;
+import com.minimysql.storage.page.Page;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+树节点容量测试
+ *
+ * 节点容量按字节计算(一页16KB),不是固定的键数量:
+ * - INT键的内部节点能放下1400个以上的分隔键
+ * - Row数据较大的叶子按字节分裂,不会溢出页
+ * - 放不进半页的条目直接拒绝
+ * - 大数据量(默认跳过):插入1000万个键,报告树高和页数
+ *   运行: ./gradlew test -Pminimysql.largeTests=true --tests '*BPlusTreeCapacityTest*'
+ */
+@DisplayName("BPlusTreeCapacityTest - B+树节点容量测试")
+class BPlusTreeCapacityTest {
+
+    private static final String TEST_DATA_DIR = "test_bptree_capacity";
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(1024, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("INT键的内部节点能放下1400个以上的分隔键")
+    void testInternalNodeFanout() {
+        BPlusTreeNode node = new BPlusTreeNode(false);
+        node.setChild(0, 0);
+
+        int keys = 0;
+        while (true) {
+            node.insertChild(KeyEncoder.encodeInt(keys), keys + 1);
+            if (node.needsSplit()) {
+                break;
+            }
+            keys++;
+        }
+
+        assertTrue(keys >= 1400, "separators per node: " + keys);
+
+        BPlusTreeNode.SplitResult result = node.split();
+        assertTrue(node.toBytes().length <= BPlusTreeNode.MAX_NODE_SIZE);
+        assertTrue(result.newNode.toBytes().length <= BPlusTreeNode.MAX_NODE_SIZE);
+        assertEquals(keys + 1, node.getKeyCount() + result.newNode.getKeyCount() + 1);
+    }
+
+    @Test
+    @DisplayName("序列化长度与getByteSize一致,能写进一页")
+    void testByteSizeMatchesSerializedLength() {
+        BPlusTreeNode leaf = new BPlusTreeNode(true);
+        leaf.setValueType(BPlusTreeNode.VALUE_TYPE_BYTES);
+        for (int i = 0; leaf.getByteSize() + 600 < BPlusTreeNode.MAX_NODE_SIZE; i++) {
+            leaf.insertKeyValue(KeyEncoder.encode(DataType.VARCHAR, "key-" + i), new byte[500 + i]);
+        }
+
+        byte[] bytes = leaf.toBytes();
+        assertEquals(leaf.getByteSize(), bytes.length);
+        assertEquals(leaf.getKeyCount(), new IndexPage(leaf).getKeyCount());
+        assertTrue(IndexPage.HEADER_SIZE + bytes.length <= Page.PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("大Row数据的叶子按字节分裂,不会溢出页")
+    void testLargeRowsSplitByBytes() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("payload", DataType.VARCHAR, 2000, false)
+        );
+        ClusteredIndex index = new ClusteredIndex(1, "id", 0, bufferPool, pageManager);
+        index.setTable(new Table(1, "wide_rows", columns));
+
+        String payload = "x".repeat(2000);
+        for (int i = 0; i < 200; i++) {
+            index.insertRow(new Row(new Object[]{i, payload}));
+        }
+
+        // 每个叶子只能放7条左右,200行至少要两层
+        assertTrue(index.getHeight() >= 2);
+        assertTrue(pageManager.getAllocatedPageCount() >= 200 / 8);
+        assertNotNull(index.selectByPrimaryKey(0));
+    }
+
+    @Test
+    @DisplayName("超过上限的键和条目被拒绝")
+    void testOversizedEntriesRejected() {
+        SecondaryIndex index = new SecondaryIndex(2, "idx_name", "name", 0, false, null, bufferPool, pageManager);
+
+        byte[] longKey = KeyEncoder.encode(DataType.VARCHAR, "k".repeat(BPlusTreeNode.MAX_KEY_LENGTH));
+        assertThrows(IllegalArgumentException.class, () -> index.insertKey(longKey, 1));
+
+        byte[] hugeRow = new byte[BPlusTreeNode.MAX_ENTRY_SIZE];
+        assertThrows(IllegalArgumentException.class, () -> index.insertKey(KeyEncoder.encodeInt(1), hugeRow));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "minimysql.largeTests", matches = "true")
+    @DisplayName("大数据量:插入1000万个INT键,报告树高和页数")
+    void testTenMillionKeys() {
+        int keys = Integer.getInteger("minimysql.largeTests.keys", 10_000_000);
+        SecondaryIndex index = new SecondaryIndex(3, "idx_big", "c", 0, false, null, bufferPool, pageManager);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < keys; i++) {
+            index.insertInt(i, i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int pages = pageManager.getAllocatedPageCount();
+        System.out.printf("keys=%d height=%d pages=%d (%.1f keys/page) insert=%d ms%n",
+                keys, index.getHeight(), pages, (double) keys / Math.max(1, pages), elapsedMillis);
+
+        // 固定100阶时1000万个键需要5层;按字节计算容量后3层就够了
+        assertTrue(index.getHeight() <= 3 || keys > 10_000_000, "height: " + index.getHeight());
+        assertNotNull(index.searchInt(keys - 1));
+    }
+}
@@ -0,0 +1,207 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+树键压缩测试
+ *
+ * - 叶子的公共前缀只存一次:序列化长度与getByteSize一致,页上的查找与内存中的查找结果相同
+ * - canInsert按压缩后的大小精确判断
+ * - 分隔键做后缀截断:比叶子中的键短,仍然能正确路由
+ * - 统计:长公共前缀的VARCHAR键压缩比大于1,页数少于不压缩时需要的页数
+ */
+@DisplayName("BPlusTreeCompressionTest - B+树键压缩测试")
+class BPlusTreeCompressionTest {
+
+    private static final String TEST_DATA_DIR = "test_bptree_compression";
+
+    private static final String URL_PREFIX = "https://example.com/users/profile/";
+
+    /** 所有键相同的尾部:分隔键截断到第一个不同的字节,用不到它 */
+    private static final String URL_SUFFIX = "/settings/notifications";
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(1024, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("叶子前缀压缩:序列化长度一致,反序列化和页上查找的结果与内存中相同")
+    void testLeafPrefixRoundTrip() {
+        BPlusTreeNode leaf = new BPlusTreeNode(true);
+        for (int i = 0; i < 200; i += 2) {
+            leaf.insertKeyValue(url(i), i);
+        }
+
+        int prefix = leaf.getPrefixLength();
+        assertTrue(prefix >= URL_PREFIX.length(), "prefix " + prefix);
+
+        byte[] bytes = leaf.toBytes();
+        assertEquals(leaf.getByteSize(), bytes.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        assertEquals(prefix, BPlusTreeNode.peekPrefixLength(buffer, 0));
+
+        BPlusTreeNode copy = BPlusTreeNode.fromBytes(bytes);
+        assertEquals(leaf.getKeyCount(), copy.getKeyCount());
+        for (int i = 0; i < leaf.getKeyCount(); i++) {
+            assertArrayEquals(leaf.getKey(i), copy.getKey(i));
+            assertArrayEquals(leaf.getKey(i), BPlusTreeNode.peekKey(buffer, 0, i));
+            assertEquals(leaf.getValue(i), BPlusTreeNode.peekIntValue(buffer, 0, i));
+        }
+
+        // 探测键:前缀之前、前缀本身、比前缀短、前缀之后、命中和落在两个键之间
+        List<byte[]> probes = new ArrayList<>();
+        probes.add(KeyEncoder.encode(DataType.VARCHAR, "a"));
+        probes.add(KeyEncoder.encode(DataType.VARCHAR, "https://"));
+        probes.add(KeyEncoder.encode(DataType.VARCHAR, URL_PREFIX));
+        probes.add(KeyEncoder.encode(DataType.VARCHAR, "z"));
+        probes.add(new byte[0]);
+        for (int i = -1; i <= 201; i++) {
+            probes.add(url(i));
+        }
+        for (byte[] probe : probes) {
+            int expected = leaf.findKeyPosition(probe);
+            assertEquals(expected, BPlusTreeNode.peekFindKeyPosition(buffer, 0, probe));
+            assertEquals(leaf.findChildIndex(probe), BPlusTreeNode.peekFindChildIndex(buffer, 0, probe));
+            if (expected < leaf.getKeyCount()) {
+                assertEquals(Integer.signum(KeyEncoder.compare(leaf.getKey(expected), probe)),
+                        Integer.signum(BPlusTreeNode.peekCompareKey(buffer, 0, expected, probe)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("canInsert按压缩后的大小精确判断:插入在最前/最后会让公共前缀变短")
+    void testCanInsertIsExact() {
+        Random random = new Random(7);
+        BPlusTreeNode leaf = new BPlusTreeNode(true);
+        while (true) {
+            // 大部分键共享前缀,偶尔来一个完全不同的键把前缀打断
+            byte[] key = random.nextInt(40) == 0
+                    ? KeyEncoder.encode(DataType.VARCHAR, "other-" + random.nextInt(1000))
+                    : url(random.nextInt(1_000_000));
+            if (leaf.findKeyPosition(key) < leaf.getKeyCount()
+                    && KeyEncoder.compare(leaf.getKey(leaf.findKeyPosition(key)), key) == 0) {
+                continue;
+            }
+
+            boolean fits = leaf.canInsert(key, 0);
+            leaf.insertKeyValue(key, 0);
+            assertEquals(fits, !leaf.needsSplit(), "keyCount " + leaf.getKeyCount());
+            assertEquals(leaf.getByteSize(), leaf.toBytes().length);
+            if (!fits) {
+                break;
+            }
+        }
+
+        BPlusTreeNode.SplitResult result = leaf.split();
+        assertTrue(KeyEncoder.compare(leaf.getKey(leaf.getKeyCount() - 1), result.splitKey) < 0);
+        assertTrue(KeyEncoder.compare(result.splitKey, result.newNode.getKey(0)) <= 0);
+        assertEquals(leaf.getByteSize(), leaf.toBytes().length);
+        assertEquals(result.newNode.getByteSize(), result.newNode.toBytes().length);
+    }
+
+    @Test
+    @DisplayName("长公共前缀的VARCHAR键:压缩比大于1,分隔键更短,插入删除后所有键都能查到")
+    void testIndexWithCommonPrefix() {
+        SecondaryIndex index = new SecondaryIndex(1, "idx_url", "url", 0, false, null, bufferPool, pageManager);
+        int keyCount = 20_000;
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(3));
+        for (int key : keys) {
+            index.insert(urlString(key), key);
+        }
+
+        IndexStats stats = index.getStats();
+        assertEquals(index.getHeight(), stats.getHeight());
+        assertEquals(keyCount, stats.getEntries());
+        assertTrue(stats.getKeyCompressionRatio() > 2, stats.toString());
+        assertTrue(stats.getAverageSeparatorLength() < stats.getAverageKeyLength() - URL_SUFFIX.length(),
+                stats.toString());
+
+        // 不压缩时叶子光是键和值就需要更多的页
+        long uncompressedLeafBytes = stats.getRawKeyBytes() + stats.getEntries() * (2 + 4);
+        assertTrue((long) stats.getLeafPages() * BPlusTreeNode.MAX_NODE_SIZE < uncompressedLeafBytes,
+                stats.toString());
+
+        for (int key = 0; key < keyCount; key += 7) {
+            assertEquals(key, index.search(urlString(key)));
+        }
+        assertNull(index.search(URL_PREFIX));
+        assertEquals(List.of(100, 101, 102), index.rangeSearch(urlString(100), urlString(102)));
+
+        // 删除一半,借位和合并换上的分隔键也是截断过的
+        for (int key = 0; key < keyCount; key += 2) {
+            index.delete(urlString(key));
+        }
+        List<Object> expected = new ArrayList<>();
+        for (int key = 1; key < keyCount; key += 2) {
+            expected.add(key);
+            assertEquals(key, index.search(urlString(key)));
+            assertNull(index.search(urlString(key - 1)));
+        }
+        assertEquals(expected, index.getAll());
+        assertEquals(keyCount / 2, index.getStats().getEntries());
+    }
+
+    @Test
+    @DisplayName("批量构建:叶子按压缩后的大小填充,提升的分隔键做后缀截断")
+    void testBulkLoadTruncatesSeparators() {
+        SecondaryIndex index = new SecondaryIndex(2, "idx_bulk_url", "url", 0, false, null, bufferPool, pageManager);
+        BulkLoader loader = new BulkLoader(index, 1.0);
+        for (int i = 0; i < 50_000; i++) {
+            loader.add(url(i), i);
+        }
+        loader.finish();
+
+        IndexStats stats = index.getStats();
+        assertEquals(50_000, stats.getEntries());
+        assertTrue(stats.getKeyCompressionRatio() > 2, stats.toString());
+        assertTrue(stats.getAverageSeparatorLength() < stats.getAverageKeyLength() - URL_SUFFIX.length(),
+                stats.toString());
+        assertTrue(stats.getFillFactor() > 0.9, stats.toString());
+
+        for (int i = 0; i < 50_000; i += 101) {
+            assertEquals(i, index.search(urlString(i)));
+        }
+        assertEquals(List.of(49_998, 49_999), index.rangeSearch(urlString(49_998), urlString(60_000)));
+    }
+
+    private static String urlString(int id) {
+        return URL_PREFIX + String.format("%08d", id) + URL_SUFFIX;
+    }
+
+    private static byte[] url(int id) {
+        return KeyEncoder.encode(DataType.VARCHAR, id < 0 ? URL_PREFIX : urlString(id));
+    }
+}
@@ -0,0 +1,315 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.buffer.PageFrame;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+树并发测试(latch crabbing)
+ *
+ * 多个线程同时插入、删除、点查和扫描同一棵树:
+ * - 并发插入不丢键,分裂后所有键都能查到
+ * - 插入删除进行中,从不修改的键始终能查到,扫描结果始终有序且包含这些键
+ * - 结束后点查、范围查询、全量扫描和惰性迭代器的结果一致
+ * - 乐观点查:版本号校验能发现写者,只读时从不重来
+ *
+ * 键补齐到200多字节,一页只放几十个键,几千个键就有三层,分裂和合并会一直传播到根。
+ * 相邻的键共享分组号和补齐部分,后缀截断后的分隔键仍然很长,内部节点的扇出不会变大。
+ */
+@DisplayName("BPlusTreeConcurrencyTest - B+树并发测试")
+class BPlusTreeConcurrencyTest {
+
+    private static final String TEST_DATA_DIR = "test_bptree_concurrency";
+
+    private static final int THREADS = 8;
+
+    private static final String PADDING = "x".repeat(200);
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(2048, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("并发插入:每个线程插入不同的键,结束后所有键都在且有序")
+    void testConcurrentInserts() throws Exception {
+        SecondaryIndex index = newIndex();
+        int perThread = 1500;
+        List<Integer> keys = shuffledKeys(THREADS * perThread, 17);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = thread; i < keys.size(); i += THREADS) {
+                int key = keys.get(i);
+                index.insert(key(key), key);
+                assertEquals(key, index.search(key(key)), "own insert " + key);
+            }
+        });
+
+        assertTrue(index.getHeight() >= 3, "height " + index.getHeight());
+        assertTreeContains(index, allKeys(THREADS * perThread));
+    }
+
+    @Test
+    @DisplayName("混合读写:不修改的键始终可见,扫描始终有序,结束后结果与预期一致")
+    void testMixedWorkload() throws Exception {
+        SecondaryIndex index = newIndex();
+        int keyCount = 6000;
+
+        // 偶数键先插入:4的倍数始终不动(读线程检查),其余偶数键被删除;奇数键并发插入
+        for (int key : shuffledKeys(keyCount, 3)) {
+            if (key % 2 == 0) {
+                index.insert(key(key), key);
+            }
+        }
+
+        AtomicBoolean writersDone = new AtomicBoolean();
+        int writers = THREADS / 2;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> readerFutures = new ArrayList<>();
+            for (int r = 0; r < THREADS - writers; r++) {
+                long seed = r;
+                readerFutures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    while (!writersDone.get()) {
+                        int stable = random.nextInt(keyCount / 4) * 4;
+                        assertEquals(stable, index.search(key(stable)), "stable key " + stable);
+
+                        int from = random.nextInt(keyCount);
+                        List<Object> range = index.rangeSearch(key(from), key(from + 200));
+                        assertSortedAndContainsStable(range, from, Math.min(from + 200, keyCount - 1));
+
+                        if (random.nextInt(50) == 0) {
+                            List<Object> lazy = new ArrayList<>();
+                            for (Iterator<Object> it = index.getAllLazy(); it.hasNext(); ) {
+                                lazy.add(it.next());
+                            }
+                            assertSortedAndContainsStable(lazy, 0, keyCount - 1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            runConcurrently(writers, thread -> {
+                for (int key = thread; key < keyCount / 2; key += writers) {
+                    index.insert(key(key * 2 + 1), key * 2 + 1);
+                    int removed = key * 2;
+                    if (removed % 4 != 0) {
+                        index.delete(key(removed));
+                    }
+                }
+            });
+            writersDone.set(true);
+
+            for (Future<?> future : readerFutures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            writersDone.set(true);
+            executor.shutdownNow();
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int key = 0; key < keyCount; key++) {
+            if (key % 2 == 1 || key % 4 == 0) {
+                expected.add(key);
+            }
+        }
+        assertTreeContains(index, expected);
+        for (int key = 2; key < keyCount; key += 4) {
+            assertNull(index.search(key(key)), "deleted key " + key);
+        }
+    }
+
+    @Test
+    @DisplayName("并发删除:所有键删除后树降回一层")
+    void testConcurrentDeletes() throws Exception {
+        SecondaryIndex index = newIndex();
+        int keyCount = 6000;
+        for (int key : shuffledKeys(keyCount, 5)) {
+            index.insert(key(key), key);
+        }
+        assertTrue(index.getHeight() >= 3);
+
+        List<Integer> keys = shuffledKeys(keyCount, 9);
+        runConcurrently(THREADS, thread -> {
+            for (int i = thread; i < keys.size(); i += THREADS) {
+                index.delete(key(keys.get(i)));
+            }
+        });
+
+        assertEquals(1, index.getHeight());
+        assertTrue(index.getAll().isEmpty());
+
+        // 删空之后还能继续使用
+        for (int key = 0; key < 100; key++) {
+            index.insert(key(key), key);
+        }
+        assertTreeContains(index, allKeys(100));
+    }
+
+    @Test
+    @DisplayName("乐观点查:页被独占时校验失败并退回加锁路径,只读负载从不重来")
+    void testOptimisticReads() throws Exception {
+        SecondaryIndex index = newIndex();
+        int keyCount = 3000;
+        for (int key = 0; key < keyCount; key++) {
+            index.insert(key(key), key);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PageFrame root = bufferPool.pinIndexPage(index.getIndexId(), BPlusTree.ROOT_PAGE_ID);
+        try {
+            long version = root.readVersion();
+            assertTrue(root.validateVersion(version));
+
+            root.latchExclusive();
+            assertFalse(root.validateVersion(version));
+            assertFalse(root.validateVersion(root.readVersion()), "odd version while latched");
+
+            // 乐观读几次都冲突,退回加共享锁,等写者释放
+            Future<Object> lookup = executor.submit(() -> index.search(key(5)));
+            assertThrows(TimeoutException.class, () -> lookup.get(200, TimeUnit.MILLISECONDS));
+            root.unlatchExclusive();
+
+            assertEquals(5, lookup.get(1, TimeUnit.MINUTES));
+            assertFalse(root.validateVersion(version), "version moved on");
+            assertTrue(index.getOptimisticRetryCount() > 0);
+        } finally {
+            root.unpin(false);
+            executor.shutdownNow();
+        }
+
+        long retries = index.getOptimisticRetryCount();
+        runConcurrently(THREADS, thread -> {
+            for (int key = thread; key < keyCount; key += THREADS) {
+                assertEquals(key, index.search(key(key)));
+            }
+        });
+        assertEquals(retries, index.getOptimisticRetryCount());
+    }
+
+    private SecondaryIndex newIndex() {
+        return new SecondaryIndex(1, "idx_concurrency", "c", 0, false, null, bufferPool, pageManager);
+    }
+
+    /**
+     * 补齐到固定长度的字符串键:字符串顺序与数值顺序一致
+     *
+     * 每10个键一组,同组的键只在最后几个字节不同,分隔键截断不掉补齐部分。
+     */
+    private static String key(int key) {
+        return String.format("%05d", key / 10) + PADDING + String.format("%08d", key);
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * 同时启动threads个线程执行worker,等待全部结束,任何一个线程的失败都会抛出
+     */
+    private static void runConcurrently(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 值严格递增,并且[from, to]中4的倍数(从不修改的键)都在
+     */
+    private static void assertSortedAndContainsStable(List<Object> values, int from, int to) {
+        Set<Integer> seen = new HashSet<>();
+        int previous = -1;
+        for (Object value : values) {
+            int key = (Integer) value;
+            assertTrue(key > previous, key + " after " + previous);
+            previous = key;
+            seen.add(key);
+        }
+        for (int key = (from + 3) / 4 * 4; key <= to; key += 4) {
+            assertTrue(seen.contains(key), "missing stable key " + key);
+        }
+    }
+
+    /**
+     * 点查、范围查询、全量扫描和惰性迭代器的结果都正好是expected(升序)
+     */
+    private static void assertTreeContains(SecondaryIndex index, List<Integer> expected) {
+        for (int key : expected) {
+            assertEquals(key, index.search(key(key)), "key " + key);
+        }
+
+        List<Object> expectedValues = new ArrayList<>(expected);
+        assertEquals(expectedValues, index.getAll());
+        assertEquals(expectedValues, index.rangeSearch(key(expected.get(0)), key(expected.get(expected.size() - 1))));
+
+        List<Object> lazy = new ArrayList<>();
+        index.getAllLazy().forEachRemaining(lazy::add);
+        assertEquals(expectedValues, lazy);
+    }
+
+    private static List<Integer> allKeys(int count) {
+        List<Integer> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(i);
+        }
+        return keys;
+    }
+
+    private static List<Integer> shuffledKeys(int count, long seed) {
+        List<Integer> keys = allKeys(count);
+        Collections.shuffle(keys, new Random(seed));
+        return keys;
+    }
+}
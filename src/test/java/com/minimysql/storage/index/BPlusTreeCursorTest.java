@@ -0,0 +1,287 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+树游标测试
+ *
+ * - 包含/不包含的边界,组合键上按前缀比较
+ * - 双向移动越过叶子,seek定位
+ * - 只读前几条时只访问根到叶的路径
+ * - 停下之后叶子被分裂、当前条目被删除时按键恢复位置
+ * - 聚簇索引和二级索引的行游标(二级索引回表)
+ */
+@DisplayName("BPlusTreeCursorTest - B+树游标测试")
+class BPlusTreeCursorTest {
+
+    private static final String TEST_DATA_DIR = "test_bptree_cursor";
+
+    /** 偶数键0, 2, ..., 2 * (KEY_COUNT - 1),至少三层 */
+    private static final int KEY_COUNT = 20_000;
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(1024, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("边界:包含/不包含的上下界,seek小于下界时从下界开始")
+    void testBounds() {
+        SecondaryIndex index = evenKeys(1);
+
+        try (IndexCursor cursor = index.openCursor(KeyEncoder.encodeInt(100), true, KeyEncoder.encodeInt(200), true)) {
+            List<Integer> keys = forward(cursor);
+            assertEquals(51, keys.size());
+            assertEquals(100, keys.get(0));
+            assertEquals(200, keys.get(keys.size() - 1));
+
+            assertTrue(cursor.seekToLast());
+            assertEquals(200, cursor.value());
+            assertTrue(cursor.seek(KeyEncoder.encodeInt(151)));
+            assertEquals(152, cursor.value());
+            assertTrue(cursor.seek(KeyEncoder.encodeInt(-5)));
+            assertEquals(100, cursor.value());
+            assertFalse(cursor.seek(KeyEncoder.encodeInt(201)));
+            assertFalse(cursor.isValid());
+            assertFalse(cursor.next());
+        }
+
+        try (IndexCursor cursor = index.openCursor(KeyEncoder.encodeInt(100), false, KeyEncoder.encodeInt(200), false)) {
+            List<Integer> keys = forward(cursor);
+            assertEquals(49, keys.size());
+            assertEquals(102, keys.get(0));
+            assertEquals(198, keys.get(keys.size() - 1));
+
+            assertTrue(cursor.seekToLast());
+            assertEquals(198, cursor.value());
+        }
+
+        try (IndexCursor cursor = index.openCursor(KeyEncoder.encodeInt(101), true, KeyEncoder.encodeInt(101), true)) {
+            assertFalse(cursor.seekToFirst());
+            assertFalse(cursor.seekToLast());
+        }
+    }
+
+    @Test
+    @DisplayName("双向移动:向前和向后遍历整个索引,越过所有叶子,结果互为逆序")
+    void testForwardAndBackward() {
+        SecondaryIndex index = evenKeys(2);
+        assertTrue(index.getHeight() >= 2);
+
+        try (IndexCursor cursor = index.openCursor()) {
+            List<Integer> forward = forward(cursor);
+            assertEquals(KEY_COUNT, forward.size());
+            for (int i = 0; i < KEY_COUNT; i++) {
+                assertEquals(i * 2, forward.get(i));
+            }
+
+            List<Integer> backward = new ArrayList<>();
+            for (boolean ok = cursor.seekToLast(); ok; ok = cursor.prev()) {
+                backward.add((Integer) cursor.value());
+            }
+            assertEquals(KEY_COUNT, backward.size());
+            for (int i = 0; i < KEY_COUNT; i++) {
+                assertEquals(forward.get(i), backward.get(KEY_COUNT - 1 - i));
+            }
+
+            // 来回移动
+            assertTrue(cursor.seek(KeyEncoder.encodeInt(10_001)));
+            assertEquals(10_002, cursor.value());
+            assertTrue(cursor.prev());
+            assertEquals(10_000, cursor.value());
+            assertTrue(cursor.next());
+            assertTrue(cursor.next());
+            assertEquals(10_004, cursor.value());
+
+            assertTrue(cursor.seekToFirst());
+            assertFalse(cursor.prev());
+            assertFalse(cursor.isValid());
+        }
+    }
+
+    @Test
+    @DisplayName("组合键:(value, pk)上以(value)为界,包含时包含所有重复值,不包含时全部排除")
+    void testPrefixBoundsOnCompositeKeys() {
+        SecondaryIndex index = new SecondaryIndex(3, "idx_group", "group_id", 0, false, null, bufferPool, pageManager);
+        for (int pk = 0; pk < 5000; pk++) {
+            index.insertEntry(pk % 100, pk);
+        }
+
+        try (RowCursor cursor = index.openRowCursor(10, false, 12, true)) {
+            List<Object> primaryKeys = new ArrayList<>();
+            for (boolean ok = cursor.first(); ok; ok = cursor.next()) {
+                primaryKeys.add(cursor.primaryKey());
+            }
+            assertEquals(100, primaryKeys.size());
+            assertEquals(11, primaryKeys.get(0));
+            assertEquals(12, primaryKeys.get(50));
+            assertEquals(4912, primaryKeys.get(99));
+
+            assertTrue(cursor.last());
+            assertEquals(4912, cursor.primaryKey());
+            assertTrue(cursor.seek(12));
+            assertEquals(12, cursor.primaryKey());
+            assertTrue(cursor.prev());
+            assertEquals(4911, cursor.primaryKey());
+        }
+    }
+
+    @Test
+    @DisplayName("提前结束:只读前几条时只访问根到叶的路径")
+    void testEarlyTermination() {
+        SecondaryIndex index = evenKeys(4);
+
+        long before = index.getNodeReadCount();
+        try (IndexCursor cursor = index.openCursor(KeyEncoder.encodeInt(5000), true, null, true)) {
+            assertTrue(cursor.seekToFirst());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(5000 + i * 2, cursor.value());
+                assertTrue(cursor.next());
+            }
+        }
+        // 根到叶的路径,加上至多一个相邻的叶子
+        assertTrue(index.getNodeReadCount() - before <= index.getHeight() + 1,
+                "node reads " + (index.getNodeReadCount() - before));
+    }
+
+    @Test
+    @DisplayName("恢复位置:停下之后叶子分裂、当前条目被删除,按键继续移动")
+    void testRestoreAfterModification() {
+        SecondaryIndex index = evenKeys(5);
+
+        try (IndexCursor cursor = index.openCursor()) {
+            assertTrue(cursor.seek(KeyEncoder.encodeInt(20_000)));
+            assertEquals(20_000, cursor.value());
+
+            // 在当前键前后插入足够多的奇数键,当前叶子一定分裂
+            for (int key = 18_001; key < 22_000; key += 2) {
+                index.insertKey(KeyEncoder.encodeInt(key), key);
+            }
+            assertTrue(cursor.next());
+            assertEquals(20_001, cursor.value());
+            assertTrue(cursor.prev());
+            assertTrue(cursor.prev());
+            assertEquals(19_999, cursor.value());
+
+            // 删除当前条目:值读不到了,仍然能向两边移动
+            assertTrue(cursor.seek(KeyEncoder.encodeInt(30_000)));
+            index.deleteKey(KeyEncoder.encodeInt(30_000));
+            assertNull(cursor.value());
+            assertArrayEquals(KeyEncoder.encodeInt(30_000), cursor.key());
+            assertTrue(cursor.next());
+            assertEquals(30_002, cursor.value());
+            assertTrue(cursor.prev());
+            assertEquals(29_998, cursor.value());
+        }
+    }
+
+    @Test
+    @DisplayName("关闭和未定位:空树定位失败,关闭后不能再使用")
+    void testCloseAndEmptyTree() {
+        SecondaryIndex index = new SecondaryIndex(6, "idx_empty", "k", 0, true, null, bufferPool, pageManager);
+
+        IndexCursor cursor = index.openCursor();
+        assertFalse(cursor.seekToFirst());
+        assertFalse(cursor.seekToLast());
+        assertThrows(IllegalStateException.class, cursor::key);
+        assertThrows(IllegalStateException.class, cursor::value);
+
+        cursor.close();
+        cursor.close();
+        assertThrows(IllegalStateException.class, cursor::seekToFirst);
+        assertThrows(IllegalStateException.class, cursor::next);
+    }
+
+    @Test
+    @DisplayName("行游标:聚簇索引按主键范围反序列化,二级索引回表查询完整行")
+    void testRowCursors() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 50, false),
+                new Column("city", DataType.VARCHAR, 50, false)
+        );
+        ClusteredIndex clusteredIndex = new ClusteredIndex(7, "id", 0, bufferPool, pageManager);
+        clusteredIndex.setTable(new Table(7, "users", columns));
+        SecondaryIndex cityIndex = new SecondaryIndex(7, "idx_city", "city", 0, false, clusteredIndex,
+                bufferPool, new PageManager(TEST_DATA_DIR));
+
+        for (int id = 0; id < 3000; id++) {
+            Row row = new Row(new Object[]{id, "user" + id, "city" + (id % 30)});
+            clusteredIndex.insertRow(row);
+            cityIndex.insertRowEntry(row, 2);
+        }
+
+        try (RowCursor cursor = clusteredIndex.openRowCursor(10, true, 20, false)) {
+            List<Object> ids = new ArrayList<>();
+            for (boolean ok = cursor.first(); ok; ok = cursor.next()) {
+                assertEquals("user" + cursor.primaryKey(), cursor.row().getValue(1));
+                ids.add(cursor.row().getValue(0));
+            }
+            assertEquals(10, ids.size());
+            assertEquals(10, ids.get(0));
+            assertEquals(19, ids.get(9));
+        }
+
+        try (RowCursor cursor = cityIndex.openRowCursor("city7", true, "city7", true)) {
+            int count = 0;
+            for (boolean ok = cursor.first(); ok; ok = cursor.next()) {
+                Row row = cursor.row();
+                assertEquals("city7", row.getValue(2));
+                assertEquals(7 + count * 30, row.getValue(0));
+                count++;
+            }
+            assertEquals(100, count);
+        }
+
+        try (RowCursor cursor = clusteredIndex.openRowCursor(null, true, null, true)) {
+            assertTrue(cursor.last());
+            assertEquals(2999, cursor.primaryKey());
+        }
+    }
+
+    /**
+     * 唯一索引,键和值都是0, 2, ..., 2 * (KEY_COUNT - 1)
+     */
+    private SecondaryIndex evenKeys(int tableId) {
+        SecondaryIndex index = new SecondaryIndex(tableId, "idx_even", "k", 0, true, null, bufferPool, pageManager);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            index.insertKey(KeyEncoder.encodeInt(i * 2), i * 2);
+        }
+        return index;
+    }
+
+    private static List<Integer> forward(IndexCursor cursor) {
+        List<Integer> values = new ArrayList<>();
+        for (boolean ok = cursor.seekToFirst(); ok; ok = cursor.next()) {
+            values.add((Integer) cursor.value());
+        }
+        return values;
+    }
+}
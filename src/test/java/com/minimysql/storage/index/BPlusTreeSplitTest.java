@@ -0,0 +1,192 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+树分裂/合并传播测试
+ *
+ * 分裂和合并沿下降时记录的路径向上传播:
+ * - 顺序和随机插入后,每个键都能查到,叶子链表有序且完整
+ * - 一次插入读取的节点数不超过两倍树高(不再从根重新查找父节点)
+ * - 删除一半的键后剩下的都在,全部删除后树降回一层,合并掉的页被回收
+ */
+@DisplayName("BPlusTreeSplitTest - B+树分裂合并传播测试")
+class BPlusTreeSplitTest {
+
+    private static final String TEST_DATA_DIR = "test_bptree_split";
+
+    private static final int KEYS = 20_000;
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(1024, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("顺序插入:所有键都能查到,范围查询有序且完整")
+    void testSequentialInsert() {
+        SecondaryIndex index = newIndex();
+        for (int i = 0; i < KEYS; i++) {
+            index.insertInt(i, i);
+        }
+
+        assertTrue(index.getHeight() >= 2);
+        assertAllPresent(index, 0, KEYS, 1);
+    }
+
+    @Test
+    @DisplayName("随机插入:所有键都能查到,范围查询有序且完整")
+    void testRandomInsert() {
+        SecondaryIndex index = newIndex();
+        for (int key : shuffledKeys(KEYS, 42)) {
+            index.insertInt(key, key);
+        }
+
+        assertTrue(index.getHeight() >= 2);
+        assertAllPresent(index, 0, KEYS, 1);
+        assertNull(index.searchInt(KEYS));
+    }
+
+    @Test
+    @DisplayName("一次插入读取的节点数不超过两倍树高")
+    void testNodeReadsPerInsert() {
+        SecondaryIndex index = newIndex();
+        for (int key : shuffledKeys(KEYS, 7)) {
+            index.insertInt(key, key);
+        }
+
+        int height = index.getHeight();
+        long total = 0;
+        long worst = 0;
+        for (int key = KEYS; key < KEYS * 2; key++) {
+            long before = index.getNodeReadCount();
+            index.insertInt(key, key);
+            long reads = index.getNodeReadCount() - before;
+            total += reads;
+            worst = Math.max(worst, reads);
+        }
+
+        // 乐观插入下降读height个节点;叶子放不下时悲观地再下降一次,父节点已经锁住,不再重读
+        assertTrue(worst <= 2L * index.getHeight(), "worst reads: " + worst + ", height " + height);
+        assertTrue((double) total / KEYS < height + 0.5, "average reads: " + (double) total / KEYS);
+    }
+
+    @Test
+    @DisplayName("删除一半的键:剩下的键都在;全部删除:树降回一层,页被回收")
+    void testDeleteHalfThenAll() {
+        SecondaryIndex index = newIndex();
+        for (int key : shuffledKeys(KEYS, 3)) {
+            index.insertInt(key, key);
+        }
+        int pagesBefore = pageManager.getAllocatedPageCount();
+
+        for (int key = 0; key < KEYS; key += 2) {
+            index.deleteInt(key);
+        }
+        assertAllPresent(index, 1, KEYS, 2);
+        for (int key = 0; key < KEYS; key += 2) {
+            assertNull(index.searchInt(key), "deleted key " + key);
+        }
+
+        for (int key : shuffledKeys(KEYS, 5)) {
+            index.deleteInt(key);
+        }
+        assertEquals(1, index.getHeight());
+        assertTrue(index.getAll().isEmpty());
+        assertTrue(pageManager.getAllocatedPageCount() < pagesBefore);
+
+        // 回收的页可以继续使用
+        for (int i = 0; i < KEYS; i++) {
+            index.insertInt(i, i);
+        }
+        assertAllPresent(index, 0, KEYS, 1);
+    }
+
+    @Test
+    @DisplayName("聚簇索引:随机VARCHAR主键和较大的行,插入删除后叶子链表仍然有序")
+    void testClusteredVarcharKeys() {
+        List<Column> columns = Arrays.asList(
+                new Column("name", DataType.VARCHAR, 64, false),
+                new Column("payload", DataType.VARCHAR, 600, false)
+        );
+        ClusteredIndex index = new ClusteredIndex(9, "name", 0, bufferPool, pageManager);
+        index.setTable(new Table(9, "wide_names", columns));
+
+        List<Integer> ids = shuffledKeys(2000, 11);
+        String payload = "p".repeat(600);
+        for (int id : ids) {
+            index.insertRow(new Row(new Object[]{String.format("user-%05d", id), payload}));
+        }
+        for (int id = 0; id < 2000; id += 3) {
+            index.delete(String.format("user-%05d", id));
+        }
+
+        List<Row> rows = index.getAllRows();
+        String previous = "";
+        int expected = 0;
+        for (Row row : rows) {
+            String name = (String) row.getValue(0);
+            assertTrue(name.compareTo(previous) > 0, name + " after " + previous);
+            previous = name;
+            expected++;
+        }
+        assertEquals(2000 - 667, expected);
+        assertNotNull(index.selectByPrimaryKey("user-01999"));
+        assertNull(index.selectByPrimaryKey("user-01998"));
+    }
+
+    private SecondaryIndex newIndex() {
+        return new SecondaryIndex(1, "idx_split", "c", 0, false, null, bufferPool, pageManager);
+    }
+
+    private static List<Integer> shuffledKeys(int count, long seed) {
+        List<Integer> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(seed));
+        return keys;
+    }
+
+    /**
+     * 检查[from, to)中步长为step的键:点查都能找到,范围查询和全量扫描的结果正好是这些键且有序
+     */
+    private static void assertAllPresent(SecondaryIndex index, int from, int to, int step) {
+        List<Object> expected = new ArrayList<>();
+        for (int key = from; key < to; key += step) {
+            assertEquals(key, index.searchInt(key), "key " + key);
+            expected.add(key);
+        }
+        assertEquals(expected, index.rangeSearchInt(from, to - 1));
+        assertEquals(expected, index.getAll());
+    }
+}
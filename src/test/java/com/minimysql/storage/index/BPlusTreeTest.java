@@ -327,6 +327,55 @@ class BPlusTreeTest {
         assertEquals("Alice", foundRow.getString(1));
     }
 
+    @Test
+    @DisplayName("VARCHAR主键范围查询按字符串顺序返回")
+    void testVarcharPrimaryKeyRange() {
+        List<Column> columns = Arrays.asList(
+                new Column("name", DataType.VARCHAR, 20, false),
+                new Column("age", DataType.INT, false)
+        );
+        ClusteredIndex nameIndex = new ClusteredIndex(102, "name", 0, bufferPool, pageManager);
+        nameIndex.setTable(new Table(102, "varchar_range_table", columns));
+
+        String[] names = {"dave", "alice", "carol", "bob", "ab", "abc", "erin", "b"};
+        for (int i = 0; i < names.length; i++) {
+            nameIndex.insertRow(new Row(new Object[]{names[i], i}));
+        }
+
+        List<Row> rows = nameIndex.rangeSelect("abc", "carol");
+        List<String> found = rows.stream().map(r -> r.getString(0)).toList();
+        assertEquals(List.of("abc", "alice", "b", "bob", "carol"), found);
+
+        // 哈希键时代的冲突:"Aa"和"BB"的hashCode相同
+        nameIndex.insertRow(new Row(new Object[]{"Aa", 100}));
+        nameIndex.insertRow(new Row(new Object[]{"BB", 200}));
+        assertEquals(100, nameIndex.selectByPrimaryKey("Aa").getInt(1));
+        assertEquals(200, nameIndex.selectByPrimaryKey("BB").getInt(1));
+    }
+
+    @Test
+    @DisplayName("BIGINT主键范围查询:负数和超出int范围的值")
+    void testBigintPrimaryKeyRange() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.BIGINT, false),
+                new Column("age", DataType.INT, false)
+        );
+        ClusteredIndex bigIndex = new ClusteredIndex(103, "id", 0, bufferPool, pageManager);
+        bigIndex.setTable(new Table(103, "bigint_range_table", columns));
+
+        long[] ids = {5_000_000_000L, -1L, 0L, Long.MIN_VALUE, 42L, -5_000_000_000L, Long.MAX_VALUE};
+        for (long id : ids) {
+            bigIndex.insertRow(new Row(new Object[]{id, 1}));
+        }
+
+        List<Row> rows = bigIndex.rangeSelect(-5_000_000_000L, 5_000_000_000L);
+        List<Long> found = rows.stream().map(r -> r.getLong(0)).toList();
+        assertEquals(List.of(-5_000_000_000L, -1L, 0L, 42L, 5_000_000_000L), found);
+
+        // INT字面量按列类型(BIGINT)编码
+        assertNotNull(bigIndex.selectByPrimaryKey(42));
+    }
+
     @Test
     @DisplayName("索引高度随插入增长")
     void testIndexHeightGrowth() {
@@ -0,0 +1,237 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.buffer.BufferPool;
+import com.minimysql.storage.page.PageManager;
+import com.minimysql.storage.table.Column;
+import com.minimysql.storage.table.DataType;
+import com.minimysql.storage.table.Row;
+import com.minimysql.storage.table.Table;
+import com.minimysql.testutil.TestHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量构建B+树测试
+ *
+ * - ExternalSorter:超过内存预算时写出run,多路归并后有序且稳定,临时文件被删除
+ * - BulkLoader:自底向上构建的树可以查询、范围扫描,之后还能正常插入和删除
+ * - 填充因子决定叶子数量
+ * - 聚簇索引和二级索引的批量构建:乱序输入、重复键拒绝
+ */
+@DisplayName("BulkLoaderTest - B+树批量构建测试")
+class BulkLoaderTest {
+
+    private static final String TEST_DATA_DIR = "test_bulk_loader";
+
+    private BufferPool bufferPool;
+    private PageManager pageManager;
+
+    @BeforeEach
+    void setUp() {
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+        bufferPool = new BufferPool(1024, TEST_DATA_DIR);
+        pageManager = new PageManager(TEST_DATA_DIR);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferPool.clear();
+        TestHelper.cleanupTestDir(TEST_DATA_DIR);
+    }
+
+    @Test
+    @DisplayName("外部排序:写出多个run后归并,结果有序,相同键保持加入顺序")
+    void testExternalSorterSpillsAndMerges() throws IOException {
+        Path tempDir = Files.createDirectories(Path.of(TEST_DATA_DIR, "sort"));
+        List<Integer> keys = shuffled(5000, 1);
+
+        try (ExternalSorter sorter = new ExternalSorter(16 * 1024, tempDir)) {
+            for (int key : keys) {
+                sorter.add(KeyEncoder.encodeInt(key / 2), key); // 每个键出现两次
+            }
+            assertTrue(sorter.getRunCount() > 1);
+
+            Iterator<ExternalSorter.Entry> it = sorter.sorted();
+            int count = 0;
+            byte[] previous = null;
+            while (it.hasNext()) {
+                ExternalSorter.Entry entry = it.next();
+                if (previous != null) {
+                    assertTrue(KeyEncoder.compare(previous, entry.key) <= 0);
+                }
+                assertArrayEquals(KeyEncoder.encodeInt((Integer) entry.value / 2), entry.key);
+                previous = entry.key;
+                count++;
+            }
+            assertEquals(5000, count);
+        }
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count(), "run files should be deleted");
+        }
+
+        // 稳定性:相同键按加入顺序输出(跨run也一样)
+        try (ExternalSorter sorter = new ExternalSorter(256, tempDir)) {
+            for (int i = 0; i < 100; i++) {
+                sorter.add(KeyEncoder.encodeInt(i % 3), i);
+            }
+            int previousKey = -1;
+            int previousValue = -1;
+            for (Iterator<ExternalSorter.Entry> it = sorter.sorted(); it.hasNext(); ) {
+                int value = (Integer) it.next().value;
+                if (value % 3 == previousKey) {
+                    assertTrue(value > previousValue);
+                }
+                previousKey = value % 3;
+                previousValue = value;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("批量构建的树:点查、范围扫描正确,之后还能插入和删除")
+    void testBulkLoadedTreeIsUsable() {
+        SecondaryIndex index = newIndex();
+        BulkLoader loader = new BulkLoader(index, BulkLoader.DEFAULT_FILL_FACTOR);
+        for (int i = 0; i < 50_000; i++) {
+            loader.add(KeyEncoder.encodeInt(i * 2), i * 2);
+        }
+        assertEquals(50_000, loader.finish());
+
+        assertTrue(index.getHeight() >= 2);
+        for (int i = 0; i < 50_000; i += 97) {
+            assertEquals(i * 2, index.searchInt(i * 2));
+            assertNull(index.searchInt(i * 2 + 1));
+        }
+        assertEquals(50_000, index.getAll().size());
+        assertEquals(List.of(100, 102, 104), index.rangeSearchInt(99, 105));
+
+        // 奇数插入到已经填满的叶子里,偶数删除
+        for (int i = 0; i < 20_000; i++) {
+            index.insertInt(i * 2 + 1, i * 2 + 1);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            index.deleteInt(i * 2);
+        }
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            expected.add(i * 2 + 1);
+        }
+        assertEquals(expected, index.rangeSearchInt(0, 39_999));
+        assertEquals(20_000 + 30_000, index.getAll().size());
+    }
+
+    @Test
+    @DisplayName("填充因子:0.5时叶子数量约为1.0时的两倍;只有几个键时根就是叶子")
+    void testFillFactor() {
+        int fullPages = loadAndCountPages(newIndex(), 1.0);
+        SecondaryIndex halfIndex = new SecondaryIndex(2, "idx_half", "c", 0, false, null, bufferPool,
+                new PageManager(TEST_DATA_DIR));
+        int halfPages = loadAndCountPages(halfIndex, 0.5);
+
+        assertTrue(halfPages >= fullPages * 1.8 && halfPages <= fullPages * 2.2,
+                "full=" + fullPages + ", half=" + halfPages);
+
+        SecondaryIndex small = new SecondaryIndex(3, "idx_small", "c", 0, false, null, bufferPool,
+                new PageManager(TEST_DATA_DIR));
+        BulkLoader loader = new BulkLoader(small, 0.9);
+        loader.add(KeyEncoder.encodeInt(1), 1);
+        loader.add(KeyEncoder.encodeInt(2), 2);
+        loader.finish();
+        assertEquals(1, small.getHeight());
+        assertEquals(2, small.searchInt(2));
+
+        assertThrows(IllegalArgumentException.class, () -> new BulkLoader(newIndex(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new BulkLoader(newIndex(), 1.5));
+    }
+
+    @Test
+    @DisplayName("未排序的键和非空的树被拒绝")
+    void testRejectsUnsortedKeysAndNonEmptyTree() {
+        SecondaryIndex index = newIndex();
+        BulkLoader loader = new BulkLoader(index, BulkLoader.DEFAULT_FILL_FACTOR);
+        loader.add(KeyEncoder.encodeInt(5), 5);
+        assertThrows(IllegalArgumentException.class, () -> loader.add(KeyEncoder.encodeInt(4), 4));
+
+        index.insertInt(1, 1);
+        assertThrows(IllegalStateException.class, () -> new BulkLoader(index, BulkLoader.DEFAULT_FILL_FACTOR));
+    }
+
+    @Test
+    @DisplayName("聚簇索引和二级索引:乱序行批量构建,重复的主键和唯一值被拒绝")
+    void testIndexBulkLoad() {
+        List<Column> columns = Arrays.asList(
+                new Column("id", DataType.INT, false),
+                new Column("name", DataType.VARCHAR, 64, false)
+        );
+        Table table = new Table(4, "people", columns);
+        ClusteredIndex clustered = new ClusteredIndex(4, "id", 0, bufferPool, pageManager);
+        clustered.setTable(table);
+
+        List<Row> rows = new ArrayList<>();
+        for (int id : shuffled(3000, 9)) {
+            rows.add(new Row(new Object[]{id, String.format("name-%04d", 2999 - id)}));
+        }
+        assertEquals(3000, clustered.bulkLoadRows(rows.iterator()));
+        assertEquals(3000, clustered.getAllRows().size());
+        assertEquals("name-2989", clustered.selectByPrimaryKey(10).getValue(1));
+
+        SecondaryIndex byName = new SecondaryIndex(4, "idx_name", "name", 0, true, clustered, bufferPool,
+                new PageManager(TEST_DATA_DIR));
+        assertEquals(3000, byName.bulkLoad(clustered.getAllRowsLazy(), 1));
+        assertEquals(10, byName.findPrimaryKey("name-2989"));
+        assertEquals(List.of(2999, 2998), byName.rangeSelect("name-0000", "name-0001"));
+
+        ClusteredIndex duplicates = new ClusteredIndex(5, "id", 0, bufferPool, new PageManager(TEST_DATA_DIR));
+        duplicates.setTable(new Table(5, "dup", columns));
+        List<Row> duplicateRows = List.of(
+                new Row(new Object[]{1, "a"}), new Row(new Object[]{2, "b"}), new Row(new Object[]{1, "c"}));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> duplicates.bulkLoadRows(duplicateRows.iterator()));
+        assertTrue(e.getMessage().contains("Duplicate entry '1'"), e.getMessage());
+
+        SecondaryIndex uniqueName = new SecondaryIndex(6, "idx_unique", "name", 0, true, clustered, bufferPool,
+                new PageManager(TEST_DATA_DIR));
+        List<Row> sameName = List.of(new Row(new Object[]{1, "same"}), new Row(new Object[]{2, "same"}));
+        assertThrows(IllegalArgumentException.class, () -> uniqueName.bulkLoad(sameName.iterator(), 1));
+    }
+
+    private SecondaryIndex newIndex() {
+        return new SecondaryIndex(1, "idx_bulk", "c", 0, false, null, bufferPool, pageManager);
+    }
+
+    private static int loadAndCountPages(SecondaryIndex index, double fillFactor) {
+        int before = index.getPageManager().getAllocatedPageCount();
+        BulkLoader loader = new BulkLoader(index, fillFactor);
+        for (int i = 0; i < 100_000; i++) {
+            loader.add(KeyEncoder.encodeInt(i), i);
+        }
+        loader.finish();
+        assertEquals(99_999, index.searchInt(99_999));
+        return index.getPageManager().getAllocatedPageCount() - before;
+    }
+
+    private static List<Integer> shuffled(int count, long seed) {
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, new Random(seed));
+        return values;
+    }
+}
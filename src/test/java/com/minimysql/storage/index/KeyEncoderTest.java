@@ -0,0 +1,186 @@
+package com.minimysql.storage.index;
+
+import com.minimysql.storage.table.DataType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeyEncoder单元测试
+ *
+ * 测试保序编码:编码后的字节串按无符号字典序排序,结果与列值的自然顺序一致。
+ * - 各列类型(INT/BIGINT/DOUBLE/DATE/VARCHAR/BOOLEAN)
+ * - NULL排在最前
+ * - VARCHAR的前缀和内嵌的0字节
+ * - 组合键逐列比较、前缀上界
+ */
+@DisplayName("KeyEncoder - 保序键编码测试")
+class KeyEncoderTest {
+
+    @Test
+    @DisplayName("INT:编码顺序与数值顺序一致,encodeInt与通用编码相同")
+    void testIntOrder() {
+        int[] values = {Integer.MIN_VALUE, -100000, -1, 0, 1, 255, 256, 100000, Integer.MAX_VALUE};
+        for (int i = 0; i + 1 < values.length; i++) {
+            assertTrue(KeyEncoder.compare(KeyEncoder.encodeInt(values[i]), KeyEncoder.encodeInt(values[i + 1])) < 0,
+                    values[i] + " < " + values[i + 1]);
+        }
+        for (int value : values) {
+            assertArrayEquals(KeyEncoder.encode(DataType.INT, value), KeyEncoder.encodeInt(value));
+            assertArrayEquals(KeyEncoder.encode(value), KeyEncoder.encodeInt(value));
+        }
+    }
+
+    @Test
+    @DisplayName("BIGINT和DATE:编码顺序与数值/时间顺序一致")
+    void testLongOrder() {
+        assertOrdered(DataType.BIGINT, Long.MIN_VALUE, -5_000_000_000L, -1L, 0L, 1L, 5_000_000_000L, Long.MAX_VALUE);
+        assertOrdered(DataType.TIMESTAMP, new Date(-1000L), new Date(0L), new Date(1_700_000_000_000L));
+        assertArrayEquals(KeyEncoder.encode(DataType.DATE, new Date(86_400_000L)),
+                KeyEncoder.encode(DataType.DATE, 86_400_000L));
+    }
+
+    @Test
+    @DisplayName("DOUBLE:负数、0、正数、无穷大的顺序正确,-0.0等于0.0")
+    void testDoubleOrder() {
+        assertOrdered(DataType.DOUBLE, Double.NEGATIVE_INFINITY, -1e300, -2.5, -1.0, -Double.MIN_VALUE,
+                0.0, Double.MIN_VALUE, 1.0, 2.5, 1e300, Double.POSITIVE_INFINITY);
+        assertArrayEquals(KeyEncoder.encode(DataType.DOUBLE, 0.0), KeyEncoder.encode(DataType.DOUBLE, -0.0));
+    }
+
+    @Test
+    @DisplayName("VARCHAR:前缀排在前面,内嵌的0字节不会截断字符串")
+    void testVarcharOrder() {
+        assertOrdered(DataType.VARCHAR, "", "\u0000", "\u0000a", "a", "a\u0000", "a\u0000b", "ab", "abc", "b", "中文");
+
+        byte[] embedded = KeyEncoder.encode(DataType.VARCHAR, "a\u0000b");
+        byte[] plain = KeyEncoder.encode(DataType.VARCHAR, "a");
+        assertNotEquals(0, KeyEncoder.compare(embedded, plain));
+    }
+
+    @Test
+    @DisplayName("NULL排在所有非NULL值前面,BOOLEAN false在true前面")
+    void testNullAndBoolean() {
+        byte[] nullKey = KeyEncoder.encode(DataType.INT, null);
+        assertTrue(KeyEncoder.compare(nullKey, KeyEncoder.encodeInt(Integer.MIN_VALUE)) < 0);
+        assertTrue(KeyEncoder.compare(KeyEncoder.encode(DataType.VARCHAR, null),
+                KeyEncoder.encode(DataType.VARCHAR, "")) < 0);
+
+        assertOrdered(DataType.BOOLEAN, false, true);
+    }
+
+    @Test
+    @DisplayName("组合键:先按第一列,第一列相同再按第二列")
+    void testTupleOrder() {
+        List<DataType> types = List.of(DataType.VARCHAR, DataType.INT);
+
+        byte[] ab1 = KeyEncoder.encode(types, List.of("ab", 1));
+        byte[] ab2 = KeyEncoder.encode(types, List.of("ab", 2));
+        byte[] abc0 = KeyEncoder.encode(types, List.of("abc", 0));
+        byte[] nullName = KeyEncoder.encode(types, Arrays.asList(null, 99));
+
+        assertTrue(KeyEncoder.compare(nullName, ab1) < 0);
+        assertTrue(KeyEncoder.compare(ab1, ab2) < 0);
+        assertTrue(KeyEncoder.compare(ab2, abc0) < 0);
+
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(types, List.of("ab")));
+    }
+
+    @Test
+    @DisplayName("前缀上界:包含前缀相同的组合键,不把长字符串当成短字符串的前缀")
+    void testWithinUpperBound() {
+        byte[] upper = KeyEncoder.encode(DataType.VARCHAR, "ab");
+        List<DataType> types = List.of(DataType.VARCHAR, DataType.INT);
+
+        assertTrue(KeyEncoder.withinUpperBound(KeyEncoder.encode(types, List.of("ab", Integer.MAX_VALUE)), upper));
+        assertTrue(KeyEncoder.withinUpperBound(KeyEncoder.encode(DataType.VARCHAR, "a"), upper));
+        assertTrue(KeyEncoder.withinUpperBound(upper, upper));
+        assertFalse(KeyEncoder.withinUpperBound(KeyEncoder.encode(DataType.VARCHAR, "abc"), upper));
+        assertFalse(KeyEncoder.withinUpperBound(KeyEncoder.encode(types, List.of("abc", 0)), upper));
+    }
+
+    @Test
+    @DisplayName("前缀比较和前缀后继:后继大于所有以前缀开头的键")
+    void testComparePrefixAndSuccessor() {
+        byte[] prefix = KeyEncoder.encodeInt(5);
+        byte[] composite = KeyEncoder.encode(List.of(DataType.INT, DataType.INT), List.of(5, Integer.MAX_VALUE));
+
+        assertEquals(0, KeyEncoder.comparePrefix(composite, prefix));
+        assertTrue(KeyEncoder.comparePrefix(KeyEncoder.encodeInt(4), prefix) < 0);
+        assertTrue(KeyEncoder.comparePrefix(KeyEncoder.encodeInt(6), prefix) > 0);
+
+        byte[] successor = KeyEncoder.prefixSuccessor(prefix);
+        assertTrue(KeyEncoder.compare(composite, successor) < 0);
+        assertTrue(KeyEncoder.compare(successor, KeyEncoder.encodeInt(6)) <= 0);
+
+        assertArrayEquals(new byte[]{1, 3}, KeyEncoder.prefixSuccessor(new byte[]{1, 2, (byte) 0xFF}));
+        assertNull(KeyEncoder.prefixSuccessor(new byte[]{(byte) 0xFF, (byte) 0xFF}));
+    }
+
+    @Test
+    @DisplayName("最短分隔键:大于左边、不大于右边,只保留到第一个不同的字节")
+    void testShortestSeparator() {
+        byte[] lower = KeyEncoder.encode(DataType.VARCHAR, "customer-000123-alpha");
+        byte[] upper = KeyEncoder.encode(DataType.VARCHAR, "customer-000124-beta");
+
+        assertEquals(KeyEncoder.encode(DataType.VARCHAR, "customer-00012").length - 2,
+                KeyEncoder.commonPrefixLength(lower, upper));
+        byte[] separator = KeyEncoder.shortestSeparator(lower, upper);
+        assertEquals(KeyEncoder.commonPrefixLength(lower, upper) + 1, separator.length);
+        assertTrue(KeyEncoder.compare(lower, separator) < 0);
+        assertTrue(KeyEncoder.compare(separator, upper) <= 0);
+
+        // 左边是右边的前缀:只能用整个右边的键
+        byte[] shorter = KeyEncoder.encodeInt(5);
+        byte[] longer = KeyEncoder.encode(List.of(DataType.INT, DataType.INT), List.of(5, 1));
+        byte[] prefixSeparator = KeyEncoder.shortestSeparator(shorter, longer);
+        assertTrue(KeyEncoder.compare(shorter, prefixSeparator) < 0);
+        assertTrue(KeyEncoder.compare(prefixSeparator, longer) <= 0);
+
+        // 相同的键(或者没有排序):返回右边的键
+        assertSame(upper, KeyEncoder.shortestSeparator(upper, upper));
+        assertEquals(upper.length, KeyEncoder.commonPrefixLength(upper, upper.clone()));
+    }
+
+    @Test
+    @DisplayName("类型不匹配的值被拒绝")
+    void testTypeMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, "1"));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.BOOLEAN, 1));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(new Object()));
+    }
+
+    @Test
+    @DisplayName("整数列不截断:超出范围或带小数的值被拒绝,无损的值与整数编码相同")
+    void testIntegerKeysNotTruncated() {
+        // 4294967301 = 2^32 + 5,截断成INT就是5
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, 4294967301L));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, (long) Integer.MAX_VALUE + 1));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, 5.5));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, 4294967301.0));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.INT, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.BIGINT, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.BIGINT, 1e19));
+        assertThrows(IllegalArgumentException.class, () -> KeyEncoder.encode(DataType.BIGINT, Double.POSITIVE_INFINITY));
+
+        assertArrayEquals(KeyEncoder.encode(DataType.INT, 5), KeyEncoder.encode(DataType.INT, 5L));
+        assertArrayEquals(KeyEncoder.encode(DataType.INT, 5), KeyEncoder.encode(DataType.INT, 5.0));
+        assertArrayEquals(KeyEncoder.encode(DataType.INT, Integer.MIN_VALUE),
+                KeyEncoder.encode(DataType.INT, (long) Integer.MIN_VALUE));
+        assertArrayEquals(KeyEncoder.encode(DataType.BIGINT, Long.MIN_VALUE),
+                KeyEncoder.encode(DataType.BIGINT, -0x1p63));
+    }
+
+    private static void assertOrdered(DataType type, Object... values) {
+        for (int i = 0; i + 1 < values.length; i++) {
+            byte[] left = KeyEncoder.encode(type, values[i]);
+            byte[] right = KeyEncoder.encode(type, values[i + 1]);
+            assertTrue(KeyEncoder.compare(left, right) < 0, values[i] + " < " + values[i + 1]);
+        }
+    }
+}
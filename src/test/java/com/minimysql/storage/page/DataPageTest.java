@@ -3,6 +3,7 @@ package com.minimysql.storage.page;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -15,6 +16,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * - 行数据的插入、读取、删除
  * - 自由空间管理
  * - 边界情况处理
+ * - 只读视图(wrap)的写时复制
  */
 @DisplayName("DataPage - 数据页管理测试")
 class DataPageTest {
@@ -237,4 +239,37 @@ class DataPageTest {
 
         assertEquals(expectedFreeSpace, page.getFreeSpace());
     }
+
+    @Test
+    @DisplayName("包装只读页内容:读不复制,第一次修改时复制,原内容不变")
+    void testWrapReadOnlyCopyOnWrite() {
+        DataPage original = new DataPage();
+        original.setPageId(7);
+        original.insertRow("row0".getBytes());
+        ByteBuffer readOnly = ByteBuffer.wrap(original.toBytes().clone()).asReadOnlyBuffer();
+
+        DataPage view = DataPage.wrap(readOnly);
+        assertTrue(view.isReadOnlyView());
+        assertEquals(7, view.getPageId());
+        assertArrayEquals("row0".getBytes(), view.getRow(0));
+
+        // 同样的页号不触发复制
+        view.setPageId(7);
+        assertTrue(view.isReadOnlyView());
+
+        view.insertRow("row1".getBytes());
+        assertFalse(view.isReadOnlyView());
+        assertEquals(2, view.getRowCount());
+        assertArrayEquals("row0".getBytes(), view.getRow(0));
+
+        // 原来的只读内容没有被修改
+        DataPage reread = DataPage.wrap(readOnly);
+        assertEquals(1, reread.getRowCount());
+    }
+
+    @Test
+    @DisplayName("包装的页内容大小不是16KB时抛异常")
+    void testWrapInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> DataPage.wrap(ByteBuffer.allocate(100)));
+    }
 }
@@ -0,0 +1,175 @@
+package com.minimysql.storage.page;
+
+import com.minimysql.storage.index.BPlusTreeNode;
+import com.minimysql.storage.index.KeyEncoder;
+import com.minimysql.storage.table.DataType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexPage单元测试
+ *
+ * 测试索引页上的B+树节点:
+ * - 节点序列化后再反序列化内容不变
+ * - keyAt/childAt/valueSlice直接读页内容,结果与反序列化的节点一致
+ * - 在页上二分查找与BPlusTreeNode.findKeyPosition/findChildIndex语义相同(包括变长键)
+ * - 只读视图(内存映射)上也能直接读取
+ */
+@DisplayName("IndexPage - 索引页测试")
+class IndexPageTest {
+
+    @Test
+    @DisplayName("新页和清空的页上没有节点")
+    void testEmptyPageHasNoNode() {
+        IndexPage page = new IndexPage();
+        assertFalse(page.hasNode());
+
+        page.setNode(leafWithInts(1, 2, 3));
+        assertTrue(page.hasNode());
+
+        page.clear();
+        assertFalse(page.hasNode());
+    }
+
+    @Test
+    @DisplayName("内部节点:直接读取键和子节点")
+    void testInternalNodeInPlace() {
+        BPlusTreeNode node = new BPlusTreeNode(false);
+        node.setKeyCount(3);
+        for (int i = 0; i < 3; i++) {
+            node.setKey(i, key((i + 1) * 10));
+        }
+        for (int i = 0; i < 4; i++) {
+            node.setChild(i, 100 + i);
+        }
+
+        IndexPage page = new IndexPage(node);
+
+        assertFalse(page.isLeafNode());
+        assertEquals(3, page.getKeyCount());
+        assertArrayEquals(key(20), page.keyAt(1));
+        assertEquals(103, page.childAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> page.childAt(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> page.keyAt(3));
+    }
+
+    @Test
+    @DisplayName("整数叶子:直接读取值")
+    void testIntLeafInPlace() {
+        IndexPage page = new IndexPage(leafWithInts(5, 7, 9));
+
+        assertTrue(page.isLeafNode());
+        assertArrayEquals(key(7), page.keyAt(1));
+        assertEquals(70, page.valueAt(1));
+    }
+
+    @Test
+    @DisplayName("Row数据叶子:通过槽位直接取出每条记录的切片")
+    void testBytesLeafSlots() {
+        BPlusTreeNode node = new BPlusTreeNode(true);
+        node.setValueType(BPlusTreeNode.VALUE_TYPE_BYTES);
+        String[] rows = {"a", "longer row", "", "xyz"};
+        for (int i = 0; i < rows.length; i++) {
+            node.insertKeyValue(key(i), rows[i].getBytes());
+        }
+
+        IndexPage page = new IndexPage(node);
+
+        for (int i = 0; i < rows.length; i++) {
+            ByteBuffer slice = page.valueSlice(i);
+            assertTrue(slice.isReadOnly());
+            byte[] bytes = new byte[slice.remaining()];
+            slice.get(bytes);
+            assertEquals(rows[i], new String(bytes));
+            assertArrayEquals(rows[i].getBytes(), (byte[]) page.valueAt(i));
+        }
+    }
+
+    @Test
+    @DisplayName("在页上二分查找与节点上的findKeyPosition结果相同")
+    void testFindKeyPositionMatchesNode() {
+        BPlusTreeNode node = leafWithInts(-50, -3, 0, 4, 8, 15, 16, 23, 42);
+        IndexPage page = new IndexPage(node);
+
+        for (int key = -60; key <= 60; key++) {
+            assertEquals(node.findKeyPosition(key(key)), page.findKeyPosition(key(key)), "key " + key);
+            assertEquals(node.findChildIndex(key(key)), page.findChildIndex(key(key)), "key " + key);
+        }
+
+        // 等于分隔键时走右边的子节点
+        assertEquals(3, page.findChildIndex(key(0)));
+        assertEquals(3, page.findChildIndex(key(1)));
+    }
+
+    @Test
+    @DisplayName("变长VARCHAR键:页上的比较与节点上的结果相同")
+    void testVarcharKeysInPlace() {
+        BPlusTreeNode node = new BPlusTreeNode(true);
+        String[] names = {"", "a", "ab", "abc", "b", "ba", "zzzz", "中文"};
+        for (int i = names.length - 1; i >= 0; i--) {
+            node.insertKeyValue(KeyEncoder.encode(DataType.VARCHAR, names[i]), i);
+        }
+
+        IndexPage page = new IndexPage(node);
+
+        for (int i = 0; i < names.length; i++) {
+            byte[] key = KeyEncoder.encode(DataType.VARCHAR, names[i]);
+            assertArrayEquals(key, page.keyAt(i));
+            assertEquals(0, page.compareKeyAt(i, key));
+            assertEquals(i, page.findKeyPosition(key));
+            assertEquals(i, page.valueAt(i));
+        }
+
+        byte[] missing = KeyEncoder.encode(DataType.VARCHAR, "aa");
+        assertEquals(node.findKeyPosition(missing), page.findKeyPosition(missing));
+        assertEquals(2, page.findKeyPosition(missing));
+    }
+
+    @Test
+    @DisplayName("序列化再反序列化:节点内容不变")
+    void testRoundTrip() {
+        BPlusTreeNode node = new BPlusTreeNode(true);
+        node.setValueType(BPlusTreeNode.VALUE_TYPE_BYTES);
+        node.setNextLeafPageId(12);
+        node.insertKeyValue(key(3), "three".getBytes());
+        node.insertKeyValue(key(1), "one".getBytes());
+
+        IndexPage page = new IndexPage();
+        page.fromBytes(new IndexPage(node).getData());
+        BPlusTreeNode restored = page.getNode();
+
+        assertTrue(restored.isLeaf());
+        assertEquals(BPlusTreeNode.VALUE_TYPE_BYTES, restored.getValueType());
+        assertEquals(12, restored.getNextLeafPageId());
+        assertEquals(2, restored.getKeyCount());
+        assertArrayEquals(key(1), restored.getKey(0));
+        assertArrayEquals("three".getBytes(), (byte[]) restored.getValue(1));
+    }
+
+    @Test
+    @DisplayName("只读视图上直接读取不会触发复制")
+    void testReadOnlyViewInPlace() {
+        IndexPage source = new IndexPage(leafWithInts(1, 2, 3));
+        IndexPage view = IndexPage.wrap(ByteBuffer.wrap(source.getData()).asReadOnlyBuffer());
+
+        assertEquals(1, view.findKeyPosition(key(2)));
+        assertEquals(30, view.valueAt(2));
+        assertTrue(view.isReadOnlyView());
+    }
+
+    private static BPlusTreeNode leafWithInts(int... keys) {
+        BPlusTreeNode node = new BPlusTreeNode(true);
+        for (int key : keys) {
+            node.insertKeyValue(key(key), key * 10);
+        }
+        return node;
+    }
+
+    private static byte[] key(int value) {
+        return KeyEncoder.encodeInt(value);
+    }
+}